@@ -0,0 +1,59 @@
+#!/usr/bin/env python3
+"""지정한 시간 동안 여러 연결로 같은 GET 요청을 반복하고 처리량과 응답 시간을 출력한다.
+
+    scripts/http-load.py URL [동시 연결 수] [시간(초)]
+"""
+import http.client
+import sys
+import threading
+import time
+from collections import Counter
+from urllib.parse import urlsplit
+
+
+def worker(url, deadline, latencies, statuses):
+    parts = urlsplit(url)
+    path = parts.path + ("?" + parts.query if parts.query else "")
+    connection = http.client.HTTPConnection(parts.hostname, parts.port or 80, timeout=10)
+    while time.perf_counter() < deadline:
+        started = time.perf_counter()
+        try:
+            connection.request("GET", path)
+            response = connection.getresponse()
+            response.read()
+            statuses[response.status] += 1
+        except (OSError, http.client.HTTPException):
+            statuses["error"] += 1
+            connection.close()
+            connection = http.client.HTTPConnection(parts.hostname, parts.port or 80, timeout=10)
+            continue
+        latencies.append(time.perf_counter() - started)
+    connection.close()
+
+
+def main():
+    url = sys.argv[1]
+    concurrency = int(sys.argv[2]) if len(sys.argv) > 2 else 16
+    duration = float(sys.argv[3]) if len(sys.argv) > 3 else 10
+    deadline = time.perf_counter() + duration
+    latencies, statuses = [], Counter()
+    threads = [threading.Thread(target=worker, args=(url, deadline, latencies, statuses)) for _ in range(concurrency)]
+    for thread in threads:
+        thread.start()
+    for thread in threads:
+        thread.join()
+
+    latencies.sort()
+    if not latencies:
+        print("no successful requests", dict(statuses))
+        return
+
+    def percentile(p):
+        return latencies[min(len(latencies) - 1, int(len(latencies) * p))] * 1000
+
+    print("%8.0f req/s  p50 %6.2f ms  p99 %6.2f ms  %s" % (
+        len(latencies) / duration, percentile(0.5), percentile(0.99), dict(statuses)))
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,18 @@
+#!/usr/bin/env bash
+# 생성된 JSON 코덱과 Jackson 의 도메인 객체 직렬화 처리량을 JMH 로 비교한다.
+#
+#   scripts/json-benchmark.sh [JMH 옵션]
+#
+# 테스트 코드의 JsonCodecBenchmark 를 컴파일하여 -prof gc 로 실행한다. 처리량은 ops/ms, 할당량은 gc.alloc.rate.norm,
+# JSON 크기는 각 포크의 Setup 출력으로 확인한다. 예) scripts/json-benchmark.sh -p attended=500 -t 4
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAVA=${JAVA:-java}
+CLASSPATH_FILE=$(mktemp)
+trap 'rm -f "$CLASSPATH_FILE"' EXIT
+
+cd "$ROOT"
+mvn -q -B test-compile dependency:build-classpath -Dmdep.outputFile="$CLASSPATH_FILE" -Dmdep.includeScope=test
+exec "$JAVA" -cp "$ROOT/target/test-classes:$ROOT/target/classes:$(cat "$CLASSPATH_FILE")" \
+  org.openjdk.jmh.Main JsonCodecBenchmark -prof gc "$@"
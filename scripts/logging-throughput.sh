@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# GET /professors/subjects/{name} 의 처리량을 로그 설정별로 비교한다.
+#
+#   mvn package
+#   scripts/logging-throughput.sh [시간(초)] [동시 연결 수]
+#
+# on      : 모든 요청의 로그를 기록 (컨트롤러, 서비스, 리포지토리에서 요청마다 3줄)
+# sampled : log-sampling.rules 로 1% 의 요청만 기록
+# off     : 애플리케이션 로그 레벨을 WARN 으로 올려 요청 로그를 기록하지 않음
+#
+# 로그는 실제 운영과 같이 파일로 리다이렉트한다. APP_CMD 로 실행 명령을 바꿀 수 있다.
+set -euo pipefail
+
+DURATION=${1:-15}
+CONCURRENCY=${2:-16}
+PORT=${PORT:-18081}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+APP_CMD=${APP_CMD:-"java -jar $(ls "$ROOT"/target/demo-monolithic-*.jar | grep -v -e fast-start -e '\.original$' | head -1)"}
+URL="http://localhost:$PORT/professors/subjects/Music"
+LOG_FILE=$(mktemp)
+trap 'rm -f "$LOG_FILE"' EXIT
+
+run() {
+  local name=$1; shift
+  local pid
+  $APP_CMD --server.port="$PORT" --admission.enabled=false "$@" > "$LOG_FILE" 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "$URL"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "application exited before responding" >&2
+      return 1
+    fi
+    sleep 0.2
+  done
+  # JIT 워밍업
+  python3 "$ROOT/scripts/http-load.py" "$URL" "$CONCURRENCY" 5 > /dev/null
+  printf '%-8s ' "$name"
+  python3 "$ROOT/scripts/http-load.py" "$URL" "$CONCURRENCY" "$DURATION"
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  printf '%-8s log lines: %d\n' "" "$(wc -l < "$LOG_FILE")"
+}
+
+echo "GET /professors/subjects/Music, $CONCURRENCY connections, $DURATION s"
+run on
+run sampled --log-sampling.rules='/professors/subjects/**=0.01'
+run off --logging.level.com.schooldevops.monolithic.demomonolithic=WARN
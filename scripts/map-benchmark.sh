@@ -0,0 +1,18 @@
+#!/usr/bin/env bash
+# 저장소 아이디 인덱스의 long 키 맵을 HashMap, ConcurrentHashMap 과 JMH 로 비교한다.
+#
+#   scripts/map-benchmark.sh [JMH 옵션]
+#
+# 테스트 코드의 LongObjectMapBenchmark 를 컴파일하여 -prof gc 로 실행한다. 조회 지연은 ns/op, 할당량은 gc.alloc.rate.norm,
+# 항목당 바이트는 각 포크의 Setup 출력(JOL)으로 확인한다. 예) scripts/map-benchmark.sh -p size=1000000 -f 2
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAVA=${JAVA:-java}
+CLASSPATH_FILE=$(mktemp)
+trap 'rm -f "$CLASSPATH_FILE"' EXIT
+
+cd "$ROOT"
+mvn -q -B test-compile dependency:build-classpath -Dmdep.outputFile="$CLASSPATH_FILE" -Dmdep.includeScope=test
+exec "$JAVA" -cp "$ROOT/target/test-classes:$ROOT/target/classes:$(cat "$CLASSPATH_FILE")" \
+  org.openjdk.jmh.Main LongObjectMapBenchmark -prof gc "$@"
@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+# 시작 후 첫 요청에 응답하기까지의 시간(time-to-first-request)을 비교한다.
+#
+#   mvn -Pfast-start package
+#   scripts/startup-benchmark.sh [반복 횟수]
+#
+# baseline   : 기본 실행 jar (java -jar target/*.jar)
+# fast-start : 의존성을 풀어놓은 jar + 지연 초기화 + 초기화 지연 (fast-start 프로파일)
+# fast-start+cds : fast-start 에 빌드할때 만든 AppCDS 아카이브를 함께 사용
+#
+# 측정값은 프로세스를 시작한 시각부터 GET /students 가 200 으로 응답한 시각까지이며, 반복 실행한 중앙값을 출력한다.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18081}
+JAVA=${JAVA:-java}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+TARGET="$ROOT/target"
+BOOT_JAR=$(ls "$TARGET"/demo-monolithic-*.jar | grep -v -e fast-start -e '\.original$' | head -1)
+FAST_DIR="$TARGET/fast-start"
+FAST_JAR=$(ls "$FAST_DIR"/demo-monolithic-*-fast-start.jar | head -1)
+
+now_ms() {
+  date +%s%3N
+}
+
+# 애플리케이션을 실행하고 첫 응답까지의 시간(ms)을 출력한다.
+measure() {
+  local dir=$1; shift
+  local started pid elapsed
+  started=$(now_ms)
+  (cd "$dir" && exec "$JAVA" "$@" --server.port="$PORT") > /dev/null 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "http://localhost:$PORT/students"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "application exited before responding" >&2
+      return 1
+    fi
+    sleep 0.005
+  done
+  elapsed=$(( $(now_ms) - started ))
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  echo "$elapsed"
+}
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+run() {
+  local name=$1; shift
+  local results=()
+  measure "$@" > /dev/null
+  for _ in $(seq "$RUNS"); do
+    results+=("$(measure "$@")")
+  done
+  printf '%-16s median %5d ms  (%s)\n' "$name" "$(printf '%s\n' "${results[@]}" | median)" "${results[*]}"
+}
+
+echo "time-to-first-request, $RUNS runs each (after one warm-up run)"
+run baseline "$TARGET" -jar "$BOOT_JAR"
+run fast-start "$FAST_DIR" -jar "$FAST_JAR" --spring.profiles.active=fast-start
+if [[ -f "$FAST_DIR/app-cds.jsa" ]]; then
+  run fast-start+cds "$FAST_DIR" -XX:SharedArchiveFile=app-cds.jsa -jar "$FAST_JAR" --spring.profiles.active=fast-start
+else
+  echo "fast-start+cds  skipped, $FAST_DIR/app-cds.jsa not found (build with mvn -Pfast-start package)"
+fi
@@ -0,0 +1,17 @@
+#!/usr/bin/env bash
+# 저장 엔진 테이블의 쓰기/읽기 처리량을 memory 엔진과 log 엔진(블록 캐시 hot/cold)으로 비교한다.
+#
+#   scripts/storage-benchmark.sh [아이디 수] [값 크기(byte)] [읽기 스레드 수]
+#
+# 테스트 코드의 StorageEngineBenchmark 를 컴파일하여 실행한다. 세그먼트 파일은 임시 디렉토리에 만들고 끝나면 삭제한다.
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAVA=${JAVA:-java}
+CLASSPATH_FILE=$(mktemp)
+trap 'rm -f "$CLASSPATH_FILE"' EXIT
+
+cd "$ROOT"
+mvn -q -B test-compile dependency:build-classpath -Dmdep.outputFile="$CLASSPATH_FILE" -Dmdep.includeScope=test
+exec "$JAVA" -cp "$ROOT/target/test-classes:$ROOT/target/classes:$(cat "$CLASSPATH_FILE")" \
+  com.schooldevops.monolithic.demomonolithic.benchmark.StorageEngineBenchmark "$@"
@@ -0,0 +1,72 @@
+package com.schooldevops.monolithic.demomonolithic.admission;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 컨트롤러 앞에서 요청을 허용하거나 거절하는 필터이다.
+ * 한도를 넘은 요청은 큐에 쌓지 않고 바로 503 과 Retry-After 로 응답하므로, 몰리는 요청이 있더라도 응답 시간이 늘어나지 않는다.
+ * 노드 사이의 요청(/cluster, /replication)과 연결을 유지하는 변경 스트림은 제한하지 않는다.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final String ENROLLMENT_ROUTE = "/education/lectures/*/attendedSubject/**";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final AdmissionLimiter admissionLimiter;
+
+    public AdmissionFilter(AdmissionLimiter admissionLimiter) {
+        this.admissionLimiter = admissionLimiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = pathOf(request);
+        return !admissionLimiter.isEnabled() || path.startsWith("/cluster") || path.startsWith("/replication")
+                || path.startsWith("/admission") || path.equals("/changes/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        AdmissionLimiter.Permit permit = admissionLimiter.tryAcquire(classify(request));
+        if (permit == null) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admissionLimiter.retryAfterSeconds()));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } catch (Throwable e) {
+            // 예외로 끝난 요청은 응답 상태가 아직 정해지지 않았으므로 실패로 반환한다.
+            permit.release(true);
+            throw e;
+        }
+        permit.release(response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    private PriorityClass classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return PriorityClass.READ;
+        }
+        return pathMatcher.match(ENROLLMENT_ROUTE, pathOf(request)) ? PriorityClass.ENROLLMENT : PriorityClass.WRITE;
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,145 @@
+package com.schooldevops.monolithic.demomonolithic.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 요청의 동시 처리 수를 적응형 한도(GradientLimit) 안으로 제한한다.
+ *
+ * 전체 한도는 분류(PriorityClass)마다 설정된 비율로 나누어 보장한다.
+ * 분류는 보장된 몫 안에서는 항상 허용되고, 몫을 넘는 요청은 다른 분류가 아직 쓰지 않은 몫을 남겨둔 채로
+ * 전체 한도에 여유가 있을때만 허용된다. 한도를 넘는 요청은 기다리지 않고 바로 거절한다.
+ */
+@Slf4j
+@Component
+public class AdmissionLimiter {
+
+    /**
+     * 허용된 요청, 처리가 끝나면 반드시 release 해야 한다.
+     */
+    public final class Permit {
+        private final PriorityClass priorityClass;
+        private final long startedAt = System.nanoTime();
+        private final int inflightAtStart;
+
+        private Permit(PriorityClass priorityClass, int inflightAtStart) {
+            this.priorityClass = priorityClass;
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        /**
+         * @param dropped 과부하로 요청이 실패했거나 예외로 끝난 경우 true
+         */
+        public void release(boolean dropped) {
+            AdmissionLimiter.this.release(this, System.nanoTime() - startedAt, dropped);
+        }
+    }
+
+    private final boolean enabled;
+    private final GradientLimit gradientLimit;
+    private final Map<PriorityClass, Double> shares = new EnumMap<>(PriorityClass.class);
+    private final Map<PriorityClass, Integer> inflight = new EnumMap<>(PriorityClass.class);
+    private final Map<PriorityClass, AtomicLong> rejected = new EnumMap<>(PriorityClass.class);
+    private int totalInflight;
+
+    public AdmissionLimiter(@Value("${admission.enabled:true}") boolean enabled,
+                            @Value("${admission.initial-limit:50}") int initialLimit,
+                            @Value("${admission.min-limit:8}") int minLimit,
+                            @Value("${admission.max-limit:200}") int maxLimit,
+                            @Value("${admission.rtt-tolerance:1.5}") double rttTolerance,
+                            @Value("${admission.smoothing:0.2}") double smoothing,
+                            @Value("${admission.shares.read:0.5}") double readShare,
+                            @Value("${admission.shares.enrollment:0.3}") double enrollmentShare,
+                            @Value("${admission.shares.write:0.2}") double writeShare) {
+        this.enabled = enabled;
+        this.gradientLimit = new GradientLimit(initialLimit, minLimit, maxLimit, rttTolerance, smoothing);
+        shares.put(PriorityClass.READ, readShare);
+        shares.put(PriorityClass.ENROLLMENT, enrollmentShare);
+        shares.put(PriorityClass.WRITE, writeShare);
+        for (PriorityClass priorityClass : PriorityClass.values()) {
+            inflight.put(priorityClass, 0);
+            rejected.put(priorityClass, new AtomicLong());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 요청을 허용할지 결정한다.
+     * @param priorityClass 요청 분류
+     * @return 허용되면 Permit, 한도를 넘었다면 null
+     */
+    public Permit tryAcquire(PriorityClass priorityClass) {
+        int limit = gradientLimit.getLimit();
+        synchronized (this) {
+            int current = inflight.get(priorityClass);
+            if (current >= guaranteed(priorityClass, limit) && totalInflight + unusedGuaranteeOfOthers(priorityClass, limit) >= limit) {
+                rejected.get(priorityClass).incrementAndGet();
+                return null;
+            }
+            inflight.put(priorityClass, current + 1);
+            totalInflight++;
+            return new Permit(priorityClass, totalInflight);
+        }
+    }
+
+    private void release(Permit permit, long rttNanos, boolean dropped) {
+        synchronized (this) {
+            inflight.merge(permit.priorityClass, -1, Integer::sum);
+            totalInflight--;
+        }
+        gradientLimit.onSample(rttNanos, permit.inflightAtStart, dropped);
+    }
+
+    private int guaranteed(PriorityClass priorityClass, int limit) {
+        return Math.max(1, (int) (limit * shares.get(priorityClass)));
+    }
+
+    private int unusedGuaranteeOfOthers(PriorityClass priorityClass, int limit) {
+        int unused = 0;
+        for (PriorityClass other : PriorityClass.values()) {
+            if (other != priorityClass) {
+                unused += Math.max(0, guaranteed(other, limit) - inflight.get(other));
+            }
+        }
+        return unused;
+    }
+
+    /**
+     * 다음 재시도까지 기다릴 시간(초), 최근 응답 시간이 길수록 길어진다.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1L, (long) Math.ceil(gradientLimit.getShortRttNanos() / 1_000_000_000d));
+    }
+
+    /**
+     * 현재 한도와 분류별 처리중인 요청 수, 거절된 요청 수를 반환한다.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        int limit = gradientLimit.getLimit();
+        status.put("enabled", enabled);
+        status.put("limit", limit);
+        status.put("shortRttMs", gradientLimit.getShortRttNanos() / 1_000_000d);
+        status.put("longRttMs", gradientLimit.getLongRttNanos() / 1_000_000d);
+        synchronized (this) {
+            status.put("inflight", totalInflight);
+            for (PriorityClass priorityClass : PriorityClass.values()) {
+                Map<String, Object> classStatus = new LinkedHashMap<>();
+                classStatus.put("guaranteed", guaranteed(priorityClass, limit));
+                classStatus.put("inflight", inflight.get(priorityClass));
+                classStatus.put("rejected", rejected.get(priorityClass).get());
+                status.put(priorityClass.name().toLowerCase(), classStatus);
+            }
+        }
+        return status;
+    }
+}
@@ -0,0 +1,76 @@
+package com.schooldevops.monolithic.demomonolithic.admission;
+
+/**
+ * 응답 시간의 기울기로 동시 처리 한도를 조절한다.
+ *
+ * 최근 응답 시간(short RTT)과 장기 평균 응답 시간(long RTT)을 지수 이동 평균으로 유지하고,
+ * 최근 응답 시간이 장기 평균보다 커지면 큐잉이 시작된 것으로 보고 그 비율(gradient)만큼 한도를 줄인다.
+ * 응답 시간이 유지되면 큐 크기만큼 한도를 늘려 처리량을 탐색한다.
+ * 처리중인 요청이 한도의 절반에도 못 미친다면 부하가 한도를 결정하지 않으므로 한도를 늘리지 않는다.
+ * 장기 평균이 최근 응답 시간보다 크게 높아져 있다면 부하가 줄어든 것이므로 장기 평균을 빠르게 낮춘다.
+ */
+class GradientLimit {
+
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+
+    private double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * @return 현재 동시 처리 한도
+     */
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized double getShortRttNanos() {
+        return shortRtt;
+    }
+
+    synchronized double getLongRttNanos() {
+        return longRtt;
+    }
+
+    /**
+     * 처리가 끝난 요청의 응답 시간을 반영한다.
+     * @param rttNanos 응답 시간
+     * @param inflight 요청이 처리되는 동안의 동시 처리 요청 수
+     * @param dropped 요청이 실패하여 과부하로 판단해야 하는 경우 true
+     */
+    synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * 0.9);
+            return;
+        }
+
+        shortRtt = shortRtt == 0 ? rttNanos : shortRtt + (rttNanos - shortRtt) * 2 / (SHORT_WINDOW + 1);
+        longRtt = longRtt == 0 ? rttNanos : longRtt + (rttNanos - longRtt) * 2 / (LONG_WINDOW + 1);
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        if (inflight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double queueSize = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueSize;
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + newLimit * smoothing));
+    }
+}
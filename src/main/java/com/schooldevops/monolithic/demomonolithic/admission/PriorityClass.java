@@ -0,0 +1,23 @@
+package com.schooldevops.monolithic.demomonolithic.admission;
+
+/**
+ * 동시 처리 한도를 나누어 쓰는 요청 분류이다.
+ * 분류마다 전체 한도중 보장된 몫을 가지므로, 한 분류의 요청이 몰리더라도 다른 분류의 요청이 밀려나지 않는다.
+ */
+public enum PriorityClass {
+
+    /**
+     * 조회 요청
+     */
+    READ,
+
+    /**
+     * 수강 신청과 취소
+     */
+    ENROLLMENT,
+
+    /**
+     * 그 외의 등록, 수정, 삭제 요청
+     */
+    WRITE
+}
@@ -0,0 +1,197 @@
+package com.schooldevops.monolithic.demomonolithic.cluster;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schooldevops.monolithic.demomonolithic.exceptions.ClusterUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 클러스터 노드 사이의 HTTP 호출을 담당한다.
+ * 모든 요청에 FORWARDED_HEADER 를 붙여서, 받은 노드가 요청을 다시 라우팅하지 않고 직접 처리하도록 한다.
+ */
+@Component
+public class ClusterClient {
+
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+
+    /**
+     * 다른 노드로 전달하지 않는 헤더, HttpClient 가 직접 설정하는 헤더를 포함한다.
+     */
+    private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "content-length", "host", "transfer-encoding",
+            "keep-alive", "upgrade", "expect", "te", "trailer", "date", "from", "via", "warning", ":status");
+
+    /**
+     * 이 크기 이하의 요청 본문은 읽어서 한번에 전달한다.
+     */
+    private static final long BUFFERED_BODY_BYTES = 1024 * 1024;
+
+    private final ClusterMembership clusterMembership;
+    private final ObjectMapper objectMapper;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+
+    public ClusterClient(ClusterMembership clusterMembership, ObjectMapper objectMapper,
+                         @Value("${cluster.request-timeout-ms:5000}") long requestTimeoutMs) {
+        this.clusterMembership = clusterMembership;
+        this.objectMapper = objectMapper;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.httpClient = HttpClient.newBuilder().connectTimeout(requestTimeout).build();
+    }
+
+    /**
+     * 다른 노드에 GET 요청을 보내고 응답을 역직렬화 한다.
+     * @return 응답 본문, 404 인 경우 null
+     */
+    public <T> T get(String node, String path, Class<T> type) {
+        return get(node, path, objectMapper.constructType(type));
+    }
+
+    public <T> T get(String node, String path, JavaType type) {
+        return read(node, send(node, request(node, path).GET().build()), type);
+    }
+
+    public <T> T post(String node, String path, Object body, Class<T> type) {
+        HttpRequest request = request(node, path).POST(json(body)).build();
+        return read(node, send(node, request), objectMapper.constructType(type));
+    }
+
+    public void put(String node, String path, Object body) {
+        read(node, send(node, request(node, path).PUT(json(body)).build()), objectMapper.constructType(Void.class));
+    }
+
+    public void delete(String node, String path) {
+        read(node, send(node, request(node, path).DELETE().build()), objectMapper.constructType(Void.class));
+    }
+
+    /**
+     * 요청을 비동기로 보낸다. 여러 노드에 동시에 요청을 보낼때 사용한다.
+     */
+    public CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * 요청을 그대로 전달한다. 응답 상태와 상관없이 응답을 반환한다.
+     */
+    public HttpResponse<byte[]> send(String node, HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new ClusterUnavailableException(node, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClusterUnavailableException(node, e);
+        }
+    }
+
+    /**
+     * 받은 요청을 헤더와 본문까지 그대로 다른 노드로 전달하고, 받은 응답을 그대로 돌려준다.
+     * 노드가 응답하지 않으면 503 으로 응답한다.
+     * @param node 요청을 전달할 노드 주소
+     * @param pathAndQuery 전달할 경로와 쿼리
+     */
+    public void forward(String node, String pathAndQuery, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpRequest.Builder builder = request(node, pathAndQuery);
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            List<String> values = Collections.list(request.getHeaders(name));
+            builder.setHeader(name, values.get(0));
+            values.stream().skip(1).forEach(value -> builder.header(name, value));
+        }
+        builder.method(request.getMethod(), bodyOf(request));
+
+        HttpResponse<byte[]> remote;
+        try {
+            remote = send(node, builder.build());
+        } catch (ClusterUnavailableException e) {
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+            return;
+        }
+        copy(remote, response);
+    }
+
+    /**
+     * 전달할 요청 본문을 만든다. 길이를 알 수 없거나 큰 본문(성적 일괄 등록 등)은 메모리에 올리지 않고 읽는 대로 전달한다.
+     */
+    private static HttpRequest.BodyPublisher bodyOf(HttpServletRequest request) throws IOException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > BUFFERED_BODY_BYTES || (contentLength < 0 && request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null)) {
+            InputStream body = request.getInputStream();
+            return HttpRequest.BodyPublishers.ofInputStream(() -> body);
+        }
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        return body.length == 0 ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body);
+    }
+
+    /**
+     * 다른 노드의 응답을 상태, 헤더, 본문 그대로 응답한다.
+     */
+    public void copy(HttpResponse<byte[]> remote, HttpServletResponse response) throws IOException {
+        response.setStatus(remote.statusCode());
+        remote.headers().map().forEach((name, values) -> {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        response.getOutputStream().write(remote.body());
+    }
+
+    /**
+     * 노드 주소와 경로로 요청을 만든다. 전달 헤더와 요청 타임아웃이 설정된다.
+     */
+    public HttpRequest.Builder request(String node, String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(node + pathAndQuery))
+                .timeout(requestTimeout)
+                .header(FORWARDED_HEADER, clusterMembership.getSelf())
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .header("Accept", MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to serialize cluster request", e);
+        }
+    }
+
+    private <T> T read(String node, HttpResponse<byte[]> response, JavaType type) {
+        if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+            return null;
+        }
+        if (response.statusCode() >= 300) {
+            throw new ClusterUnavailableException(node, "HTTP " + response.statusCode());
+        }
+        if (response.body().length == 0 || type.hasRawClass(Void.class)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new ClusterUnavailableException(node, e);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.schooldevops.monolithic.demomonolithic.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schooldevops.monolithic.demomonolithic.domains.VersionedEntity;
+import com.schooldevops.monolithic.demomonolithic.exceptions.ClusterUnavailableException;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.WriteBatch;
+import com.schooldevops.monolithic.demomonolithic.startup.StartupTasks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 클러스터 참여와 리밸런싱을 담당한다.
+ *
+ * 노드는 시작할때 seed 노드에 참여 요청을 보내고, seed 노드는 새로운 구성원 목록을 모든 노드에 전파한다.
+ * 참여하는 노드는 기존 클러스터의 데이터를 덮어쓰지 않도록 시작할때 만든 초기 데이터를 버리고 빈 상태로 참여한다.
+ * 구성원이 바뀐 노드는 더 이상 담당하지 않는 엔티티를 새로운 담당 노드로 보낸 뒤 로컬에서 제거한다.
+ * 엔티티는 담당 노드에 먼저 저장된 후에 제거되므로, 옮기는 동안에도 어느 한 노드에서는 조회할 수 있다.
+ * 노드의 탈퇴는 다루지 않는다.
+ */
+@Slf4j
+@Component
+public class ClusterCoordinator {
+
+    private final ClusterMembership clusterMembership;
+    private final ClusterClient clusterClient;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, PartitionedRepository<?>> repositories;
+    private final VersionedStorage versionedStorage;
+    private final StartupTasks startupTasks;
+    private final int joinAttempts;
+    private final long joinRetryMs;
+
+    /**
+     * 참여와 리밸런싱을 순서대로 수행하는 스레드
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cluster-rebalance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ClusterCoordinator(ClusterMembership clusterMembership, ClusterClient clusterClient, ObjectMapper objectMapper,
+                              ApplicationEventPublisher eventPublisher, List<PartitionedRepository<?>> repositories,
+                              VersionedStorage versionedStorage, StartupTasks startupTasks,
+                              @Value("${cluster.join-attempts:30}") int joinAttempts,
+                              @Value("${cluster.join-retry-ms:1000}") long joinRetryMs) {
+        this.clusterMembership = clusterMembership;
+        this.clusterClient = clusterClient;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.repositories = repositories.stream().collect(Collectors.toMap(PartitionedRepository::getEntityName, Function.identity()));
+        this.versionedStorage = versionedStorage;
+        this.startupTasks = startupTasks;
+        this.joinAttempts = joinAttempts;
+        this.joinRetryMs = joinRetryMs;
+    }
+
+    /**
+     * 애플리케이션이 요청을 받을 수 있게 되면 seed 노드에 참여를 요청한다.
+     * 미뤄둔 초기화가 있다면 초기 데이터가 만들어진 후에 버리도록 초기화가 끝날때까지 기다린다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void joinCluster() {
+        if (clusterMembership.isEnabled() && !clusterMembership.getSeeds().isEmpty()) {
+            executor.execute(this::joinSeeds);
+        }
+    }
+
+    private void joinSeeds() {
+        startupTasks.awaitCompletion(Long.MAX_VALUE);
+        discardLocal();
+        for (int attempt = 1; attempt <= joinAttempts; attempt++) {
+            for (String seed : clusterMembership.getSeeds()) {
+                try {
+                    String[] members = clusterClient.post(seed, "/cluster/join", Map.of("address", clusterMembership.getSelf()), String[].class);
+                    log.info("Joined cluster through {}", seed);
+                    applyMembers(Arrays.asList(members));
+                    clusterMembership.markJoined();
+                    return;
+                } catch (ClusterUnavailableException e) {
+                    log.debug("Join attempt {} through {} failed: {}", attempt, seed, e.getMessage());
+                }
+            }
+            try {
+                Thread.sleep(joinRetryMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        log.warn("Failed to join cluster through {} after {} attempts", clusterMembership.getSeeds(), joinAttempts);
+    }
+
+    /**
+     * 새로운 노드의 참여 요청을 처리하고 변경된 구성원을 다른 노드에 전파한다.
+     * @param address 참여하는 노드 주소
+     * @return 새로운 구성원 목록
+     */
+    public synchronized List<String> handleJoin(String address) {
+        List<String> members = new ArrayList<>(clusterMembership.getMembers());
+        if (!members.contains(address)) {
+            members.add(address);
+        }
+        applyMembers(members);
+
+        for (String member : clusterMembership.getMembers()) {
+            if (member.equals(clusterMembership.getSelf()) || member.equals(address)) {
+                continue;
+            }
+            try {
+                clusterClient.put(member, "/cluster/members", members);
+            } catch (ClusterUnavailableException e) {
+                log.warn("Failed to propagate members to {}: {}", member, e.getMessage());
+            }
+        }
+        return clusterMembership.getMembers();
+    }
+
+    /**
+     * 구성원을 갱신하고, 변경되었다면 리밸런싱을 예약한다.
+     */
+    public void applyMembers(Collection<String> members) {
+        if (clusterMembership.updateMembers(members)) {
+            executor.execute(this::rebalance);
+        }
+    }
+
+    /**
+     * 이 노드가 더 이상 담당하지 않는 엔티티를 담당 노드로 옮긴다.
+     * 옮기지 못한 엔티티는 로컬에 남겨두고 다음 구성원 변경때 다시 시도한다.
+     */
+    void rebalance() {
+        repositories.values().forEach(this::rebalance);
+    }
+
+    private <T extends VersionedEntity> void rebalance(PartitionedRepository<T> repository) {
+        Map<String, List<T>> moving = repository.findAll().stream()
+                .filter(entity -> !clusterMembership.isLocal(entity.getId()))
+                .collect(Collectors.groupingBy(entity -> clusterMembership.ownerOf(entity.getId())));
+
+        moving.forEach((owner, entities) -> {
+            try {
+                clusterClient.put(owner, "/cluster/entities/" + repository.getEntityName(), entities);
+                entities.forEach(entity -> evict(repository, entity.getId()));
+                log.info("Moved {} {} entities to {}", entities.size(), repository.getEntityName(), owner);
+            } catch (ClusterUnavailableException e) {
+                log.warn("Failed to move {} entities to {}: {}", repository.getEntityName(), owner, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 이 노드의 모든 엔티티를 제거한다. 다른 노드의 데이터로 다시 채우기 전에 사용한다.
+     */
+    public void discardLocal() {
+        repositories.values().forEach(repository -> repository.findAll().forEach(entity -> evict(repository, entity.getId())));
+    }
+
+    /**
+     * 다른 노드에서 옮겨온 엔티티를 저장한다.
+     * @param entityName 엔티티 이름
+     * @param entities 엔티티 JSON 배열
+     */
+    public void importEntities(String entityName, JsonNode entities) {
+        importEntities(repository(entityName), entities);
+    }
+
+    private <T extends VersionedEntity> void importEntities(PartitionedRepository<T> repository, JsonNode entities) {
+        for (JsonNode node : entities) {
+            T entity = objectMapper.convertValue(node, repository.getEntityClass());
+            repository.importEntity(entity);
+            eventPublisher.publishEvent(new PartitionChangedEvent(repository.getEntityName(), entity.getId(), entity));
+        }
+    }
+
+    /**
+     * 리더의 복제 배치를 하나의 쓰기 배치로 적용한다. 읽기는 복제 배치의 변경을 모두 보거나 하나도 보지 않는다.
+     * fullSync 이면 changes 가 리더의 전체 데이터이므로, 담겨있지 않은 로컬 엔티티도 같은 쓰기 배치에서 제거한다.
+     * 다른 쓰기가 준비 중인 엔티티와 겹쳐 커밋하지 못하면 배치를 다시 만들어 커밋할때까지 반복한다.
+     * @param changes 엔티티 이름별 변경, changed 는 엔티티 JSON 배열이고 deleted 는 아이디 배열이다.
+     * @param fullSync 로컬 데이터를 changes 로 교체하는지 여부
+     */
+    public void applyReplication(JsonNode changes, boolean fullSync) {
+        List<ReplicatedChanges<?>> replicated = new ArrayList<>();
+        Set<String> entityNames = new HashSet<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = changes.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> change = fields.next();
+            entityNames.add(change.getKey());
+            replicated.add(replicatedChanges(repository(change.getKey()), change.getValue(), fullSync));
+        }
+        if (fullSync) {
+            repositories.forEach((entityName, repository) -> {
+                if (!entityNames.contains(entityName)) {
+                    replicated.add(replicatedChanges(repository, objectMapper.createObjectNode(), true));
+                }
+            });
+        }
+
+        while (true) {
+            WriteBatch batch = versionedStorage.newWriteBatch();
+            replicated.forEach(changeSet -> changeSet.addTo(batch));
+            if (batch.commit()) {
+                break;
+            }
+        }
+        replicated.forEach(ReplicatedChanges::publish);
+    }
+
+    private <T extends VersionedEntity> ReplicatedChanges<T> replicatedChanges(PartitionedRepository<T> repository,
+                                                                             JsonNode change, boolean fullSync) {
+        ReplicatedChanges<T> replicated = new ReplicatedChanges<>(repository);
+        for (JsonNode node : change.path("changed")) {
+            replicated.changed.put(node.path("id").asLong(), node);
+        }
+        for (JsonNode id : change.path("deleted")) {
+            if (!replicated.changed.containsKey(id.asLong())) {
+                replicated.deleted.add(id.asLong());
+            }
+        }
+        if (fullSync) {
+            repository.findAll().stream()
+                    .map(VersionedEntity::getId)
+                    .filter(id -> !replicated.changed.containsKey(id))
+                    .forEach(replicated.deleted::add);
+        }
+        return replicated;
+    }
+
+    /**
+     * 한 리포지토리에 적용할 복제 변경이다. 커밋에 실패하면 엔티티를 다시 만들어 새로운 배치에 추가한다.
+     */
+    private final class ReplicatedChanges<T extends VersionedEntity> {
+
+        private final PartitionedRepository<T> repository;
+        private final Map<Long, JsonNode> changed = new LinkedHashMap<>();
+        private final Set<Long> deleted = new HashSet<>();
+        private final Map<Long, T> imported = new LinkedHashMap<>();
+
+        private ReplicatedChanges(PartitionedRepository<T> repository) {
+            this.repository = repository;
+        }
+
+        private void addTo(WriteBatch batch) {
+            imported.clear();
+            changed.forEach((id, node) -> {
+                T entity = objectMapper.convertValue(node, repository.getEntityClass());
+                repository.importEntity(batch, entity);
+                imported.put(id, entity);
+            });
+            deleted.forEach(id -> repository.evict(batch, id));
+        }
+
+        private void publish() {
+            imported.forEach((id, entity) -> {
+                repository.reindex(id);
+                eventPublisher.publishEvent(new PartitionChangedEvent(repository.getEntityName(), id, entity));
+            });
+            deleted.forEach(id -> {
+                repository.reindex(id);
+                eventPublisher.publishEvent(new PartitionChangedEvent(repository.getEntityName(), id, null));
+            });
+        }
+    }
+
+    /**
+     * 이 노드에 저장된 엔티티를 조회한다.
+     */
+    public Object findLocal(String entityName, Long id) {
+        return repository(entityName).findLocalById(id);
+    }
+
+    /**
+     * 이 노드에 저장된 엔티티를 제거한다.
+     */
+    public void evict(String entityName, Long id) {
+        evict(repository(entityName), id);
+    }
+
+    private void evict(PartitionedRepository<?> repository, Long id) {
+        repository.evict(id);
+        eventPublisher.publishEvent(new PartitionChangedEvent(repository.getEntityName(), id, null));
+    }
+
+    private PartitionedRepository<?> repository(String entityName) {
+        PartitionedRepository<?> repository = repositories.get(entityName);
+        if (repository == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown entity " + entityName);
+        }
+        return repository;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
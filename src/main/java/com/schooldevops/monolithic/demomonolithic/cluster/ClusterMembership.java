@@ -0,0 +1,97 @@
+package com.schooldevops.monolithic.demomonolithic.cluster;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * 클러스터 구성원과 consistent hashing 링을 관리한다.
+ * cluster.enabled 가 false 이면 모든 아이디를 이 노드가 담당한다.
+ */
+@Slf4j
+@Component
+public class ClusterMembership {
+
+    @Getter
+    private final boolean enabled;
+
+    /**
+     * 다른 노드가 이 노드를 호출할 주소
+     */
+    @Getter
+    private final String self;
+
+    @Getter
+    private final List<String> seeds;
+
+    private final int virtualNodes;
+
+    private volatile ConsistentHashRing ring;
+
+    /**
+     * seed 노드가 없는 첫번째 노드는 바로 참여한 상태가 되고, 나머지 노드는 참여 요청이 성공한 후에 참여한 상태가 된다.
+     */
+    @Getter
+    private volatile boolean joined;
+
+    public ClusterMembership(@Value("${cluster.enabled:false}") boolean enabled,
+                             @Value("${cluster.self-address:http://localhost:${server.port:8080}}") String self,
+                             @Value("${cluster.seeds:}") String[] seeds,
+                             @Value("${cluster.virtual-nodes:128}") int virtualNodes) {
+        this.enabled = enabled;
+        this.self = self;
+        this.seeds = Arrays.stream(seeds).map(String::trim).filter(seed -> !seed.isEmpty() && !seed.equals(self)).collect(Collectors.toList());
+        this.virtualNodes = virtualNodes;
+        this.ring = new ConsistentHashRing(List.of(self), virtualNodes);
+        this.joined = this.seeds.isEmpty();
+    }
+
+    void markJoined() {
+        this.joined = true;
+    }
+
+    /**
+     * 아이디를 이 노드가 담당하는지 검사한다.
+     */
+    public boolean isLocal(Long id) {
+        return !enabled || id == null || self.equals(ring.ownerOf(id));
+    }
+
+    /**
+     * 아이디를 담당하는 노드 주소를 반환한다.
+     */
+    public String ownerOf(Long id) {
+        return ring.ownerOf(id);
+    }
+
+    /**
+     * 현재 구성원 주소를 정렬된 순서로 반환한다.
+     */
+    public List<String> getMembers() {
+        return ring.getNodes();
+    }
+
+    /**
+     * 구성원을 교체하고 링을 다시 만든다. 이 노드는 항상 구성원에 포함된다.
+     * @param members 새로운 구성원 주소
+     * @return 구성원이 변경되었다면 true
+     */
+    public synchronized boolean updateMembers(Collection<String> members) {
+        Set<String> updated = new TreeSet<>(members);
+        updated.add(self);
+        if (updated.equals(new TreeSet<>(ring.getNodes()))) {
+            return false;
+        }
+        ring = new ConsistentHashRing(updated, virtualNodes);
+        log.info("Cluster members changed: {}", updated);
+        return true;
+    }
+}
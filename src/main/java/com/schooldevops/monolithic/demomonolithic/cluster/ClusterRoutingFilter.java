@@ -0,0 +1,175 @@
+package com.schooldevops.monolithic.demomonolithic.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schooldevops.monolithic.demomonolithic.exceptions.ClusterUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * 클러스터 모드에서 요청을 담당 노드로 라우팅하는 필터이다. 어느 노드로 요청하더라도 같은 결과를 받을 수 있다.
+ *
+ * 아이디로 지정되는 요청은 그 아이디를 담당하는 노드로 그대로 전달하고 응답을 돌려준다.
+ * 목록 조회는 모든 노드에 동시에 요청하여 결과를 합치고 정렬한다.
+ * 아이디를 지정한 여러건 조회(?ids=)는 요청을 받은 노드가 다른 노드의 아이디를 직접 조회하여 처리한다.
+ * 그 외의 요청(등록, 변경 목록, 변경 스트림, 내보내기 등)은 요청을 받은 노드에서 처리한다.
+ * 등록은 요청을 받은 노드가 담당하는 아이디를 할당하므로 그대로 그 노드에 저장된다.
+ * 클러스터에 참여하기 전의 노드는 아이디 담당 범위를 알 수 없으므로 503 으로 응답한다.
+ * 멱등 키는 요청을 실제로 처리하는 담당 노드에서 확인하도록 IdempotencyFilter 보다 먼저 실행한다.
+ */
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@Component
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    @lombok.Value
+    private static class GatherRoute {
+        String pattern;
+        String sortField;
+        boolean ascending;
+    }
+
+    /**
+     * 모든 노드의 결과를 합치는 목록 조회, 각 노드가 반환하는 정렬 순서를 유지한다.
+     */
+    private static final List<GatherRoute> GATHER_ROUTES = List.of(
+            new GatherRoute("/students", "id", false),
+            new GatherRoute("/students/major/{major}", "id", true),
+            new GatherRoute("/students/{id:\\d+}/lectures", "lectureId", true),
+            new GatherRoute("/professors", "id", false),
+            new GatherRoute("/professors/subjects/{subjectName}", "id", true),
+            new GatherRoute("/education/subjects", "id", false)
+    );
+
+    /**
+     * 경로의 아이디를 담당하는 노드로 전달하는 요청
+     */
+    private static final List<String> OWNER_ROUTES = List.of(
+            "/students/{id:\\d+}",
+            "/professors/{id:\\d+}",
+            "/education/subjects/{id:\\d+}",
+            "/education/lectures/{id:\\d+}/**"
+    );
+
+    /**
+     * 교과 과정 등록은 경로에 과목 아이디를 사용하므로 전달하지 않는다.
+     */
+    private static final String CREATE_LECTURE_ROUTE = "/education/lectures/{subjectId:\\d+}";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ClusterMembership clusterMembership;
+    private final ClusterClient clusterClient;
+    private final ObjectMapper objectMapper;
+
+    public ClusterRoutingFilter(ClusterMembership clusterMembership, ClusterClient clusterClient, ObjectMapper objectMapper) {
+        this.clusterMembership = clusterMembership;
+        this.clusterClient = clusterClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !clusterMembership.isEnabled()
+                || request.getHeader(ClusterClient.FORWARDED_HEADER) != null
+                || pathOf(request).startsWith("/cluster");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = pathOf(request);
+
+        if (!clusterMembership.isJoined()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Node has not joined the cluster yet");
+            return;
+        }
+
+        if ("GET".equals(request.getMethod()) && request.getParameter("ids") == null) {
+            for (GatherRoute route : GATHER_ROUTES) {
+                if (pathMatcher.match(route.getPattern(), path)) {
+                    gather(route, request, response);
+                    return;
+                }
+            }
+        }
+
+        boolean createLecture = "POST".equals(request.getMethod()) && pathMatcher.match(CREATE_LECTURE_ROUTE, path);
+        for (String pattern : OWNER_ROUTES) {
+            if (createLecture || !pathMatcher.match(pattern, path)) {
+                continue;
+            }
+            Long id = Long.valueOf(pathMatcher.extractUriTemplateVariables(pattern, path).get("id"));
+            if (!clusterMembership.isLocal(id)) {
+                clusterClient.forward(clusterMembership.ownerOf(id), pathAndQueryOf(request), request, response);
+                return;
+            }
+            break;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * 모든 노드에 동시에 목록을 요청하고 결과를 합친다. 한 노드라도 실패하면 그 응답을 그대로 돌려준다.
+     */
+    private void gather(GatherRoute route, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String pathAndQuery = pathAndQueryOf(request);
+        List<String> members = clusterMembership.getMembers();
+        List<CompletableFuture<HttpResponse<byte[]>>> futures = members.stream()
+                .map(member -> clusterClient.sendAsync(clusterClient.request(member, pathAndQuery).GET().build()))
+                .collect(Collectors.toList());
+
+        List<JsonNode> items = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            HttpResponse<byte[]> remote;
+            try {
+                remote = futures.get(i).join();
+            } catch (CompletionException e) {
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), new ClusterUnavailableException(members.get(i), e.getCause()).getMessage());
+                return;
+            }
+            JsonNode node = remote.statusCode() == HttpStatus.OK.value() ? objectMapper.readTree(remote.body()) : null;
+            if (node == null || !node.isArray()) {
+                clusterClient.copy(remote, response);
+                return;
+            }
+            node.forEach(items::add);
+        }
+
+        Comparator<JsonNode> comparator = Comparator.comparingLong(item -> item.path(route.getSortField()).asLong());
+        items.sort(route.isAscending() ? comparator : comparator.reversed());
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), items);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String pathAndQueryOf(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return request.getRequestURI() + (query == null ? "" : "?" + query);
+    }
+}
@@ -0,0 +1,69 @@
+package com.schooldevops.monolithic.demomonolithic.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 노드 주소로 구성된 consistent hashing 링이다. 생성 후에는 변경되지 않는다.
+ * 노드마다 여러개의 가상 노드를 링에 배치하므로 노드가 추가되더라도 각 노드에서 일부 아이디만 새로운 노드로 옮겨간다.
+ */
+final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+
+    ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = List.copyOf(new TreeSet<>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 아이디를 담당하는 노드를 찾는다. 아이디의 해시값보다 크거나 같은 첫번째 가상 노드가 담당한다.
+     * @param id 엔티티 아이디
+     * @return 담당 노드 주소
+     */
+    String ownerOf(long id) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(mix(id));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * 연속된 아이디가 링 전체에 고르게 퍼지도록 섞는다. (MurmurHash3 의 fmix64)
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
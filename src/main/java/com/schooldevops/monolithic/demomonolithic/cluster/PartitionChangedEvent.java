@@ -0,0 +1,19 @@
+package com.schooldevops.monolithic.demomonolithic.cluster;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 리밸런싱으로 엔티티가 이 노드로 옮겨오거나(entity 가 존재) 다른 노드로 옮겨갔을때(entity 가 null) 발행된다.
+ * 리포지토리 밖에서 엔티티를 색인하는 컴포넌트가 인덱스를 갱신하는데 사용한다.
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class PartitionChangedEvent {
+
+    private final String entityName;
+    private final Long id;
+    private final Object entity;
+}
@@ -0,0 +1,50 @@
+package com.schooldevops.monolithic.demomonolithic.cluster;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 리포지토리가 사용하는 파티션 라우터이다.
+ * 이 노드가 담당하지 않는 아이디는 담당 노드에서 조회하거나 삭제한다.
+ * 클러스터 모드가 아니라면 모든 아이디가 로컬이므로 리포지토리는 기존과 동일하게 동작한다.
+ */
+@Component
+public class PartitionRouter {
+
+    private final ClusterMembership clusterMembership;
+    private final ClusterClient clusterClient;
+
+    public PartitionRouter(ClusterMembership clusterMembership, ClusterClient clusterClient) {
+        this.clusterMembership = clusterMembership;
+        this.clusterClient = clusterClient;
+    }
+
+    public boolean isLocal(Long id) {
+        return clusterMembership.isLocal(id);
+    }
+
+    public String ownerOf(Long id) {
+        return clusterMembership.ownerOf(id);
+    }
+
+    /**
+     * 담당 노드에서 엔티티를 조회한다. 원격 조회는 읽기 스냅샷과 무관하게 담당 노드의 최신 버전을 반환한다.
+     * @param entityName 엔티티 이름
+     * @param id 엔티티 아이디
+     * @param type 엔티티 타입
+     * @return 조회된 엔티티, 없으면 null
+     */
+    public <T> T findRemote(String entityName, Long id, Class<T> type) {
+        return clusterClient.get(clusterMembership.ownerOf(id), entityPath(entityName, id), type);
+    }
+
+    /**
+     * 담당 노드에서 엔티티를 삭제한다.
+     */
+    public void deleteRemote(String entityName, Long id) {
+        clusterClient.delete(clusterMembership.ownerOf(id), entityPath(entityName, id));
+    }
+
+    static String entityPath(String entityName, Long id) {
+        return "/cluster/entities/" + entityName + "/" + id;
+    }
+}
@@ -0,0 +1,58 @@
+package com.schooldevops.monolithic.demomonolithic.cluster;
+
+import com.schooldevops.monolithic.demomonolithic.domains.VersionedEntity;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.WriteBatch;
+
+import java.util.List;
+
+/**
+ * 클러스터 모드에서 노드 사이에 옮길 수 있는 리포지토리이다.
+ * 리밸런싱은 findAll 로 로컬 엔티티를 찾아 담당 노드로 보내고(importEntity), 보낸 엔티티는 로컬에서 제거한다(evict).
+ * 여러 엔티티를 한번에 반영해야 하는 복제는 쓰기 배치를 받는 importEntity, evict 로 배치에 모은 뒤 커밋하고 reindex 를 호출한다.
+ * @param <T> 엔티티 타입
+ */
+public interface PartitionedRepository<T extends VersionedEntity> {
+
+    /**
+     * 노드 사이에서 엔티티를 구분하는 이름, 저장소 이름과 같다.
+     */
+    String getEntityName();
+
+    Class<T> getEntityClass();
+
+    /**
+     * 이 노드에 저장된 전체 엔티티를 반환한다.
+     */
+    List<T> findAll();
+
+    /**
+     * 이 노드에 저장된 엔티티만 조회한다. 다른 노드로 요청을 보내지 않는다.
+     */
+    T findLocalById(Long id);
+
+    /**
+     * 다른 노드에서 옮겨온 엔티티를 버전과 함께 저장하고 인덱스에 반영한다.
+     */
+    void importEntity(T entity);
+
+    /**
+     * 이 노드의 엔티티를 제거하고 인덱스에서 삭제한다. 다른 노드로 요청을 보내지 않는다.
+     */
+    void evict(Long id);
+
+    /**
+     * 다른 노드에서 옮겨온 엔티티를 버전과 함께 저장하도록 배치에 추가한다. 인덱스는 배치를 커밋한 후 reindex 로 반영한다.
+     */
+    void importEntity(WriteBatch batch, T entity);
+
+    /**
+     * 이 노드의 엔티티를 제거하도록 배치에 추가한다. 인덱스는 배치를 커밋한 후 reindex 로 반영한다.
+     */
+    void evict(WriteBatch batch, Long id);
+
+    /**
+     * 배치로 바뀐 엔티티를 인덱스에 반영한다. 인덱스가 없는 리포지토리는 아무것도 하지 않는다.
+     */
+    default void reindex(Long id) {
+    }
+}
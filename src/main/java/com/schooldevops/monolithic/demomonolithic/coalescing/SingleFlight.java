@@ -0,0 +1,116 @@
+package com.schooldevops.monolithic.demomonolithic.coalescing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키로 동시에 들어온 요청이 하나의 계산 결과를 나누어 쓰도록 한다. (single-flight)
+ *
+ * 처음 들어온 요청이 계산을 수행하고, 계산이 끝나기 전에 들어온 같은 키의 요청은 그 결과를 기다린다.
+ * 결과는 계산이 끝나면 바로 버리므로 캐시와 달리 오래된 결과를 돌려주지 않는다.
+ * 계산이 시작된 이후에 쓰기가 공개되었다면(generation 이 커졌다면) 그 계산에 합류하지 않고 새로 계산하므로,
+ * 쓰기가 완료된 이후에 시작된 읽기는 항상 그 쓰기를 볼 수 있다.
+ * @param <K> 키 타입
+ * @param <V> 결과 타입
+ */
+public class SingleFlight<K, V> {
+
+    private static final class Flight<V> {
+        private final long generation;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        private Flight(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final LongSupplier generation;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * @param generation 쓰기가 공개될때마다 증가하는 값, 저장소의 커밋 시퀀스를 사용한다.
+     */
+    public SingleFlight(LongSupplier generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * 같은 키로 진행중인 계산이 있다면 그 결과를 기다리고, 없다면 직접 계산한다.
+     * @param key 요청 키
+     * @param loader 결과를 계산하는 함수
+     * @return 계산 결과
+     */
+    public V execute(K key, Supplier<V> loader) {
+        long current = generation.getAsLong();
+        while (true) {
+            Flight<V> flight = flights.get(key);
+            if (flight != null && flight.generation >= current) {
+                shared.increment();
+                return await(flight);
+            }
+
+            Flight<V> mine = new Flight<>(current);
+            boolean started = flight == null ? flights.putIfAbsent(key, mine) == null : flights.replace(key, flight, mine);
+            if (!started) {
+                continue;
+            }
+
+            executions.increment();
+            try {
+                V value = loader.get();
+                mine.result.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                mine.result.completeExceptionally(e);
+                throw e;
+            } finally {
+                flights.remove(key, mine);
+            }
+        }
+    }
+
+    private V await(Flight<V> flight) {
+        try {
+            return flight.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * 직접 계산한 요청 수
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * 진행중인 계산의 결과를 나누어 받은 요청 수
+     */
+    public long getShared() {
+        return shared.sum();
+    }
+
+    /**
+     * 진행중인 계산 수
+     */
+    public int getInflight() {
+        return flights.size();
+    }
+}
@@ -0,0 +1,51 @@
+package com.schooldevops.monolithic.demomonolithic.coalescing;
+
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 이름을 붙인 SingleFlight 를 만들고 통계를 모아서 보여준다.
+ * 모든 SingleFlight 는 저장소의 커밋 시퀀스를 기준으로 진행중인 계산에 합류할지 결정한다.
+ */
+@Component
+public class SingleFlights {
+
+    private final VersionedStorage versionedStorage;
+    private final Map<String, SingleFlight<?, ?>> singleFlights = new ConcurrentSkipListMap<>();
+
+    public SingleFlights(VersionedStorage versionedStorage) {
+        this.versionedStorage = versionedStorage;
+    }
+
+    /**
+     * @param name 통계에 표시할 이름
+     * @return 새로운 SingleFlight
+     */
+    public <K, V> SingleFlight<K, V> create(String name) {
+        SingleFlight<K, V> singleFlight = new SingleFlight<>(versionedStorage::currentSequence);
+        singleFlights.put(name, singleFlight);
+        return singleFlight;
+    }
+
+    /**
+     * 이름별로 직접 계산한 요청 수, 결과를 나누어 받은 요청 수, 나누어 받은 비율을 반환한다.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        singleFlights.forEach((name, singleFlight) -> {
+            long executions = singleFlight.getExecutions();
+            long shared = singleFlight.getShared();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("executions", executions);
+            stats.put("shared", shared);
+            stats.put("sharedRatio", executions + shared == 0 ? 0.0 : (double) shared / (executions + shared));
+            stats.put("inflight", singleFlight.getInflight());
+            status.put(name, stats);
+        });
+        return status;
+    }
+}
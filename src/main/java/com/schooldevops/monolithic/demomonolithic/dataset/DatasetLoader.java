@@ -0,0 +1,175 @@
+package com.schooldevops.monolithic.demomonolithic.dataset;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schooldevops.monolithic.demomonolithic.domains.DataExport;
+import com.schooldevops.monolithic.demomonolithic.repositories.*;
+import com.schooldevops.monolithic.demomonolithic.startup.StartupTasks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 시작할때 초기 데이터를 리포지토리에 적재한다.
+ *
+ * dataset.mode 가 fixture 이면 예제용 고정 데이터를, synthetic 이면 dataset.* 설정의 규모로 생성한 데이터를 적재한다.
+ * dataset.snapshot-file 을 설정하면 파일이 있을때는 생성하지 않고 파일에서 적재하고, 없을때는 생성한 데이터를 파일로 저장한다.
+ * 파일은 GET /export 응답과 같은 형식이며, 이름이 .gz 로 끝나면 gzip 으로 압축한다.
+ * 스냅샷 파일만 만들고 종료하려면 --startup.exit-after-initialization=true 로 실행한다.
+ *
+ * 적재는 StartupTasks 의 작업으로 수행하므로 startup.defer-initialization 이 true 이면 요청을 받을 수 있게 된 후에 적재한다.
+ * 엔티티는 다른 노드에서 옮겨온 엔티티와 같은 경로(importEntity)로 병렬 적재되므로 인덱스와 아이디 생성기에도 반영된다.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class DatasetLoader {
+
+    public static final String FIXTURE = "fixture";
+    public static final String SYNTHETIC = "synthetic";
+
+    private final String mode;
+    private final String snapshotFile;
+    private final DatasetSpec spec;
+    private final ObjectMapper objectMapper;
+    private final StudentRepository studentRepository;
+    private final ProfessorRepository professorRepository;
+    private final SubjectRepository subjectRepository;
+    private final LectureRepository lectureRepository;
+    private final AttendedSubjectRepository attendedSubjectRepository;
+    private final EnrollmentIndex enrollmentIndex;
+
+    public DatasetLoader(@Value("${dataset.mode:fixture}") String mode,
+                         @Value("${dataset.snapshot-file:}") String snapshotFile,
+                         @Value("${dataset.seed:42}") long seed,
+                         @Value("${dataset.students:100000}") int students,
+                         @Value("${dataset.professors:500}") int professors,
+                         @Value("${dataset.subjects:2000}") int subjects,
+                         @Value("${dataset.lectures:5000}") int lectures,
+                         @Value("${dataset.enrollments-per-student:5}") int enrollmentsPerStudent,
+                         @Value("${dataset.zipf-exponent:1.0}") double zipfExponent,
+                         @Value("${dataset.lecture-capacity-min:20}") int lectureCapacityMin,
+                         @Value("${dataset.lecture-capacity-max:200}") int lectureCapacityMax,
+                         @Value("${dataset.parallelism:0}") int parallelism,
+                         ObjectMapper objectMapper, StartupTasks startupTasks,
+                         StudentRepository studentRepository, ProfessorRepository professorRepository,
+                         SubjectRepository subjectRepository, LectureRepository lectureRepository,
+                         AttendedSubjectRepository attendedSubjectRepository, EnrollmentIndex enrollmentIndex) {
+        if (!FIXTURE.equals(mode) && !SYNTHETIC.equals(mode)) {
+            throw new IllegalStateException("dataset.mode must be fixture or synthetic: " + mode);
+        }
+        this.mode = mode;
+        this.snapshotFile = snapshotFile;
+        this.spec = DatasetSpec.builder()
+                .seed(seed)
+                .students(students)
+                .professors(professors)
+                .subjects(subjects)
+                .lectures(lectures)
+                .enrollmentsPerStudent(enrollmentsPerStudent)
+                .zipfExponent(zipfExponent)
+                .lectureCapacityMin(lectureCapacityMin)
+                .lectureCapacityMax(lectureCapacityMax)
+                .parallelism(parallelism)
+                .build();
+        this.objectMapper = objectMapper;
+        this.studentRepository = studentRepository;
+        this.professorRepository = professorRepository;
+        this.subjectRepository = subjectRepository;
+        this.lectureRepository = lectureRepository;
+        this.attendedSubjectRepository = attendedSubjectRepository;
+        this.enrollmentIndex = enrollmentIndex;
+
+        startupTasks.submit("dataset", this::load);
+    }
+
+    private void load() {
+        DataExport dataset;
+        Path snapshot = snapshotFile.isBlank() ? null : Paths.get(snapshotFile);
+        if (snapshot != null && Files.exists(snapshot)) {
+            dataset = readSnapshot(snapshot);
+        } else {
+            dataset = create();
+            if (snapshot != null) {
+                writeSnapshot(dataset, snapshot);
+            }
+        }
+        importDataset(dataset);
+    }
+
+    /**
+     * 설정된 방식으로 데이터를 만든다.
+     */
+    private DataExport create() {
+        if (FIXTURE.equals(mode)) {
+            return FixtureDataset.create();
+        }
+        log.info("Generating synthetic dataset {}", spec);
+        return new SyntheticDatasetGenerator(spec).generate();
+    }
+
+    /**
+     * 데이터를 리포지토리에 병렬로 적재하고, 교과 과정의 수강 목록으로 수강 인덱스를 만든다.
+     */
+    private void importDataset(DataExport dataset) {
+        long startedAt = System.nanoTime();
+        int parallelism = spec.getParallelism() > 0 ? spec.getParallelism() : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> {
+                dataset.getProfessors().parallelStream().forEach(professorRepository::importEntity);
+                dataset.getSubjects().parallelStream().forEach(subjectRepository::importEntity);
+                dataset.getStudents().parallelStream().forEach(studentRepository::importEntity);
+                dataset.getAttendedSubjects().parallelStream().forEach(attendedSubjectRepository::importEntity);
+                dataset.getLectures().parallelStream().forEach(lectureRepository::importEntity);
+            }).join();
+        } finally {
+            pool.shutdown();
+        }
+        enrollmentIndex.indexLectures(dataset.getLectures());
+        log.info("Loaded {} students, {} professors, {} subjects, {} lectures and {} enrollments in {} ms",
+                dataset.getStudents().size(), dataset.getProfessors().size(), dataset.getSubjects().size(),
+                dataset.getLectures().size(), dataset.getAttendedSubjects().size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    private DataExport readSnapshot(Path path) {
+        log.info("Reading dataset snapshot {}", path);
+        try (InputStream in = open(path)) {
+            return objectMapper.readValue(in, DataExport.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read dataset snapshot " + path, e);
+        }
+    }
+
+    private void writeSnapshot(DataExport dataset, Path path) {
+        log.info("Writing dataset snapshot {}", path);
+        try (OutputStream out = create(path)) {
+            objectMapper.writeValue(out, dataset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write dataset snapshot " + path, e);
+        }
+    }
+
+    private static InputStream open(Path path) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16);
+        return path.toString().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+
+    private static OutputStream create(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16);
+        return path.toString().endsWith(".gz") ? new GZIPOutputStream(out, 1 << 16) : out;
+    }
+}
@@ -0,0 +1,59 @@
+package com.schooldevops.monolithic.demomonolithic.dataset;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 생성할 데이터의 규모와 분포이다. 같은 설정과 seed 로는 항상 같은 데이터가 생성된다.
+ */
+@Builder(toBuilder = true)
+@Getter
+@ToString
+public class DatasetSpec {
+
+    @Builder.Default
+    private final long seed = 42L;
+
+    @Builder.Default
+    private final int students = 100_000;
+
+    @Builder.Default
+    private final int professors = 500;
+
+    @Builder.Default
+    private final int subjects = 2_000;
+
+    @Builder.Default
+    private final int lectures = 5_000;
+
+    /**
+     * 학생별 평균 수강 신청 수, 학생마다 0 ~ 2배 사이에서 정해진다.
+     */
+    @Builder.Default
+    private final int enrollmentsPerStudent = 5;
+
+    /**
+     * 교과 과정 인기도와 전공 분포의 Zipf 지수, 0 이면 균등 분포
+     */
+    @Builder.Default
+    private final double zipfExponent = 1.0;
+
+    @Builder.Default
+    private final int lectureCapacityMin = 20;
+
+    @Builder.Default
+    private final int lectureCapacityMax = 200;
+
+    /**
+     * 종료된(DONE) 교과 과정의 비율, 종료된 교과 과정의 수강 정보에는 성적이 부여된다.
+     */
+    @Builder.Default
+    private final double doneLectureRatio = 0.2;
+
+    /**
+     * 생성에 사용할 스레드 수, 0 이면 CPU 수
+     */
+    @Builder.Default
+    private final int parallelism = 0;
+}
@@ -0,0 +1,63 @@
+package com.schooldevops.monolithic.demomonolithic.dataset;
+
+import com.schooldevops.monolithic.demomonolithic.domains.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 예제와 HTTP 테스트에서 사용하는 작은 고정 데이터이다. (dataset.mode=fixture)
+ */
+public final class FixtureDataset {
+
+    private FixtureDataset() {
+    }
+
+    public static DataExport create() {
+        List<Student> students = List.of(
+                new Student(1L, "KIDO", 20, "ComputerScience", LocalDateTime.now(), null),
+                new Student(2L, "ManDo", 35, "Math", LocalDateTime.now(), null),
+                new Student(3L, "Jobs", 40, "Job", LocalDateTime.now(), null)
+        );
+
+        List<Professor> professors = List.of(
+                new Professor(1L, "Prof-KIDO", "Computer Science", LocalDateTime.now(), null),
+                new Professor(2L, "Madona", "Music", LocalDateTime.now(), null),
+                new Professor(3L, "Alibaba", "Math", LocalDateTime.now(), null)
+        );
+
+        List<Subject> subjects = List.of(
+                new Subject(1L, "Basic Computer Science", 1L, null, 3, null),
+                new Subject(2L, "Machine Learning", 1L, null, 3, null),
+                new Subject(3L, "Modeling", 2L, null, 3, null)
+        );
+
+        List<AttendedSubject> attendedSubjects = List.of(
+                new AttendedSubject(1L, 1L, new Student(1L, "KIDO", 20, "ComputerScience", LocalDateTime.now(), 1L), "None", "APPLY", null),
+                new AttendedSubject(2L, 1L, new Student(2L, "ManDo", 35, "Math", LocalDateTime.now(), 1L), "None", "APPLY", null),
+                new AttendedSubject(3L, 2L, new Student(1L, "KIDO", 20, "ComputerScience", LocalDateTime.now(), 1L), "A+", "DONE", null)
+        );
+
+        Professor professor01 = new Professor(1L, "Prof-KIDO", "Computer Science", LocalDateTime.now(), 1L);
+        Professor professor02 = new Professor(2L, "Madona", "Music", LocalDateTime.now(), 1L);
+
+        Subject subject01 = new Subject(1L, "Basic Computer Science", 1L, null, 3, 1L);
+        Subject subject02 = new Subject(2L, "Machine Learning", 1L, null, 3, 1L);
+        Subject subject03 = new Subject(3L, "Modeling", 2L, null, 3, 1L);
+
+        Student studentKido = new Student(1L, "KIDO", 20, "ComputerScience", LocalDateTime.now(), 1L);
+        Student studentManDo = new Student(2L, "ManDo", 35, "Math", LocalDateTime.now(), 1L);
+
+        AttendedSubject attendedSubject01 = new AttendedSubject(1L, 1L, studentKido, "None", "APPLY", null);
+        AttendedSubject attendedSubject02 = new AttendedSubject(2L, 1L, studentManDo, "None", "APPLY", null);
+        AttendedSubject attendedSubject03 = new AttendedSubject(3L, 2L, studentKido, "A+", "DONE", null);
+
+        List<Lecture> lectures = List.of(
+                new Lecture(1L, professor01, subject01, List.of(attendedSubject01, attendedSubject02), 10, "APPLY", null),
+                new Lecture(2L, professor01, subject02, List.of(attendedSubject03), 10, "APPLY", null),
+                new Lecture(3L, professor02, subject03, List.of(attendedSubject02, attendedSubject03), 5, "DONE", null)
+        );
+
+        return new DataExport(0L, students, professors, subjects, lectures, attendedSubjects);
+    }
+}
@@ -0,0 +1,209 @@
+package com.schooldevops.monolithic.demomonolithic.dataset;
+
+import com.schooldevops.monolithic.demomonolithic.domains.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+/**
+ * DatasetSpec 의 규모와 분포로 학생, 교수, 과목, 교과 과정과 수강 정보를 생성한다.
+ *
+ * 엔티티는 CHUNK_SIZE 단위로 나누어 병렬로 생성하며, 청크마다 seed 와 청크 번호로 정해지는 난수 생성기를 사용하므로
+ * 스레드 수와 관계없이 같은 설정으로는 같은 데이터가 만들어진다.
+ * 학생의 전공과 수강할 교과 과정은 Zipf 분포로 뽑으므로 일부 전공과 교과 과정에 학생이 몰린다.
+ * 수강 신청은 학생 순서대로 정원(limitStudents)까지만 받아들이므로 인기 있는 교과 과정은 정원이 가득 차고,
+ * 정원이 찬 교과 과정을 고른 학생은 미리 뽑아둔 다음 순위의 교과 과정을 신청한다.
+ * 아이디는 엔티티마다 1부터 차례로 할당한다.
+ */
+@Slf4j
+public class SyntheticDatasetGenerator {
+
+    static final int CHUNK_SIZE = 8192;
+
+    /**
+     * 정원이 찬 교과 과정 대신 신청할 수 있도록 신청할 수의 이 배수만큼 후보를 뽑는다.
+     */
+    private static final int CANDIDATES_PER_ENROLLMENT = 3;
+
+    private static final String[] MAJORS = {
+            "ComputerScience", "Math", "Physics", "Chemistry", "Biology", "Music", "Art", "History",
+            "Economics", "Business", "Law", "Medicine", "Philosophy", "Psychology", "Literature", "Statistics"
+    };
+
+    private static final String[] GRADES = {"A+", "A", "B+", "B", "C+", "C", "D+", "D", "F"};
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2020, 3, 2, 9, 0);
+
+    private static final int STUDENT_STREAM = 1;
+    private static final int PROFESSOR_STREAM = 2;
+    private static final int SUBJECT_STREAM = 3;
+    private static final int LECTURE_STREAM = 4;
+    private static final int ENROLLMENT_STREAM = 5;
+    private static final int POPULARITY_STREAM = 6;
+    private static final int GRADE_STREAM = 7;
+
+    private final DatasetSpec spec;
+
+    public SyntheticDatasetGenerator(DatasetSpec spec) {
+        if (spec.getStudents() < 0 || spec.getProfessors() <= 0 || spec.getSubjects() <= 0 || spec.getLectures() <= 0) {
+            throw new IllegalArgumentException("Dataset needs at least one professor, subject and lecture: " + spec);
+        }
+        if (spec.getLectureCapacityMin() <= 0 || spec.getLectureCapacityMax() < spec.getLectureCapacityMin()) {
+            throw new IllegalArgumentException("Invalid lecture capacity range: " + spec);
+        }
+        this.spec = spec;
+    }
+
+    /**
+     * 데이터를 생성한다.
+     * @return 생성된 전체 데이터, sequence 는 0
+     */
+    public DataExport generate() {
+        int parallelism = spec.getParallelism() > 0 ? spec.getParallelism() : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(this::generateAll).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private DataExport generateAll() {
+        long startedAt = System.nanoTime();
+        ZipfianDistribution majors = new ZipfianDistribution(MAJORS.length, spec.getZipfExponent());
+
+        List<Professor> professors = generate(PROFESSOR_STREAM, spec.getProfessors(), (random, index) ->
+                new Professor((long) index + 1, "Professor-" + (index + 1), MAJORS[majors.sample(random)],
+                        BASE_TIME.minusDays(random.nextInt(3650)), null));
+
+        List<Student> students = generate(STUDENT_STREAM, spec.getStudents(), (random, index) ->
+                new Student((long) index + 1, "Student-" + (index + 1), 18 + random.nextInt(23), MAJORS[majors.sample(random)],
+                        BASE_TIME.minusDays(random.nextInt(1460)), null));
+
+        List<Subject> subjects = generate(SUBJECT_STREAM, spec.getSubjects(), (random, index) -> {
+            Professor professor = professors.get(random.nextInt(professors.size()));
+            return new Subject((long) index + 1, professor.getMajor() + " " + (index + 1), professor.getId(), null, 1 + random.nextInt(4), null);
+        });
+
+        List<Lecture> lectures = generate(LECTURE_STREAM, spec.getLectures(), (random, index) -> {
+            Subject subject = subjects.get(random.nextInt(subjects.size()));
+            Professor professor = professors.get((int) (subject.getProfessorId() - 1));
+            int capacity = spec.getLectureCapacityMin() + random.nextInt(spec.getLectureCapacityMax() - spec.getLectureCapacityMin() + 1);
+            String state = random.nextDouble() < spec.getDoneLectureRatio() ? "DONE" : "APPLY";
+            return new Lecture((long) index + 1, professor, subject, null, capacity, state, null);
+        });
+
+        List<AttendedSubject> attendedSubjects = enroll(students, lectures);
+
+        log.info("Generated {} students, {} professors, {} subjects, {} lectures and {} enrollments in {} ms",
+                students.size(), professors.size(), subjects.size(), lectures.size(), attendedSubjects.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        return new DataExport(0L, students, professors, subjects, lectures, attendedSubjects);
+    }
+
+    /**
+     * 학생마다 신청할 수와 선호 순서대로 후보 교과 과정을 병렬로 뽑은 뒤,
+     * 학생 순서대로 정원이 남은 후보부터 신청할 수만큼 수강 정보를 만든다.
+     * 정원 검사를 순서대로 하므로 병렬로 뽑더라도 결과가 달라지지 않는다.
+     */
+    private List<AttendedSubject> enroll(List<Student> students, List<Lecture> lectures) {
+        int[] popularity = shuffledIndexes(lectures.size(), random(POPULARITY_STREAM, 0));
+        ZipfianDistribution lectureRanks = new ZipfianDistribution(lectures.size(), spec.getZipfExponent());
+        int maxPerStudent = Math.min(spec.getEnrollmentsPerStudent() * 2, lectures.size());
+
+        // [신청할 수, 후보1, 후보2, ...]
+        List<int[]> choices = generate(ENROLLMENT_STREAM, students.size(), (random, index) -> {
+            int count = random.nextInt(maxPerStudent + 1);
+            int candidates = Math.min(count * CANDIDATES_PER_ENROLLMENT, lectures.size());
+            int[] chosen = new int[candidates + 1];
+            chosen[0] = count;
+            int found = 0;
+            for (int attempt = 0; found < candidates && attempt < candidates * 4; attempt++) {
+                int lecture = popularity[lectureRanks.sample(random)];
+                if (!contains(chosen, 1, found + 1, lecture)) {
+                    chosen[++found] = lecture;
+                }
+            }
+            return found == candidates ? chosen : Arrays.copyOf(chosen, found + 1);
+        });
+
+        SplittableRandom grades = random(GRADE_STREAM, 0);
+        int[] seats = new int[lectures.size()];
+        List<List<AttendedSubject>> enrolled = new ArrayList<>(lectures.size());
+        lectures.forEach(lecture -> enrolled.add(new ArrayList<>()));
+        List<AttendedSubject> attendedSubjects = new ArrayList<>();
+
+        for (int studentIndex = 0; studentIndex < students.size(); studentIndex++) {
+            int[] chosen = choices.get(studentIndex);
+            int remaining = chosen[0];
+            for (int candidate = 1; candidate < chosen.length && remaining > 0; candidate++) {
+                int lectureIndex = chosen[candidate];
+                Lecture lecture = lectures.get(lectureIndex);
+                if (seats[lectureIndex] >= lecture.getLimitStudents()) {
+                    continue;
+                }
+                seats[lectureIndex]++;
+                remaining--;
+                boolean done = "DONE".equals(lecture.getState());
+                AttendedSubject attendedSubject = new AttendedSubject((long) attendedSubjects.size() + 1, lecture.getSubject().getId(),
+                        students.get(studentIndex), done ? GRADES[grades.nextInt(GRADES.length)] : "None", done ? "DONE" : "APPLY", null);
+                attendedSubjects.add(attendedSubject);
+                enrolled.get(lectureIndex).add(attendedSubject);
+            }
+        }
+
+        for (int lectureIndex = 0; lectureIndex < lectures.size(); lectureIndex++) {
+            lectures.get(lectureIndex).setAttendedSubjects(enrolled.get(lectureIndex));
+        }
+        return attendedSubjects;
+    }
+
+    /**
+     * count 개의 엔티티를 청크 단위로 병렬 생성하여 인덱스 순서대로 반환한다.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> generate(int stream, int count, BiFunction<SplittableRandom, Integer, T> factory) {
+        Object[] values = new Object[count];
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            SplittableRandom random = random(stream, chunk);
+            int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+            for (int index = chunk * CHUNK_SIZE; index < end; index++) {
+                values[index] = factory.apply(random, index);
+            }
+        });
+        return (List<T>) Arrays.asList(values);
+    }
+
+    private SplittableRandom random(int stream, int chunk) {
+        return new SplittableRandom(spec.getSeed() * 0x9E3779B97F4A7C15L + ((long) stream << 32) + chunk);
+    }
+
+    private static int[] shuffledIndexes(int size, SplittableRandom random) {
+        int[] indexes = IntStream.range(0, size).toArray();
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swap;
+        }
+        return indexes;
+    }
+
+    private static boolean contains(int[] values, int from, int to, int value) {
+        for (int i = from; i < to; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package com.schooldevops.monolithic.demomonolithic.dataset;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 0 ~ n-1 순위를 Zipf 분포로 뽑는다. 순위 k 가 뽑힐 확률은 1 / (k+1)^exponent 에 비례한다.
+ * 누적 분포를 미리 계산해두고 이진 탐색으로 뽑으므로 한번 뽑는 비용은 O(log n) 이다.
+ * 여러 스레드에서 함께 사용할 수 있으며, 난수 생성기는 호출하는 쪽에서 전달한다.
+ */
+public class ZipfianDistribution {
+
+    private final double[] cumulative;
+
+    /**
+     * @param n 순위의 개수
+     * @param exponent 분포의 치우침, 0 이면 균등 분포
+     */
+    public ZipfianDistribution(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    /**
+     * 순위를 하나 뽑는다.
+     * @param random 난수 생성기
+     * @return 0 ~ n-1 사이의 순위
+     */
+    public int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+}
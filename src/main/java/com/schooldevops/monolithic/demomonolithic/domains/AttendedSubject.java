@@ -1,17 +1,21 @@
 package com.schooldevops.monolithic.demomonolithic.domains;
 
+import com.schooldevops.monolithic.demomonolithic.json.CompiledJson;
 import lombok.*;
 
+@CompiledJson
 @AllArgsConstructor
 @NoArgsConstructor
+@Builder(toBuilder = true)
 @Getter
 @Setter
 @ToString
-public class AttendedSubject {
+public class AttendedSubject implements VersionedEntity {
 
     private Long id;
     private Long subjectId;
     private Student student;
     private String grade;
     private String state;
+    private Long version;
 }
@@ -0,0 +1,37 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 여러 아이디를 한번에 조회한 결과의 한 항목이다.
+ * 요청한 아이디 순서대로 반환되며, 존재하지 않는 아이디는 found 가 false 이고 entity 가 null 이다.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class BatchItem<T> {
+
+    private Long id;
+    private boolean found;
+    private T entity;
+
+    /**
+     * 요청한 아이디와 같은 순서로 조회된 엔티티 목록을 결과 항목으로 변환한다.
+     * @param ids 요청한 아이디 목록
+     * @param entities 아이디와 같은 순서의 엔티티 목록, 존재하지 않는 아이디는 null
+     * @return 결과 항목 목록
+     */
+    public static <T> List<BatchItem<T>> of(List<Long> ids, List<T> entities) {
+        List<BatchItem<T>> items = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            T entity = entities.get(i);
+            items.add(new BatchItem<>(ids.get(i), entity != null, entity));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,24 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * 워터마크 이후에 변경되거나 삭제된 엔티티 목록이다.
+ * 다음 동기화에는 watermark 값을 since 로 전달하면 된다.
+ * resyncRequired 가 true 이면 since 이후의 삭제 기록(툼스톤)이 이미 정리되었으므로 전체 목록을 다시 받아야 한다.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class ChangeSet<T> {
+
+    private Long since;
+    private Long watermark;
+    private boolean resyncRequired;
+    private List<T> changed;
+    private List<Long> deleted;
+}
@@ -0,0 +1,24 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * 하나의 읽기 스냅샷에서 추출한 전체 데이터이다.
+ * sequence 는 스냅샷이 고정된 커밋 시퀀스로, 모든 목록은 이 시점의 상태를 나타낸다.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class DataExport {
+
+    private Long sequence;
+    private List<Student> students;
+    private List<Professor> professors;
+    private List<Subject> subjects;
+    private List<Lecture> lectures;
+    private List<AttendedSubject> attendedSubjects;
+}
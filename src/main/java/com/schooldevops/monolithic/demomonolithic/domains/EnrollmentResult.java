@@ -0,0 +1,27 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+import lombok.*;
+
+/**
+ * 수강 신청 결과이다. 자리를 얻었다면 수강 정보가 추가된 교과 과정을, 제한 인원이 찼다면 대기열 항목을 담는다.
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class EnrollmentResult {
+
+    private final Lecture lecture;
+    private final WaitlistEntry waitlistEntry;
+
+    public static EnrollmentResult enrolled(Lecture lecture) {
+        return new EnrollmentResult(lecture, null);
+    }
+
+    public static EnrollmentResult waitlisted(WaitlistEntry waitlistEntry) {
+        return new EnrollmentResult(null, waitlistEntry);
+    }
+
+    public boolean isWaitlisted() {
+        return waitlistEntry != null;
+    }
+}
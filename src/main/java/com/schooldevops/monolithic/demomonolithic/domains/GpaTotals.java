@@ -0,0 +1,24 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+import lombok.*;
+
+/**
+ * 한 노드에 저장된 수강 정보로 계산한 학생의 평점 합계이다.
+ * 클러스터 모드에서 노드마다 합계를 모아 더한 뒤 평점을 계산한다.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class GpaTotals {
+
+    private Long studentId;
+
+    /**
+     * (과목 학점 x 평점 x 10) 의 합
+     */
+    private long weightedTenths;
+    private int credits;
+    private int gradedSubjects;
+}
@@ -0,0 +1,42 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 성적 일괄 등록 결과이다.
+ * rows 는 읽은 행 수, applied 는 성적이 반영된 행 수, batches 는 커밋한 배치 수이다.
+ * 실패한 행은 errorCount 로 모두 세고, errors 에는 앞에서부터 설정한 개수까지만 담는다.
+ * closed 는 등록 후 교과 과정과 모든 수강 정보가 종료(DONE) 상태가 되었는지를 나타낸다.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class GradeUploadResult {
+
+    /**
+     * 성적을 반영하지 못한 행이다. line 은 1부터 시작하는 본문의 행 번호이다.
+     */
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Getter
+    @Setter
+    @ToString
+    public static class RowError {
+        private Long line;
+        private Long attendedId;
+        private String message;
+    }
+
+    private Long lectureId;
+    private long rows;
+    private long applied;
+    private long batches;
+    private long errorCount;
+    private List<RowError> errors = new ArrayList<>();
+    private boolean closed;
+    private String state;
+}
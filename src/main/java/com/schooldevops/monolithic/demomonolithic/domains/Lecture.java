@@ -1,18 +1,21 @@
 package com.schooldevops.monolithic.demomonolithic.domains;
 
+import com.schooldevops.monolithic.demomonolithic.json.CompiledJson;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
 
+@CompiledJson
 @AllArgsConstructor
 @NoArgsConstructor
+@Builder(toBuilder = true)
 @Getter
 @Setter
 @ToString
 @Slf4j
-public class Lecture {
+public class Lecture implements VersionedEntity {
 
     private Long id;
     private Professor professor;
@@ -20,6 +23,7 @@ public class Lecture {
     private List<AttendedSubject> attendedSubjects;
     private Integer limitStudents;
     private String state;
+    private Long version;
 
     public void addAttendedSubject(AttendedSubject attendedSubject) {
         if (attendedSubjects == null) {
@@ -1,21 +1,25 @@
 package com.schooldevops.monolithic.demomonolithic.domains;
 
+import com.schooldevops.monolithic.demomonolithic.json.CompiledJson;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
 
+@CompiledJson
 @AllArgsConstructor
 @NoArgsConstructor
+@Builder(toBuilder = true)
 @Getter
 @Setter
 @ToString
 @Slf4j
-public class Professor {
+public class Professor implements VersionedEntity {
 
     private Long id;
     private String name;
     private String major;
     private LocalDateTime joinedAt;
+    private Long version;
 
 }
\ No newline at end of file
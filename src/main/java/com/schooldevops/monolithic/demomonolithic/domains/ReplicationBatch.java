@@ -0,0 +1,25 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+import lombok.*;
+
+import java.util.Map;
+
+/**
+ * 리더가 팔로워에게 보내는 복제 단위이다. 하나의 읽기 스냅샷에서 만든 모든 저장소의 변경 목록을 담는다.
+ * since 가 0 이면 전체 데이터이고, 팔로워는 로컬 데이터를 모두 이 내용으로 교체한다.
+ * epoch 는 리더가 시작할때마다 새로 만드는 값으로, 바뀌었다면 리더의 시퀀스가 초기화된 것이므로 전체 데이터를 다시 받아야 한다.
+ * resyncRequired 가 true 이면 since 이후의 삭제 기록이 이미 정리되었으므로 since 0 으로 다시 요청해야 한다.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class ReplicationBatch {
+
+    private String epoch;
+    private Long since;
+    private Long watermark;
+    private boolean resyncRequired;
+    private Map<String, ChangeSet<?>> changes;
+}
@@ -1,21 +1,25 @@
 package com.schooldevops.monolithic.demomonolithic.domains;
 
+import com.schooldevops.monolithic.demomonolithic.json.CompiledJson;
 import lombok.*;
 
 import java.time.LocalDateTime;
 
+@CompiledJson
 @AllArgsConstructor
 @NoArgsConstructor
+@Builder(toBuilder = true)
 @Getter
 @Setter
 @ToString
-public class Student {
+public class Student implements VersionedEntity {
 
     private Long id;
     private String name;
     private Integer age;
     private String major;
     private LocalDateTime entranceAt;
+    private Long version;
 
 }
 
@@ -0,0 +1,23 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+/**
+ * 학생의 평점이다. 학점(credit)으로 가중 평균한 4.5 만점 평점이며, 성적이 부여된 과목이 없다면 gpa 는 null 이다.
+ * rank 는 순위 조회에서만 포함된다.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StudentGpa {
+
+    private Integer rank;
+    private Long studentId;
+    private Double gpa;
+    private Integer credits;
+    private Integer gradedSubjects;
+}
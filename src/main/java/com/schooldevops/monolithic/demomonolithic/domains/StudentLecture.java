@@ -0,0 +1,22 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+import lombok.*;
+
+/**
+ * 학생 시간표의 한 항목이다.
+ * 교과 과정의 다른 수강생 목록은 포함하지 않고, 해당 학생의 수강 정보만 함께 반환한다.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class StudentLecture {
+
+    private Long lectureId;
+    private Subject subject;
+    private Professor professor;
+    private Integer limitStudents;
+    private String state;
+    private AttendedSubject attendedSubject;
+}
@@ -1,18 +1,22 @@
 package com.schooldevops.monolithic.demomonolithic.domains;
 
+import com.schooldevops.monolithic.demomonolithic.json.CompiledJson;
 import lombok.*;
 
+@CompiledJson
 @AllArgsConstructor
 @NoArgsConstructor
+@Builder(toBuilder = true)
 @Getter
 @Setter
 @ToString
-public class Subject {
+public class Subject implements VersionedEntity {
 
     private Long id;
     private String name;
     private Long professorId;
     private Professor professor;
     private Integer credit;
+    private Long version;
 
 }
@@ -0,0 +1,16 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+/**
+ * 저장소에서 버전으로 관리되는 엔티티이다.
+ * 저장소에 저장된 엔티티는 불변 스냅샷으로 취급하며, 수정될때마다 새로운 스냅샷으로 교체되고 버전이 증가한다.
+ */
+public interface VersionedEntity {
+
+    Long getId();
+
+    void setId(Long id);
+
+    Long getVersion();
+
+    void setVersion(Long version);
+}
@@ -0,0 +1,21 @@
+package com.schooldevops.monolithic.demomonolithic.domains;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 교과 과정 대기열의 한 항목이다. position 은 1부터 시작하는 대기 순번이다.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class WaitlistEntry {
+
+    private Long lectureId;
+    private Long studentId;
+    private Integer position;
+    private LocalDateTime waitlistedAt;
+}
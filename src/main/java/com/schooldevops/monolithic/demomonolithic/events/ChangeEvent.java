@@ -0,0 +1,33 @@
+package com.schooldevops.monolithic.demomonolithic.events;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 변경 스트림으로 전달되는 이벤트이다.
+ * entityType 은 student, professor, subject, lecture, attendedSubject, enrollment 중 하나이며
+ * 구독할때 이 값으로 필터링할 수 있다.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class ChangeEvent {
+
+    public static final String SAVE = "SAVE";
+    public static final String DELETE = "DELETE";
+    public static final String ENROLL = "ENROLL";
+    public static final String UNENROLL = "UNENROLL";
+    public static final String WAITLIST = "WAITLIST";
+    public static final String PROMOTE = "PROMOTE";
+    public static final String RESYNC = "RESYNC";
+
+    private Long sequence;
+    private String entityType;
+    private String operation;
+    private Long entityId;
+    private Object payload;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,100 @@
+package com.schooldevops.monolithic.demomonolithic.events;
+
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.StoreChange;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 변경 데이터 캡처(CDC) 이벤트를 SSE 구독자에게 전달하는 버스이다.
+ * 다섯개 리포지토리의 모든 save/delete 는 VersionedStorage 의 ChangeListener 로 전달받고,
+ * 수강 신청/취소 이벤트는 LectureService 가 직접 publish 한다.
+ * publish 는 구독자별 버퍼에 넣기만 하므로 느린 구독자가 쓰기 경로를 지연시키지 않는다.
+ */
+@Slf4j
+@Component
+public class ChangeEventBus {
+
+    private final VersionedStorage versionedStorage;
+    private final int subscriberBufferSize;
+    private final long streamTimeoutMs;
+    private final ExecutorService sender;
+    private final Set<ChangeSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    public ChangeEventBus(VersionedStorage versionedStorage,
+                          @Value("${changes.subscriber-buffer-size:1024}") int subscriberBufferSize,
+                          @Value("${changes.sender-threads:2}") int senderThreads,
+                          @Value("${changes.stream-timeout-ms:0}") long streamTimeoutMs) {
+        this.versionedStorage = versionedStorage;
+        this.subscriberBufferSize = subscriberBufferSize;
+        this.streamTimeoutMs = streamTimeoutMs;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "change-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        versionedStorage.addChangeListener(this::onStoreChange);
+    }
+
+    /**
+     * 변경 이벤트를 모든 구독자에게 전달한다.
+     * @param event 변경 이벤트
+     */
+    public void publish(ChangeEvent event) {
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * 변경 스트림을 구독한다.
+     * @param entityTypes 구독할 엔티티 타입, 비어있으면 모든 타입을 구독한다.
+     * @return SSE 스트림
+     */
+    public SseEmitter subscribe(Set<String> entityTypes) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        ChangeSubscription subscription = new ChangeSubscription(emitter, entityTypes, subscriberBufferSize, sender, versionedStorage::currentSequence);
+        subscriptions.add(subscription);
+
+        Runnable remove = () -> {
+            subscription.close();
+            subscriptions.remove(subscription);
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        log.info("Change stream subscribed for {}, subscribers: {}", entityTypes.isEmpty() ? "all" : entityTypes, subscriptions.size());
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    private void onStoreChange(StoreChange change) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        publish(new ChangeEvent(change.getSequence(), change.getEntityType(),
+                change.isDelete() ? ChangeEvent.DELETE : ChangeEvent.SAVE,
+                change.getId(), change.getCurrent(), LocalDateTime.now()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.forEach(subscription -> subscription.getEmitter().complete());
+        sender.shutdownNow();
+    }
+}
@@ -0,0 +1,112 @@
+package com.schooldevops.monolithic.demomonolithic.events;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * SSE 구독자 한명을 나타낸다.
+ * 쓰기 경로는 offer 로 제한된 크기의 버퍼에 이벤트를 넣기만 하고, 실제 전송은 별도의 전송 스레드가 수행한다.
+ * 구독자가 느려서 버퍼가 가득 차면 버퍼를 비우고 resync 이벤트를 보내, 클라이언트가 목록을 다시 조회하도록 한다.
+ */
+@Slf4j
+public class ChangeSubscription {
+
+    @Getter
+    private final SseEmitter emitter;
+    private final Set<String> entityTypes;
+    private final BlockingQueue<ChangeEvent> buffer;
+    private final Executor sender;
+    private final LongSupplier currentSequence;
+
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+
+    ChangeSubscription(SseEmitter emitter, Set<String> entityTypes, int bufferSize, Executor sender, LongSupplier currentSequence) {
+        this.emitter = emitter;
+        this.entityTypes = entityTypes;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.sender = sender;
+        this.currentSequence = currentSequence;
+    }
+
+    /**
+     * 구독한 타입의 이벤트라면 버퍼에 넣는다. 블로킹하지 않는다.
+     * @param event 변경 이벤트
+     */
+    void offer(ChangeEvent event) {
+        if (closed || (!entityTypes.isEmpty() && !entityTypes.contains(event.getEntityType()))) {
+            return;
+        }
+        if (!buffer.offer(event)) {
+            overflowed.set(true);
+            buffer.clear();
+        }
+        scheduleDrain();
+    }
+
+    void close() {
+        closed = true;
+        buffer.clear();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            sender.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closed) {
+                if (overflowed.getAndSet(false)) {
+                    buffer.clear();
+                    send(resyncEvent());
+                    continue;
+                }
+                ChangeEvent event = buffer.poll();
+                if (event == null) {
+                    break;
+                }
+                send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Change stream subscriber disconnected: {}", e.getMessage());
+            close();
+            emitter.completeWithError(e);
+        } finally {
+            draining.set(false);
+        }
+
+        if (!closed && (overflowed.get() || !buffer.isEmpty())) {
+            scheduleDrain();
+        }
+    }
+
+    private void send(ChangeEvent event) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.getSequence()))
+                .name(event.getEntityType())
+                .data(event, MediaType.APPLICATION_JSON));
+    }
+
+    private ChangeEvent resyncEvent() {
+        return new ChangeEvent(currentSequence.getAsLong(), "resync", ChangeEvent.RESYNC, null,
+                "Subscriber buffer overflowed, events were dropped. Reload the collections and continue.", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,22 @@
+package com.schooldevops.monolithic.demomonolithic.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 클러스터의 다른 노드를 호출하지 못했을때 발생한다.
+ * @ResponseStatus 를 이용하여 클라이언트에게 503 Service Unavailable 로 응답한다.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ClusterUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ClusterUnavailableException(String node, String message) {
+        super(String.format("cluster node %s is unavailable: %s", node, message));
+    }
+
+    public ClusterUnavailableException(String node, Throwable cause) {
+        super(String.format("cluster node %s is unavailable: %s", node, cause.getMessage()), cause);
+    }
+}
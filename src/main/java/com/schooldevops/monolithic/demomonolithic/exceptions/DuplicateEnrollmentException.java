@@ -0,0 +1,18 @@
+package com.schooldevops.monolithic.demomonolithic.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 이미 수강 신청한 교과 과정에 같은 학생이 다시 신청할때 발생한다.
+ * @ResponseStatus 를 이용하여 클라이언트에게 409 Conflict 로 응답한다.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateEnrollmentException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DuplicateEnrollmentException(Long lectureId, Long studentId) {
+        super(String.format("student %d is already enrolled in lecture %d", studentId, lectureId));
+    }
+}
@@ -0,0 +1,21 @@
+package com.schooldevops.monolithic.demomonolithic.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * expand 파라미터에 지원하지 않는 연관 관계가 포함되었을때 발생한다.
+ * @ResponseStatus 를 이용하여 클라이언트에게 400 Bad Request 로 응답한다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidExpansionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidExpansionException(String relation, Collection<String> supported) {
+        super(String.format("unknown relation '%s', supported relations are %s", relation, new TreeSet<>(supported)));
+    }
+}
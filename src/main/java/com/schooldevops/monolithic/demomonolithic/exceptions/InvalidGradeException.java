@@ -0,0 +1,20 @@
+package com.schooldevops.monolithic.demomonolithic.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Collection;
+
+/**
+ * 성적 등급표에 없는 성적을 부여할때 발생한다.
+ * @ResponseStatus 를 이용하여 클라이언트에게 400 Bad Request 로 응답한다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidGradeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidGradeException(String grade, Collection<String> supported) {
+        super(String.format("unknown grade '%s', supported grades are %s", grade, supported));
+    }
+}
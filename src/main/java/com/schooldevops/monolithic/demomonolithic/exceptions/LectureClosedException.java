@@ -0,0 +1,18 @@
+package com.schooldevops.monolithic.demomonolithic.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 이미 종료(DONE)된 교과 과정에 수강 신청, 대기열 등록, 수정, 성적 일괄 등록을 하거나 다시 종료할때 발생한다.
+ * @ResponseStatus 를 이용하여 클라이언트에게 409 Conflict 로 응답한다.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class LectureClosedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LectureClosedException(Long lectureId) {
+        super(String.format("lecture %d is already closed", lectureId));
+    }
+}
@@ -0,0 +1,16 @@
+package com.schooldevops.monolithic.demomonolithic.exceptions;
+
+import java.io.IOException;
+
+/**
+ * 생성된 JSON 코덱이 읽는 본문이 올바른 JSON 이 아니거나 필드 타입과 맞지 않을때 발생한다.
+ * Jackson 의 파싱 오류와 같이 IOException 이며, 메시지 변환기가 400 Bad Request 로 바꾸어 응답한다.
+ */
+public class MalformedJsonException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public MalformedJsonException(String message, int offset) {
+        super(String.format("%s at offset %d", message, offset));
+    }
+}
@@ -0,0 +1,20 @@
+package com.schooldevops.monolithic.demomonolithic.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Collection;
+
+/**
+ * 수정하려는 엔티티의 버전이 기대한 버전과 다를때 발생한다.
+ * @ResponseStatus 를 이용하여 클라이언트에게 409 Conflict 로 응답한다.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class VersionConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public VersionConflictException(String entityName, Long id, Collection<Long> expectedVersions, Long currentVersion) {
+        super(String.format("%s %d was modified concurrently. expected version %s but was %d", entityName, id, expectedVersions, currentVersion));
+    }
+}
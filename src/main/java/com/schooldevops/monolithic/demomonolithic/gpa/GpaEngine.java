@@ -0,0 +1,487 @@
+package com.schooldevops.monolithic.demomonolithic.gpa;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterClient;
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterMembership;
+import com.schooldevops.monolithic.demomonolithic.domains.AttendedSubject;
+import com.schooldevops.monolithic.demomonolithic.domains.GpaTotals;
+import com.schooldevops.monolithic.demomonolithic.domains.StudentGpa;
+import com.schooldevops.monolithic.demomonolithic.domains.Subject;
+import com.schooldevops.monolithic.demomonolithic.exceptions.ClusterUnavailableException;
+import com.schooldevops.monolithic.demomonolithic.repositories.AttendedSubjectRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.StudentRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.SubjectRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.StoreChange;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * 학생별 평점을 계산하는 엔진이다. 종료된(DONE) 수강 정보 중 등급표에 있는 성적만 과목 학점으로 가중 평균한다.
+ *
+ * 학생마다 (학점 x 평점) 의 합과 학점의 합을 유지하고, 수강 정보가 바뀔때마다 VersionedStorage 의 변경 리스너에서
+ * 이전 값의 몫을 빼고 새 값의 몫을 더한다. 따라서 평점 조회는 수강 정보를 조인하지 않고 O(1) 이다.
+ * 리스너는 커밋이 공개된 후 따로 전달되므로, 조회는 그때까지 공개된 변경이 모두 반영되기를 기다린 뒤 합계를 읽는다.
+ *
+ * 학기 마감이나 과목 학점 변경처럼 전체를 다시 계산해야 할때는 읽기 스냅샷의 전체 수강 정보를 fork-join 으로 나누어 집계한다.
+ * 집계하는 동안의 변경은 그대로 기존 합계에 반영하면서 따로 모아두었다가, 집계 결과로 교체할때 스냅샷 이후의 변경만 다시 반영한다.
+ * 과목 학점이 바뀌면 이미 더한 몫을 알 수 없으므로 전체 재계산을 백그라운드에서 수행하며, 그 전까지는 이전 학점으로 계산된 값이 조회된다.
+ * 클러스터 모드에서는 노드마다 자신이 저장한 수강 정보의 합계를 유지하고, 조회할때 모든 노드의 합계를 모아 더한다.
+ * 한 노드라도 응답하지 않으면 일부 수강 정보가 빠진 평점을 돌려주지 않도록 ClusterUnavailableException 으로 실패한다.
+ * 순위에는 삭제된 학생을 포함하지 않는다.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class GpaEngine {
+
+    /**
+     * 한 작업이 순차로 집계할 최대 수강 정보 수
+     */
+    private static final int RECOMPUTE_THRESHOLD = 8192;
+
+    private static final String DONE = "DONE";
+
+    /**
+     * 학생 한명의 합계이다. 변경할때마다 새로 만들어 교체하므로 조회 중에 값이 바뀌지 않는다.
+     */
+    private static final class Totals {
+        private final long weightedTenths;
+        private final int credits;
+        private final int subjects;
+
+        private Totals(long weightedTenths, int credits, int subjects) {
+            this.weightedTenths = weightedTenths;
+            this.credits = credits;
+            this.subjects = subjects;
+        }
+
+        private static Totals of(GpaTotals gpaTotals) {
+            return new Totals(gpaTotals.getWeightedTenths(), gpaTotals.getCredits(), gpaTotals.getGradedSubjects());
+        }
+
+        private Totals plus(Totals other) {
+            return new Totals(weightedTenths + other.weightedTenths, credits + other.credits, subjects + other.subjects);
+        }
+
+        private Totals minus(Totals other) {
+            int remaining = subjects - other.subjects;
+            return remaining <= 0 ? null : new Totals(weightedTenths - other.weightedTenths, credits - other.credits, remaining);
+        }
+    }
+
+    /**
+     * 전체 재계산 중에 들어온 변경
+     */
+    private static final class Recompute {
+        private final Queue<StoreChange> pending = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * 평점 순위, 평점이 같으면 학점이 많은 학생, 그 다음은 아이디 순이다.
+     * 평점은 나누지 않고 교차 곱으로 비교한다.
+     */
+    private static final Comparator<Map.Entry<Long, Totals>> RANKING = (a, b) -> {
+        int compared = Long.compare(b.getValue().weightedTenths * a.getValue().credits, a.getValue().weightedTenths * b.getValue().credits);
+        if (compared != 0) {
+            return compared;
+        }
+        compared = Integer.compare(b.getValue().credits, a.getValue().credits);
+        return compared != 0 ? compared : Long.compare(a.getKey(), b.getKey());
+    };
+
+    private final VersionedStorage versionedStorage;
+    private final AttendedSubjectRepository attendedSubjectRepository;
+    private final SubjectRepository subjectRepository;
+    private final StudentRepository studentRepository;
+    private final ClusterMembership clusterMembership;
+    private final ClusterClient clusterClient;
+    private final ObjectMapper objectMapper;
+
+    private volatile Map<Long, Totals> totals = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> credits = new ConcurrentHashMap<>();
+
+    /**
+     * 변경 리스너는 읽기 잠금으로 동시에 반영하고, 전체 재계산의 시작과 교체만 쓰기 잠금으로 잠깐 막는다.
+     */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Recompute recompute;
+    private final AtomicBoolean recomputeScheduled = new AtomicBoolean();
+
+    public GpaEngine(VersionedStorage versionedStorage, AttendedSubjectRepository attendedSubjectRepository, SubjectRepository subjectRepository,
+                     StudentRepository studentRepository, ClusterMembership clusterMembership, ClusterClient clusterClient,
+                     ObjectMapper objectMapper) {
+        this.versionedStorage = versionedStorage;
+        this.attendedSubjectRepository = attendedSubjectRepository;
+        this.subjectRepository = subjectRepository;
+        this.studentRepository = studentRepository;
+        this.clusterMembership = clusterMembership;
+        this.clusterClient = clusterClient;
+        this.objectMapper = objectMapper;
+        versionedStorage.addChangeListener(this::onStoreChange);
+        recompute();
+    }
+
+    /**
+     * 학생의 평점을 조회한다. 클러스터 모드에서는 모든 노드의 합계를 더한다.
+     * @param studentId 학생 아이디
+     * @return 평점, 성적이 부여된 과목이 없다면 gpa 가 null 이다.
+     */
+    public StudentGpa findByStudentId(Long studentId) {
+        versionedStorage.awaitDelivered(versionedStorage.currentSequence());
+        Totals studentTotals = totals.get(studentId);
+        for (GpaTotals remote : gather("/cluster/gpa?studentId=" + studentId)) {
+            studentTotals = studentTotals == null ? Totals.of(remote) : studentTotals.plus(Totals.of(remote));
+        }
+        return toStudentGpa(null, studentId, studentTotals);
+    }
+
+    /**
+     * 평점이 높은 순서로 학생을 조회한다. 전체를 정렬하지 않고 크기 limit 의 힙으로 상위 학생만 고른다.
+     * 고른 학생중 삭제된 학생이 있다면 제외하고 다시 고른다.
+     * @param limit 조회할 학생 수
+     * @param minCredits 순위에 포함할 최소 이수 학점
+     * @return 순위가 포함된 평점 목록
+     */
+    public List<StudentGpa> findTop(int limit, int minCredits) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        versionedStorage.awaitDelivered(versionedStorage.currentSequence());
+        Map<Long, Totals> merged = totals;
+        List<GpaTotals> remotes = gather("/cluster/gpa");
+        if (!remotes.isEmpty()) {
+            merged = new HashMap<>(merged);
+            for (GpaTotals remote : remotes) {
+                merged.merge(remote.getStudentId(), Totals.of(remote), Totals::plus);
+            }
+        }
+
+        Set<Long> deleted = new HashSet<>();
+        Set<Long> existing = new HashSet<>();
+        while (true) {
+            List<Map.Entry<Long, Totals>> top = selectTop(merged, limit, minCredits, deleted);
+            for (Map.Entry<Long, Totals> entry : top) {
+                Long studentId = entry.getKey();
+                if (!existing.contains(studentId)) {
+                    if (studentRepository.findById(studentId) == null) {
+                        deleted.add(studentId);
+                    } else {
+                        existing.add(studentId);
+                    }
+                }
+            }
+            if (top.stream().noneMatch(entry -> deleted.contains(entry.getKey()))) {
+                List<StudentGpa> ranking = new ArrayList<>(top.size());
+                for (int i = 0; i < top.size(); i++) {
+                    ranking.add(toStudentGpa(i + 1, top.get(i).getKey(), top.get(i).getValue()));
+                }
+                return ranking;
+            }
+        }
+    }
+
+    private static List<Map.Entry<Long, Totals>> selectTop(Map<Long, Totals> candidates, int limit, int minCredits, Set<Long> excluded) {
+        PriorityQueue<Map.Entry<Long, Totals>> heap = new PriorityQueue<>(RANKING.reversed());
+        for (Map.Entry<Long, Totals> entry : candidates.entrySet()) {
+            if (entry.getValue().credits < minCredits || entry.getValue().credits == 0 || excluded.contains(entry.getKey())) {
+                continue;
+            }
+            heap.add(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, Totals>> top = new ArrayList<>(heap);
+        top.sort(RANKING);
+        return top;
+    }
+
+    /**
+     * 이 노드에 저장된 수강 정보로 계산한 합계를 조회한다. 다른 노드가 평점을 계산할때 호출한다.
+     * @param studentId 학생 아이디, null 이면 전체 학생
+     * @return 학생별 합계
+     */
+    public List<GpaTotals> findLocalTotals(Long studentId) {
+        versionedStorage.awaitDelivered(versionedStorage.currentSequence());
+        Map<Long, Totals> current = totals;
+        if (studentId != null) {
+            Totals studentTotals = current.get(studentId);
+            return studentTotals == null ? List.of() : List.of(toGpaTotals(studentId, studentTotals));
+        }
+        return current.entrySet().stream()
+                .map(entry -> toGpaTotals(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 다른 모든 노드에 동시에 합계를 요청하여 모은다. 클러스터 모드가 아니라면 빈 목록이다.
+     * @throws ClusterUnavailableException 응답하지 않은 노드가 있는 경우
+     */
+    private List<GpaTotals> gather(String pathAndQuery) {
+        if (!clusterMembership.isEnabled()) {
+            return List.of();
+        }
+        List<String> members = clusterMembership.getMembers().stream()
+                .filter(member -> !member.equals(clusterMembership.getSelf()))
+                .collect(Collectors.toList());
+        List<CompletableFuture<HttpResponse<byte[]>>> futures = members.stream()
+                .map(member -> clusterClient.sendAsync(clusterClient.request(member, pathAndQuery).GET().build()))
+                .collect(Collectors.toList());
+
+        List<GpaTotals> gathered = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            HttpResponse<byte[]> response;
+            try {
+                response = futures.get(i).join();
+            } catch (CompletionException e) {
+                throw new ClusterUnavailableException(members.get(i), e.getCause());
+            }
+            if (response.statusCode() != HttpStatus.OK.value()) {
+                throw new ClusterUnavailableException(members.get(i), "HTTP " + response.statusCode());
+            }
+            try {
+                gathered.addAll(Arrays.asList(objectMapper.readValue(response.body(), GpaTotals[].class)));
+            } catch (IOException e) {
+                throw new ClusterUnavailableException(members.get(i), e);
+            }
+        }
+        return gathered;
+    }
+
+    /**
+     * 전체 평점을 읽기 스냅샷에서 fork-join 으로 다시 계산하여 교체한다. 한번에 하나의 재계산만 수행한다.
+     * @return 재계산 결과 (학생 수, 집계한 수강 정보 수, 소요 시간 등)
+     */
+    public synchronized Map<String, Object> recompute() {
+        long startedAt = System.nanoTime();
+        Recompute current = new Recompute();
+        swapLock.writeLock().lock();
+        try {
+            recompute = current;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        // 리스너는 공개된 변경만 전달받으므로, 모아두기 전에 반영된 변경은 아래에서 여는 스냅샷에 모두 포함된다.
+
+        Map<Long, Totals> recomputed;
+        long sequence;
+        int attendedSubjects;
+        try (ReadSnapshot snapshot = versionedStorage.openSnapshot()) {
+            sequence = snapshot.getSequence();
+            Map<Long, Integer> snapshotCredits = new HashMap<>();
+            for (Subject subject : subjectRepository.findAll(snapshot)) {
+                if (subject.getCredit() != null) {
+                    snapshotCredits.put(subject.getId(), subject.getCredit());
+                    credits.putIfAbsent(subject.getId(), subject.getCredit());
+                }
+            }
+            List<AttendedSubject> rows = attendedSubjectRepository.findAllUnordered(snapshot);
+            attendedSubjects = rows.size();
+            recomputed = new ConcurrentHashMap<>(ForkJoinPool.commonPool().invoke(new RecomputeTask(rows, 0, rows.size(), snapshotCredits)));
+        }
+
+        int replayed = 0;
+        swapLock.writeLock().lock();
+        try {
+            for (StoreChange change : current.pending) {
+                if (change.getSequence() > sequence) {
+                    apply(recomputed, change);
+                    replayed++;
+                }
+            }
+            totals = recomputed;
+            recompute = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        if (attendedSubjects > 0) {
+            log.info("Recomputed GPA of {} students from {} enrollments in {} ms", recomputed.size(), attendedSubjects, elapsedMs);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("students", recomputed.size());
+        result.put("attendedSubjects", attendedSubjects);
+        result.put("snapshotSequence", sequence);
+        result.put("replayedChanges", replayed);
+        result.put("elapsedMs", elapsedMs);
+        return result;
+    }
+
+    /**
+     * 변경 리스너이다. 수강 정보 변경은 합계에 바로 반영하고, 과목 학점이 바뀌면 전체 재계산을 예약한다.
+     */
+    private void onStoreChange(StoreChange change) {
+        if (SubjectRepository.ENTITY_NAME.equals(change.getEntityType())) {
+            onSubjectChange(change);
+            return;
+        }
+        if (!AttendedSubjectRepository.ENTITY_NAME.equals(change.getEntityType())) {
+            return;
+        }
+
+        swapLock.readLock().lock();
+        try {
+            apply(totals, change);
+            Recompute current = recompute;
+            if (current != null) {
+                current.pending.add(change);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void onSubjectChange(StoreChange change) {
+        Subject subject = (Subject) change.getCurrent();
+        if (subject == null || subject.getCredit() == null) {
+            return;
+        }
+        Integer previousCredit = credits.put(subject.getId(), subject.getCredit());
+        if (previousCredit != null && !previousCredit.equals(subject.getCredit())) {
+            scheduleRecompute();
+        }
+    }
+
+    /**
+     * 전체 재계산을 백그라운드에서 수행한다. 이미 예약되어 있다면 그 재계산에 합친다.
+     */
+    private void scheduleRecompute() {
+        if (!recomputeScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            recomputeScheduled.set(false);
+            recompute();
+        }).exceptionally(e -> {
+            log.warn("GPA recompute failed", e);
+            return null;
+        });
+    }
+
+    private void apply(Map<Long, Totals> target, StoreChange change) {
+        AttendedSubject previous = (AttendedSubject) change.getPrevious();
+        AttendedSubject current = (AttendedSubject) change.getCurrent();
+        Long previousStudentId = studentIdOf(previous);
+        Totals removed = contribution(previous, credits);
+        Long currentStudentId = studentIdOf(current);
+        Totals added = contribution(current, credits);
+
+        if (removed != null && added != null && previousStudentId.equals(currentStudentId)
+                && removed.weightedTenths == added.weightedTenths && removed.credits == added.credits) {
+            return;
+        }
+        if (removed != null) {
+            target.computeIfPresent(previousStudentId, (id, existing) -> existing.minus(removed));
+        }
+        if (added != null) {
+            target.merge(currentStudentId, added, Totals::plus);
+        }
+    }
+
+    /**
+     * 수강 정보 한건이 평점에 더하는 몫이다.
+     * @return 종료되지 않았거나, 성적이 부여되지 않았거나, 과목 학점을 모르면 null
+     */
+    private static Totals contribution(AttendedSubject attendedSubject, Map<Long, Integer> credits) {
+        if (attendedSubject == null || attendedSubject.getStudent() == null || !DONE.equals(attendedSubject.getState())) {
+            return null;
+        }
+        Integer tenths = GradeScale.tenths(attendedSubject.getGrade());
+        Integer credit = attendedSubject.getSubjectId() == null ? null : credits.get(attendedSubject.getSubjectId());
+        if (tenths == null || credit == null) {
+            return null;
+        }
+        return new Totals((long) credit * tenths, credit, 1);
+    }
+
+    private static Long studentIdOf(AttendedSubject attendedSubject) {
+        return attendedSubject == null || attendedSubject.getStudent() == null ? null : attendedSubject.getStudent().getId();
+    }
+
+    private static GpaTotals toGpaTotals(Long studentId, Totals studentTotals) {
+        return new GpaTotals(studentId, studentTotals.weightedTenths, studentTotals.credits, studentTotals.subjects);
+    }
+
+    private static StudentGpa toStudentGpa(Integer rank, Long studentId, Totals studentTotals) {
+        if (studentTotals == null || studentTotals.credits == 0) {
+            return new StudentGpa(rank, studentId, null, 0, 0);
+        }
+        double gpa = Math.round((double) studentTotals.weightedTenths / studentTotals.credits * 10) / 100.0;
+        return new StudentGpa(rank, studentId, gpa, studentTotals.credits, studentTotals.subjects);
+    }
+
+    /**
+     * 수강 정보 구간을 반으로 나누어 집계한 뒤, 작은 쪽의 결과를 큰 쪽에 합친다.
+     */
+    private static final class RecomputeTask extends RecursiveTask<Map<Long, Totals>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<AttendedSubject> rows;
+        private final int from;
+        private final int to;
+        private final Map<Long, Integer> credits;
+
+        private RecomputeTask(List<AttendedSubject> rows, int from, int to, Map<Long, Integer> credits) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.credits = credits;
+        }
+
+        @Override
+        protected Map<Long, Totals> compute() {
+            if (to - from <= RECOMPUTE_THRESHOLD) {
+                Map<Long, Totals> partial = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    Totals added = contribution(rows.get(i), credits);
+                    if (added != null) {
+                        partial.merge(studentIdOf(rows.get(i)), added, Totals::plus);
+                    }
+                }
+                return partial;
+            }
+
+            int middle = (from + to) >>> 1;
+            RecomputeTask left = new RecomputeTask(rows, from, middle, credits);
+            left.fork();
+            Map<Long, Totals> right = new RecomputeTask(rows, middle, to, credits).compute();
+            Map<Long, Totals> leftResult = left.join();
+
+            Map<Long, Totals> larger = leftResult.size() >= right.size() ? leftResult : right;
+            Map<Long, Totals> smaller = larger == leftResult ? right : leftResult;
+            smaller.forEach((studentId, partial) -> larger.merge(studentId, partial, Totals::plus));
+            return larger;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.schooldevops.monolithic.demomonolithic.gpa;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 4.5 만점 성적 등급표이다. 부동소수 오차 없이 합산할 수 있도록 평점을 10배 한 정수로 다룬다.
+ * A0, B0 처럼 0 을 붙인 표기도 같은 등급으로 인정한다.
+ */
+public final class GradeScale {
+
+    /**
+     * 성적이 부여되지 않은 수강 정보의 성적
+     */
+    public static final String NONE = "None";
+
+    public static final double MAX_POINTS = 4.5;
+
+    private static final Map<String, Integer> TENTHS = new LinkedHashMap<>();
+
+    static {
+        TENTHS.put("A+", 45);
+        TENTHS.put("A", 40);
+        TENTHS.put("B+", 35);
+        TENTHS.put("B", 30);
+        TENTHS.put("C+", 25);
+        TENTHS.put("C", 20);
+        TENTHS.put("D+", 15);
+        TENTHS.put("D", 10);
+        TENTHS.put("F", 0);
+        TENTHS.put("A0", 40);
+        TENTHS.put("B0", 30);
+        TENTHS.put("C0", 20);
+        TENTHS.put("D0", 10);
+    }
+
+    private GradeScale() {
+    }
+
+    /**
+     * 성적의 평점을 10배 한 값을 반환한다.
+     * @param grade 성적
+     * @return 평점 x 10, 등급표에 없는 성적(None 포함)이면 null
+     */
+    public static Integer tenths(String grade) {
+        return grade == null ? null : TENTHS.get(grade);
+    }
+
+    public static boolean isValid(String grade) {
+        return grade != null && TENTHS.containsKey(grade);
+    }
+
+    public static Set<String> grades() {
+        return TENTHS.keySet();
+    }
+}
@@ -0,0 +1,187 @@
+package com.schooldevops.monolithic.demomonolithic.gpa;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 성적 일괄 등록 본문을 한 행씩 읽는다. 본문 전체를 메모리에 올리지 않고 요청한 만큼만 읽는다.
+ * CSV 는 한 행에 "attendedId,grade" 이며, 첫 행의 아이디가 숫자가 아니면 머리글로 보고 건너뛴다.
+ * 필드는 큰따옴표로 감쌀 수 있고, 감싼 필드 안의 쉼표는 구분자가 아니며 "" 는 큰따옴표 하나이다. (RFC 4180)
+ * 한 행이 한 레코드이므로 감싼 필드 안의 줄바꿈은 지원하지 않으며, 닫히지 않은 따옴표는 형식이 잘못된 행으로 반환한다.
+ * NDJSON 은 한 행에 {"attendedId": 1, "grade": "A+"} 형식의 객체 하나이다.
+ * 빈 행은 건너뛰고, 형식이 잘못된 행은 error 가 채워진 행으로 반환한다.
+ */
+public class GradeSheetReader implements Closeable {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final MediaType TEXT_CSV = MediaType.valueOf(TEXT_CSV_VALUE);
+
+    /**
+     * 읽은 행 하나이다. line 은 1부터 시작하는 본문의 행 번호이다.
+     */
+    @AllArgsConstructor
+    @Getter
+    @ToString
+    public static class Row {
+        private final long line;
+        private final Long attendedId;
+        private final String grade;
+        private final String error;
+
+        public boolean isMalformed() {
+            return error != null;
+        }
+    }
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final ObjectMapper objectMapper;
+    private long line;
+
+    /**
+     * @param body 요청 본문
+     * @param contentType 본문 형식, text/csv 이면 CSV 로, 그 외에는 NDJSON 으로 읽는다.
+     * @param objectMapper NDJSON 행을 읽을 ObjectMapper
+     */
+    public GradeSheetReader(InputStream body, MediaType contentType, ObjectMapper objectMapper) {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : Charset.forName("UTF-8");
+        this.reader = new BufferedReader(new InputStreamReader(body, charset));
+        this.csv = TEXT_CSV.includes(contentType);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 다음 행을 읽는다.
+     * @return 읽은 행, 본문이 끝나면 null
+     */
+    public Row next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            Row row = csv ? parseCsv(text) : parseNdjson(text);
+            if (row != null) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    private Row parseCsv(String text) {
+        List<String> fields = new ArrayList<>(2);
+        String error = splitCsv(text, fields);
+        if (error != null) {
+            return malformed(error);
+        }
+        if (fields.size() != 2) {
+            return malformed("expected 'attendedId,grade' but found " + fields.size() + " fields");
+        }
+
+        String id = fields.get(0);
+        String grade = fields.get(1);
+        try {
+            return new Row(line, Long.valueOf(id), grade, null);
+        } catch (NumberFormatException e) {
+            if (line == 1) {
+                return null;
+            }
+            return malformed("attendedId '" + id + "' is not a number");
+        }
+    }
+
+    /**
+     * CSV 한 행을 필드로 나눈다. 필드 앞뒤의 공백은 제거하고, 큰따옴표로 감싼 필드는 따옴표를 벗긴다.
+     * @param text CSV 한 행
+     * @param fields 나눈 필드를 담을 목록
+     * @return 형식이 잘못되었다면 이유, 올바르다면 null
+     */
+    private static String splitCsv(String text, List<String> fields) {
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            while (i < text.length() && text.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < text.length() && text.charAt(i) == '"') {
+                int start = i++;
+                while (true) {
+                    if (i >= text.length()) {
+                        return "unterminated quote at column " + (start + 1);
+                    }
+                    char c = text.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < text.length() && text.charAt(i) == ' ') {
+                    i++;
+                }
+                if (i < text.length() && text.charAt(i) != ',') {
+                    return "unexpected character after closing quote at column " + (i + 1);
+                }
+                fields.add(field.toString().trim());
+            } else {
+                int end = text.indexOf(',', i);
+                String value = text.substring(i, end < 0 ? text.length() : end);
+                if (value.indexOf('"') >= 0) {
+                    return "unexpected quote in unquoted field at column " + (i + value.indexOf('"') + 1);
+                }
+                fields.add(value.trim());
+                i = end < 0 ? text.length() : end;
+            }
+            field.setLength(0);
+            if (i >= text.length()) {
+                return null;
+            }
+            i++;
+        }
+    }
+
+    private Row parseNdjson(String text) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (JsonProcessingException e) {
+            return malformed("invalid json: " + e.getOriginalMessage());
+        }
+
+        JsonNode id = node.path("attendedId");
+        if (!(id.isIntegralNumber() && id.canConvertToLong()) && !(id.isTextual() && id.asText().matches("\\d+"))) {
+            return malformed("attendedId is missing or not a number");
+        }
+        JsonNode grade = node.path("grade");
+        return new Row(line, id.asLong(), grade.isTextual() ? grade.asText() : null, null);
+    }
+
+    private Row malformed(String message) {
+        return new Row(line, null, null, message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,188 @@
+package com.schooldevops.monolithic.demomonolithic.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 멱등 키별 처리 결과를 보관하는 TTL 캐시이다.
+ *
+ * 키마다 처리 결과를 담을 CompletableFuture 를 두므로, 처음 요청이 처리되는 동안 같은 키로 들어온 요청은
+ * 다시 처리되지 않고 그 결과를 기다린다. 처리가 실패하면(5xx 혹은 예외) 키를 제거하여 기다리던 요청 중 하나가 다시 처리한다.
+ * 완료된 결과는 idempotency.ttl-ms 동안 보관하며, 키가 들어온 순서대로 만료된 키와 최대 개수를 넘는 키를 정리한다.
+ * 처리중인 키는 정리하지 않으므로 처리중인 키가 많으면 잠시 최대 개수를 넘을 수 있다.
+ */
+@Slf4j
+@Component
+public class IdempotencyCache {
+
+    /**
+     * 키 하나의 상태이다. fingerprint 는 키를 처음 사용한 요청의 메서드와 경로이고,
+     * bodyHash 는 그 요청의 본문 해시로 본문을 끝까지 읽은 뒤 응답과 함께 정해진다.
+     */
+    static final class Entry {
+        private final String key;
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+        private volatile String bodyHash;
+
+        private Entry(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+
+        String getFingerprint() {
+            return fingerprint;
+        }
+
+        String getBodyHash() {
+            return bodyHash;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService sweeper;
+
+    private final long ttlMs;
+    private final int maxEntries;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+
+    public IdempotencyCache(@Value("${idempotency.ttl-ms:86400000}") long ttlMs,
+                            @Value("${idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${idempotency.sweep-interval-ms:10000}") long sweepIntervalMs) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    Entry newEntry(String key, String fingerprint) {
+        return new Entry(key, fingerprint);
+    }
+
+    /**
+     * 키를 처리할 권한을 얻는다.
+     * @param mine newEntry 로 만든 Entry
+     * @return 권한을 얻었다면 mine, 이미 같은 키가 있다면 그 Entry (fingerprint 가 다를 수 있다)
+     */
+    Entry acquire(Entry mine) {
+        String key = mine.key;
+        while (true) {
+            Entry existing = entries.get(key);
+            if (existing != null && existing.expiresAt > System.currentTimeMillis()) {
+                return existing;
+            }
+            boolean acquired = existing == null ? entries.putIfAbsent(key, mine) == null : entries.replace(key, existing, mine);
+            if (acquired) {
+                insertionOrder.add(mine);
+                executions.increment();
+                return mine;
+            }
+        }
+    }
+
+    /**
+     * 처리한 응답을 보관하고 기다리던 요청에게 전달한다.
+     * @param bodyHash 처리한 요청의 본문 해시
+     * @param retain false 이면 기다리던 요청에게만 전달하고 보관하지 않는다. (응답이 너무 큰 경우)
+     */
+    void complete(Entry entry, String bodyHash, StoredResponse response, boolean retain) {
+        entry.bodyHash = bodyHash;
+        entry.expiresAt = System.currentTimeMillis() + ttlMs;
+        if (!retain) {
+            entries.remove(entry.key, entry);
+        }
+        entry.response.complete(response);
+    }
+
+    /**
+     * 처리에 실패한 키를 제거한다. 기다리던 요청은 null 을 받고 다시 키를 얻어 처리한다.
+     */
+    void fail(Entry entry) {
+        entries.remove(entry.key, entry);
+        entry.response.complete(null);
+    }
+
+    /**
+     * 다른 요청이 처리중인 키의 결과를 기다린다.
+     * @return 처리된 응답, 처리에 실패했다면 null
+     * @throws TimeoutException 제한 시간 안에 처리가 끝나지 않은 경우
+     */
+    StoredResponse await(Entry entry, long timeoutMs) throws TimeoutException, InterruptedException {
+        try {
+            StoredResponse response = entry.response.get(timeoutMs, TimeUnit.MILLISECONDS);
+            if (response != null) {
+                replays.increment();
+            }
+            return response;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 만료된 키와 최대 개수를 넘는 오래된 키를 들어온 순서대로 정리한다.
+     * 처리중인 키는 건너뛰고 그 뒤의 키를 계속 정리하며, 최대 개수 안에서 만료되지 않은 완료된 키를 만나면 멈춘다.
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Entry> iterator = insertionOrder.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entries.get(entry.key) != entry) {
+                // 실패했거나 보관하지 않은 키, 혹은 만료 후 다시 사용된 키의 이전 Entry 이다.
+                iterator.remove();
+                continue;
+            }
+            if (!entry.response.isDone()) {
+                continue;
+            }
+            if (entry.expiresAt > now && entries.size() <= maxEntries) {
+                break;
+            }
+            if (entries.remove(entry.key, entry)) {
+                removed++;
+            }
+            iterator.remove();
+        }
+        if (removed > 0) {
+            log.debug("Removed {} idempotency keys", removed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    public Map<String, Object> getStatus() {
+        return Map.of("entries", entries.size(),
+                "executions", executions.sum(),
+                "replays", replays.sum(),
+                "ttlMs", ttlMs,
+                "maxEntries", maxEntries);
+    }
+}
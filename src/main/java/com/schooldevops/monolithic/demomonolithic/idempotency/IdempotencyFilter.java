@@ -0,0 +1,285 @@
+package com.schooldevops.monolithic.demomonolithic.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency-Key 헤더가 있는 POST 요청을 한번만 처리하는 필터이다.
+ *
+ * 같은 키로 다시 들어온 요청은 처리하지 않고 처음 요청의 응답(상태 코드, 헤더, 본문)을 Idempotent-Replayed 헤더와 함께 돌려준다.
+ * 처음 요청이 처리되는 동안 들어온 같은 키의 요청은 그 결과를 기다리며, idempotency.wait-timeout-ms 가 지나면 409 로 응답한다.
+ * 키는 메서드, 경로와 본문의 해시와 함께 보관하므로 같은 키를 다른 요청에 사용하면 422 로 응답한다.
+ * 본문은 메모리에 모으지 않고 요청을 처리하며 읽는 동안 해시하므로, 대용량 업로드도 본문 크기와 상관없이 비교한다.
+ * 다시 들어온 요청의 본문은 처음 요청의 처리가 끝난 뒤에 읽어 비교하므로, 처리중에 다른 본문으로 재사용한 키는 처리가 끝난 뒤 422 로 응답한다.
+ * 5xx 응답은 보관하지 않으므로 클라이언트가 같은 키로 다시 시도할 수 있다.
+ *
+ * 클러스터 모드에서는 담당 노드로 전달된 요청을 담당 노드에서 처리하도록 라우팅 필터 다음에 실행한다.
+ * 키는 노드별로 보관하므로, 담당 노드가 정해지지 않는 등록 요청은 같은 노드로 다시 시도한 경우에만 중복을 막는다.
+ */
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE)
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String FORM_BODY_HASH = "-";
+
+    private final IdempotencyCache idempotencyCache;
+    private final boolean enabled;
+    private final long maxResponseBytes;
+    private final long waitTimeoutMs;
+
+    public IdempotencyFilter(IdempotencyCache idempotencyCache,
+                             @Value("${idempotency.enabled:true}") boolean enabled,
+                             @Value("${idempotency.max-response-bytes:262144}") long maxResponseBytes,
+                             @Value("${idempotency.wait-timeout-ms:30000}") long waitTimeoutMs) {
+        this.idempotencyCache = idempotencyCache;
+        this.enabled = enabled;
+        this.maxResponseBytes = maxResponseBytes;
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !"POST".equals(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || path.startsWith("/cluster") || path.startsWith("/replication");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        String query = request.getQueryString();
+        String fingerprint = request.getMethod() + " " + request.getRequestURI() + (query == null ? "" : "?" + query);
+
+        while (true) {
+            IdempotencyCache.Entry mine = idempotencyCache.newEntry(key, fingerprint);
+            IdempotencyCache.Entry current = idempotencyCache.acquire(mine);
+            if (!current.getFingerprint().equals(fingerprint)) {
+                response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), "Idempotency-Key was already used for a different request");
+                return;
+            }
+            if (current == mine) {
+                execute(mine, request, response, filterChain);
+                return;
+            }
+
+            StoredResponse stored;
+            try {
+                stored = idempotencyCache.await(current, waitTimeoutMs);
+            } catch (TimeoutException e) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.CONFLICT.value(), "A request with this Idempotency-Key is still in progress");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            }
+            if (stored != null) {
+                // 처리가 실패하면 이 요청이 다시 처리해야 하므로 본문은 응답을 돌려줄 때만 읽는다.
+                if (!bodyHash(request).equals(current.getBodyHash())) {
+                    response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), "Idempotency-Key was already used for a different request");
+                    return;
+                }
+                replay(stored, response);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 요청을 처리하고 응답을 보관한다. 응답 헤더는 이 필터보다 앞에서 설정된 헤더(트레이스 아이디 등)를 제외하고 보관한다.
+     * 본문은 처리하며 읽는 동안 해시하고, 처리가 끝난 뒤 남은 본문을 마저 읽어 해시를 완성한다.
+     */
+    private void execute(IdempotencyCache.Entry entry, HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Set<String> presetHeaders = new HashSet<>();
+        response.getHeaderNames().forEach(name -> presetHeaders.add(name.toLowerCase(Locale.ROOT)));
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        DigestingRequest digestingRequest = isFormContent(request) ? null : new DigestingRequest(request);
+        String bodyHash;
+        try {
+            filterChain.doFilter(digestingRequest == null ? request : digestingRequest, wrapper);
+            bodyHash = digestingRequest == null ? FORM_BODY_HASH : digestingRequest.finish();
+        } catch (ServletException | IOException | RuntimeException e) {
+            idempotencyCache.fail(entry);
+            throw e;
+        }
+
+        if (wrapper.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            idempotencyCache.fail(entry);
+        } else {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (String name : wrapper.getHeaderNames()) {
+                if (!presetHeaders.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.put(name, new ArrayList<>(wrapper.getHeaders(name)));
+                }
+            }
+            if (wrapper.getContentType() != null) {
+                headers.put(HttpHeaders.CONTENT_TYPE, List.of(wrapper.getContentType()));
+            }
+            byte[] body = wrapper.getContentAsByteArray();
+            idempotencyCache.complete(entry, bodyHash, new StoredResponse(wrapper.getStatus(), headers, body), body.length <= maxResponseBytes);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * 보관된 응답을 돌려준다. 본문 없이 보관된 오류 응답은 sendError 로 오류 응답을 다시 만든다.
+     */
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setHeader(REPLAYED_HEADER, "true");
+        stored.getHeaders().forEach((name, values) -> {
+            for (int i = 0; i < values.size(); i++) {
+                if (i == 0) {
+                    response.setHeader(name, values.get(i));
+                } else {
+                    response.addHeader(name, values.get(i));
+                }
+            }
+        });
+        if (stored.getStatus() >= HttpStatus.BAD_REQUEST.value() && stored.getBody().length == 0) {
+            response.sendError(stored.getStatus());
+            return;
+        }
+        response.setStatus(stored.getStatus());
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    private static boolean isFormContent(HttpServletRequest request) {
+        return request.getContentType() != null && request.getContentType().startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+    }
+
+    /**
+     * 다시 들어온 요청의 본문을 메모리에 모으지 않고 읽으며 해시한다. form 요청은 컨테이너가 본문을 파라미터로 읽으므로 비교하지 않는다.
+     */
+    private static String bodyHash(HttpServletRequest request) throws IOException {
+        if (isFormContent(request)) {
+            return FORM_BODY_HASH;
+        }
+        return new DigestingRequest(request).finish();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 처리하는 쪽이 읽는 본문을 그대로 전달하며 해시하는 요청이다.
+     */
+    private static final class DigestingRequest extends HttpServletRequestWrapper {
+
+        private final MessageDigest digest = sha256();
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        private DigestingRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        /**
+         * 처리하는 쪽이 읽지 않고 남긴 본문을 마저 읽어 해시를 완성한다.
+         */
+        String finish() throws IOException {
+            StreamUtils.drain(getInputStream());
+            return Base64.getEncoder().encodeToString(digest.digest());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                ServletInputStream in = super.getInputStream();
+                inputStream = new ServletInputStream() {
+                    @Override
+                    public boolean isFinished() {
+                        return in.isFinished();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return in.isReady();
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener readListener) {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public int read() throws IOException {
+                        int b = in.read();
+                        if (b >= 0) {
+                            digest.update((byte) b);
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int read = in.read(buffer, offset, length);
+                        if (read > 0) {
+                            digest.update(buffer, offset, read);
+                        }
+                        return read;
+                    }
+                };
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(getInputStream(),
+                        encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+            }
+            return reader;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.schooldevops.monolithic.demomonolithic.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 멱등 키로 처리한 요청의 응답이다. 같은 키로 다시 요청하면 이 응답을 그대로 돌려준다.
+ */
+@AllArgsConstructor
+@Getter
+class StoredResponse {
+
+    private final int status;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+}
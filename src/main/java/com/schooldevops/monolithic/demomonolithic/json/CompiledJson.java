@@ -0,0 +1,21 @@
+package com.schooldevops.monolithic.demomonolithic.json;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 빌드할때 CompiledJsonProcessor 가 이 클래스의 JsonCodec 을 생성하도록 표시한다.
+ *
+ * 생성된 코덱은 같은 패키지의 {클래스 이름}JsonCodec 이며, 리플렉션 없이 getter/setter 를 직접 호출한다.
+ * static, transient 가 아닌 필드를 선언 순서대로 직렬화하고, 읽을때는 기본 생성자로 만든 뒤 setter 로 채운다.
+ * 필드 타입은 String, Long, Integer, Boolean, Double (기본형 포함), LocalDateTime,
+ * @CompiledJson 클래스, 그리고 @CompiledJson 클래스의 List 를 지원한다.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CompiledJson {
+}
@@ -0,0 +1,105 @@
+package com.schooldevops.monolithic.demomonolithic.json;
+
+import com.schooldevops.monolithic.demomonolithic.exceptions.MalformedJsonException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * @CompiledJson 클래스와 그 컬렉션을 생성된 JsonCodec 으로 읽고 쓰는 JSON 메시지 변환기이다.
+ *
+ * 목록은 ArrayList 로 읽는다. Jackson 변환기 앞에 두며, 지원하지 않는 타입과 UTF-8 이 아닌 문자셋은 Jackson 변환기가 처리한다.
+ * 읽기 오류는 Jackson 과 같이 HttpMessageNotReadableException (400 Bad Request) 으로 바꾼다.
+ */
+public class CompiledJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public CompiledJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz != null && JsonCodecs.find(clazz) != null;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isUtf8(mediaType) && canRead(mediaType) && (codecOf(type) != null || (elementCodecOf(type) != null
+                && ((Class<?>) ((ParameterizedType) type).getRawType()).isAssignableFrom(ArrayList.class)));
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isUtf8(mediaType) && canWrite(mediaType) && (supports(clazz) || elementCodecOf(type) != null);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        JsonInput in = new JsonInput(inputMessage.getBody().readAllBytes());
+        try {
+            JsonCodec<?> codec = codecOf(type);
+            return codec != null ? in.readObject(codec) : in.readList(elementCodecOf(type));
+        } catch (MalformedJsonException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonOutput out = JsonOutput.to(outputMessage.getBody())) {
+            if (value instanceof Collection) {
+                JsonCodec<Object> codec = (JsonCodec<Object>) elementCodecOf(type);
+                if (codec == null) {
+                    throw new HttpMessageNotWritableException("No generated codec for " + type);
+                }
+                out.writeList((Collection<?>) value, codec);
+            } else {
+                out.writeObject(value, (JsonCodec<Object>) JsonCodecs.find(value.getClass()));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static JsonCodec<?> codecOf(Type type) {
+        return type instanceof Class ? JsonCodecs.find((Class<?>) type) : null;
+    }
+
+    /**
+     * Collection<@CompiledJson 클래스> 타입이면 원소의 코덱을 반환한다.
+     */
+    private static JsonCodec<?> elementCodecOf(Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return null;
+        }
+        ParameterizedType parameterized = (ParameterizedType) type;
+        Type raw = parameterized.getRawType();
+        if (!(raw instanceof Class) || !Collection.class.isAssignableFrom((Class<?>) raw)) {
+            return null;
+        }
+        return codecOf(parameterized.getActualTypeArguments()[0]);
+    }
+
+    private static boolean isUtf8(MediaType mediaType) {
+        Charset charset = mediaType != null ? mediaType.getCharset() : null;
+        return charset == null || charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII);
+    }
+}
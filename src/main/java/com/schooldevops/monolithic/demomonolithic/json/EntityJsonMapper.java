@@ -0,0 +1,61 @@
+package com.schooldevops.monolithic.demomonolithic.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 엔티티를 JSON 바이트로 쓰고 읽는다. 직렬화된 응답 캐시와 저장 엔진의 값 인코딩에서 사용한다.
+ *
+ * json.codec 이 compiled 이고 타입이 @CompiledJson 이면 생성된 코덱을 사용하고, 그 외에는 ObjectMapper 를 사용한다.
+ * 메서드는 ObjectMapper 의 같은 이름의 메서드와 같은 결과를 낸다.
+ */
+public class EntityJsonMapper {
+
+    private final ObjectMapper objectMapper;
+    private final boolean compiled;
+
+    public EntityJsonMapper(ObjectMapper objectMapper, boolean compiled) {
+        this.objectMapper = objectMapper;
+        this.compiled = compiled;
+    }
+
+    public byte[] writeValueAsBytes(Object value) throws IOException {
+        JsonCodec<Object> codec = codecOf(value);
+        if (codec == null) {
+            return objectMapper.writeValueAsBytes(value);
+        }
+        try (JsonOutput out = JsonOutput.toBuffer()) {
+            codec.write(out, value);
+            return out.toByteArray();
+        }
+    }
+
+    public void writeValue(OutputStream stream, Object value) throws IOException {
+        JsonCodec<Object> codec = codecOf(value);
+        if (codec == null) {
+            objectMapper.writeValue(stream, value);
+            return;
+        }
+        try (JsonOutput out = JsonOutput.to(stream)) {
+            codec.write(out, value);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public <T> T readValue(byte[] bytes, int offset, int length, Class<T> type) throws IOException {
+        JsonCodec<T> codec = compiled ? JsonCodecs.find(type) : null;
+        if (codec == null) {
+            return objectMapper.readValue(bytes, offset, length, type);
+        }
+        return new JsonInput(bytes, offset, length).readObject(codec);
+    }
+
+    @SuppressWarnings("unchecked")
+    private JsonCodec<Object> codecOf(Object value) {
+        return compiled && value != null ? (JsonCodec<Object>) JsonCodecs.find(value.getClass()) : null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.schooldevops.monolithic.demomonolithic.json;
+
+import com.schooldevops.monolithic.demomonolithic.exceptions.MalformedJsonException;
+
+/**
+ * 한 타입의 JSON 쓰기와 읽기, @CompiledJson 클래스마다 빌드할때 생성된다.
+ * @param <T> 직렬화할 타입
+ */
+public interface JsonCodec<T> {
+
+    /**
+     * null 이 아닌 값을 JSON 객체로 쓴다.
+     */
+    void write(JsonOutput out, T value);
+
+    /**
+     * 다음 JSON 객체를 읽는다. null 은 JsonInput.readObject 가 처리한다.
+     */
+    T read(JsonInput in) throws MalformedJsonException;
+}
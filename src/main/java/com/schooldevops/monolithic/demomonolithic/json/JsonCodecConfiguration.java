@@ -0,0 +1,68 @@
+package com.schooldevops.monolithic.demomonolithic.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * json.codec 설정으로 도메인 클래스의 JSON 직렬화 방식을 선택한다.
+ *
+ * compiled : @CompiledJson 클래스는 빌드할때 생성된 코덱으로 읽고 쓴다. 기본값이다.
+ * jackson : 모든 타입을 Jackson ObjectMapper 로 읽고 쓴다.
+ * 다른 WebMvcConfigurer (트레이싱) 가 생성된 코덱의 변환기를 볼 수 있도록 먼저 실행한다.
+ */
+@Slf4j
+@Configuration
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class JsonCodecConfiguration implements WebMvcConfigurer {
+
+    public static final String COMPILED = "compiled";
+    public static final String JACKSON = "jackson";
+
+    private final boolean compiled;
+
+    public JsonCodecConfiguration(@Value("${json.codec:compiled}") String codec) {
+        log.info("JSON codec: {}", codec);
+        switch (codec) {
+            case COMPILED:
+                compiled = true;
+                break;
+            case JACKSON:
+                compiled = false;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown json codec: " + codec);
+        }
+    }
+
+    @Bean
+    public EntityJsonMapper entityJsonMapper(ObjectMapper objectMapper) {
+        return new EntityJsonMapper(objectMapper, compiled);
+    }
+
+    /**
+     * 생성된 코덱의 변환기를 Jackson 변환기 바로 앞에 추가한다.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (!compiled) {
+            return;
+        }
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+                converters.add(i, new CompiledJsonHttpMessageConverter());
+                return;
+            }
+        }
+        converters.add(new CompiledJsonHttpMessageConverter());
+    }
+}
@@ -0,0 +1,39 @@
+package com.schooldevops.monolithic.demomonolithic.json;
+
+/**
+ * 타입의 생성된 JsonCodec 을 찾는다.
+ *
+ * 타입마다 한번만 생성된 클래스를 불러 INSTANCE 를 꺼내고, 이후에는 ClassValue 에 보관한 코덱을 반환한다.
+ * 직렬화하는 동안에는 리플렉션을 사용하지 않는다.
+ */
+public final class JsonCodecs {
+
+    private static final String SUFFIX = "JsonCodec";
+
+    private static final ClassValue<JsonCodec<?>> CODECS = new ClassValue<>() {
+        @Override
+        protected JsonCodec<?> computeValue(Class<?> type) {
+            if (!type.isAnnotationPresent(CompiledJson.class)) {
+                return null;
+            }
+            try {
+                Class<?> codec = Class.forName(type.getName() + SUFFIX, true, type.getClassLoader());
+                return (JsonCodec<?>) codec.getField("INSTANCE").get(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Generated codec is missing for " + type.getName()
+                        + ", check that the annotation processor ran", e);
+            }
+        }
+    };
+
+    private JsonCodecs() {
+    }
+
+    /**
+     * @return 타입의 코덱, @CompiledJson 클래스가 아니면 null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> JsonCodec<T> find(Class<T> type) {
+        return (JsonCodec<T>) CODECS.get(type);
+    }
+}
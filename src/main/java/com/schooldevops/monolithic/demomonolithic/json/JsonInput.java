@@ -0,0 +1,649 @@
+package com.schooldevops.monolithic.demomonolithic.json;
+
+import com.schooldevops.monolithic.demomonolithic.exceptions.MalformedJsonException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 생성된 JsonCodec 이 사용하는 UTF-8 JSON 입력이다.
+ *
+ * 본문 전체를 바이트 배열로 받아 앞에서부터 한번만 읽는다. 토큰 객체를 만들지 않고,
+ * 필드 이름은 생성된 코드가 미리 인코딩한 이름(Names)과 바이트로 비교하여 필드 번호를 반환한다.
+ * Spring Boot 기본 설정의 Jackson 과 같이 모르는 필드는 건너뛰고, 문자열로 된 숫자, 소수인 정수, 빈 문자열인 null 을 허용한다.
+ */
+public final class JsonInput {
+
+    /**
+     * nextField 가 반환하는 값, 객체의 끝
+     */
+    public static final int END = -1;
+
+    /**
+     * nextField 가 반환하는 값, 모르는 필드
+     */
+    public static final int UNKNOWN = -2;
+
+    /**
+     * 생성된 코드가 상수로 보관하는 필드 이름 목록, nextField 는 이 목록의 순번을 반환한다.
+     */
+    public static final class Names {
+        private final byte[][] names;
+
+        private Names(byte[][] names) {
+            this.names = names;
+        }
+    }
+
+    private static final byte VALUE = 'v';
+
+    private final byte[] bytes;
+    private final int end;
+    private int position;
+
+    /**
+     * 마지막으로 읽은 토큰, 객체와 배열의 구분자(,)가 필요한지 판단한다.
+     */
+    private byte last;
+
+    public JsonInput(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    public JsonInput(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    public static Names names(String... names) {
+        byte[][] encoded = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return new Names(encoded);
+    }
+
+    /**
+     * 다음 값이 null 이면 읽고 true 를 반환한다.
+     */
+    public boolean readNullIf() throws MalformedJsonException {
+        if (peek() != 'n') {
+            return false;
+        }
+        expectLiteral("null");
+        last = VALUE;
+        return true;
+    }
+
+    public void beginObject() throws MalformedJsonException {
+        expect('{');
+    }
+
+    /**
+     * 다음 필드 이름을 읽고 : 까지 넘긴다.
+     * @return names 에서의 순번, 목록에 없으면 UNKNOWN, 객체가 끝나면 END
+     */
+    public int nextField(Names names) throws MalformedJsonException {
+        int c = peek();
+        if (c == '}') {
+            position++;
+            last = VALUE;
+            return END;
+        }
+        if (last != '{') {
+            expect(',');
+            c = peek();
+        }
+        if (c != '"') {
+            throw error("Expected field name");
+        }
+        int start = ++position;
+        boolean escaped = false;
+        while (true) {
+            if (position >= end) {
+                throw error("Unterminated field name");
+            }
+            byte b = bytes[position];
+            if (b == '"') {
+                break;
+            }
+            if (b == '\\') {
+                escaped = true;
+                position++;
+            }
+            position++;
+        }
+        int field = escaped
+                ? indexOf(names, decodeString(start, position).getBytes(StandardCharsets.UTF_8), 0, -1)
+                : indexOf(names, bytes, start, position - start);
+        position++;
+        expect(':');
+        return field;
+    }
+
+    public Long readLong() throws MalformedJsonException {
+        if (readNullIf() || readEmptyStringIf()) {
+            return null;
+        }
+        return readLongValue();
+    }
+
+    /**
+     * long 을 읽는다. null 은 0 으로 읽는다.
+     */
+    public long readLongValue() throws MalformedJsonException {
+        int c = peek();
+        if (c == '"') {
+            String text = readStringToken();
+            last = VALUE;
+            return text.isEmpty() ? 0 : parseLong(text);
+        }
+        if (c == 'n') {
+            readNullIf();
+            return 0;
+        }
+        int start = position;
+        boolean negative = c == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (position < end && bytes[position] >= '0' && bytes[position] <= '9') {
+            if (++digits > 18) {
+                position = start;
+                return parseLong(readNumberText());
+            }
+            value = value * 10 + (bytes[position++] - '0');
+        }
+        if (digits == 0) {
+            throw error("Expected number");
+        }
+        if (position < end && (bytes[position] == '.' || bytes[position] == 'e' || bytes[position] == 'E')) {
+            position = start;
+            return parseLong(readNumberText());
+        }
+        last = VALUE;
+        return negative ? -value : value;
+    }
+
+    public Integer readInt() throws MalformedJsonException {
+        if (readNullIf() || readEmptyStringIf()) {
+            return null;
+        }
+        return readIntValue();
+    }
+
+    public int readIntValue() throws MalformedJsonException {
+        int start = position;
+        long value = readLongValue();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            position = start;
+            throw error("Numeric value out of range of int");
+        }
+        return (int) value;
+    }
+
+    public Double readDouble() throws MalformedJsonException {
+        if (readNullIf() || readEmptyStringIf()) {
+            return null;
+        }
+        return readDoubleValue();
+    }
+
+    public double readDoubleValue() throws MalformedJsonException {
+        int c = peek();
+        if (c == 'n') {
+            readNullIf();
+            return 0;
+        }
+        String text = c == '"' ? readStringToken() : readNumberText();
+        last = VALUE;
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + text + "'");
+        }
+    }
+
+    public Boolean readBoolean() throws MalformedJsonException {
+        if (readNullIf() || readEmptyStringIf()) {
+            return null;
+        }
+        return readBooleanValue();
+    }
+
+    public boolean readBooleanValue() throws MalformedJsonException {
+        int c = peek();
+        if (c == 'n') {
+            readNullIf();
+            return false;
+        }
+        String text;
+        if (c == '"') {
+            text = readStringToken();
+        } else {
+            text = c == 't' ? "true" : "false";
+            expectLiteral(text);
+        }
+        last = VALUE;
+        if (text.equals("true") || text.equals("false")) {
+            return text.equals("true");
+        }
+        throw error("Invalid boolean '" + text + "'");
+    }
+
+    /**
+     * 문자열을 읽는다. 숫자와 true/false 는 그 텍스트를 문자열로 읽는다.
+     */
+    public String readString() throws MalformedJsonException {
+        int c = peek();
+        String value;
+        if (c == '"') {
+            value = readStringToken();
+        } else if (c == 'n') {
+            readNullIf();
+            return null;
+        } else if (c == 't' || c == 'f') {
+            value = c == 't' ? "true" : "false";
+            expectLiteral(value);
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            value = readNumberText();
+        } else {
+            throw error("Expected string");
+        }
+        last = VALUE;
+        return value;
+    }
+
+    /**
+     * ISO_LOCAL_DATE_TIME 문자열이나 [년, 월, 일, 시, 분, 초, 나노초] 배열을 읽는다. Z 로 끝나는 문자열은 UTC 시각으로 읽는다.
+     */
+    public LocalDateTime readDateTime() throws MalformedJsonException {
+        int c = peek();
+        if (c == 'n') {
+            readNullIf();
+            return null;
+        }
+        if (c == '[') {
+            return readDateTimeArray();
+        }
+        if (c != '"') {
+            throw error("Expected date-time string");
+        }
+        int start = position;
+        String text = readStringToken();
+        last = VALUE;
+        if (text.isEmpty()) {
+            return null;
+        }
+        LocalDateTime value = parseDateTime(bytes, start + 1, position - start - 2);
+        if (value != null) {
+            return value;
+        }
+        try {
+            return text.endsWith("Z")
+                    ? LocalDateTime.ofInstant(Instant.parse(text), ZoneOffset.UTC)
+                    : LocalDateTime.parse(text);
+        } catch (DateTimeException e) {
+            position = start;
+            throw error("Invalid date-time '" + text + "'");
+        }
+    }
+
+    /**
+     * 값이 null 이면 null 을, 아니면 codec 으로 객체를 읽는다.
+     */
+    public <T> T readObject(JsonCodec<T> codec) throws MalformedJsonException {
+        if (readNullIf()) {
+            return null;
+        }
+        if (peek() != '{') {
+            throw error("Expected object");
+        }
+        return codec.read(this);
+    }
+
+    /**
+     * 배열을 목록으로 읽는다.
+     */
+    public <T> List<T> readList(JsonCodec<T> codec) throws MalformedJsonException {
+        if (readNullIf()) {
+            return null;
+        }
+        expect('[');
+        List<T> values = new ArrayList<>();
+        while (nextElement()) {
+            values.add(readObject(codec));
+        }
+        return values;
+    }
+
+    /**
+     * 다음 값을 읽지 않고 건너뛴다.
+     */
+    public void skipValue() throws MalformedJsonException {
+        int c = peek();
+        switch (c) {
+            case '{':
+                position++;
+                last = '{';
+                while (nextField(null) != END) {
+                    skipValue();
+                }
+                break;
+            case '[':
+                position++;
+                last = '[';
+                while (nextElement()) {
+                    skipValue();
+                }
+                break;
+            case '"':
+                skipStringToken();
+                break;
+            case 't':
+                expectLiteral("true");
+                break;
+            case 'f':
+                expectLiteral("false");
+                break;
+            case 'n':
+                expectLiteral("null");
+                break;
+            default:
+                readNumberText();
+        }
+        last = VALUE;
+    }
+
+    /**
+     * 값 뒤에 공백만 남았는지 확인한다.
+     */
+    public void expectEnd() throws MalformedJsonException {
+        if (peek() != -1) {
+            throw error("Unexpected trailing content");
+        }
+    }
+
+    /**
+     * 배열의 다음 원소가 있으면 구분자(,)까지 넘기고 true 를, 배열이 끝나면 ] 를 읽고 false 를 반환한다.
+     */
+    private boolean nextElement() throws MalformedJsonException {
+        if (peek() == ']') {
+            position++;
+            last = VALUE;
+            return false;
+        }
+        if (last != '[') {
+            expect(',');
+        }
+        return true;
+    }
+
+    private boolean readEmptyStringIf() throws MalformedJsonException {
+        if (peek() == '"' && position + 1 < end && bytes[position + 1] == '"') {
+            position += 2;
+            last = VALUE;
+            return true;
+        }
+        return false;
+    }
+
+    private LocalDateTime readDateTimeArray() throws MalformedJsonException {
+        expect('[');
+        int[] fields = new int[7];
+        int count = 0;
+        while (nextElement()) {
+            if (count == fields.length) {
+                throw error("Too many date-time fields");
+            }
+            fields[count++] = readIntValue();
+        }
+        if (count < 5) {
+            throw error("Expected at least [year, month, day, hour, minute]");
+        }
+        try {
+            return LocalDateTime.of(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6]);
+        } catch (DateTimeException e) {
+            throw error("Invalid date-time " + Arrays.toString(Arrays.copyOf(fields, count)));
+        }
+    }
+
+    /**
+     * yyyy-MM-ddTHH:mm[:ss[.n+]] 형식을 위치로 읽는다. 형식이 다르면 null 을 반환하여 DateTimeFormatter 로 읽게 한다.
+     */
+    private static LocalDateTime parseDateTime(byte[] bytes, int start, int length) {
+        if (length < 16 || bytes[start + 4] != '-' || bytes[start + 7] != '-' || bytes[start + 10] != 'T' || bytes[start + 13] != ':') {
+            return null;
+        }
+        int year = digits(bytes, start, 4);
+        int month = digits(bytes, start + 5, 2);
+        int day = digits(bytes, start + 8, 2);
+        int hour = digits(bytes, start + 11, 2);
+        int minute = digits(bytes, start + 14, 2);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || bytes[start + 16] != ':') {
+                return null;
+            }
+            second = digits(bytes, start + 17, 2);
+            if (length > 19) {
+                int fraction = length - 20;
+                if (bytes[start + 19] != '.' || fraction < 1 || fraction > 9) {
+                    return null;
+                }
+                nano = digits(bytes, start + 20, fraction);
+                for (int i = fraction; i < 9 && nano >= 0; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 10진수 자리를 읽는다. 숫자가 아닌 바이트가 있으면 -1 을 반환한다.
+     */
+    private static int digits(byte[] bytes, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private long parseLong(String text) throws MalformedJsonException {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            try {
+                double value = Double.parseDouble(text);
+                if (value < Long.MIN_VALUE || value > Long.MAX_VALUE || Double.isNaN(value)) {
+                    throw error("Numeric value out of range of long");
+                }
+                return (long) value;
+            } catch (NumberFormatException invalid) {
+                throw error("Invalid number '" + text + "'");
+            }
+        }
+    }
+
+    private String readNumberText() throws MalformedJsonException {
+        int start = position;
+        while (position < end) {
+            byte b = bytes[position];
+            if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E') {
+                position++;
+            } else {
+                break;
+            }
+        }
+        if (position == start) {
+            throw error("Unexpected character");
+        }
+        last = VALUE;
+        return new String(bytes, start, position - start, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 따옴표로 감싼 문자열을 읽는다. 이스케이프가 없으면 바이트를 한번에 디코딩한다.
+     */
+    private String readStringToken() throws MalformedJsonException {
+        int start = position + 1;
+        boolean escaped = skipStringToken();
+        return escaped
+                ? decodeString(start, position - 1)
+                : new String(bytes, start, position - 1 - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return 이스케이프가 있었으면 true
+     */
+    private boolean skipStringToken() throws MalformedJsonException {
+        expect('"');
+        boolean escaped = false;
+        while (true) {
+            if (position >= end) {
+                throw error("Unterminated string");
+            }
+            byte b = bytes[position++];
+            if (b == '"') {
+                return escaped;
+            }
+            if (b == '\\') {
+                escaped = true;
+                position++;
+            }
+        }
+    }
+
+    private String decodeString(int start, int stop) throws MalformedJsonException {
+        StringBuilder builder = new StringBuilder(stop - start);
+        int segment = start;
+        for (int i = start; i < stop; i++) {
+            if (bytes[i] != '\\') {
+                continue;
+            }
+            builder.append(new String(bytes, segment, i - segment, StandardCharsets.UTF_8));
+            byte escape = bytes[++i];
+            switch (escape) {
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 >= stop) {
+                        throw error("Invalid unicode escape");
+                    }
+                    int code = 0;
+                    for (int k = 1; k <= 4; k++) {
+                        int digit = Character.digit(bytes[i + k], 16);
+                        if (digit < 0) {
+                            throw error("Invalid unicode escape");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    builder.append((char) code);
+                    i += 4;
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    builder.append((char) escape);
+                    break;
+                default:
+                    throw error("Invalid escape '\\" + (char) escape + "'");
+            }
+            segment = i + 1;
+        }
+        builder.append(new String(bytes, segment, stop - segment, StandardCharsets.UTF_8));
+        return builder.toString();
+    }
+
+    private static int indexOf(Names names, byte[] source, int offset, int length) {
+        if (names == null) {
+            return UNKNOWN;
+        }
+        if (length < 0) {
+            length = source.length;
+        }
+        byte[][] candidates = names.names;
+        for (int i = 0; i < candidates.length; i++) {
+            byte[] name = candidates[i];
+            if (name.length == length && Arrays.equals(name, 0, length, source, offset, offset + length)) {
+                return i;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private void expectLiteral(String literal) throws MalformedJsonException {
+        int length = literal.length();
+        if (position + length > end) {
+            throw error("Expected '" + literal + "'");
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[position + i] != literal.charAt(i)) {
+                throw error("Expected '" + literal + "'");
+            }
+        }
+        position += length;
+    }
+
+    private void expect(char token) throws MalformedJsonException {
+        if (peek() != token) {
+            throw error("Expected '" + token + "'");
+        }
+        position++;
+        last = (byte) token;
+    }
+
+    /**
+     * 공백을 넘기고 다음 바이트를 반환한다. 입력이 끝났으면 -1 을 반환한다.
+     */
+    private int peek() {
+        while (position < end) {
+            byte b = bytes[position];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return b;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    private MalformedJsonException error(String message) {
+        return new MalformedJsonException(message, position);
+    }
+}
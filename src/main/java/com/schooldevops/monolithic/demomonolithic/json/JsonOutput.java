@@ -0,0 +1,386 @@
+package com.schooldevops.monolithic.demomonolithic.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 생성된 JsonCodec 이 사용하는 UTF-8 JSON 출력이다.
+ *
+ * 바이트 배열 버퍼에 직접 쓰며, 스트림으로 출력할때는 버퍼가 가득 차면 스트림으로 내보낸다.
+ * 필드 이름은 생성된 코드가 미리 인코딩한 바이트(예: ,"name":)를 그대로 복사하고,
+ * 숫자와 LocalDateTime 은 문자열을 만들지 않고 버퍼에 숫자를 직접 쓴다.
+ * 출력 형식은 Spring Boot 기본 설정의 Jackson 과 같다. (null 포함, LocalDateTime 은 ISO_LOCAL_DATE_TIME 문자열)
+ * 버퍼는 스레드마다 하나를 재사용하므로 JsonOutput 은 만든 스레드에서만 사용하고 끝나면 close 해야 한다.
+ */
+public final class JsonOutput implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 8192;
+    private static final int MAX_RETAINED_BYTES = 64 * 1024;
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<>();
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream stream;
+    private byte[] buffer;
+    private int position;
+
+    private JsonOutput(OutputStream stream) {
+        this.stream = stream;
+        byte[] retained = BUFFERS.get();
+        if (retained != null) {
+            BUFFERS.set(null);
+            this.buffer = retained;
+        } else {
+            this.buffer = new byte[BUFFER_BYTES];
+        }
+    }
+
+    /**
+     * 스트림으로 출력한다. 버퍼가 가득 차거나 close 할때 스트림에 쓴다. 스트림은 닫지 않는다.
+     */
+    public static JsonOutput to(OutputStream stream) {
+        return new JsonOutput(stream);
+    }
+
+    /**
+     * 버퍼에만 출력한다. toByteArray 로 결과를 꺼낸다.
+     */
+    public static JsonOutput toBuffer() {
+        return new JsonOutput(null);
+    }
+
+    /**
+     * 필드 이름을 이름 앞의 구분자와 함께 인코딩한다. 생성된 코드가 상수로 보관한다.
+     * @param prefix 이름 앞의 구분자, 첫 필드는 { 이고 나머지는 , 이다.
+     */
+    public static byte[] encodeName(char prefix, String name) {
+        JsonOutput out = new JsonOutput(null);
+        try {
+            out.writeByte((byte) prefix);
+            out.writeString(name);
+            out.writeByte((byte) ':');
+            return out.toByteArray();
+        } finally {
+            out.close();
+        }
+    }
+
+    public void writeRaw(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    public void writeByte(byte value) {
+        ensure(1);
+        buffer[position++] = value;
+    }
+
+    public void writeNull() {
+        writeRaw(NULL);
+    }
+
+    public void writeLong(Long value) {
+        if (value == null) {
+            writeNull();
+        } else {
+            writeLong(value.longValue());
+        }
+    }
+
+    public void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeRaw(MIN_LONG);
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = digits(value);
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    public void writeInt(Integer value) {
+        if (value == null) {
+            writeNull();
+        } else {
+            writeLong(value.longValue());
+        }
+    }
+
+    public void writeInt(int value) {
+        writeLong(value);
+    }
+
+    public void writeBoolean(Boolean value) {
+        if (value == null) {
+            writeNull();
+        } else {
+            writeBoolean(value.booleanValue());
+        }
+    }
+
+    public void writeBoolean(boolean value) {
+        writeRaw(value ? TRUE : FALSE);
+    }
+
+    public void writeDouble(Double value) {
+        if (value == null) {
+            writeNull();
+        } else {
+            writeDouble(value.doubleValue());
+        }
+    }
+
+    /**
+     * Jackson 과 같이 Double.toString 으로 쓰고, NaN 과 무한대는 문자열로 쓴다.
+     */
+    public void writeDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeString(Double.toString(value));
+        } else {
+            writeAscii(Double.toString(value));
+        }
+    }
+
+    /**
+     * 문자열을 따옴표로 감싸 쓴다. ", \, 제어 문자를 이스케이프하고 나머지는 UTF-8 로 인코딩한다.
+     * Jackson 의 UTF-8 출력과 같이 서로게이트 문자는 유니코드 이스케이프로 쓴다.
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        int length = value.length();
+        ensure(length + 2);
+        buffer[position++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80 && c >= 0x20 && c != '"' && c != '\\') {
+                if (position == buffer.length) {
+                    ensure(length - i + 1);
+                }
+                buffer[position++] = (byte) c;
+            } else {
+                writeEscaped(c);
+            }
+        }
+        ensure(1);
+        buffer[position++] = '"';
+    }
+
+    /**
+     * yyyy-MM-ddTHH:mm:ss[.nnnnnnnnn] 형식으로 쓴다. 초는 항상 쓰고, 나노초는 뒤의 0을 뺀 자리수만 쓴다.
+     */
+    public void writeDateTime(LocalDateTime value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            writeString(value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            return;
+        }
+        ensure(31);
+        buffer[position++] = '"';
+        writeDigits(year, 4);
+        buffer[position++] = '-';
+        writeDigits(value.getMonthValue(), 2);
+        buffer[position++] = '-';
+        writeDigits(value.getDayOfMonth(), 2);
+        buffer[position++] = 'T';
+        writeDigits(value.getHour(), 2);
+        buffer[position++] = ':';
+        writeDigits(value.getMinute(), 2);
+        buffer[position++] = ':';
+        writeDigits(value.getSecond(), 2);
+        int nano = value.getNano();
+        if (nano > 0) {
+            int width = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                width--;
+            }
+            buffer[position++] = '.';
+            writeDigits(nano, width);
+        }
+        buffer[position++] = '"';
+    }
+
+    /**
+     * 값이 null 이면 null 을, 아니면 codec 으로 객체를 쓴다.
+     */
+    public <T> void writeObject(T value, JsonCodec<T> codec) {
+        if (value == null) {
+            writeNull();
+        } else {
+            codec.write(this, value);
+        }
+    }
+
+    /**
+     * 컬렉션을 배열로 쓴다. 원소가 null 이면 null 을 쓴다.
+     */
+    public <T> void writeList(Collection<? extends T> values, JsonCodec<T> codec) {
+        if (values == null) {
+            writeNull();
+            return;
+        }
+        writeByte((byte) '[');
+        boolean first = true;
+        for (T value : values) {
+            if (!first) {
+                writeByte((byte) ',');
+            }
+            writeObject(value, codec);
+            first = false;
+        }
+        writeByte((byte) ']');
+    }
+
+    /**
+     * 버퍼에 쓴 내용을 복사하여 반환한다.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * 스트림으로 출력하는 중이면 남은 내용을 스트림에 쓰고, 버퍼를 스레드에 돌려준다.
+     */
+    @Override
+    public void close() {
+        try {
+            flushBuffer();
+        } finally {
+            if (buffer.length <= MAX_RETAINED_BYTES) {
+                BUFFERS.set(buffer);
+            }
+        }
+    }
+
+    private void writeEscaped(char c) {
+        ensure(6);
+        if (c == '"' || c == '\\') {
+            buffer[position++] = '\\';
+            buffer[position++] = (byte) c;
+        } else if (c < 0x20) {
+            writeControl(c);
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            writeUnicodeEscape(c);
+        } else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeControl(char c) {
+        byte escape;
+        switch (c) {
+            case '\n':
+                escape = 'n';
+                break;
+            case '\r':
+                escape = 'r';
+                break;
+            case '\t':
+                escape = 't';
+                break;
+            case '\b':
+                escape = 'b';
+                break;
+            case '\f':
+                escape = 'f';
+                break;
+            default:
+                writeUnicodeEscape(c);
+                return;
+        }
+        buffer[position++] = '\\';
+        buffer[position++] = escape;
+    }
+
+    private void writeUnicodeEscape(char c) {
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        buffer[position++] = HEX[c >> 12];
+        buffer[position++] = HEX[(c >> 8) & 0xF];
+        buffer[position++] = HEX[(c >> 4) & 0xF];
+        buffer[position++] = HEX[c & 0xF];
+    }
+
+    private void writeAscii(String value) {
+        int length = value.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeDigits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * bytes 만큼 쓸 공간을 만든다. 스트림으로 출력하는 중이면 버퍼를 비우고, 아니면 버퍼를 늘린다.
+     */
+    private void ensure(int bytes) {
+        if (position + bytes <= buffer.length) {
+            return;
+        }
+        if (stream != null) {
+            flushBuffer();
+            if (bytes <= buffer.length) {
+                return;
+            }
+        }
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+    }
+
+    private void flushBuffer() {
+        if (stream == null || position == 0) {
+            return;
+        }
+        try {
+            stream.write(buffer, 0, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+    }
+}
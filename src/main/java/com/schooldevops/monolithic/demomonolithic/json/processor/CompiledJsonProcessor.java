@@ -0,0 +1,306 @@
+package com.schooldevops.monolithic.demomonolithic.json.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @CompiledJson 클래스마다 같은 패키지에 {클래스 이름}JsonCodec 을 생성하는 애너테이션 프로세서이다.
+ *
+ * 생성된 코덱은 필드 이름을 미리 인코딩한 바이트 상수로 쓰고, 읽을때는 필드 번호로 switch 하여 setter 를 호출한다.
+ * 필드 선언만 보고 코드를 만들고 getter/setter 는 이름 규칙으로 호출하므로, Lombok 이 만드는 접근자도 사용할 수 있다.
+ * 지원하지 않는 필드 타입은 그 필드 위치에 컴파일 오류를 낸다.
+ *
+ * 같은 모듈에서 사용하므로 pom.xml 이 이 패키지를 먼저 따로 컴파일한 뒤 나머지 소스를 이 프로세서와 함께 컴파일한다.
+ */
+@SupportedAnnotationTypes(CompiledJsonProcessor.ANNOTATION)
+public class CompiledJsonProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "com.schooldevops.monolithic.demomonolithic.json.CompiledJson";
+    private static final String JSON_PACKAGE = "com.schooldevops.monolithic.demomonolithic.json";
+    private static final String SUFFIX = "JsonCodec";
+
+    /**
+     * 필드 타입별 쓰기/읽기 메서드
+     */
+    private enum Kind {
+        STRING("writeString", "readString"),
+        LONG("writeLong", "readLong"),
+        LONG_VALUE("writeLong", "readLongValue"),
+        INT("writeInt", "readInt"),
+        INT_VALUE("writeInt", "readIntValue"),
+        BOOLEAN("writeBoolean", "readBoolean"),
+        BOOLEAN_VALUE("writeBoolean", "readBooleanValue"),
+        DOUBLE("writeDouble", "readDouble"),
+        DOUBLE_VALUE("writeDouble", "readDoubleValue"),
+        DATE_TIME("writeDateTime", "readDateTime"),
+        OBJECT("writeObject", "readObject"),
+        LIST("writeList", "readList");
+
+        private final String writer;
+        private final String reader;
+
+        Kind(String writer, String reader) {
+            this.writer = writer;
+            this.reader = reader;
+        }
+    }
+
+    private static final class Field {
+        private final String name;
+        private final Kind kind;
+
+        /**
+         * OBJECT, LIST 의 (원소) 코덱 클래스 이름
+         */
+        private final String codec;
+
+        private Field(String name, Kind kind, String codec) {
+            this.name = name;
+            this.kind = kind;
+            this.codec = codec;
+        }
+
+        private String accessor(String prefix) {
+            return prefix + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+
+        private String getter() {
+            return accessor(kind == Kind.BOOLEAN_VALUE ? "is" : "get");
+        }
+
+        private String setter() {
+            return accessor("set");
+        }
+
+        private String codecArgument() {
+            return codec == null ? "" : ", " + codec + ".INSTANCE";
+        }
+    }
+
+    /**
+     * 코드를 만들 수 없는 필드, 필드 위치에 컴파일 오류로 보고한다.
+     */
+    private static final class UnsupportedFieldException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Element element;
+
+        private UnsupportedFieldException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        if (annotation == null) {
+            return false;
+        }
+        Messager messager = processingEnv.getMessager();
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            try {
+                generate(typeOf(element));
+            } catch (UnsupportedFieldException e) {
+                messager.printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.element);
+            } catch (IOException e) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Failed to write codec: " + e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    private TypeElement typeOf(Element element) throws UnsupportedFieldException {
+        if (element.getKind() != ElementKind.CLASS || !(element.getEnclosingElement() instanceof PackageElement)) {
+            throw new UnsupportedFieldException(element, "@CompiledJson is supported on top-level classes only");
+        }
+        TypeElement type = (TypeElement) element;
+        if (!type.getTypeParameters().isEmpty() || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new UnsupportedFieldException(element, "@CompiledJson is not supported on generic or abstract classes");
+        }
+        return type;
+    }
+
+    private void generate(TypeElement type) throws UnsupportedFieldException, IOException {
+        List<Field> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                fields.add(fieldOf(field));
+            }
+        }
+
+        String packageName = ((PackageElement) type.getEnclosingElement()).getQualifiedName().toString();
+        String entity = type.getSimpleName().toString();
+        String codec = entity + SUFFIX;
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(packageName + "." + codec, type).openWriter())) {
+            out.println("package " + packageName + ";");
+            out.println();
+            out.println("import com.schooldevops.monolithic.demomonolithic.exceptions.MalformedJsonException;");
+            out.println("import " + JSON_PACKAGE + ".JsonCodec;");
+            out.println("import " + JSON_PACKAGE + ".JsonInput;");
+            out.println("import " + JSON_PACKAGE + ".JsonOutput;");
+            out.println();
+            out.println("import javax.annotation.processing.Generated;");
+            out.println();
+            out.println("/**");
+            out.println(" * " + entity + " 의 JSON 코덱, @CompiledJson 으로 빌드할때 생성되었다.");
+            out.println(" */");
+            out.println("@Generated(\"" + getClass().getName() + "\")");
+            out.println("public final class " + codec + " implements JsonCodec<" + entity + "> {");
+            out.println();
+            out.println("    public static final " + codec + " INSTANCE = new " + codec + "();");
+            out.println();
+            for (int i = 0; i < fields.size(); i++) {
+                out.println("    private static final byte[] " + constant(fields.get(i)) + " = JsonOutput.encodeName('"
+                        + (i == 0 ? '{' : ',') + "', \"" + fields.get(i).name + "\");");
+            }
+            out.println("    private static final JsonInput.Names NAMES = JsonInput.names(" + quotedNames(fields) + ");");
+            out.println();
+            out.println("    private " + codec + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void write(JsonOutput out, " + entity + " value) {");
+            if (fields.isEmpty()) {
+                out.println("        out.writeByte((byte) '{');");
+            }
+            for (Field field : fields) {
+                out.println("        out.writeRaw(" + constant(field) + ");");
+                out.println("        out." + field.kind.writer + "(value." + field.getter() + "()" + field.codecArgument() + ");");
+            }
+            out.println("        out.writeByte((byte) '}');");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + entity + " read(JsonInput in) throws MalformedJsonException {");
+            out.println("        " + entity + " value = new " + entity + "();");
+            out.println("        in.beginObject();");
+            out.println("        for (int field = in.nextField(NAMES); field != JsonInput.END; field = in.nextField(NAMES)) {");
+            out.println("            switch (field) {");
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = fields.get(i);
+                out.println("                case " + i + ":");
+                out.println("                    value." + field.setter() + "(in." + field.kind.reader + "(" + field.codecArgument().replaceFirst("^, ", "") + "));");
+                out.println("                    break;");
+            }
+            out.println("                default:");
+            out.println("                    in.skipValue();");
+            out.println("            }");
+            out.println("        }");
+            out.println("        return value;");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private Field fieldOf(VariableElement field) throws UnsupportedFieldException {
+        String name = field.getSimpleName().toString();
+        TypeMirror type = field.asType();
+        switch (type.getKind()) {
+            case LONG:
+                return new Field(name, Kind.LONG_VALUE, null);
+            case INT:
+                return new Field(name, Kind.INT_VALUE, null);
+            case BOOLEAN:
+                return new Field(name, Kind.BOOLEAN_VALUE, null);
+            case DOUBLE:
+                return new Field(name, Kind.DOUBLE_VALUE, null);
+            case DECLARED:
+                break;
+            default:
+                throw new UnsupportedFieldException(field, "Unsupported field type for @CompiledJson: " + type);
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        switch (element.getQualifiedName().toString()) {
+            case "java.lang.String":
+                return new Field(name, Kind.STRING, null);
+            case "java.lang.Long":
+                return new Field(name, Kind.LONG, null);
+            case "java.lang.Integer":
+                return new Field(name, Kind.INT, null);
+            case "java.lang.Boolean":
+                return new Field(name, Kind.BOOLEAN, null);
+            case "java.lang.Double":
+                return new Field(name, Kind.DOUBLE, null);
+            case "java.time.LocalDateTime":
+                return new Field(name, Kind.DATE_TIME, null);
+            case "java.util.List":
+                List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+                if (arguments.size() == 1 && arguments.get(0).getKind() == TypeKind.DECLARED) {
+                    TypeElement item = (TypeElement) ((DeclaredType) arguments.get(0)).asElement();
+                    if (isCompiled(item)) {
+                        return new Field(name, Kind.LIST, codecName(item));
+                    }
+                }
+                throw new UnsupportedFieldException(field, "List fields must contain a @CompiledJson class: " + type);
+            default:
+                if (isCompiled(element)) {
+                    return new Field(name, Kind.OBJECT, codecName(element));
+                }
+                throw new UnsupportedFieldException(field, "Unsupported field type for @CompiledJson: " + type
+                        + ", annotate it with @CompiledJson or use a supported type");
+        }
+    }
+
+    private static boolean isCompiled(TypeElement element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANNOTATION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String codecName(TypeElement element) {
+        return element.getQualifiedName() + SUFFIX;
+    }
+
+    private static String constant(Field field) {
+        StringBuilder constant = new StringBuilder();
+        for (char c : field.name.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                constant.append('_');
+            }
+            constant.append(Character.toUpperCase(c));
+        }
+        return constant.append("_NAME").toString();
+    }
+
+    private static String quotedNames(List<Field> fields) {
+        StringBuilder names = new StringBuilder();
+        for (Field field : fields) {
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append('"').append(field.name).append('"');
+        }
+        return names.toString();
+    }
+}
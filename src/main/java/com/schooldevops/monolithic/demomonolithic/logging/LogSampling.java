@@ -0,0 +1,28 @@
+package com.schooldevops.monolithic.demomonolithic.logging;
+
+/**
+ * 현재 스레드에서 처리중인 요청의 로그를 기록할지 여부를 보관한다.
+ * LogSamplingFilter 가 요청마다 정하고, SamplingTurboFilter 가 로그를 남기기 전에 확인한다.
+ */
+public final class LogSampling {
+
+    private static final ThreadLocal<Boolean> SUPPRESSED = new ThreadLocal<>();
+
+    private LogSampling() {
+    }
+
+    /**
+     * 현재 요청의 INFO 이하 로그를 기록하지 않도록 한다.
+     */
+    public static void suppress() {
+        SUPPRESSED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        SUPPRESSED.remove();
+    }
+
+    public static boolean isSuppressed() {
+        return SUPPRESSED.get() != null;
+    }
+}
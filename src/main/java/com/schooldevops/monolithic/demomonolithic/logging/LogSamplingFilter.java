@@ -0,0 +1,87 @@
+package com.schooldevops.monolithic.demomonolithic.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 경로별 비율로 요청의 로그를 샘플링하는 필터이다.
+ * log-sampling.rules 는 "경로 패턴=비율" 을 쉼표로 나열하며, 처음으로 일치하는 규칙의 비율로 요청마다 한번 정한다.
+ * 선택되지 않은 요청은 컨트롤러, 서비스, 리포지토리의 INFO 이하 로그를 모두 남기지 않으므로
+ * 남겨진 요청의 로그는 계층별로 빠짐없이 함께 남는다. 일치하는 규칙이 없는 경로는 모두 기록한다.
+ */
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Component
+public class LogSamplingFilter extends OncePerRequestFilter {
+
+    private static final class Rule {
+        private final String pattern;
+        private final double rate;
+
+        private Rule(String pattern, double rate) {
+            this.pattern = pattern;
+            this.rate = rate;
+        }
+    }
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Rule> rules = new ArrayList<>();
+
+    public LogSamplingFilter(@Value("${log-sampling.rules:}") List<String> rules) {
+        for (String rule : rules) {
+            if (rule.isBlank()) {
+                continue;
+            }
+            int separator = rule.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalStateException("log-sampling.rules must be pattern=rate: " + rule);
+            }
+            double rate = Double.parseDouble(rule.substring(separator + 1).trim());
+            if (rate < 0 || rate > 1) {
+                throw new IllegalStateException("log sampling rate must be between 0 and 1: " + rule);
+            }
+            this.rules.add(new Rule(rule.substring(0, separator).trim(), rate));
+        }
+        if (!this.rules.isEmpty()) {
+            log.info("Log sampling rules: {}", rules);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return rules.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Rule rule : rules) {
+            if (pathMatcher.match(rule.pattern, path)) {
+                if (ThreadLocalRandom.current().nextDouble() >= rule.rate) {
+                    LogSampling.suppress();
+                }
+                break;
+            }
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            LogSampling.clear();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.schooldevops.monolithic.demomonolithic.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 로그 이벤트를 고정 크기 링 버퍼에 넣고, 하나의 백그라운드 스레드가 연결된 appender 로 기록하는 비동기 appender 이다.
+ *
+ * 요청 스레드는 CAS 로 슬롯 하나를 차지하고 이벤트를 넣은 뒤 슬롯의 시퀀스를 공개하기만 하므로 잠금을 잡지 않는다.
+ * 슬롯 배열은 시작할때 한번 만들어 재사용하므로 이벤트마다 큐 노드를 할당하지 않는다.
+ * 버퍼가 가득 차면 INFO 이하의 이벤트는 버리고(버린 수는 다음에 기록할때 경고로 남긴다), WARN 이상은 자리가 날때까지 기다린다.
+ * 종료할때는 maxFlushTime 동안 남은 이벤트를 기록한다.
+ *
+ * <pre>
+ * &lt;appender name="ASYNC" class="...RingBufferAppender"&gt;
+ *     &lt;bufferSize&gt;8192&lt;/bufferSize&gt;
+ *     &lt;appender-ref ref="CONSOLE"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent> implements AppenderAttachable<ILoggingEvent> {
+
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private int appenderCount;
+
+    private int bufferSize = 8192;
+    private int maxFlushTime = 1000;
+
+    private ILoggingEvent[] slots;
+    private AtomicLongArray published;
+    private int mask;
+
+    /**
+     * 다음에 생산자가 차지할 시퀀스
+     */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /**
+     * 소비자가 다음에 기록할 시퀀스, 이 값보다 작은 슬롯은 다시 사용할 수 있다.
+     */
+    private final AtomicLong consumed = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean sleeping;
+    private volatile boolean running;
+    private Thread worker;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (appenderCount == 0) {
+            addError("No appender attached to " + getName());
+            return;
+        }
+        if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1) {
+            addError("bufferSize must be a power of two: " + bufferSize);
+            return;
+        }
+        slots = new ILoggingEvent[bufferSize];
+        published = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            published.set(i, -1);
+        }
+        mask = bufferSize - 1;
+        running = true;
+        worker = new Thread(this::drain, "log-" + getName());
+        worker.setDaemon(true);
+        worker.start();
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (!running) {
+            return;
+        }
+        // 이벤트를 다른 스레드에서 기록하므로 메시지, 스레드 이름과 MDC 를 지금 확정한다.
+        event.prepareForDeferredProcessing();
+
+        long sequence;
+        while (true) {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= bufferSize) {
+                if (!event.getLevel().isGreaterOrEqual(Level.WARN)) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                wakeWorker();
+                LockSupport.parkNanos(PARK_NANOS);
+                continue;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+
+        int index = (int) sequence & mask;
+        slots[index] = event;
+        published.set(index, sequence);
+        if (sleeping) {
+            wakeWorker();
+        }
+    }
+
+    private void wakeWorker() {
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * 공개된 순서대로 이벤트를 꺼내어 연결된 appender 로 기록한다.
+     */
+    private void drain() {
+        long next = consumed.get();
+        int idle = 0;
+        while (running || next < claimed.get()) {
+            int index = (int) next & mask;
+            if (published.get(index) != next) {
+                if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    sleeping = true;
+                    if (published.get(index) != next && running) {
+                        LockSupport.parkNanos(PARK_NANOS);
+                    }
+                    sleeping = false;
+                }
+                continue;
+            }
+            idle = 0;
+            ILoggingEvent event = slots[index];
+            slots[index] = null;
+            consumed.lazySet(++next);
+            reportDropped();
+            try {
+                appenders.appendLoopOnAppenders(event);
+            } catch (RuntimeException e) {
+                addError("Failed to append log event", e);
+            }
+        }
+    }
+
+    private void reportDropped() {
+        if (dropped.get() > 0) {
+            long count = dropped.getAndSet(0);
+            if (count > 0) {
+                addWarn("Ring buffer of " + getName() + " was full, dropped " + count + " events below WARN");
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        running = false;
+        wakeWorker();
+        try {
+            worker.join(maxFlushTime);
+            if (worker.isAlive()) {
+                addWarn("Could not flush " + (claimed.get() - consumed.get()) + " events within " + maxFlushTime + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    /**
+     * 버퍼가 가득 차서 버린 이벤트 수, 다음 이벤트를 기록할때 0 으로 초기화된다.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenderCount++;
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
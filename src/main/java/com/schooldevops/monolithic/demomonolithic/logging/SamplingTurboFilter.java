@@ -0,0 +1,23 @@
+package com.schooldevops.monolithic.demomonolithic.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+/**
+ * 샘플링에서 제외된 요청의 INFO 이하 로그를 버리는 Logback 필터이다.
+ * 로그 이벤트를 만들거나 메시지를 포맷하기 전에 호출되므로 버려지는 로그는 비용이 거의 들지 않는다.
+ * WARN 이상은 샘플링과 관계없이 항상 기록한다.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.WARN) || !LogSampling.isSuppressed()) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+}
@@ -0,0 +1,111 @@
+package com.schooldevops.monolithic.demomonolithic.replication;
+
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 리더-팔로워 복제에서 요청을 처리할 노드를 정한다.
+ *
+ * 리더는 쓰기 응답에 쓰기 이후의 커밋 시퀀스를 세션 토큰(X-Session-Token)으로 돌려준다.
+ * 팔로워는 쓰기를 리더로 전달하고 읽기는 로컬에서 처리한다. 다만 다음의 경우에는 읽기도 리더로 전달한다.
+ * 1. 요청의 세션 토큰까지 제한 시간 안에 복제되지 않은 경우 (자신이 쓴 데이터 읽기 보장)
+ * 2. 리더와 마지막으로 동기화한 이후 허용된 지연 시간(replication.max-staleness-ms)이 지난 경우
+ * 3. 대기열 조회처럼 복제되지 않고 리더의 메모리에만 있는 상태를 읽는 경우
+ * 팔로워가 로컬에서 처리한 읽기 응답에는 데이터의 지연 시간(X-Replica-Staleness-Ms)을 함께 돌려준다.
+ * 변경 스트림(SSE)은 연결을 유지해야 하므로 전달하지 않고 각 노드에서 처리한다.
+ * 팔로워로 들어온 쓰기의 멱등 키는 리더에서 확인하도록 IdempotencyFilter 보다 먼저 실행한다.
+ */
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@Component
+public class ReplicationFilter extends OncePerRequestFilter {
+
+    public static final String SESSION_TOKEN_HEADER = "X-Session-Token";
+    public static final String STALENESS_HEADER = "X-Replica-Staleness-Ms";
+
+    /**
+     * 복제 로그에 포함되지 않아 리더에서만 조회할 수 있는 읽기
+     */
+    private static final String LEADER_ONLY_READ = "/education/lectures/{id:\\d+}/waitlist";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final ReplicationFollower replicationFollower;
+    private final ReplicationSource replicationSource;
+    private final ClusterClient clusterClient;
+    private final long readYourWritesWaitMs;
+
+    public ReplicationFilter(ReplicationFollower replicationFollower, ReplicationSource replicationSource, ClusterClient clusterClient,
+                             @Value("${replication.read-your-writes-wait-ms:1000}") long readYourWritesWaitMs) {
+        this.replicationFollower = replicationFollower;
+        this.replicationSource = replicationSource;
+        this.clusterClient = clusterClient;
+        this.readYourWritesWaitMs = readYourWritesWaitMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(replicationFollower.isLeader() || replicationFollower.isFollower())
+                || path.startsWith("/replication") || path.startsWith("/cluster") || path.equals("/changes/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+
+        if (replicationFollower.isLeader()) {
+            if (read) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            filterChain.doFilter(request, wrapper);
+            wrapper.setHeader(SESSION_TOKEN_HEADER, String.valueOf(replicationSource.currentSequence()));
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        if (!read || !isServableLocally(request)) {
+            clusterClient.forward(replicationFollower.getLeaderAddress(), pathAndQueryOf(request), request, response);
+            return;
+        }
+        response.setHeader(STALENESS_HEADER, String.valueOf(replicationFollower.getStalenessMs()));
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean isServableLocally(HttpServletRequest request) {
+        if (pathMatcher.match(LEADER_ONLY_READ, request.getRequestURI().substring(request.getContextPath().length()))) {
+            return false;
+        }
+        String token = request.getHeader(SESSION_TOKEN_HEADER);
+        if (token != null) {
+            try {
+                if (!replicationFollower.awaitWatermark(Long.parseLong(token.trim()), readYourWritesWaitMs)) {
+                    return false;
+                }
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed session token {}", token);
+            }
+        }
+        return replicationFollower.isFresh();
+    }
+
+    private static String pathAndQueryOf(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return request.getRequestURI() + (query == null ? "" : "?" + query);
+    }
+}
@@ -0,0 +1,206 @@
+package com.schooldevops.monolithic.demomonolithic.replication;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterClient;
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterCoordinator;
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterMembership;
+import com.schooldevops.monolithic.demomonolithic.startup.StartupTasks;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 팔로워에서 리더의 복제 로그를 주기적으로 가져와 적용한다.
+ *
+ * 처음에는 since 0 으로 전체 데이터를 받아 로컬 데이터를 교체하고, 이후에는 마지막 워터마크 이후의 변경만 받는다.
+ * 리더의 툼스톤이 정리되어 증분 복제를 할 수 없게 되거나 리더가 재시작되면(epoch 변경) 다시 전체 데이터를 받는다.
+ * 엔티티는 리더의 버전 그대로 저장되므로 팔로워에서 받은 ETag 로 리더에 조건부 수정을 요청할 수 있다.
+ */
+@Slf4j
+@Component
+public class ReplicationFollower {
+
+    public static final String LEADER = "leader";
+    public static final String FOLLOWER = "follower";
+
+    @Getter
+    private final String role;
+
+    @Getter
+    private final String leaderAddress;
+
+    private final long pollIntervalMs;
+    private final long maxStalenessMs;
+    private final ClusterClient clusterClient;
+    private final ClusterCoordinator clusterCoordinator;
+    private final StartupTasks startupTasks;
+
+    /**
+     * 마지막으로 적용한 리더의 워터마크(커밋 시퀀스)
+     */
+    @Getter
+    private volatile long watermark;
+
+    /**
+     * 팔로워의 데이터가 리더와 같았던 마지막 시각, 마지막으로 적용한 복제 요청을 보낸 시각이다.
+     */
+    private volatile long syncedAt;
+
+    /**
+     * 마지막으로 적용한 리더의 epoch
+     */
+    private volatile String epoch;
+
+    private volatile boolean failing;
+    private final Object progress = new Object();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replication-follower");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicationFollower(@Value("${replication.role:none}") String role,
+                               @Value("${replication.leader-address:}") String leaderAddress,
+                               @Value("${replication.poll-interval-ms:200}") long pollIntervalMs,
+                               @Value("${replication.max-staleness-ms:5000}") long maxStalenessMs,
+                               ClusterClient clusterClient, ClusterCoordinator clusterCoordinator,
+                               ClusterMembership clusterMembership, StartupTasks startupTasks) {
+        if (FOLLOWER.equals(role) && leaderAddress.isBlank()) {
+            throw new IllegalStateException("replication.leader-address is required for a follower");
+        }
+        if (!"none".equals(role) && clusterMembership.isEnabled()) {
+            throw new IllegalStateException("Replication can not be used together with cluster mode");
+        }
+        this.role = role;
+        this.leaderAddress = leaderAddress;
+        this.pollIntervalMs = pollIntervalMs;
+        this.maxStalenessMs = maxStalenessMs;
+        this.clusterClient = clusterClient;
+        this.clusterCoordinator = clusterCoordinator;
+        this.startupTasks = startupTasks;
+    }
+
+    public boolean isFollower() {
+        return FOLLOWER.equals(role);
+    }
+
+    public boolean isLeader() {
+        return LEADER.equals(role);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (isFollower()) {
+            log.info("Replicating from leader {}", leaderAddress);
+            executor.execute(() -> {
+                // 첫 동기화는 로컬 데이터를 버리므로 미뤄둔 초기 데이터 생성이 끝난 후에 시작한다.
+                startupTasks.awaitCompletion(Long.MAX_VALUE);
+                executor.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+            });
+        }
+    }
+
+    /**
+     * 리더에서 마지막 워터마크 이후의 변경을 가져와 적용한다.
+     */
+    void poll() {
+        long requestedAt = System.currentTimeMillis();
+        try {
+            JsonNode batch = clusterClient.get(leaderAddress, "/replication/log?since=" + watermark, JsonNode.class);
+            if (batch.path("resyncRequired").asBoolean()) {
+                log.warn("Replication log from {} was compacted past watermark {}, resynchronizing", leaderAddress, watermark);
+                watermark = 0;
+                syncedAt = 0;
+                return;
+            }
+            String leaderEpoch = batch.path("epoch").asText();
+            if (watermark > 0 && !leaderEpoch.equals(epoch)) {
+                log.warn("Leader {} restarted, resynchronizing", leaderAddress);
+                watermark = 0;
+                syncedAt = 0;
+                return;
+            }
+
+            apply(batch);
+            synchronized (progress) {
+                epoch = leaderEpoch;
+                watermark = batch.path("watermark").asLong();
+                syncedAt = requestedAt;
+                progress.notifyAll();
+            }
+            if (failing) {
+                failing = false;
+                log.info("Replication from {} recovered at watermark {}", leaderAddress, watermark);
+            }
+        } catch (RuntimeException e) {
+            if (!failing) {
+                failing = true;
+                log.warn("Replication from {} failed: {}", leaderAddress, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 복제 배치를 하나의 쓰기 배치로 적용한다. 전체 데이터라면 같은 쓰기 배치에서 로컬에만 있는 엔티티를 제거한다.
+     */
+    private void apply(JsonNode batch) {
+        boolean fullSync = batch.path("since").asLong() == 0;
+        if (fullSync) {
+            syncedAt = 0;
+        }
+        clusterCoordinator.applyReplication(batch.path("changes"), fullSync);
+    }
+
+    /**
+     * 리더와 마지막으로 동기화한 이후 지난 시간, 한번도 동기화하지 않았다면 Long.MAX_VALUE
+     */
+    public long getStalenessMs() {
+        long synced = syncedAt;
+        return synced == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - synced;
+    }
+
+    /**
+     * 팔로워의 데이터가 허용된 지연 시간 안에 있는지 검사한다.
+     */
+    public boolean isFresh() {
+        return getStalenessMs() <= maxStalenessMs;
+    }
+
+    /**
+     * 세션 토큰의 커밋 시퀀스까지 복제될때까지 기다린다.
+     * @param sequence 리더가 쓰기 응답으로 돌려준 커밋 시퀀스
+     * @param timeoutMs 최대 대기 시간
+     * @return 제한 시간 안에 복제되었다면 true
+     */
+    public boolean awaitWatermark(long sequence, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (progress) {
+            while (watermark < sequence) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    progress.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
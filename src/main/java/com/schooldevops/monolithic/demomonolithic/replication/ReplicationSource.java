@@ -0,0 +1,49 @@
+package com.schooldevops.monolithic.demomonolithic.replication;
+
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
+import com.schooldevops.monolithic.demomonolithic.domains.ReplicationBatch;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 리더에서 팔로워가 가져갈 복제 로그를 만든다.
+ * 복제 로그는 저장소마다 관리하는 변경 기록(아이디별 최신 기록)이며, 커밋 시퀀스를 워터마크로 사용한다.
+ */
+@Component
+public class ReplicationSource {
+
+    /**
+     * 리더가 시작할때 만드는 값, 팔로워는 이 값이 바뀌면 리더가 재시작된 것으로 보고 전체 데이터를 다시 받는다.
+     */
+    private final String epoch = UUID.randomUUID().toString();
+
+    private final VersionedStorage versionedStorage;
+
+    public ReplicationSource(VersionedStorage versionedStorage) {
+        this.versionedStorage = versionedStorage;
+    }
+
+    /**
+     * 워터마크 이후의 모든 저장소 변경을 하나의 읽기 스냅샷에서 조회한다.
+     * @param since 팔로워가 마지막으로 적용한 워터마크, 0 이면 전체 데이터를 반환한다.
+     * @return 복제 단위
+     */
+    public ReplicationBatch read(long since) {
+        try (ReadSnapshot snapshot = versionedStorage.openSnapshot()) {
+            Map<String, ChangeSet<?>> changes = versionedStorage.changesSince(since, snapshot);
+            boolean resyncRequired = changes.values().stream().anyMatch(ChangeSet::isResyncRequired);
+            return new ReplicationBatch(epoch, since, snapshot.getSequence(), resyncRequired, resyncRequired ? Map.of() : changes);
+        }
+    }
+
+    /**
+     * 리더에서 마지막으로 공개된 커밋 시퀀스, 쓰기 응답의 세션 토큰으로 사용한다.
+     */
+    public long currentSequence() {
+        return versionedStorage.currentSequence();
+    }
+}
@@ -1,38 +1,48 @@
 package com.schooldevops.monolithic.demomonolithic.repositories;
 
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionRouter;
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionedRepository;
 import com.schooldevops.monolithic.demomonolithic.domains.AttendedSubject;
-import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.exceptions.ClusterUnavailableException;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerator;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerators;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.EntityStore;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.WriteBatch;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
-public class AttendedSubjectRepository {
+public class AttendedSubjectRepository implements PartitionedRepository<AttendedSubject> {
+
+    public static final String ENTITY_NAME = "attendedSubject";
+
     /**
-     * DB 를 사용하지 않기 때문에 수강등록 정보 아이디를 관리하기 위해서 AtomicLong 을 활용한다.
-     * AtomicLong 을 사용하면 ThreadSafe 한 아이디를 할당받을 수 있다.
+     * 수강등록 정보 아이디를 할당한다. 생성 전략은 id-generator.strategy 설정으로 선택한다.
      */
-    private AtomicLong attendedSubjectIds = new AtomicLong(3L);
+    private final IdGenerator idGenerator;
 
     /**
-     * 수강등록 정보 저장할 Map 을 생성한다.
+     * 수강등록 정보 저장할 저장소를 생성한다.
      */
-    private Map<Long, AttendedSubject> attendedSubjectDB = new HashMap<>();
+    private final EntityStore<AttendedSubject> attendedSubjectDB;
+
+    private final PartitionRouter partitionRouter;
 
     /**
-     * 수강 데이터를 초기화 한다.
+     * 수강등록 정보 저장소를 생성한다. 초기 데이터는 DatasetLoader 가 적재한다.
      */
-    public AttendedSubjectRepository() {
-        Student studentKido = new Student(1L, "KIDO", 20, "ComputerScience", LocalDateTime.now());
-        Student studentManDo = new Student(2L, "ManDo", 35, "Math", LocalDateTime.now());
-        attendedSubjectDB.put(1L, new AttendedSubject(1L, 1L, studentKido, "None", "APPLY"));
-        attendedSubjectDB.put(2L, new AttendedSubject(2L, 1L, studentManDo, "None", "APPLY" ));
-        attendedSubjectDB.put(3L, new AttendedSubject(3L, 2L, studentKido, "A+", "DONE"));
+    public AttendedSubjectRepository(VersionedStorage versionedStorage, PartitionRouter partitionRouter, IdGenerators idGenerators) {
+        this.partitionRouter = partitionRouter;
+        this.idGenerator = idGenerators.create(ENTITY_NAME, 3L);
+        attendedSubjectDB = versionedStorage.createStore(ENTITY_NAME, AttendedSubject.class);
     }
 
     /**
@@ -41,9 +51,68 @@ public class AttendedSubjectRepository {
      * @return 학생 정보
      */
     public AttendedSubject findById(Long attendedSubjectId) {
+        if (!partitionRouter.isLocal(attendedSubjectId)) {
+            return partitionRouter.findRemote(ENTITY_NAME, attendedSubjectId, AttendedSubject.class);
+        }
         return attendedSubjectDB.get(attendedSubjectId);
     }
 
+    /**
+     * 읽기 스냅샷 시점의 수강 정보를 조회한다. 다른 노드가 담당하는 아이디는 담당 노드의 최신 정보를 조회한다.
+     * @param attendedSubjectId 조회할 수강 아이디
+     * @param snapshot 읽기 스냅샷
+     * @return 스냅샷 시점의 수강 정보
+     */
+    public AttendedSubject findById(Long attendedSubjectId, ReadSnapshot snapshot) {
+        if (!partitionRouter.isLocal(attendedSubjectId)) {
+            return partitionRouter.findRemote(ENTITY_NAME, attendedSubjectId, AttendedSubject.class);
+        }
+        return attendedSubjectDB.get(attendedSubjectId, snapshot);
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 수강 정보 여러개를 요청한 아이디 순서대로 조회한다.
+     * 다른 노드가 담당하는 아이디는 담당 노드의 최신 정보를 조회한다.
+     * @param attendedSubjectIds 조회할 수강 아이디 목록
+     * @param snapshot 읽기 스냅샷
+     * @return 아이디와 같은 순서의 수강 정보, 없는 아이디는 null
+     */
+    public List<AttendedSubject> findAllById(List<Long> attendedSubjectIds, ReadSnapshot snapshot) {
+        List<AttendedSubject> found = attendedSubjectDB.getAll(attendedSubjectIds, snapshot);
+        for (int i = 0; i < attendedSubjectIds.size(); i++) {
+            if (!partitionRouter.isLocal(attendedSubjectIds.get(i))) {
+                found.set(i, partitionRouter.findRemote(ENTITY_NAME, attendedSubjectIds.get(i), AttendedSubject.class));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 전체 수강 정보를 아이디의 역순으로 반환한다.
+     * @return 전체 수강 정보
+     */
+    public List<AttendedSubject> findAll() {
+        return attendedSubjectDB.stream().sorted(Comparator.comparing(AttendedSubject::getId).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 전체 수강 정보를 아이디의 역순으로 반환한다.
+     * @param snapshot 읽기 스냅샷
+     * @return 전체 수강 정보
+     */
+    public List<AttendedSubject> findAll(ReadSnapshot snapshot) {
+        return attendedSubjectDB.stream(snapshot).sorted(Comparator.comparing(AttendedSubject::getId).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 이 노드에 저장된 전체 수강 정보를 정렬하지 않고 반환한다. 전체 집계에 사용한다.
+     * @param snapshot 읽기 스냅샷
+     * @return 전체 수강 정보
+     */
+    public List<AttendedSubject> findAllUnordered(ReadSnapshot snapshot) {
+        return attendedSubjectDB.stream(snapshot).collect(Collectors.toList());
+    }
+
     /**
      * 수강 정보를 저장하거나 수정한다.
      * @param attendedSubject 저장 혹은 수정할 수강 정보
@@ -51,16 +120,92 @@ public class AttendedSubjectRepository {
      */
     public AttendedSubject save(AttendedSubject attendedSubject) {
         if (isExistAttendedSubject(attendedSubject)) {
-            attendedSubjectDB.put(attendedSubject.getId(), attendedSubject);
+            attendedSubjectDB.put(attendedSubject);
         }
         else {
-            long id = attendedSubjectIds.addAndGet(1);
+            long id = nextId();
             attendedSubject.setId(id);
-            attendedSubjectDB.put(id, attendedSubject);
+            attendedSubjectDB.put(attendedSubject);
+        }
+        return attendedSubject;
+    }
+
+    /**
+     * 수강 정보를 저장하도록 쓰기 배치에 추가한다. 아이디가 없다면 이 노드가 담당하는 아이디를 할당하므로,
+     * 배치를 다시 시도할때 같은 수강 정보를 넘기면 같은 아이디로 저장된다.
+     * @param batch 쓰기 배치
+     * @param attendedSubject 저장할 수강 정보
+     * @return 아이디가 할당된 수강 정보
+     * @throws ClusterUnavailableException 다른 노드가 담당하는 아이디인 경우
+     */
+    public AttendedSubject save(WriteBatch batch, AttendedSubject attendedSubject) {
+        if (!isExistAttendedSubject(attendedSubject)) {
+            attendedSubject.setId(nextId());
+        } else if (!partitionRouter.isLocal(attendedSubject.getId())) {
+            throw new ClusterUnavailableException(partitionRouter.ownerOf(attendedSubject.getId()),
+                    ENTITY_NAME + " " + attendedSubject.getId() + " can not join a write batch of another node");
         }
+        batch.put(attendedSubjectDB, attendedSubject);
         return attendedSubject;
     }
 
+    /**
+     * 조회 이후 다른 쓰기가 없었던 경우에만 수강 정보를 새로운 스냅샷으로 교체한다.
+     * @param expected 수정 전에 조회한 수강 정보
+     * @param updated 교체할 수강 정보
+     * @return 교체에 성공하면 true
+     */
+    public boolean compareAndSet(AttendedSubject expected, AttendedSubject updated) {
+        return attendedSubjectDB.compareAndSet(expected, updated);
+    }
+
+    /**
+     * 조회 이후 다른 쓰기가 없었던 경우에만 교체하도록 쓰기 배치에 추가한다. 배치의 다른 변경과 함께 하나의 시점으로 공개된다.
+     * 쓰기 배치는 이 노드의 저장소에만 적용할 수 있다.
+     * @param batch 쓰기 배치
+     * @param expected 수정 전에 조회한 수강 정보
+     * @param updated 교체할 수강 정보
+     * @throws ClusterUnavailableException 다른 노드가 담당하는 아이디인 경우
+     */
+    public void compareAndSet(WriteBatch batch, AttendedSubject expected, AttendedSubject updated) {
+        if (!partitionRouter.isLocal(expected.getId())) {
+            throw new ClusterUnavailableException(partitionRouter.ownerOf(expected.getId()),
+                    ENTITY_NAME + " " + expected.getId() + " can not join a write batch of another node");
+        }
+        batch.compareAndSet(attendedSubjectDB, expected, updated);
+    }
+
+    /**
+     * 커밋 시점의 최신 수강 정보에 update 를 적용하여 교체하도록 쓰기 배치에 추가한다.
+     * 쓰기 배치는 이 노드의 저장소에만 적용할 수 있다.
+     * @param batch 쓰기 배치
+     * @param attendedSubjectId 수강 아이디
+     * @param update 교체할 수강 정보를 만드는 함수, 바꿀 것이 없으면 null 을 반환한다.
+     * @throws ClusterUnavailableException 다른 노드가 담당하는 아이디인 경우
+     */
+    public void update(WriteBatch batch, Long attendedSubjectId, UnaryOperator<AttendedSubject> update) {
+        if (!partitionRouter.isLocal(attendedSubjectId)) {
+            throw new ClusterUnavailableException(partitionRouter.ownerOf(attendedSubjectId),
+                    ENTITY_NAME + " " + attendedSubjectId + " can not join a write batch of another node");
+        }
+        batch.update(attendedSubjectDB, attendedSubjectId, update);
+    }
+
+    /**
+     * 커밋 시점의 수강 정보를 삭제하도록 쓰기 배치에 추가한다. 배치의 다른 변경과 함께 하나의 시점으로 공개된다.
+     * 쓰기 배치는 이 노드의 저장소에만 적용할 수 있다.
+     * @param batch 쓰기 배치
+     * @param attendedSubjectId 삭제할 수강 아이디
+     * @throws ClusterUnavailableException 다른 노드가 담당하는 아이디인 경우
+     */
+    public void delete(WriteBatch batch, Long attendedSubjectId) {
+        if (!partitionRouter.isLocal(attendedSubjectId)) {
+            throw new ClusterUnavailableException(partitionRouter.ownerOf(attendedSubjectId),
+                    ENTITY_NAME + " " + attendedSubjectId + " can not join a write batch of another node");
+        }
+        batch.remove(attendedSubjectDB, attendedSubjectId);
+    }
+
     /**
      * 수강 정보가 존재하는지 검사한다.
      * 아이디가 존재하는지만 검사한다.
@@ -76,7 +221,63 @@ public class AttendedSubjectRepository {
      * @param attendedSubjectId 삭제할 수강 아이디
      */
     public void delete(Long attendedSubjectId) {
-        attendedSubjectDB.remove(attendedSubjectId);
+        if (!partitionRouter.isLocal(attendedSubjectId)) {
+            partitionRouter.deleteRemote(ENTITY_NAME, attendedSubjectId);
+            return;
+        }
+        evict(attendedSubjectId);
+    }
+
+    /**
+     * 이 노드가 담당하는 다음 아이디를 할당한다.
+     * 노드마다 담당하는 아이디만 할당하므로 여러 노드에서 동시에 등록하더라도 아이디가 겹치지 않는다.
+     */
+    private long nextId() {
+        long id;
+        do {
+            id = idGenerator.nextId();
+        } while (!partitionRouter.isLocal(id));
+        return id;
+    }
+
+    @Override
+    public String getEntityName() {
+        return ENTITY_NAME;
+    }
+
+    @Override
+    public Class<AttendedSubject> getEntityClass() {
+        return AttendedSubject.class;
+    }
+
+    @Override
+    public AttendedSubject findLocalById(Long id) {
+        return attendedSubjectDB.get(id);
+    }
+
+    /**
+     * 다른 노드에서 옮겨온 수강 정보를 저장한다. 이후 할당하는 아이디가 겹치지 않도록 아이디 생성기에 아이디를 알려준다.
+     */
+    @Override
+    public void importEntity(AttendedSubject attendedSubject) {
+        attendedSubjectDB.restore(attendedSubject);
+        idGenerator.observe(attendedSubject.getId());
+    }
+
+    @Override
+    public void evict(Long id) {
+        attendedSubjectDB.remove(id);
+    }
+
+    @Override
+    public void importEntity(WriteBatch batch, AttendedSubject attendedSubject) {
+        batch.restore(attendedSubjectDB, attendedSubject);
+        idGenerator.observe(attendedSubject.getId());
+    }
+
+    @Override
+    public void evict(WriteBatch batch, Long id) {
+        batch.remove(attendedSubjectDB, id);
     }
 
 }
@@ -0,0 +1,355 @@
+package com.schooldevops.monolithic.demomonolithic.repositories;
+
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionChangedEvent;
+import com.schooldevops.monolithic.demomonolithic.domains.AttendedSubject;
+import com.schooldevops.monolithic.demomonolithic.domains.Lecture;
+import com.schooldevops.monolithic.demomonolithic.domains.WaitlistEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 교과 과정별 수강 정보 인덱스이다.
+ * 교과 과정마다 수강 아이디와 학생 아이디로 수강 정보를 찾을 수 있으므로
+ * 수강 취소 대상 조회와 중복 수강 신청 검사를 수강 인원과 관계없이 O(1) 로 수행한다.
+ *
+ * 학생별로 수강중인 교과 과정과 수강 정보를 찾는 역방향 인덱스도 함께 관리하므로
+ * 학생의 시간표 조회 비용은 전체 교과 과정 수가 아닌 그 학생의 수강 건수에만 비례한다.
+ *
+ * 수강 신청은 reserve 로 학생 자리를 먼저 예약하고, 교과 과정에 반영된 후 confirm 한다.
+ * 수강 취소는 claim 으로 수강 정보를 먼저 가져가므로 같은 수강 정보를 동시에 취소하더라도 한 요청만 성공한다.
+ *
+ * 교과 과정마다 사용중인 자리 수와 대기열을 함께 관리한다. 자리와 대기열은 교과 과정 단위로 잠그고 변경하므로,
+ * 자리가 반환되면 같은 잠금 안에서 대기열의 첫 학생에게 넘겨주어 새로 신청한 학생이 대기중인 학생보다 먼저 자리를 얻지 못한다.
+ * 대기열은 이 노드의 메모리에만 있으므로, 리밸런싱으로 교과 과정이 옮겨가거나 노드가 재시작되면 대기열은 사라지고
+ * 복제 모드의 팔로워에는 대기열이 없다. 사용중인 자리 수는 교과 과정의 수강 목록으로 다시 계산한다.
+ * 클러스터 모드에서는 이 노드가 담당하는 교과 과정만 색인하며, 리밸런싱으로 옮겨진 교과 과정을 반영한다.
+ */
+@Slf4j
+@Repository
+public class EnrollmentIndex {
+
+    /**
+     * 예약만 되어 있고 아직 수강 아이디가 정해지지 않은 자리를 나타낸다.
+     */
+    private static final Long PENDING = 0L;
+
+    private static final class LectureEnrollments {
+        private final ConcurrentHashMap<Long, AttendedSubject> byAttendedId = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, Long> attendedIdByStudentId = new ConcurrentHashMap<>();
+
+        /**
+         * 사용중인 자리 수, 자리를 얻은 후 수강 신청이 진행중인 학생도 포함한다. 이 객체로 잠그고 변경한다.
+         */
+        private int seats;
+
+        /**
+         * 학생 아이디 -> 대기 시작 시각, 들어온 순서를 유지하므로 추가와 첫 학생 꺼내기가 O(1) 이다. 이 객체로 잠그고 변경한다.
+         */
+        private final LinkedHashMap<Long, LocalDateTime> waitlist = new LinkedHashMap<>();
+    }
+
+    private final ConcurrentHashMap<Long, LectureEnrollments> lectures = new ConcurrentHashMap<>();
+
+    /**
+     * 학생 아이디 -> (교과 과정 아이디 -> 수강 정보) 역방향 인덱스
+     */
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, AttendedSubject>> byStudentId = new ConcurrentHashMap<>();
+
+    /**
+     * 적재된 교과 과정의 수강 목록을 인덱스에 등록한다. 초기 데이터를 적재한 DatasetLoader 가 호출한다.
+     * @param lectures 적재된 교과 과정 목록
+     */
+    public void indexLectures(Collection<Lecture> lectures) {
+        lectures.forEach(this::indexLecture);
+    }
+
+    /**
+     * 교과 과정의 수강 목록을 인덱스에 등록한다.
+     */
+    private void indexLecture(Lecture lecture) {
+        if (lecture.getAttendedSubjects() == null) {
+            return;
+        }
+        LectureEnrollments enrollments = enrollmentsOf(lecture.getId());
+        synchronized (enrollments) {
+            enrollments.seats += lecture.getAttendedSubjects().size();
+        }
+        for (AttendedSubject attendedSubject : lecture.getAttendedSubjects()) {
+            Long studentId = studentIdOf(attendedSubject);
+            if (studentId == null || reserve(lecture.getId(), studentId)) {
+                confirm(lecture.getId(), attendedSubject);
+            } else {
+                log.warn("Lecture {} has duplicate enrollment of student {}", lecture.getId(), studentId);
+            }
+        }
+    }
+
+    /**
+     * 리밸런싱으로 교과 과정이 옮겨오거나 옮겨가면 인덱스를 갱신한다.
+     */
+    @EventListener
+    public void onPartitionChanged(PartitionChangedEvent event) {
+        if (!LectureRepository.ENTITY_NAME.equals(event.getEntityName())) {
+            return;
+        }
+        removeLecture(event.getId());
+        if (event.getEntity() != null) {
+            indexLecture((Lecture) event.getEntity());
+        }
+    }
+
+    /**
+     * 학생의 수강 자리를 예약한다.
+     * @param lectureId 교과 과정 아이디
+     * @param studentId 학생 아이디
+     * @return 이미 수강중이거나 신청이 진행중이라면 false
+     */
+    public boolean reserve(Long lectureId, Long studentId) {
+        return enrollmentsOf(lectureId).attendedIdByStudentId.putIfAbsent(studentId, PENDING) == null;
+    }
+
+    /**
+     * 교과 과정에 반영된 수강 정보를 인덱스에 등록한다.
+     * @param lectureId 교과 과정 아이디
+     * @param attendedSubject 반영된 수강 정보
+     */
+    public void confirm(Long lectureId, AttendedSubject attendedSubject) {
+        LectureEnrollments enrollments = enrollmentsOf(lectureId);
+        enrollments.byAttendedId.put(attendedSubject.getId(), attendedSubject);
+        Long studentId = studentIdOf(attendedSubject);
+        if (studentId != null) {
+            enrollments.attendedIdByStudentId.put(studentId, attendedSubject.getId());
+            byStudentId.computeIfAbsent(studentId, key -> new ConcurrentHashMap<>()).put(lectureId, attendedSubject);
+        }
+    }
+
+    /**
+     * 교과 과정에 반영하지 못한 예약을 취소한다.
+     * @param lectureId 교과 과정 아이디
+     * @param studentId 학생 아이디
+     */
+    public void cancel(Long lectureId, Long studentId) {
+        LectureEnrollments enrollments = lectures.get(lectureId);
+        if (enrollments != null) {
+            enrollments.attendedIdByStudentId.remove(studentId, PENDING);
+        }
+    }
+
+    /**
+     * 취소할 수강 정보를 인덱스에서 가져간다. 같은 수강 정보는 한번만 가져갈 수 있다.
+     * 학생 자리는 release 를 호출할때까지 유지되므로 취소가 끝나기 전에 다시 신청할 수 없다.
+     * @param lectureId 교과 과정 아이디
+     * @param attendedId 수강 아이디
+     * @return 수강 정보, 수강중이 아니거나 이미 다른 요청이 가져갔다면 null
+     */
+    public AttendedSubject claim(Long lectureId, Long attendedId) {
+        LectureEnrollments enrollments = lectures.get(lectureId);
+        return enrollments == null ? null : enrollments.byAttendedId.remove(attendedId);
+    }
+
+    /**
+     * 취소가 끝난 수강 정보의 학생 자리를 반환한다.
+     * @param lectureId 교과 과정 아이디
+     * @param attendedSubject claim 으로 가져간 수강 정보
+     */
+    public void release(Long lectureId, AttendedSubject attendedSubject) {
+        LectureEnrollments enrollments = lectures.get(lectureId);
+        Long studentId = studentIdOf(attendedSubject);
+        if (studentId == null) {
+            return;
+        }
+        if (enrollments != null) {
+            enrollments.attendedIdByStudentId.remove(studentId, attendedSubject.getId());
+        }
+        byStudentId.computeIfPresent(studentId, (key, lectureIds) -> {
+            lectureIds.remove(lectureId, attendedSubject);
+            return lectureIds.isEmpty() ? null : lectureIds;
+        });
+    }
+
+    /**
+     * 학생에게 자리를 배정한다. 남은 자리가 있고 대기중인 학생이 없을때만 자리를 배정하고, 그렇지 않으면 대기열 끝에 추가한다.
+     * 이미 대기중인 학생이면 새로 추가하지 않고 기존 대기 항목을 반환한다.
+     * @param lectureId 교과 과정 아이디
+     * @param studentId 학생 아이디
+     * @param limit 교과 과정의 제한 인원, null 이면 제한하지 않는다.
+     * @return 자리를 배정했다면 null, 대기열에 있다면 저장된 대기 시작 시각과 1부터 시작하는 대기 순번을 담은 대기 항목
+     */
+    public WaitlistEntry acquireSeat(Long lectureId, Long studentId, Integer limit) {
+        LectureEnrollments enrollments = enrollmentsOf(lectureId);
+        synchronized (enrollments) {
+            if (enrollments.waitlist.isEmpty() && hasFreeSeat(enrollments, limit)) {
+                enrollments.seats++;
+                return null;
+            }
+            LocalDateTime waitlistedAt = enrollments.waitlist.get(studentId);
+            if (waitlistedAt == null) {
+                waitlistedAt = LocalDateTime.now();
+                enrollments.waitlist.put(studentId, waitlistedAt);
+                return new WaitlistEntry(lectureId, studentId, enrollments.waitlist.size(), waitlistedAt);
+            }
+            return new WaitlistEntry(lectureId, studentId, positionOf(enrollments, studentId), waitlistedAt);
+        }
+    }
+
+    /**
+     * 자리를 반환한다. 대기중인 학생이 있고 제한 인원에 여유가 있다면 자리를 반환하지 않고 대기열의 첫 학생에게 넘겨준다.
+     * @param lectureId 교과 과정 아이디
+     * @param limit 교과 과정의 제한 인원, null 이면 제한하지 않는다.
+     * @return 자리를 넘겨받은 학생 아이디, 없으면 null
+     */
+    public Long releaseSeat(Long lectureId, Integer limit) {
+        LectureEnrollments enrollments = lectures.get(lectureId);
+        if (enrollments == null) {
+            return null;
+        }
+        synchronized (enrollments) {
+            enrollments.seats = Math.max(0, enrollments.seats - 1);
+            return promoteNext(enrollments, limit);
+        }
+    }
+
+    /**
+     * 제한 인원이 늘어나 남은 자리가 있다면 대기열의 첫 학생에게 자리를 배정한다.
+     * @param lectureId 교과 과정 아이디
+     * @param limit 교과 과정의 제한 인원, null 이면 제한하지 않는다.
+     * @return 자리를 배정받은 학생 아이디, 남은 자리나 대기중인 학생이 없으면 null
+     */
+    public Long promoteNext(Long lectureId, Integer limit) {
+        LectureEnrollments enrollments = lectures.get(lectureId);
+        if (enrollments == null) {
+            return null;
+        }
+        synchronized (enrollments) {
+            return promoteNext(enrollments, limit);
+        }
+    }
+
+    /**
+     * 대기열에서 학생을 제거한다.
+     * @return 대기중이었다면 true
+     */
+    public boolean leaveWaitlist(Long lectureId, Long studentId) {
+        LectureEnrollments enrollments = lectures.get(lectureId);
+        if (enrollments == null) {
+            return false;
+        }
+        synchronized (enrollments) {
+            return enrollments.waitlist.remove(studentId) != null;
+        }
+    }
+
+    /**
+     * 교과 과정의 대기열을 비운다. 종료된 교과 과정은 자리가 나더라도 대기 학생을 등록하지 않으므로 대기열을 남겨두지 않는다.
+     * @param lectureId 교과 과정 아이디
+     * @return 대기열에서 제거된 학생 수
+     */
+    public int clearWaitlist(Long lectureId) {
+        LectureEnrollments enrollments = lectures.get(lectureId);
+        if (enrollments == null) {
+            return 0;
+        }
+        synchronized (enrollments) {
+            int size = enrollments.waitlist.size();
+            enrollments.waitlist.clear();
+            return size;
+        }
+    }
+
+    /**
+     * 교과 과정의 대기열을 순서대로 반환한다.
+     * @param lectureId 교과 과정 아이디
+     * @return 학생 아이디 -> 대기 시작 시각
+     */
+    public Map<Long, LocalDateTime> findWaitlist(Long lectureId) {
+        LectureEnrollments enrollments = lectures.get(lectureId);
+        if (enrollments == null) {
+            return Map.of();
+        }
+        synchronized (enrollments) {
+            return new LinkedHashMap<>(enrollments.waitlist);
+        }
+    }
+
+    private static Long promoteNext(LectureEnrollments enrollments, Integer limit) {
+        if (enrollments.waitlist.isEmpty() || !hasFreeSeat(enrollments, limit)) {
+            return null;
+        }
+        Iterator<Long> first = enrollments.waitlist.keySet().iterator();
+        Long studentId = first.next();
+        first.remove();
+        enrollments.seats++;
+        return studentId;
+    }
+
+    private static boolean hasFreeSeat(LectureEnrollments enrollments, Integer limit) {
+        return limit == null || enrollments.seats < limit;
+    }
+
+    private static int positionOf(LectureEnrollments enrollments, Long studentId) {
+        int position = 1;
+        for (Long waiting : enrollments.waitlist.keySet()) {
+            if (waiting.equals(studentId)) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    /**
+     * 학생이 수강중인 교과 과정과 수강 정보를 교과 과정 아이디 순으로 반환한다.
+     * @param studentId 학생 아이디
+     * @return 교과 과정 아이디 -> 수강 정보
+     */
+    public Map<Long, AttendedSubject> findByStudentId(Long studentId) {
+        Map<Long, AttendedSubject> lectureIds = byStudentId.get(studentId);
+        return lectureIds == null ? Map.of() : new TreeMap<>(lectureIds);
+    }
+
+    /**
+     * 수강 정보가 교과 과정에 등록되어 있는지 검사한다. 취소가 진행중인 수강 정보는 포함하지 않는다.
+     * @param lectureId 교과 과정 아이디
+     * @param attendedId 수강 아이디
+     * @return 등록되어 있다면 true
+     */
+    public boolean contains(Long lectureId, Long attendedId) {
+        LectureEnrollments enrollments = lectures.get(lectureId);
+        return enrollments != null && enrollments.byAttendedId.containsKey(attendedId);
+    }
+
+    /**
+     * 학생이 교과 과정을 수강중인지 검사한다.
+     */
+    public boolean isEnrolled(Long lectureId, Long studentId) {
+        LectureEnrollments enrollments = lectures.get(lectureId);
+        return enrollments != null && enrollments.attendedIdByStudentId.containsKey(studentId);
+    }
+
+    /**
+     * 삭제된 교과 과정의 인덱스를 제거한다.
+     */
+    public void removeLecture(Long lectureId) {
+        LectureEnrollments enrollments = lectures.remove(lectureId);
+        if (enrollments != null) {
+            enrollments.byAttendedId.values().forEach(attendedSubject -> release(lectureId, attendedSubject));
+        }
+    }
+
+    private LectureEnrollments enrollmentsOf(Long lectureId) {
+        return lectures.computeIfAbsent(lectureId, key -> new LectureEnrollments());
+    }
+
+    private static Long studentIdOf(AttendedSubject attendedSubject) {
+        return attendedSubject.getStudent() == null ? null : attendedSubject.getStudent().getId();
+    }
+}
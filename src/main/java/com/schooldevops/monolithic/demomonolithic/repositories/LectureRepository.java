@@ -1,50 +1,48 @@
 package com.schooldevops.monolithic.demomonolithic.repositories;
 
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionRouter;
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionedRepository;
 import com.schooldevops.monolithic.demomonolithic.domains.*;
+import com.schooldevops.monolithic.demomonolithic.exceptions.ClusterUnavailableException;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerator;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerators;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.EntityStore;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.WriteBatch;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
-public class LectureRepository {
-    /**
-     * DB 를 사용하지 않기 때문에 수강등록 정보 아이디를 관리하기 위해서 AtomicLong 을 활용한다.
-     * AtomicLong 을 사용하면 ThreadSafe 한 아이디를 할당받을 수 있다.
-     */
-    private AtomicLong lectureIds = new AtomicLong(3L);
+public class LectureRepository implements PartitionedRepository<Lecture> {
+
+    public static final String ENTITY_NAME = "lecture";
 
     /**
-     * 수강등록 정보 저장할 Map 을 생성한다.
+     * 교과 과정 아이디를 할당한다. 생성 전략은 id-generator.strategy 설정으로 선택한다.
      */
-    private Map<Long, Lecture> lectureDB = new HashMap<>();
+    private final IdGenerator idGenerator;
 
     /**
-     * 수강 데이터를 초기화 한다.
+     * 수강등록 정보 저장할 저장소를 생성한다.
+     * 저장된 교과 과정은 불변 스냅샷으로 관리되며, 수정시에는 compareAndSet 으로 교체한다.
      */
-    public LectureRepository() {
-        Professor professor01 = new Professor(1L, "Prof-KIDO", "Computer Science", LocalDateTime.now());
-        Professor professor02 = new Professor(2L, "Madona", "Music", LocalDateTime.now());
-
-        Subject subject01 = new Subject(1L, "Basic Computer Science", 1L, null, 3);
-        Subject subject02 = new Subject(2L, "Machine Learning", 1L, null, 3);
-        Subject subject03 = new Subject(3L, "Modeling", 2L, null, 3);
+    private final EntityStore<Lecture> lectureDB;
 
-        Student studentKido = new Student(1L, "KIDO", 20, "ComputerScience", LocalDateTime.now());
-        Student studentManDo = new Student(2L, "ManDo", 35, "Math", LocalDateTime.now());
+    private final PartitionRouter partitionRouter;
 
-        AttendedSubject attendedSubject01 = new AttendedSubject(1L, 1L, studentKido, "None", "APPLY");
-        AttendedSubject attendedSubject02 = new AttendedSubject(2L, 1L, studentManDo, "None", "APPLY");
-        AttendedSubject attendedSubject03 = new AttendedSubject(3L, 2L, studentKido, "A+", "DONE");
-
-        lectureDB.put(1L, new Lecture(1L, professor01, subject01, List.of(attendedSubject01, attendedSubject02), 10, "APPLY" ));
-        lectureDB.put(2L, new Lecture(2L, professor01, subject02, List.of(attendedSubject03), 10, "APPLY" ));
-        lectureDB.put(3L, new Lecture(3L, professor02, subject03, List.of(attendedSubject02, attendedSubject03), 5, "DONE"));
+    /**
+     * 교과 과정 저장소를 생성한다. 초기 데이터는 DatasetLoader 가 적재한다.
+     */
+    public LectureRepository(VersionedStorage versionedStorage, PartitionRouter partitionRouter, IdGenerators idGenerators) {
+        this.partitionRouter = partitionRouter;
+        this.idGenerator = idGenerators.create(ENTITY_NAME, 3L);
+        lectureDB = versionedStorage.createStore(ENTITY_NAME, Lecture.class);
     }
 
     /**
@@ -53,9 +51,51 @@ public class LectureRepository {
      * @return 수강 정보
      */
     public Lecture findById(Long lectureId) {
+        if (!partitionRouter.isLocal(lectureId)) {
+            return partitionRouter.findRemote(ENTITY_NAME, lectureId, Lecture.class);
+        }
         return lectureDB.get(lectureId);
     }
 
+    /**
+     * 읽기 스냅샷 시점의 수강 정보를 조회한다. 다른 노드가 담당하는 아이디는 담당 노드의 최신 정보를 조회한다.
+     * @param lectureId 조회할 수강 아이디
+     * @param snapshot 읽기 스냅샷
+     * @return 스냅샷 시점의 수강 정보
+     */
+    public Lecture findById(Long lectureId, ReadSnapshot snapshot) {
+        if (!partitionRouter.isLocal(lectureId)) {
+            return partitionRouter.findRemote(ENTITY_NAME, lectureId, Lecture.class);
+        }
+        return lectureDB.get(lectureId, snapshot);
+    }
+
+    /**
+     * 전체 교과 과정을 아이디의 역순으로 반환한다.
+     * @return 전체 교과 과정
+     */
+    public List<Lecture> findAll() {
+        return lectureDB.stream().sorted(Comparator.comparing(Lecture::getId).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 전체 수강 정보를 아이디의 역순으로 반환한다.
+     * @param snapshot 읽기 스냅샷
+     * @return 전체 수강 정보
+     */
+    public List<Lecture> findAll(ReadSnapshot snapshot) {
+        return lectureDB.stream(snapshot).sorted(Comparator.comparing(Lecture::getId).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 교과 과정 정보를 조회한다.
+     * @param since 마지막으로 동기화한 워터마크, 처음 동기화라면 0
+     * @return 변경된 교과 과정 정보, 삭제된 아이디와 새로운 워터마크
+     */
+    public ChangeSet<Lecture> findChangesSince(long since) {
+        return lectureDB.changesSince(since);
+    }
+
     /**
      * 수강 정보를 저장하거나 수정한다.
      * @param lecture 저장 혹은 수정할 수강 정보
@@ -63,16 +103,42 @@ public class LectureRepository {
      */
     public Lecture save(Lecture lecture) {
         if (isExistsLecture(lecture)) {
-            lectureDB.put(lecture.getId(), lecture);
+            lectureDB.put(lecture);
         }
         else {
-            long id = lectureIds.addAndGet(1);
+            long id = nextId();
             lecture.setId(id);
-            lectureDB.put(id, lecture);
+            lectureDB.put(lecture);
         }
         return lecture;
     }
 
+    /**
+     * 조회 이후 다른 쓰기가 없었던 경우에만 수강 정보를 새로운 스냅샷으로 교체한다.
+     * @param expected 수정 전에 조회한 수강 정보
+     * @param updated 교체할 수강 정보
+     * @return 교체에 성공하면 true
+     */
+    public boolean compareAndSet(Lecture expected, Lecture updated) {
+        return lectureDB.compareAndSet(expected, updated);
+    }
+
+    /**
+     * 조회 이후 다른 쓰기가 없었던 경우에만 교체하도록 쓰기 배치에 추가한다. 배치의 다른 변경과 함께 하나의 시점으로 공개된다.
+     * 쓰기 배치는 이 노드의 저장소에만 적용할 수 있다.
+     * @param batch 쓰기 배치
+     * @param expected 수정 전에 조회한 수강 정보
+     * @param updated 교체할 수강 정보
+     * @throws ClusterUnavailableException 다른 노드가 담당하는 아이디인 경우
+     */
+    public void compareAndSet(WriteBatch batch, Lecture expected, Lecture updated) {
+        if (!partitionRouter.isLocal(expected.getId())) {
+            throw new ClusterUnavailableException(partitionRouter.ownerOf(expected.getId()),
+                    ENTITY_NAME + " " + expected.getId() + " can not join a write batch of another node");
+        }
+        batch.compareAndSet(lectureDB, expected, updated);
+    }
+
     /**
      * 수강 정보가 존재하는지 검사한다.
      * 아이디가 존재하는지만 검사한다.
@@ -88,7 +154,63 @@ public class LectureRepository {
      * @param lectureId 삭제할 수강 아이디
      */
     public void delete(Long lectureId) {
-        lectureDB.remove(lectureId);
+        if (!partitionRouter.isLocal(lectureId)) {
+            partitionRouter.deleteRemote(ENTITY_NAME, lectureId);
+            return;
+        }
+        evict(lectureId);
+    }
+
+    /**
+     * 이 노드가 담당하는 다음 아이디를 할당한다.
+     * 노드마다 담당하는 아이디만 할당하므로 여러 노드에서 동시에 등록하더라도 아이디가 겹치지 않는다.
+     */
+    private long nextId() {
+        long id;
+        do {
+            id = idGenerator.nextId();
+        } while (!partitionRouter.isLocal(id));
+        return id;
+    }
+
+    @Override
+    public String getEntityName() {
+        return ENTITY_NAME;
+    }
+
+    @Override
+    public Class<Lecture> getEntityClass() {
+        return Lecture.class;
+    }
+
+    @Override
+    public Lecture findLocalById(Long id) {
+        return lectureDB.get(id);
+    }
+
+    /**
+     * 다른 노드에서 옮겨온 교과 과정을 저장한다. 이후 할당하는 아이디가 겹치지 않도록 아이디 생성기에 아이디를 알려준다.
+     */
+    @Override
+    public void importEntity(Lecture lecture) {
+        lectureDB.restore(lecture);
+        idGenerator.observe(lecture.getId());
+    }
+
+    @Override
+    public void evict(Long id) {
+        lectureDB.remove(id);
+    }
+
+    @Override
+    public void importEntity(WriteBatch batch, Lecture lecture) {
+        batch.restore(lectureDB, lecture);
+        idGenerator.observe(lecture.getId());
+    }
+
+    @Override
+    public void evict(WriteBatch batch, Long id) {
+        batch.remove(lectureDB, id);
     }
 
 }
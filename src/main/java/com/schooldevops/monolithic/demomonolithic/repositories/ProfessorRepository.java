@@ -1,63 +1,190 @@
 package com.schooldevops.monolithic.demomonolithic.repositories;
 
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionRouter;
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionedRepository;
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
 import com.schooldevops.monolithic.demomonolithic.domains.Professor;
+import com.schooldevops.monolithic.demomonolithic.repositories.query.QueryEngine;
+import com.schooldevops.monolithic.demomonolithic.repositories.query.QueryField;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerator;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerators;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.EntityStore;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.WriteBatch;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
-public class ProfessorRepository {
+public class ProfessorRepository implements PartitionedRepository<Professor> {
 
-    private AtomicLong professorId = new AtomicLong(3);
+    public static final String ENTITY_NAME = "professor";
 
-    private Map<Long, Professor> professorsDB = new HashMap<>();
+    /**
+     * 교수 아이디를 할당한다. 생성 전략은 id-generator.strategy 설정으로 선택한다.
+     */
+    private final IdGenerator idGenerator;
 
-    public ProfessorRepository() {
-        Map<Long, Professor> professors = Map.of(
-                1L, new Professor(1L, "Prof-KIDO", "Computer Science", LocalDateTime.now()),
-                2L, new Professor(2L, "Madona", "Music", LocalDateTime.now()),
-                3L, new Professor(3L, "Alibaba", "Math", LocalDateTime.now())
-        );
+    public static final QueryField<Professor, String> MAJOR = new QueryField<>("major", Professor::getMajor);
 
-        professorsDB.putAll(professors);
+    private final EntityStore<Professor> professorsDB;
+
+    private final QueryEngine<Professor> queryEngine;
+
+    private final PartitionRouter partitionRouter;
+
+    public ProfessorRepository(VersionedStorage versionedStorage, PartitionRouter partitionRouter, IdGenerators idGenerators) {
+        this.partitionRouter = partitionRouter;
+        this.idGenerator = idGenerators.create(ENTITY_NAME, 3L);
+        professorsDB = versionedStorage.createStore(ENTITY_NAME, Professor.class);
+        queryEngine = new QueryEngine<>(ENTITY_NAME, professorsDB);
+
+        queryEngine.createIndex(MAJOR);
     }
 
+
     public List<Professor> findAll() {
-        return professorsDB.entrySet().stream().sorted(Collections.reverseOrder(Map.Entry.comparingByKey())).map(item -> item.getValue()).collect(Collectors.toList());
+        return professorsDB.stream().sorted(Comparator.comparing(Professor::getId).reversed()).collect(Collectors.toList());
+    }
+
+    public List<Professor> findAll(ReadSnapshot snapshot) {
+        return professorsDB.stream(snapshot).sorted(Comparator.comparing(Professor::getId).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 교수 정보를 조회한다.
+     * @param since 마지막으로 동기화한 워터마크, 처음 동기화라면 0
+     * @return 변경된 교수 정보, 삭제된 아이디와 새로운 워터마크
+     */
+    public ChangeSet<Professor> findChangesSince(long since) {
+        return professorsDB.changesSince(since);
     }
 
     public Professor findById(Long id) {
+        if (!partitionRouter.isLocal(id)) {
+            return partitionRouter.findRemote(ENTITY_NAME, id, Professor.class);
+        }
         return professorsDB.get(id);
     }
 
+    public Professor findById(Long id, ReadSnapshot snapshot) {
+        if (!partitionRouter.isLocal(id)) {
+            return partitionRouter.findRemote(ENTITY_NAME, id, Professor.class);
+        }
+        return professorsDB.get(id, snapshot);
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 교수 정보 여러개를 요청한 아이디 순서대로 조회한다.
+     * 다른 노드가 담당하는 아이디는 담당 노드의 최신 정보를 조회한다.
+     * @param ids 조회할 교수 아이디 목록
+     * @param snapshot 읽기 스냅샷
+     * @return 아이디와 같은 순서의 교수 정보, 없는 아이디는 null
+     */
+    public List<Professor> findAllById(List<Long> ids, ReadSnapshot snapshot) {
+        List<Professor> found = professorsDB.getAll(ids, snapshot);
+        for (int i = 0; i < ids.size(); i++) {
+            if (!partitionRouter.isLocal(ids.get(i))) {
+                found.set(i, partitionRouter.findRemote(ENTITY_NAME, ids.get(i), Professor.class));
+            }
+        }
+        return found;
+    }
+
     public List<Professor> findBySubjectName(String subjectName) {
-        log.info(String.format("Repository Call by Subject %s", subjectName));
-        return professorsDB.entrySet().stream().filter(item -> item.getValue().getMajor().equals(subjectName)).map(item -> item.getValue()).collect(Collectors.toList());
+        log.info("Repository Call by Subject {}", subjectName);
+        return queryEngine.execute(MAJOR.eq(subjectName));
+    }
+
+    public String explainFindBySubjectName(String subjectName) {
+        return queryEngine.explain(MAJOR.eq(subjectName));
     }
 
     public Professor save(Professor professor) {
         if (professor != null && professor.getId() != null && professor.getId() != 0) {
-            professorsDB.put(professor.getId(), professor);
+            professorsDB.put(professor);
         }
         else {
-            long id = professorId.addAndGet(1);
+            long id = nextId();
             professor.setId(id);
-            professorsDB.put(id, professor);
+            professorsDB.put(professor);
         }
+        queryEngine.reindex(professor.getId());
 
         return professor;
     }
 
+    public boolean compareAndSet(Professor expected, Professor updated) {
+        if (!professorsDB.compareAndSet(expected, updated)) {
+            return false;
+        }
+        queryEngine.reindex(updated.getId());
+        return true;
+    }
+
     public void delete(Long id) {
+        if (!partitionRouter.isLocal(id)) {
+            partitionRouter.deleteRemote(ENTITY_NAME, id);
+            return;
+        }
+        evict(id);
+    }
+
+    private long nextId() {
+        long id;
+        do {
+            id = idGenerator.nextId();
+        } while (!partitionRouter.isLocal(id));
+        return id;
+    }
+
+    @Override
+    public String getEntityName() {
+        return ENTITY_NAME;
+    }
+
+    @Override
+    public Class<Professor> getEntityClass() {
+        return Professor.class;
+    }
+
+    @Override
+    public Professor findLocalById(Long id) {
+        return professorsDB.get(id);
+    }
+
+    @Override
+    public void importEntity(Professor professor) {
+        professorsDB.restore(professor);
+        queryEngine.reindex(professor.getId());
+        idGenerator.observe(professor.getId());
+    }
+
+    @Override
+    public void evict(Long id) {
         professorsDB.remove(id);
+        queryEngine.reindex(id);
+    }
+
+    @Override
+    public void importEntity(WriteBatch batch, Professor professor) {
+        batch.restore(professorsDB, professor);
+        idGenerator.observe(professor.getId());
+    }
+
+    @Override
+    public void evict(WriteBatch batch, Long id) {
+        batch.remove(professorsDB, id);
+    }
+
+    @Override
+    public void reindex(Long id) {
+        queryEngine.reindex(id);
     }
 }
 
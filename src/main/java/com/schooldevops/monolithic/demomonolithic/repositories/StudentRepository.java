@@ -1,45 +1,70 @@
 package com.schooldevops.monolithic.demomonolithic.repositories;
 
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionRouter;
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionedRepository;
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
 import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.repositories.query.QueryEngine;
+import com.schooldevops.monolithic.demomonolithic.repositories.query.QueryField;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerator;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerators;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.EntityStore;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.WriteBatch;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * @Slf4j 는 Lombok 과 연동된 로거이다. Lombok 을 활용하면 편리하게 로깅을 남길 수 있다.
  * @Repository 는 Spring Framework 의 Stereotype 으로 리포지토리 레이어에 대한 Component 라고 알려준다.
  *          이렇게 되면 Spring Framework 가 관리하는 Bean 으로 등록된다.
+ * 클러스터 모드에서는 이 노드가 담당하는 학생만 저장하고, 다른 노드가 담당하는 학생은 담당 노드에서 조회한다.
  */
 @Slf4j
 @Repository
-public class StudentRepository {
+public class StudentRepository implements PartitionedRepository<Student> {
+
+    public static final String ENTITY_NAME = "student";
+
+    /**
+     * 학생 아이디를 할당한다. 생성 전략은 id-generator.strategy 설정으로 선택한다.
+     */
+    private final IdGenerator idGenerator;
 
     /**
-     * DB 를 사용하지 않기 때문에 학생 아이디를 관리하기 위해서 AtomicLong 을 활용한다.
-     * AtomicLong 을 사용하면 ThreadSafe 한 아이디를 할당받을 수 있다.
+     * 전공 필드, 쿼리 조건과 인덱스 생성에 사용한다.
      */
-    private AtomicLong studentID = new AtomicLong(3L);
+    public static final QueryField<Student, String> MAJOR = new QueryField<>("major", Student::getMajor);
 
     /**
-     * 학생 정보를 저장할 Map 을 생성한다.
+     * 학생 정보를 저장할 저장소를 생성한다.
+     * 저장된 학생 정보는 불변 스냅샷으로 관리되며, 수정시에는 compareAndSet 으로 교체한다.
      */
-    private Map<Long, Student> studentDB = new HashMap<>();
+    private final EntityStore<Student> studentDB;
+
+    /**
+     * 학생 정보에 대한 쿼리 엔진, 전공 필드에 인덱스를 생성한다.
+     */
+    private final QueryEngine<Student> queryEngine;
+
+    private final PartitionRouter partitionRouter;
 
     /**
-     * 학생 데이터를 초기화 한다.
+     * 학생 저장소를 생성한다. 초기 데이터는 DatasetLoader 가 적재한다.
+     * 저장소는 다른 리포지토리와 커밋 시퀀스를 공유하는 VersionedStorage 에서 생성한다.
      */
-    public StudentRepository() {
-        studentDB.put(1L, new Student(1L, "KIDO", 20, "ComputerScience", LocalDateTime.now()));
-        studentDB.put(2L, new Student(2L, "ManDo", 35, "Math", LocalDateTime.now()));
-        studentDB.put(3L, new Student(3L, "Jobs", 40, "Job", LocalDateTime.now()));
+    public StudentRepository(VersionedStorage versionedStorage, PartitionRouter partitionRouter, IdGenerators idGenerators) {
+        this.partitionRouter = partitionRouter;
+        this.idGenerator = idGenerators.create(ENTITY_NAME, 3L);
+        studentDB = versionedStorage.createStore(ENTITY_NAME, Student.class);
+        queryEngine = new QueryEngine<>(ENTITY_NAME, studentDB);
 
+        queryEngine.createIndex(MAJOR);
     }
 
     /**
@@ -48,28 +73,88 @@ public class StudentRepository {
      * @return 학생 정보
      */
     public Student findById(Long studentId) {
+        if (!partitionRouter.isLocal(studentId)) {
+            return partitionRouter.findRemote(ENTITY_NAME, studentId, Student.class);
+        }
         return studentDB.get(studentId);
     }
 
+    /**
+     * 읽기 스냅샷 시점의 학생 정보를 조회한다. 다른 노드가 담당하는 학생은 담당 노드의 최신 정보를 조회한다.
+     * @param studentId 조회할 학생 아이디
+     * @param snapshot 읽기 스냅샷
+     * @return 스냅샷 시점의 학생 정보
+     */
+    public Student findById(Long studentId, ReadSnapshot snapshot) {
+        if (!partitionRouter.isLocal(studentId)) {
+            return partitionRouter.findRemote(ENTITY_NAME, studentId, Student.class);
+        }
+        return studentDB.get(studentId, snapshot);
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 학생 정보 여러개를 요청한 아이디 순서대로 조회한다.
+     * 다른 노드가 담당하는 아이디는 담당 노드의 최신 정보를 조회한다.
+     * @param studentIds 조회할 학생 아이디 목록
+     * @param snapshot 읽기 스냅샷
+     * @return 아이디와 같은 순서의 학생 정보, 없는 아이디는 null
+     */
+    public List<Student> findAllById(List<Long> studentIds, ReadSnapshot snapshot) {
+        List<Student> found = studentDB.getAll(studentIds, snapshot);
+        for (int i = 0; i < studentIds.size(); i++) {
+            if (!partitionRouter.isLocal(studentIds.get(i))) {
+                found.set(i, partitionRouter.findRemote(ENTITY_NAME, studentIds.get(i), Student.class));
+            }
+        }
+        return found;
+    }
+
     /**
      * 전체 학생 목록을 반환한다.
      * Java Stream 을 이용하여 아이디의 역순으로 조회하고 있다.
      * @return 전체 학생 목록
      */
     public List<Student> findAll() {
-        return studentDB.entrySet().stream().sorted(Collections.reverseOrder(Map.Entry.comparingByKey())).map(item -> item.getValue()).collect(Collectors.toList());
+        return studentDB.stream().sorted(Comparator.comparing(Student::getId).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 전체 학생 목록을 아이디의 역순으로 반환한다.
+     * @param snapshot 읽기 스냅샷
+     * @return 전체 학생 목록
+     */
+    public List<Student> findAll(ReadSnapshot snapshot) {
+        return studentDB.stream(snapshot).sorted(Comparator.comparing(Student::getId).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 학생 정보를 조회한다.
+     * @param since 마지막으로 동기화한 워터마크, 처음 동기화라면 0
+     * @return 변경된 학생 정보, 삭제된 아이디와 새로운 워터마크
+     */
+    public ChangeSet<Student> findChangesSince(long since) {
+        return studentDB.changesSince(since);
     }
 
     /**
      * 전공에 해당하는 학생 목록을 반환한다.
-     * Java Stream 을 활용하여 전공명이 동일한 학생만 필터링 하고 있다.
+     * 쿼리 엔진이 전공 인덱스를 이용하여 조회한다.
      * @param subjectName 전공과목 명
      * @return 전공에 해당하는 학생 목록
      */
     public List<Student> findByMajor(String subjectName) {
 
-        log.info(String.format("Repository Call by Subject %s", subjectName));
-        return studentDB.entrySet().stream().filter(item -> item.getValue().getMajor().equals(subjectName)).map(item -> item.getValue()).collect(Collectors.toList());
+        log.info("Repository Call by Subject {}", subjectName);
+        return queryEngine.execute(MAJOR.eq(subjectName));
+    }
+
+    /**
+     * 전공으로 학생 목록을 조회할때의 실행 계획을 반환한다.
+     * @param subjectName 전공과목 명
+     * @return EXPLAIN 형식의 실행 계획
+     */
+    public String explainFindByMajor(String subjectName) {
+        return queryEngine.explain(MAJOR.eq(subjectName));
     }
 
     /**
@@ -79,16 +164,31 @@ public class StudentRepository {
      */
     public Student save(Student student) {
         if (isExistStudent(student)) {
-            studentDB.put(student.getId(), student);
+            studentDB.put(student);
         }
         else {
-            long id = studentID.addAndGet(1);
+            long id = nextId();
             student.setId(id);
-            studentDB.put(id, student);
+            studentDB.put(student);
         }
+        queryEngine.reindex(student.getId());
         return student;
     }
 
+    /**
+     * 조회 이후 다른 쓰기가 없었던 경우에만 학생 정보를 새로운 스냅샷으로 교체한다.
+     * @param expected 수정 전에 조회한 학생 정보
+     * @param updated 교체할 학생 정보
+     * @return 교체에 성공하면 true
+     */
+    public boolean compareAndSet(Student expected, Student updated) {
+        if (!studentDB.compareAndSet(expected, updated)) {
+            return false;
+        }
+        queryEngine.reindex(updated.getId());
+        return true;
+    }
+
     /**
      * 학생 정보가 존재하는지 검사한다.
      * 아이디가 존재하는지만 검사한다.
@@ -104,6 +204,69 @@ public class StudentRepository {
      * @param studentId 삭제할 학생 아이디
      */
     public void delete(Long studentId) {
-        studentDB.remove(studentId);
+        if (!partitionRouter.isLocal(studentId)) {
+            partitionRouter.deleteRemote(ENTITY_NAME, studentId);
+            return;
+        }
+        evict(studentId);
+    }
+
+    /**
+     * 이 노드가 담당하는 다음 학생 아이디를 할당한다.
+     * 노드마다 담당하는 아이디만 할당하므로 여러 노드에서 동시에 등록하더라도 아이디가 겹치지 않는다.
+     */
+    private long nextId() {
+        long id;
+        do {
+            id = idGenerator.nextId();
+        } while (!partitionRouter.isLocal(id));
+        return id;
+    }
+
+    @Override
+    public String getEntityName() {
+        return ENTITY_NAME;
+    }
+
+    @Override
+    public Class<Student> getEntityClass() {
+        return Student.class;
+    }
+
+    @Override
+    public Student findLocalById(Long id) {
+        return studentDB.get(id);
+    }
+
+    /**
+     * 다른 노드에서 옮겨온 학생 정보를 저장한다. 이후 할당하는 아이디가 겹치지 않도록 아이디 생성기에 아이디를 알려준다.
+     */
+    @Override
+    public void importEntity(Student student) {
+        studentDB.restore(student);
+        queryEngine.reindex(student.getId());
+        idGenerator.observe(student.getId());
+    }
+
+    @Override
+    public void evict(Long id) {
+        studentDB.remove(id);
+        queryEngine.reindex(id);
+    }
+
+    @Override
+    public void importEntity(WriteBatch batch, Student student) {
+        batch.restore(studentDB, student);
+        idGenerator.observe(student.getId());
+    }
+
+    @Override
+    public void evict(WriteBatch batch, Long id) {
+        batch.remove(studentDB, id);
+    }
+
+    @Override
+    public void reindex(Long id) {
+        queryEngine.reindex(id);
     }
 }
\ No newline at end of file
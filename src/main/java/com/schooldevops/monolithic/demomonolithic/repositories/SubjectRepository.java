@@ -1,39 +1,49 @@
 package com.schooldevops.monolithic.demomonolithic.repositories;
 
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionRouter;
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionedRepository;
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
 import com.schooldevops.monolithic.demomonolithic.domains.Subject;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerator;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerators;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.EntityStore;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.WriteBatch;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
-public class SubjectRepository {
+public class SubjectRepository implements PartitionedRepository<Subject> {
+
+    public static final String ENTITY_NAME = "subject";
+
 
     /**
-     * DB 를 사용하지 않기 때문에 과목 아이디를 관리하기 위해서 AtomicLong 을 활용한다.
-     * AtomicLong 을 사용하면 ThreadSafe 한 아이디를 할당받을 수 있다.
+     * 과목 아이디를 할당한다. 생성 전략은 id-generator.strategy 설정으로 선택한다.
      */
-    private AtomicLong subjectId = new AtomicLong(3L);
+    private final IdGenerator idGenerator;
 
     /**
-     * 과목정보 저장할 Map 을 생성한다.
+     * 과목정보 저장할 저장소를 생성한다.
+     * 저장된 과목 정보는 불변 스냅샷으로 관리되며, 수정시에는 compareAndSet 으로 교체한다.
      */
-    private Map<Long, Subject> subjectDB = new HashMap<>();
+    private final EntityStore<Subject> subjectDB;
+
+    private final PartitionRouter partitionRouter;
 
     /**
-     * 과목 데이터를 초기화 한다.
+     * 과목 저장소를 생성한다. 초기 데이터는 DatasetLoader 가 적재한다.
      */
-    public SubjectRepository() {
-        subjectDB.put(1L, new Subject(1L, "Basic Computer Science", 1L, null, 3));
-        subjectDB.put(2L, new Subject(2L, "Machine Learning", 1L, null, 3));
-        subjectDB.put(3L, new Subject(3L, "Modeling", 2L, null, 3));
-
+    public SubjectRepository(VersionedStorage versionedStorage, PartitionRouter partitionRouter, IdGenerators idGenerators) {
+        this.partitionRouter = partitionRouter;
+        this.idGenerator = idGenerators.create(ENTITY_NAME, 3L);
+        subjectDB = versionedStorage.createStore(ENTITY_NAME, Subject.class);
     }
 
     /**
@@ -42,16 +52,67 @@ public class SubjectRepository {
      * @return 학생 정보
      */
     public Subject findById(Long subjectId) {
+        if (!partitionRouter.isLocal(subjectId)) {
+            return partitionRouter.findRemote(ENTITY_NAME, subjectId, Subject.class);
+        }
         return subjectDB.get(subjectId);
     }
 
+    /**
+     * 읽기 스냅샷 시점의 과목 정보를 조회한다. 다른 노드가 담당하는 아이디는 담당 노드의 최신 정보를 조회한다.
+     * @param subjectId 조회할 과목 아이디
+     * @param snapshot 읽기 스냅샷
+     * @return 스냅샷 시점의 과목 정보
+     */
+    public Subject findById(Long subjectId, ReadSnapshot snapshot) {
+        if (!partitionRouter.isLocal(subjectId)) {
+            return partitionRouter.findRemote(ENTITY_NAME, subjectId, Subject.class);
+        }
+        return subjectDB.get(subjectId, snapshot);
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 과목 정보 여러개를 요청한 아이디 순서대로 조회한다.
+     * 다른 노드가 담당하는 아이디는 담당 노드의 최신 정보를 조회한다.
+     * @param subjectIds 조회할 과목 아이디 목록
+     * @param snapshot 읽기 스냅샷
+     * @return 아이디와 같은 순서의 과목 정보, 없는 아이디는 null
+     */
+    public List<Subject> findAllById(List<Long> subjectIds, ReadSnapshot snapshot) {
+        List<Subject> found = subjectDB.getAll(subjectIds, snapshot);
+        for (int i = 0; i < subjectIds.size(); i++) {
+            if (!partitionRouter.isLocal(subjectIds.get(i))) {
+                found.set(i, partitionRouter.findRemote(ENTITY_NAME, subjectIds.get(i), Subject.class));
+            }
+        }
+        return found;
+    }
+
     /**
      * 전체 과목 목록을 반환한다.
      * Java Stream 을 이용하여 아이디의 역순으로 조회하고 있다.
      * @return 전체 과목 목록
      */
     public List<Subject> findAll() {
-        return subjectDB.entrySet().stream().sorted(Collections.reverseOrder(Map.Entry.comparingByKey())).map(item -> item.getValue()).collect(Collectors.toList());
+        return subjectDB.stream().sorted(Comparator.comparing(Subject::getId).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 전체 과목 목록을 아이디의 역순으로 반환한다.
+     * @param snapshot 읽기 스냅샷
+     * @return 전체 과목 목록
+     */
+    public List<Subject> findAll(ReadSnapshot snapshot) {
+        return subjectDB.stream(snapshot).sorted(Comparator.comparing(Subject::getId).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 과목 정보를 조회한다.
+     * @param since 마지막으로 동기화한 워터마크, 처음 동기화라면 0
+     * @return 변경된 과목 정보, 삭제된 아이디와 새로운 워터마크
+     */
+    public ChangeSet<Subject> findChangesSince(long since) {
+        return subjectDB.changesSince(since);
     }
 
     /**
@@ -61,16 +122,26 @@ public class SubjectRepository {
      */
     public Subject save(Subject subject) {
         if (isExistSubject(subject)) {
-            subjectDB.put(subject.getId(), subject);
+            subjectDB.put(subject);
         }
         else {
-            long id = subjectId.addAndGet(1);
+            long id = nextId();
             subject.setId(id);
-            subjectDB.put(id, subject);
+            subjectDB.put(subject);
         }
         return subject;
     }
 
+    /**
+     * 조회 이후 다른 쓰기가 없었던 경우에만 과목 정보를 새로운 스냅샷으로 교체한다.
+     * @param expected 수정 전에 조회한 과목 정보
+     * @param updated 교체할 과목 정보
+     * @return 교체에 성공하면 true
+     */
+    public boolean compareAndSet(Subject expected, Subject updated) {
+        return subjectDB.compareAndSet(expected, updated);
+    }
+
     /**
      * 과목 정보가 존재하는지 검사한다.
      * 아이디가 존재하는지만 검사한다.
@@ -86,7 +157,63 @@ public class SubjectRepository {
      * @param subjectId 삭제할 과목 아이디
      */
     public void delete(Long subjectId) {
-        subjectDB.remove(subjectId);
+        if (!partitionRouter.isLocal(subjectId)) {
+            partitionRouter.deleteRemote(ENTITY_NAME, subjectId);
+            return;
+        }
+        evict(subjectId);
+    }
+
+    /**
+     * 이 노드가 담당하는 다음 아이디를 할당한다.
+     * 노드마다 담당하는 아이디만 할당하므로 여러 노드에서 동시에 등록하더라도 아이디가 겹치지 않는다.
+     */
+    private long nextId() {
+        long id;
+        do {
+            id = idGenerator.nextId();
+        } while (!partitionRouter.isLocal(id));
+        return id;
+    }
+
+    @Override
+    public String getEntityName() {
+        return ENTITY_NAME;
+    }
+
+    @Override
+    public Class<Subject> getEntityClass() {
+        return Subject.class;
+    }
+
+    @Override
+    public Subject findLocalById(Long id) {
+        return subjectDB.get(id);
+    }
+
+    /**
+     * 다른 노드에서 옮겨온 과목 정보를 저장한다. 이후 할당하는 아이디가 겹치지 않도록 아이디 생성기에 아이디를 알려준다.
+     */
+    @Override
+    public void importEntity(Subject subject) {
+        subjectDB.restore(subject);
+        idGenerator.observe(subject.getId());
+    }
+
+    @Override
+    public void evict(Long id) {
+        subjectDB.remove(id);
+    }
+
+    @Override
+    public void importEntity(WriteBatch batch, Subject subject) {
+        batch.restore(subjectDB, subject);
+        idGenerator.observe(subject.getId());
+    }
+
+    @Override
+    public void evict(WriteBatch batch, Long id) {
+        batch.remove(subjectDB, id);
     }
 
 }
@@ -0,0 +1,377 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * long 키를 박싱하지 않는 동시성 open addressing 해시 맵이다. 저장소의 아이디 인덱스로 사용한다.
+ *
+ * 키 해시의 상위 비트로 세그먼트를 나누고, 세그먼트마다 long[] 키와 Object[] 값 배열을 선형 탐사한다.
+ * 쓰기는 세그먼트 단위로 잠그고, 읽기는 잠그지 않는다. 새 항목은 값을 먼저 쓰고 키를 release 로 쓰며,
+ * 읽기는 키를 acquire 로 읽으므로 키가 보이면 값도 보인다.
+ * 잠그지 않는 읽기가 다른 키의 값을 보지 않도록 한번 쓰인 칸은 다른 키에 다시 쓰지 않는다.
+ * 삭제는 값을 TOMBSTONE 으로 바꾸고, 툼스톤은 세그먼트가 새 배열로 다시 해시할때 정리한다.
+ * 다시 해시한 배열은 volatile 로 공개하며, 이전 배열을 읽던 읽기는 그 시점의 값을 반환한다.
+ * 순회는 ConcurrentHashMap 과 같이 약한 일관성을 가진다.
+ * @param <V> 값 타입, null 은 저장할 수 없다.
+ */
+public class ConcurrentLongObjectHashMap<V> implements Iterable<ConcurrentLongObjectHashMap.Entry<V>> {
+
+    /**
+     * 순회할때 반환하는 키와 값
+     */
+    public static final class Entry<V> {
+        private final long key;
+        private final V value;
+
+        private Entry(long key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+        private final int threshold;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            threshold = (int) (capacity * LongObjectHashMap.LOAD_FACTOR);
+        }
+    }
+
+    /**
+     * 세그먼트, 쓰기는 이 객체로 잠근다.
+     */
+    private static final class Segment {
+        private volatile Table table;
+        private volatile int size;
+
+        /**
+         * 키가 쓰인 칸의 수 (툼스톤 포함), 잠금 안에서만 사용한다.
+         */
+        private int used;
+
+        private Segment(int capacity) {
+            table = new Table(capacity);
+        }
+    }
+
+    private static final Object TOMBSTONE = new Object();
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final int DEFAULT_SEGMENTS = 32;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final Object zeroLock = new Object();
+    private volatile Object zeroValue;
+
+    public ConcurrentLongObjectHashMap() {
+        this(16, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param expectedSize 다시 해시하지 않고 담을 항목 수
+     * @param concurrencyLevel 세그먼트 수, 2 이상의 2의 거듭제곱으로 올린다.
+     */
+    public ConcurrentLongObjectHashMap(int expectedSize, int concurrencyLevel) {
+        int count = 2;
+        while (count < concurrencyLevel) {
+            count <<= 1;
+        }
+        segments = new Segment[count];
+        segmentShift = 64 - Integer.numberOfTrailingZeros(count);
+        int capacity = LongObjectHashMap.capacityFor(Math.max(1, expectedSize / count));
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * 키의 값을 반환한다. 잠그지 않는다.
+     * @return 값, 없으면 null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) {
+            return (V) zeroValue;
+        }
+        Table table = segmentOf(key).table;
+        for (int i = LongObjectHashMap.slot(key, table.mask); ; i = (i + 1) & table.mask) {
+            long current = (long) KEYS.getAcquire(table.keys, i);
+            if (current == key) {
+                Object value = VALUES.getAcquire(table.values, i);
+                return value == TOMBSTONE ? null : (V) value;
+            }
+            if (current == 0) {
+                return null;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 키의 값을 저장한다.
+     * @return 이전 값, 없었다면 null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value);
+        if (key == 0) {
+            synchronized (zeroLock) {
+                V previous = (V) zeroValue;
+                zeroValue = value;
+                return previous;
+            }
+        }
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            return (V) store(segment, key, value);
+        }
+    }
+
+    /**
+     * 키의 값이 없으면 만들어 저장한다. 값이 이미 있으면 잠그지 않고 반환한다.
+     * mappingFunction 은 세그먼트를 잠근 상태로 호출되므로 짧게 끝나야 한다.
+     * @return 저장되어 있거나 새로 만든 값
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        Object lock = key == 0 ? zeroLock : segmentOf(key);
+        synchronized (lock) {
+            value = get(key);
+            if (value == null) {
+                value = Objects.requireNonNull(mappingFunction.apply(key));
+                if (key == 0) {
+                    zeroValue = value;
+                } else {
+                    store((Segment) lock, key, value);
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 키의 값을 삭제한다.
+     * @return 삭제된 값, 없었다면 null
+     */
+    public V remove(long key) {
+        return remove(key, null, false);
+    }
+
+    /**
+     * 키의 값이 expected 와 같은 객체인 경우에만 삭제한다.
+     * @return 삭제했으면 true
+     */
+    public boolean remove(long key, V expected) {
+        return remove(key, expected, true) != null;
+    }
+
+    /**
+     * 저장된 항목 수를 반환한다. 동시에 변경되는 동안에는 근사값이다.
+     */
+    public int size() {
+        int size = zeroValue == null ? 0 : 1;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 모든 세그먼트 배열의 칸 수를 반환한다. 툼스톤을 정리만 했는지 배열을 키웠는지 확인할때 사용한다.
+     */
+    int capacity() {
+        int capacity = 0;
+        for (Segment segment : segments) {
+            capacity += segment.table.keys.length;
+        }
+        return capacity;
+    }
+
+    /**
+     * 세그먼트마다 빈 배열로 바꾼다. 이전 배열을 읽던 읽기는 그 시점의 값을 반환한다.
+     */
+    public void clear() {
+        synchronized (zeroLock) {
+            zeroValue = null;
+        }
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.table = new Table(LongObjectHashMap.capacityFor(1));
+                segment.used = 0;
+                segment.size = 0;
+            }
+        }
+    }
+
+    /**
+     * 모든 항목을 순서 없이 순회한다. 순회하는 동안의 변경은 반영될 수도 있고 아닐 수도 있다.
+     */
+    public void forEach(LongObjectConsumer<? super V> action) {
+        for (Entry<V> entry : this) {
+            action.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Iterator<Entry<V>> iterator() {
+        return stream().iterator();
+    }
+
+    /**
+     * 모든 항목의 스트림을 반환한다. 병렬 스트림은 세그먼트 단위로 나누어 처리한다.
+     */
+    public Stream<Entry<V>> stream() {
+        Stream<Entry<V>> segmentEntries = Stream.of(segments).flatMap(this::entries);
+        Object zero = zeroValue;
+        return zero == null ? segmentEntries : Stream.concat(Stream.of(entry(0L, zero)), segmentEntries);
+    }
+
+    private Stream<Entry<V>> entries(Segment segment) {
+        Table table = segment.table;
+        return IntStream.range(0, table.keys.length).mapToObj(i -> {
+            long key = (long) KEYS.getAcquire(table.keys, i);
+            if (key == 0) {
+                return null;
+            }
+            Object value = VALUES.getAcquire(table.values, i);
+            return value == TOMBSTONE ? null : entry(key, value);
+        }).filter(Objects::nonNull);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<V> entry(long key, Object value) {
+        return new Entry<>(key, (V) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V remove(long key, V expected, boolean conditional) {
+        if (key == 0) {
+            synchronized (zeroLock) {
+                Object current = zeroValue;
+                if (current == null || (conditional && current != expected)) {
+                    return null;
+                }
+                zeroValue = null;
+                return (V) current;
+            }
+        }
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            Table table = segment.table;
+            for (int i = LongObjectHashMap.slot(key, table.mask); ; i = (i + 1) & table.mask) {
+                long current = table.keys[i];
+                if (current == key) {
+                    Object value = table.values[i];
+                    if (value == TOMBSTONE || (conditional && value != expected)) {
+                        return null;
+                    }
+                    VALUES.setRelease(table.values, i, TOMBSTONE);
+                    segment.size--;
+                    return (V) value;
+                }
+                if (current == 0) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 세그먼트 잠금 안에서 값을 저장한다. 키가 있던 칸이면 값만 바꾸고, 새 칸을 써야 하는데 배열이 가득 찼다면 다시 해시한다.
+     * @return 이전 값, 없었다면 null
+     */
+    private Object store(Segment segment, long key, Object value) {
+        while (true) {
+            Table table = segment.table;
+            for (int i = LongObjectHashMap.slot(key, table.mask); ; i = (i + 1) & table.mask) {
+                long current = table.keys[i];
+                if (current == key) {
+                    Object previous = table.values[i];
+                    VALUES.setRelease(table.values, i, value);
+                    if (previous == TOMBSTONE) {
+                        segment.size++;
+                        return null;
+                    }
+                    return previous;
+                }
+                if (current == 0) {
+                    if (segment.used + 1 > table.threshold) {
+                        rehash(segment);
+                        break;
+                    }
+                    VALUES.setRelease(table.values, i, value);
+                    KEYS.setRelease(table.keys, i, key);
+                    segment.used++;
+                    segment.size++;
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 살아있는 항목만 새 배열로 옮기고 공개한다. 살아있는 항목이 기준의 절반을 넘으면 두배 크기로 만들고,
+     * 그렇지 않다면 툼스톤이 칸을 차지한 것이므로 같은 크기로 정리만 한다.
+     */
+    private void rehash(Segment segment) {
+        Table old = segment.table;
+        int capacity = segment.size + 1 > old.threshold / 2 ? old.keys.length << 1 : old.keys.length;
+        if (capacity <= 0) {
+            throw new IllegalStateException("Map is too large: " + segment.size);
+        }
+        Table table = new Table(capacity);
+        int used = 0;
+        for (int i = 0; i < old.keys.length; i++) {
+            long key = old.keys[i];
+            Object value = old.values[i];
+            if (key == 0 || value == TOMBSTONE) {
+                continue;
+            }
+            int index = LongObjectHashMap.slot(key, table.mask);
+            while (table.keys[index] != 0) {
+                index = (index + 1) & table.mask;
+            }
+            table.keys[index] = key;
+            table.values[index] = value;
+            used++;
+        }
+        segment.used = used;
+        segment.table = table;
+    }
+
+    private Segment segmentOf(long key) {
+        return segments[(int) ((key * 0x9E3779B97F4A7C15L) >>> segmentShift)];
+    }
+}
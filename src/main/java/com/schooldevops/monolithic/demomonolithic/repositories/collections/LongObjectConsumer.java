@@ -0,0 +1,11 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.collections;
+
+/**
+ * long 키와 값을 받는 BiConsumer, 키를 박싱하지 않는다.
+ * @param <V> 값 타입
+ */
+@FunctionalInterface
+public interface LongObjectConsumer<V> {
+
+    void accept(long key, V value);
+}
@@ -0,0 +1,249 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.collections;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+/**
+ * long 키를 박싱하지 않는 open addressing 해시 맵이다. 스레드에 안전하지 않다.
+ *
+ * 키와 값을 long[] 와 Object[] 에 나란히 두고 선형 탐사(linear probing)로 찾으므로 항목마다 노드 객체가 없고,
+ * 조회할때 키를 박싱하지 않는다. 비어있는 칸은 키 0 으로 나타내며, 키 0 의 값은 따로 보관한다.
+ * 삭제는 뒤따르는 항목을 빈 칸으로 당겨오는 backward shift 로 하므로 툼스톤이 남지 않는다.
+ * @param <V> 값 타입, null 은 저장할 수 없다.
+ */
+public class LongObjectHashMap<V> {
+
+    static final float LOAD_FACTOR = 0.7f;
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int threshold;
+    private int size;
+
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 다시 해시하지 않고 담을 항목 수
+     */
+    public LongObjectHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * 키의 값을 반환한다.
+     * @return 값, 없으면 null
+     */
+    public V get(long key) {
+        return getOrDefault(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(long key, V defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long current = keys[i];
+            if (current == key) {
+                return (V) values[i];
+            }
+            if (current == 0) {
+                return defaultValue;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * 키의 값을 저장한다.
+     * @return 이전 값, 없었다면 null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value);
+        if (key == 0) {
+            V previous = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long current = keys[i];
+            if (current == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            if (current == 0) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > threshold) {
+                    rehash(keys.length << 1);
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 키의 값이 없으면 만들어 저장한다.
+     * @return 저장되어 있거나 새로 만든 값
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 키의 값을 삭제한다.
+     * @return 삭제된 값, 없었다면 null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            V previous = zeroValue;
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                zeroValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V previous = (V) values[index];
+        shiftRemove(index);
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * 모든 항목을 순서 없이 순회한다. 순회하는 동안 맵을 변경하면 안 된다.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(LongObjectConsumer<? super V> action) {
+        if (hasZeroKey) {
+            action.accept(0L, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * 키를 섞은 해시의 하위 비트로 첫 탐사 위치를 정한다.
+     * 연속된 아이디나 시간 순서의 snowflake 아이디도 고르게 흩어지도록 곱셈 해시의 상위 비트를 섞는다.
+     */
+    static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * expectedSize 개를 load factor 이하로 담을 수 있는 2의 거듭제곱 크기를 반환한다.
+     */
+    static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / (double) LOAD_FACTOR) + 1;
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed) {
+            capacity <<= 1;
+            if (capacity <= 0) {
+                throw new IllegalStateException("Map is too large: " + expectedSize);
+            }
+        }
+        return capacity;
+    }
+
+    private int indexOf(long key) {
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long current = keys[i];
+            if (current == key) {
+                return i;
+            }
+            if (current == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 빈 칸 뒤에 이어진 항목중 처음 위치가 빈 칸 이전인 항목을 당겨와 탐사 경로가 끊기지 않게 한다.
+     */
+    private void shiftRemove(int index) {
+        int gap = index;
+        for (int i = (index + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            int home = slot(keys[i], mask);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int index = slot(key, mask);
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,74 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * 아이디 범위(블록)를 임대받아 그 안에서 아이디를 할당한다.
+ *
+ * 블록 안의 아이디는 AtomicLong 으로 잠금 없이 할당하고, 블록을 모두 사용했을때만 잠금을 잡고 새로운 블록을 임대한다.
+ * 블록은 증가하는 순서로 임대되므로 아이디는 대략 할당 순서대로 증가한다.
+ * 외부에서 할당된 아이디는 블록을 임대해주는 쪽에 알려, 이후에 임대하는 블록이 그 아이디를 포함하지 않게 한다.
+ */
+class BlockLeasedIdGenerator implements IdGenerator {
+
+    /**
+     * 블록을 임대한다.
+     */
+    @FunctionalInterface
+    interface BlockSource {
+
+        /**
+         * @param size 블록 크기
+         * @return 블록의 첫번째 아이디, 첫번째 아이디부터 size 개의 아이디를 사용할 수 있다.
+         */
+        long lease(int size);
+    }
+
+    private final BlockSource blockSource;
+    private final int blockSize;
+    private final LongConsumer observer;
+
+    private volatile Block block = new Block(0L, 0L);
+
+    BlockLeasedIdGenerator(BlockSource blockSource, int blockSize, LongConsumer observer) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Id block size must be positive: " + blockSize);
+        }
+        this.blockSource = blockSource;
+        this.blockSize = blockSize;
+        this.observer = observer;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return id;
+            }
+            synchronized (this) {
+                if (block == current) {
+                    long start = blockSource.lease(blockSize);
+                    block = new Block(start, start + blockSize);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void observe(long id) {
+        observer.accept(id);
+    }
+
+    private static class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.id;
+
+/**
+ * 저장소가 새로운 엔티티에 할당할 아이디를 생성한다.
+ * 구현체는 여러 스레드에서 동시에 호출되므로 ThreadSafe 해야 한다.
+ */
+public interface IdGenerator {
+
+    /**
+     * 다음 아이디를 생성한다.
+     * @return 이 저장소에서 한번도 할당되지 않은 아이디
+     */
+    long nextId();
+
+    /**
+     * 다른 노드에서 옮겨오는 등 외부에서 할당된 아이디를 알려준다.
+     * 이후 생성하는 아이디가 겹치지 않아야 하는 구현체만 반영한다.
+     * @param id 외부에서 할당된 아이디
+     */
+    default void observe(long id) {
+    }
+}
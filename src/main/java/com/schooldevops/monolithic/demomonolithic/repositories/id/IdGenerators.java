@@ -0,0 +1,181 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.id;
+
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterClient;
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterMembership;
+import com.schooldevops.monolithic.demomonolithic.exceptions.ClusterUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 저장소마다 사용할 IdGenerator 를 생성한다. 생성 전략은 id-generator.strategy 로 선택한다.
+ *
+ * sequence : 노드의 AtomicLong 으로 1씩 증가하는 아이디를 할당한다. 단일 노드에서만 사용한다.
+ * snowflake : 시간, 노드 번호, 시퀀스를 조합하여 노드 사이의 협의 없이 아이디를 생성한다.
+ *             아이디가 2^53 을 넘으므로 JSON 숫자를 double 로 읽는 JavaScript 클라이언트에서는 정밀도를 잃는다.
+ * block : 블록 단위로 아이디 범위를 임대받는다. 클러스터에서는 seed 를 따라 첫번째 노드에서 임대받는다.
+ *         블록을 임대해주는 노드는 재시작하더라도 이미 할당된 아이디를 다시 임대하지 않도록 최고 수위(high-water mark)를 되살린다.
+ *         각 노드의 최고 수위는 저장소에 적재된 가장 큰 아이디와 그 노드가 임대받은 블록의 끝 중 큰 값이며,
+ *         임대해주는 노드는 처음 보는 구성원의 최고 수위를 조회하고, 임대 요청에도 요청한 노드의 최고 수위가 함께 담긴다.
+ *         임대해주는 노드가 재시작한 뒤 아직 다시 참여하지 않은 노드가 쥐고 있는 블록은 알 수 없으므로,
+ *         임대해주는 노드를 재시작할때는 다른 노드가 다시 참여한 후에 쓰기를 받는다.
+ *
+ * 기본값은 block 이다. 단일 노드에서는 sequence 처럼 초기 데이터 다음부터 작은 아이디를 할당하고, 클러스터에서도 아이디가 겹치지 않는다.
+ */
+@Slf4j
+@Component
+public class IdGenerators {
+
+    public static final String SEQUENCE = "sequence";
+    public static final String SNOWFLAKE = "snowflake";
+    public static final String BLOCK = "block";
+
+    private final String strategy;
+    private final long nodeId;
+    private final int blockSize;
+    private final ClusterMembership clusterMembership;
+    private final ClusterClient clusterClient;
+
+    /**
+     * 엔티티 이름별 최고 수위, 이 노드가 아는 가장 큰 할당된 아이디이다.
+     * 적재되거나 옮겨온 아이디와 이 노드가 임대받은 블록의 마지막 아이디를 반영하며,
+     * 블록을 임대해주는 노드에서는 지금까지 임대해준 마지막 아이디이기도 하다.
+     */
+    private final Map<String, AtomicLong> highWaterMarks = new ConcurrentHashMap<>();
+
+    /**
+     * 블록을 임대해주기 전에 최고 수위를 조회한 구성원, 엔티티 이름별로 관리한다.
+     */
+    private final Map<String, Set<String>> consultedMembers = new ConcurrentHashMap<>();
+
+    public IdGenerators(@Value("${id-generator.strategy:block}") String strategy,
+                        @Value("${id-generator.node-id:-1}") long nodeId,
+                        @Value("${id-generator.block-size:1000}") int blockSize,
+                        ClusterMembership clusterMembership, ClusterClient clusterClient) {
+        this.strategy = strategy;
+        this.blockSize = blockSize;
+        this.clusterMembership = clusterMembership;
+        this.clusterClient = clusterClient;
+        this.nodeId = resolveNodeId(strategy, nodeId, clusterMembership);
+        log.info("Id generator strategy: {}, node id: {}", strategy, this.nodeId);
+    }
+
+    /**
+     * snowflake 노드 번호를 정한다. 단일 노드라면 설정하지 않아도 0 을 사용한다.
+     * 클러스터 모드에서 snowflake 를 사용한다면 노드 번호가 겹치면 아이디도 겹치므로, 설정하지 않았다면 시작하지 않는다.
+     */
+    private static long resolveNodeId(String strategy, long nodeId, ClusterMembership clusterMembership) {
+        if (nodeId >= 0) {
+            return nodeId;
+        }
+        if (SNOWFLAKE.equals(strategy) && clusterMembership.isEnabled()) {
+            throw new IllegalStateException("id-generator.node-id must be set to a unique value between 0 and "
+                    + SnowflakeIdGenerator.MAX_NODE_ID + " on every node when the snowflake strategy is used in cluster mode");
+        }
+        return 0L;
+    }
+
+    /**
+     * 저장소가 사용할 IdGenerator 를 생성한다.
+     * @param entityName 엔티티 이름
+     * @param initialValue 초기 데이터의 마지막 아이디, 이후의 아이디부터 할당한다.
+     * @return 생성된 IdGenerator
+     */
+    public IdGenerator create(String entityName, long initialValue) {
+        switch (strategy) {
+            case SEQUENCE:
+                return new SequenceIdGenerator(initialValue);
+            case SNOWFLAKE:
+                return new SnowflakeIdGenerator(nodeId, Clock.systemUTC());
+            case BLOCK:
+                observe(entityName, initialValue);
+                return new BlockLeasedIdGenerator(size -> leaseBlock(entityName, size), blockSize, id -> observe(entityName, id));
+            default:
+                throw new IllegalArgumentException("Unknown id generator strategy: " + strategy);
+        }
+    }
+
+    /**
+     * 아이디 블록을 임대한다.
+     * seed 노드가 있다면 이 노드의 최고 수위와 함께 seed 노드에게 요청하고, 첫번째 노드라면 직접 임대한다.
+     * @param entityName 엔티티 이름
+     * @param size 블록 크기
+     * @return 블록의 첫번째 아이디
+     * @throws ClusterUnavailableException seed 노드나 최고 수위를 조회할 구성원이 응답하지 않는 경우
+     */
+    public long leaseBlock(String entityName, int size) {
+        if (clusterMembership.isEnabled() && !clusterMembership.getSeeds().isEmpty()) {
+            String seed = clusterMembership.getSeeds().get(0);
+            Long start = clusterClient.post(seed, "/cluster/id-blocks/" + entityName + "?size=" + size
+                    + "&after=" + highWaterMarkOf(entityName).get(), null, Long.class);
+            observe(entityName, start + size - 1);
+            log.info("Leased {} ids of {} from {} starting at {}", size, entityName, seed, start);
+            return start;
+        }
+        return grantBlock(entityName, size, 0L);
+    }
+
+    /**
+     * 다른 노드나 이 노드에게 아이디 블록을 임대해준다.
+     * 처음 보는 구성원이 있다면 먼저 최고 수위를 조회하므로, 재시작한 후에도 구성원이 할당했거나 임대받은 아이디를 다시 임대하지 않는다.
+     * @param entityName 엔티티 이름
+     * @param size 블록 크기
+     * @param after 요청한 노드의 최고 수위, 블록은 이 아이디 다음부터 시작한다.
+     * @return 블록의 첫번째 아이디
+     * @throws ClusterUnavailableException 최고 수위를 조회할 구성원이 응답하지 않는 경우
+     */
+    public long grantBlock(String entityName, int size, long after) {
+        AtomicLong highWaterMark = highWaterMarkOf(entityName);
+        recoverHighWaterMark(entityName, highWaterMark);
+        highWaterMark.accumulateAndGet(after, Math::max);
+        return highWaterMark.getAndAdd(size) + 1;
+    }
+
+    /**
+     * 이 노드의 최고 수위를 반환한다. 블록을 임대해주는 노드가 재시작한 후 조회한다.
+     * @param entityName 엔티티 이름
+     * @return 이 노드가 아는 가장 큰 할당된 아이디
+     */
+    public long highWaterMark(String entityName) {
+        return highWaterMarkOf(entityName).get();
+    }
+
+    /**
+     * 아직 조회하지 않은 구성원의 최고 수위를 반영한다. 응답하지 않는 구성원이 있다면 임대하지 않는다.
+     */
+    private void recoverHighWaterMark(String entityName, AtomicLong highWaterMark) {
+        if (!clusterMembership.isEnabled()) {
+            return;
+        }
+        Set<String> consulted = consultedMembers.computeIfAbsent(entityName, key -> ConcurrentHashMap.newKeySet());
+        for (String member : clusterMembership.getMembers()) {
+            if (member.equals(clusterMembership.getSelf()) || consulted.contains(member)) {
+                continue;
+            }
+            Long remote = clusterClient.get(member, "/cluster/id-blocks/" + entityName, Long.class);
+            if (remote != null) {
+                highWaterMark.accumulateAndGet(remote, Math::max);
+            }
+            consulted.add(member);
+            log.info("Recovered high-water mark {} of {} from {}", remote, entityName, member);
+        }
+    }
+
+    private void observe(String entityName, long id) {
+        highWaterMarks.computeIfAbsent(entityName, key -> new AtomicLong()).accumulateAndGet(id, Math::max);
+    }
+
+    private AtomicLong highWaterMarkOf(String entityName) {
+        AtomicLong highWaterMark = highWaterMarks.get(entityName);
+        if (highWaterMark == null) {
+            throw new IllegalArgumentException("Unknown entity: " + entityName);
+        }
+        return highWaterMark;
+    }
+}
@@ -0,0 +1,26 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AtomicLong 을 1씩 증가시켜 아이디를 할당한다.
+ * 단일 노드에서만 사용할 수 있으며, 모든 쓰기가 하나의 카운터를 두고 경합한다.
+ */
+class SequenceIdGenerator implements IdGenerator {
+
+    private final AtomicLong sequence;
+
+    SequenceIdGenerator(long initialValue) {
+        this.sequence = new AtomicLong(initialValue);
+    }
+
+    @Override
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    @Override
+    public void observe(long id) {
+        sequence.accumulateAndGet(id, Math::max);
+    }
+}
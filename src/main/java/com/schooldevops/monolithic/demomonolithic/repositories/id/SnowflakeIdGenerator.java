@@ -0,0 +1,63 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.id;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake 방식으로 시간(41비트), 노드(10비트), 시퀀스(12비트)를 조합하여 아이디를 생성한다.
+ *
+ * 노드 번호가 서로 다르면 다른 노드와 협의하지 않고도 아이디가 겹치지 않으며, 아이디는 생성 시각 순서로 증가한다.
+ * 마지막 시각과 시퀀스를 하나의 AtomicLong 에 담아 compareAndSet 으로 갱신하므로 잠금 없이 동작한다.
+ * 같은 밀리초에 시퀀스를 모두 사용했거나 시계가 뒤로 간 경우에는 기다리지 않고 다음 밀리초를 미리 사용한다.
+ * 아이디는 2^53 보다 크므로 JSON 숫자를 double 로 읽는 클라이언트(JavaScript 등)가 있다면 사용하지 않는다.
+ */
+class SnowflakeIdGenerator implements IdGenerator {
+
+    /**
+     * 2020-01-01T00:00:00Z, 이 시각부터 약 69년 동안 아이디를 생성할 수 있다.
+     */
+    static final long EPOCH = 1577836800000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final Clock clock;
+
+    /**
+     * (epoch 이후 밀리초 << SEQUENCE_BITS) | 시퀀스
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    SnowflakeIdGenerator(long nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Snowflake node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = clock.millis() - EPOCH;
+            long timestamp = current >>> SEQUENCE_BITS;
+
+            long next;
+            if (now > timestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = current + 1;
+            } else {
+                next = (timestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+}
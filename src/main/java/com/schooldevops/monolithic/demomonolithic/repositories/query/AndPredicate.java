@@ -0,0 +1,34 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.query;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 모든 하위 조건을 만족해야 하는 조건이다.
+ */
+@Getter
+public class AndPredicate<T> implements QueryPredicate<T> {
+
+    private final List<QueryPredicate<T>> children;
+
+    public AndPredicate(List<QueryPredicate<T>> children) {
+        this.children = List.copyOf(children);
+    }
+
+    @Override
+    public boolean test(T entity) {
+        for (QueryPredicate<T> child : children) {
+            if (!child.test(entity)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String describe() {
+        return children.stream().map(QueryPredicate::describe).collect(Collectors.joining(" AND ", "(", ")"));
+    }
+}
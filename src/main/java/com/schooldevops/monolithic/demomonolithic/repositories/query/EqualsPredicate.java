@@ -0,0 +1,31 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.query;
+
+import lombok.Getter;
+
+import java.util.Objects;
+
+/**
+ * 필드 값이 주어진 값과 동일한지 검사하는 조건이다.
+ * 필드에 인덱스가 존재한다면 QueryEngine 은 이 조건을 인덱스 조회로 처리한다.
+ */
+@Getter
+public class EqualsPredicate<T, V> implements QueryPredicate<T> {
+
+    private final QueryField<T, V> field;
+    private final V value;
+
+    public EqualsPredicate(QueryField<T, V> field, V value) {
+        this.field = field;
+        this.value = value;
+    }
+
+    @Override
+    public boolean test(T entity) {
+        return Objects.equals(field.valueOf(entity), value);
+    }
+
+    @Override
+    public String describe() {
+        return String.format("%s = '%s'", field.getName(), value);
+    }
+}
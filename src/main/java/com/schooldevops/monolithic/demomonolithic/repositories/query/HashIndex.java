@@ -0,0 +1,70 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.query;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 필드 값으로 엔티티 아이디 목록을 찾을 수 있는 해시 인덱스이다.
+ * 엔티티가 수정되면 이전 값으로 등록된 아이디를 제거해야 하므로 아이디별로 인덱싱된 값을 함께 보관한다.
+ * null 값은 인덱싱하지 않는다.
+ */
+public class HashIndex<T, V> {
+
+    @Getter
+    private final QueryField<T, V> field;
+
+    private final Map<V, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, V> indexedValues = new ConcurrentHashMap<>();
+
+    public HashIndex(QueryField<T, V> field) {
+        this.field = field;
+    }
+
+    /**
+     * 엔티티를 인덱스에 반영한다. 이미 인덱싱된 아이디라면 이전 값을 먼저 제거한다.
+     * @param id 엔티티 아이디
+     * @param entity 엔티티
+     */
+    public void put(Long id, T entity) {
+        remove(id);
+        V value = field.valueOf(entity);
+        if (value == null) {
+            return;
+        }
+        postings.computeIfAbsent(value, key -> ConcurrentHashMap.newKeySet()).add(id);
+        indexedValues.put(id, value);
+    }
+
+    /**
+     * 아이디를 인덱스에서 제거한다.
+     * @param id 제거할 엔티티 아이디
+     */
+    public void remove(Long id) {
+        V previous = indexedValues.remove(id);
+        if (previous == null) {
+            return;
+        }
+        postings.computeIfPresent(previous, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * 필드 값에 해당하는 아이디 목록을 조회한다.
+     * @param value 필드 값
+     * @return 아이디 목록
+     */
+    public Set<Long> lookup(Object value) {
+        Set<Long> ids = postings.get(value);
+        return ids == null ? Collections.emptySet() : ids;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+}
@@ -0,0 +1,34 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.query;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 하위 조건중 하나 이상을 만족하면 되는 조건이다.
+ */
+@Getter
+public class OrPredicate<T> implements QueryPredicate<T> {
+
+    private final List<QueryPredicate<T>> children;
+
+    public OrPredicate(List<QueryPredicate<T>> children) {
+        this.children = List.copyOf(children);
+    }
+
+    @Override
+    public boolean test(T entity) {
+        for (QueryPredicate<T> child : children) {
+            if (child.test(entity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String describe() {
+        return children.stream().map(QueryPredicate::describe).collect(Collectors.joining(" OR ", "(", ")"));
+    }
+}
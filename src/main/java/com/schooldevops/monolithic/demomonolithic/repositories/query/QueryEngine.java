@@ -0,0 +1,205 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.query;
+
+import com.schooldevops.monolithic.demomonolithic.domains.VersionedEntity;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.EntityStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 리포지토리의 저장소 위에서 동작하는 작은 쿼리 엔진이다.
+ * 조건의 구조를 분석하여 인덱스가 있는 필드는 인덱스로 후보를 찾고, 인덱스가 없으면 전체를 스캔한다.
+ * 저장된 엔티티가 PARALLEL_SCAN_THRESHOLD 이상이면 스캔을 공용 ForkJoinPool 에서 병렬로 수행한다.
+ * 결과는 아이디 순으로 정렬하여 반환한다.
+ * @param <T> 엔티티 타입
+ */
+@Slf4j
+public class QueryEngine<T extends VersionedEntity> {
+
+    /**
+     * 이 값 이상의 엔티티를 스캔하는 경우 병렬 스캔을 수행한다.
+     */
+    public static final int PARALLEL_SCAN_THRESHOLD = 10_000;
+
+    private final String entityName;
+    private final EntityStore<T> store;
+    private final Map<String, HashIndex<T, ?>> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * 생성중인 인덱스, 실행 계획에는 사용하지 않지만 생성중에 들어온 쓰기는 반영한다.
+     */
+    private final Map<String, HashIndex<T, ?>> building = new ConcurrentHashMap<>();
+
+    /**
+     * 인덱스 생성과 쓰기의 인덱스 반영을 직렬화한다.
+     */
+    private final Object indexLock = new Object();
+
+    public QueryEngine(String entityName, EntityStore<T> store) {
+        this.entityName = entityName;
+        this.store = store;
+    }
+
+    /**
+     * 필드에 대한 해시 인덱스를 생성하고, 이미 저장된 엔티티를 인덱싱한다.
+     * 생성이 끝나기 전까지는 실행 계획에 사용하지 않으므로 그 사이의 조회는 스캔으로 처리된다.
+     * 생성중에 다른 스레드가 저장하거나 삭제하더라도, 엔티티마다 저장소의 최신 값을 잠금 안에서 다시 읽어 반영하므로
+     * 오래된 값으로 덮어쓰지 않는다.
+     * @param field 인덱스를 생성할 필드
+     */
+    public void createIndex(QueryField<T, ?> field) {
+        HashIndex<T, ?> index = new HashIndex<>(field);
+        building.put(field.getName(), index);
+        store.stream().forEach(entity -> {
+            synchronized (indexLock) {
+                T current = store.get(entity.getId());
+                if (current != null) {
+                    index.put(current.getId(), current);
+                }
+            }
+        });
+        indexes.put(field.getName(), index);
+        building.remove(field.getName());
+    }
+
+    /**
+     * 저장, 수정 혹은 삭제된 엔티티를 모든 인덱스에 반영한다.
+     * 커밋이 끝난 뒤에 호출되므로 동시에 쓴 요청들의 호출 순서는 커밋 순서와 다를 수 있다.
+     * 그래서 요청이 쓴 값 대신 잠금 안에서 저장소의 최신 값을 다시 읽어 반영하며, 마지막 호출이 항상 마지막 커밋을 반영하므로
+     * 오래된 값이 인덱스에 남지 않는다. 삭제되었다면 인덱스에서 제거한다.
+     * @param id 저장, 수정 혹은 삭제된 엔티티 아이디
+     */
+    public void reindex(Long id) {
+        synchronized (indexLock) {
+            T current = store.get(id);
+            indexes.values().forEach(index -> reindex(index, id, current));
+            building.values().forEach(index -> reindex(index, id, current));
+        }
+    }
+
+    private void reindex(HashIndex<T, ?> index, Long id, T current) {
+        if (current == null) {
+            index.remove(id);
+        } else {
+            index.put(id, current);
+        }
+    }
+
+    /**
+     * 조건을 만족하는 엔티티 목록을 조회한다.
+     * @param predicate 조회 조건
+     * @return 아이디 순으로 정렬된 엔티티 목록
+     */
+    public List<T> execute(QueryPredicate<T> predicate) {
+        QueryPlan<T> plan = plan(predicate);
+        if (log.isDebugEnabled()) {
+            log.debug("Query plan\n{}", plan.explain());
+        }
+
+        Stream<T> candidates;
+        switch (plan.getAccess()) {
+            case INDEX_LOOKUP:
+            case INDEX_UNION:
+                candidates = candidateIds(plan).stream().map(store::get);
+                break;
+            case PARALLEL_SCAN:
+                candidates = store.parallelStream();
+                break;
+            default:
+                candidates = store.stream();
+        }
+
+        return candidates
+                .filter(entity -> entity != null && predicate.test(entity))
+                .sorted(Comparator.comparing(VersionedEntity::getId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 조건에 대한 실행 계획을 EXPLAIN 형식으로 반환한다.
+     * @param predicate 조회 조건
+     * @return 실행 계획 설명
+     */
+    public String explain(QueryPredicate<T> predicate) {
+        return plan(predicate).explain();
+    }
+
+    /**
+     * 조건에 대한 실행 계획을 수립한다.
+     * @param predicate 조회 조건
+     * @return 실행 계획
+     */
+    public QueryPlan<T> plan(QueryPredicate<T> predicate) {
+        List<QueryPlan.IndexProbe<T>> probes = indexProbes(predicate);
+        if (probes != null) {
+            QueryPlan.Access access = probes.size() == 1 ? QueryPlan.Access.INDEX_LOOKUP : QueryPlan.Access.INDEX_UNION;
+            return new QueryPlan<>(entityName, access, probes, predicate, estimate(probes));
+        }
+
+        int size = store.size();
+        QueryPlan.Access access = size >= PARALLEL_SCAN_THRESHOLD ? QueryPlan.Access.PARALLEL_SCAN : QueryPlan.Access.SEQUENTIAL_SCAN;
+        return new QueryPlan<>(entityName, access, List.of(), predicate, size);
+    }
+
+    /**
+     * 조건을 인덱스 조회로 처리할 수 있는지 분석한다.
+     * 동등 조건은 필드에 인덱스가 있으면, AND 는 하위 조건중 하나라도 인덱스로 처리할 수 있으면(가장 적은 후보를 선택),
+     * OR 는 모든 하위 조건을 인덱스로 처리할 수 있으면 인덱스 조회가 가능하다.
+     * @param predicate 조회 조건
+     * @return 인덱스 조회 목록, 인덱스로 처리할 수 없다면 null
+     */
+    private List<QueryPlan.IndexProbe<T>> indexProbes(QueryPredicate<T> predicate) {
+        if (predicate instanceof EqualsPredicate) {
+            EqualsPredicate<T, ?> equals = (EqualsPredicate<T, ?>) predicate;
+            HashIndex<T, ?> index = indexes.get(equals.getField().getName());
+            return index == null ? null : List.of(new QueryPlan.IndexProbe<>(index, equals.getValue()));
+        }
+
+        if (predicate instanceof AndPredicate) {
+            List<QueryPlan.IndexProbe<T>> best = null;
+            for (QueryPredicate<T> child : ((AndPredicate<T>) predicate).getChildren()) {
+                List<QueryPlan.IndexProbe<T>> probes = indexProbes(child);
+                if (probes != null && (best == null || estimate(probes) < estimate(best))) {
+                    best = probes;
+                }
+            }
+            return best;
+        }
+
+        if (predicate instanceof OrPredicate) {
+            List<QueryPlan.IndexProbe<T>> union = new ArrayList<>();
+            for (QueryPredicate<T> child : ((OrPredicate<T>) predicate).getChildren()) {
+                List<QueryPlan.IndexProbe<T>> probes = indexProbes(child);
+                if (probes == null) {
+                    return null;
+                }
+                union.addAll(probes);
+            }
+            return union;
+        }
+
+        return null;
+    }
+
+    private Set<Long> candidateIds(QueryPlan<T> plan) {
+        if (plan.getProbes().size() == 1) {
+            QueryPlan.IndexProbe<T> probe = plan.getProbes().get(0);
+            return probe.getIndex().lookup(probe.getValue());
+        }
+        Set<Long> ids = new HashSet<>();
+        plan.getProbes().forEach(probe -> ids.addAll(probe.getIndex().lookup(probe.getValue())));
+        return ids;
+    }
+
+    private int estimate(List<QueryPlan.IndexProbe<T>> probes) {
+        return probes.stream().mapToInt(QueryPlan.IndexProbe::estimatedRows).sum();
+    }
+}
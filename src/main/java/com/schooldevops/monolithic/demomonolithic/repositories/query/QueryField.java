@@ -0,0 +1,41 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.query;
+
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * 쿼리 조건으로 사용할 엔티티의 필드를 나타낸다.
+ * 필드 이름은 인덱스를 찾거나 EXPLAIN 결과를 출력할때 사용하고, getter 는 엔티티에서 실제 값을 꺼낼때 사용한다.
+ * @param <T> 엔티티 타입
+ * @param <V> 필드 값 타입
+ */
+@Getter
+public class QueryField<T, V> {
+
+    private final String name;
+    private final Function<T, V> getter;
+
+    public QueryField(String name, Function<T, V> getter) {
+        this.name = name;
+        this.getter = getter;
+    }
+
+    /**
+     * 엔티티에서 필드 값을 조회한다.
+     * @param entity 엔티티
+     * @return 필드 값
+     */
+    public V valueOf(T entity) {
+        return getter.apply(entity);
+    }
+
+    /**
+     * 필드 값이 주어진 값과 동일한지 검사하는 조건을 생성한다.
+     * @param value 비교할 값
+     * @return 동등 비교 조건
+     */
+    public EqualsPredicate<T, V> eq(V value) {
+        return new EqualsPredicate<>(this, value);
+    }
+}
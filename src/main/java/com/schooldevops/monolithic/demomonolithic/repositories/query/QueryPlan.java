@@ -0,0 +1,79 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.query;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * QueryEngine 의 planner 가 선택한 실행 계획이다.
+ * 인덱스를 이용할 수 있다면 인덱스 조회(혹은 여러 인덱스 조회 결과의 합집합)를,
+ * 그렇지 않다면 순차 스캔이나 Fork-Join 병렬 스캔을 선택한다.
+ * 인덱스로 후보를 찾은 경우에도 최종 결과는 전체 조건으로 다시 필터링한다.
+ */
+@Getter
+public class QueryPlan<T> {
+
+    public enum Access {
+        INDEX_LOOKUP, INDEX_UNION, SEQUENTIAL_SCAN, PARALLEL_SCAN
+    }
+
+    /**
+     * 인덱스 조회 한건을 나타낸다.
+     */
+    @Getter
+    public static class IndexProbe<T> {
+        private final HashIndex<T, ?> index;
+        private final Object value;
+
+        IndexProbe(HashIndex<T, ?> index, Object value) {
+            this.index = index;
+            this.value = value;
+        }
+
+        int estimatedRows() {
+            return index.lookup(value).size();
+        }
+    }
+
+    private final String entityName;
+    private final Access access;
+    private final List<IndexProbe<T>> probes;
+    private final QueryPredicate<T> predicate;
+    private final int estimatedRows;
+
+    QueryPlan(String entityName, Access access, List<IndexProbe<T>> probes, QueryPredicate<T> predicate, int estimatedRows) {
+        this.entityName = entityName;
+        this.access = access;
+        this.probes = probes;
+        this.predicate = predicate;
+        this.estimatedRows = estimatedRows;
+    }
+
+    /**
+     * EXPLAIN 형식으로 실행 계획을 출력한다.
+     * @return 실행 계획 설명
+     */
+    public String explain() {
+        StringBuilder builder = new StringBuilder();
+        switch (access) {
+            case INDEX_LOOKUP:
+            case INDEX_UNION:
+                String lookups = probes.stream()
+                        .map(probe -> String.format("%s.%s = '%s'", entityName, probe.getIndex().getName(), probe.getValue()))
+                        .collect(Collectors.joining(", "));
+                builder.append(access == Access.INDEX_LOOKUP ? "IndexLookup" : "IndexUnion")
+                        .append(" on ").append(lookups);
+                break;
+            case PARALLEL_SCAN:
+                builder.append("ParallelScan on ").append(entityName)
+                        .append(" (parallelism=").append(Runtime.getRuntime().availableProcessors()).append(")");
+                break;
+            default:
+                builder.append("SequentialScan on ").append(entityName);
+        }
+        builder.append(" (estimated rows=").append(estimatedRows).append(")\n");
+        builder.append("  -> Filter: ").append(predicate.describe());
+        return builder.toString();
+    }
+}
@@ -0,0 +1,32 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.query;
+
+import java.util.List;
+
+/**
+ * QueryEngine 에서 사용하는 타입이 지정된 조건이다.
+ * and, or 를 이용하여 조건을 조합할 수 있으며, QueryEngine 은 조건의 구조를 보고 인덱스 사용 여부를 결정한다.
+ * @param <T> 엔티티 타입
+ */
+public interface QueryPredicate<T> {
+
+    /**
+     * 엔티티가 조건을 만족하는지 검사한다.
+     * @param entity 검사할 엔티티
+     * @return 조건을 만족하면 true
+     */
+    boolean test(T entity);
+
+    /**
+     * EXPLAIN 결과에 출력할 조건 설명을 반환한다.
+     * @return 조건 설명
+     */
+    String describe();
+
+    default QueryPredicate<T> and(QueryPredicate<T> other) {
+        return new AndPredicate<>(List.of(this, other));
+    }
+
+    default QueryPredicate<T> or(QueryPredicate<T> other) {
+        return new OrPredicate<>(List.of(this, other));
+    }
+}
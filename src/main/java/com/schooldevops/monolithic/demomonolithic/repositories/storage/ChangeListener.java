@@ -0,0 +1,13 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage;
+
+/**
+ * EntityStore 의 변경을 전달받는 리스너이다.
+ * 리스너는 커밋 시퀀스가 공개된 후 VersionedStorage 의 전달 스레드에서 커밋 시퀀스 순서대로 하나씩 호출된다.
+ * 쓰기는 리스너를 기다리지 않으므로 리스너가 호출될때는 이미 그 변경을 읽을 수 있고, 그 사이 더 새로운 커밋이 공개되었을 수 있다.
+ * 리스너가 늦어지면 이후 변경의 전달이 모두 늦어지므로, 리스너는 블로킹 없이 빠르게 반환해야 한다.
+ */
+@FunctionalInterface
+public interface ChangeListener {
+
+    void onChange(StoreChange change);
+}
@@ -0,0 +1,96 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 저장소 하나의 변경 기록이다. 커밋 시퀀스 순으로 어떤 아이디가 변경되었는지를 보관한다.
+ * 아이디별로 가장 최근의 기록 하나만 남기므로 기록의 크기는 변경된 아이디 수에 비례한다.
+ * 쓰기 배치는 여러 아이디를 같은 시퀀스로 커밋하므로 기록은 시퀀스와 아이디 순으로 정렬한다.
+ * 삭제는 툼스톤으로 기록되며, 보관 기간이 지난 툼스톤은 compact 로 정리한다.
+ */
+class ChangeLog {
+
+    @Getter
+    static final class Entry {
+        private final long sequence;
+        private final Long id;
+        private final boolean deleted;
+        private final long recordedAt;
+
+        private Entry(long sequence, Long id, boolean deleted, long recordedAt) {
+            this.sequence = sequence;
+            this.id = id;
+            this.deleted = deleted;
+            this.recordedAt = recordedAt;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::getSequence).thenComparing(Entry::getId);
+
+    private final ConcurrentSkipListSet<Entry> bySequence = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Long> latestSequence = new ConcurrentHashMap<>();
+
+    /**
+     * 정리된 툼스톤중 가장 큰 커밋 시퀀스, 이보다 작은 워터마크로는 증분 동기화를 할 수 없다.
+     */
+    @Getter
+    private volatile long compactedThrough;
+
+    /**
+     * 변경을 기록하고, 같은 아이디의 이전 기록을 제거한다.
+     * 같은 아이디에 대한 기록이 시퀀스 역순으로 도착하더라도 큰 시퀀스의 기록이 남는다.
+     */
+    void record(long sequence, Long id, boolean deleted) {
+        Entry entry = new Entry(sequence, id, deleted, System.currentTimeMillis());
+        bySequence.add(entry);
+        latestSequence.compute(id, (key, previous) -> {
+            if (previous == null || previous < sequence) {
+                if (previous != null) {
+                    bySequence.remove(probe(previous, id));
+                }
+                return sequence;
+            }
+            bySequence.remove(entry);
+            return previous;
+        });
+    }
+
+    /**
+     * 워터마크 이후의 기록을 시퀀스 순으로 반환한다.
+     * @param since 워터마크 (이 시퀀스는 포함하지 않는다.)
+     */
+    Collection<Entry> since(long since) {
+        return bySequence.tailSet(probe(since, Long.MAX_VALUE), false);
+    }
+
+    private static Entry probe(long sequence, Long id) {
+        return new Entry(sequence, id, false, 0L);
+    }
+
+    /**
+     * 보관 기간이 지난 툼스톤을 정리한다.
+     * @param retentionMs 툼스톤 보관 기간
+     * @return 정리된 툼스톤 수
+     */
+    int compact(long retentionMs) {
+        long expiredBefore = System.currentTimeMillis() - retentionMs;
+        int compacted = 0;
+        for (Entry entry : bySequence) {
+            if (!entry.isDeleted() || entry.getRecordedAt() >= expiredBefore) {
+                continue;
+            }
+            if (latestSequence.remove(entry.getId(), entry.getSequence())) {
+                bySequence.remove(entry);
+                compactedThrough = Math.max(compactedThrough, entry.getSequence());
+                compacted++;
+            }
+        }
+        return compacted;
+    }
+}
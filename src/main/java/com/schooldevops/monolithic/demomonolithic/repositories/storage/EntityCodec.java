@@ -0,0 +1,47 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage;
+
+import com.schooldevops.monolithic.demomonolithic.json.EntityJsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 저장 엔진으로 내려놓는 값을 [커밋 시퀀스 (long)][엔티티 JSON] 으로 직렬화한다.
+ * 커밋 시퀀스로 엔진에 있는 값이 어느 버전의 값인지 확인한다.
+ * @param <T> 엔티티 타입
+ */
+class EntityCodec<T> {
+
+    private final EntityJsonMapper jsonMapper;
+    private final Class<T> type;
+
+    EntityCodec(EntityJsonMapper jsonMapper, Class<T> type) {
+        this.jsonMapper = jsonMapper;
+        this.type = type;
+    }
+
+    byte[] encode(long sequence, T value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.writeBytes(ByteBuffer.allocate(Long.BYTES).putLong(sequence).array());
+        try {
+            jsonMapper.writeValue(out, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize " + type.getSimpleName(), e);
+        }
+        return out.toByteArray();
+    }
+
+    T decode(byte[] bytes) {
+        try {
+            return jsonMapper.readValue(bytes, Long.BYTES, bytes.length - Long.BYTES, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to deserialize " + type.getSimpleName(), e);
+        }
+    }
+
+    static long sequenceOf(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+}
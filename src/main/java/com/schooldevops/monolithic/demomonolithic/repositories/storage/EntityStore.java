@@ -0,0 +1,613 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage;
+
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
+import com.schooldevops.monolithic.demomonolithic.domains.VersionedEntity;
+import com.schooldevops.monolithic.demomonolithic.repositories.collections.ConcurrentLongObjectHashMap;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.engine.StorageTable;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 엔티티를 아이디별 버전 체인으로 보관하는 저장소이다.
+ * 저장된 엔티티는 불변 스냅샷으로 취급한다. 수정할때는 새로운 객체를 만들어 compareAndSet 으로 교체하며,
+ * 교체될때마다 엔티티 버전이 1씩 증가한다.
+ * 모든 쓰기는 VersionedStorage 의 커밋 시퀀스를 가진 새로운 버전으로 체인의 맨 앞에 추가되고,
+ * 삭제는 툼스톤 버전으로 기록된다. 읽기는 잠금 없이 최신 버전이나 스냅샷 시점의 버전을 찾아 반환한다.
+ * 설치된 변경은 커밋 시퀀스가 공개되기 전에 변경 기록(ChangeLog)에 남고, 공개된 후 VersionedStorage 의 ChangeListener 들에게 전달된다.
+ * 여러 엔티티를 하나의 커밋 시퀀스로 교체할때는 WriteBatch 가 prepare 로 버전을 준비한 뒤 한번에 확정하거나 되돌린다.
+ * 저장 엔진이 값을 힙 밖에 보관하면, 가비지 컬렉션이 두 주기 동안 읽히지 않은 최신 버전의 값을 엔진 테이블로 내려놓고
+ * 읽을때 다시 불러온다 (second chance). 버전 체인과 아이디는 항상 힙에 남고,
+ * 다른 인덱스(EnrollmentIndex 등)가 참조하고 있는 값은 내려놓더라도 힙에서 사라지지 않는다.
+ * @param <T> 엔티티 타입
+ */
+public class EntityStore<T extends VersionedEntity> {
+
+    /**
+     * 버전 체인의 한 노드, value 가 null 이면서 spilled 가 아니면 삭제를 나타내는 툼스톤이다.
+     * pending 은 쓰기 배치가 준비중인 버전으로, 배치가 커밋되거나 되돌려지기 전에는 그 위에 다른 버전을 쌓지 않는다.
+     * 준비중인 버전의 시퀀스는 PENDING_SEQUENCE 이며, 커밋할때 배치의 커밋 시퀀스로 바뀐다.
+     * spilled 는 값을 엔진 테이블에 내려놓은 버전으로, value 가 null 이면 읽을때 테이블에서 불러온다.
+     * referenced 는 마지막 가비지 컬렉션 이후 읽히거나 쓰였는지를 나타낸다.
+     */
+    private static final class Version<T> {
+        private volatile long sequence;
+        private volatile T value;
+        private volatile Version<T> previous;
+        private volatile boolean pending;
+        private volatile boolean spilled;
+        private volatile boolean referenced = true;
+
+        private Version(long sequence, T value, Version<T> previous) {
+            this(sequence, value, previous, false);
+        }
+
+        private Version(long sequence, T value, Version<T> previous, boolean pending) {
+            this.sequence = sequence;
+            this.value = value;
+            this.previous = previous;
+            this.pending = pending;
+        }
+    }
+
+    /**
+     * 준비중인 버전의 시퀀스, 어떤 읽기 시점보다도 크므로 읽기에 보이지 않는다.
+     */
+    private static final long PENDING_SEQUENCE = Long.MAX_VALUE;
+
+    /**
+     * 가비지 컬렉션이 인덱스에서 제거하는 아이디의 마지막 버전, 읽기에는 툼스톤으로 보이고 그 위에는 쓰지 않는다.
+     * 쓰기는 이 버전을 만나면 아이디가 제거된 후 새로운 체인에 다시 쓴다.
+     */
+    private static final Version<?> RETIRED = new Version<>(0L, null, null);
+
+    @Getter
+    private final String name;
+    private final VersionedStorage storage;
+    /**
+     * 아이디 -> 버전 체인, 아이디를 박싱하지 않는 open addressing 인덱스이다.
+     */
+    private final ConcurrentLongObjectHashMap<AtomicReference<Version<T>>> entries = new ConcurrentLongObjectHashMap<>();
+    private final ChangeLog changeLog = new ChangeLog();
+
+    /**
+     * 값을 내려놓을 엔진 테이블, 엔진이 값을 힙에 두는 경우 null 이다.
+     */
+    private final StorageTable table;
+    private final EntityCodec<T> codec;
+    private final LongAdder loads = new LongAdder();
+
+    /**
+     * 마지막 가비지 컬렉션에서 센, 값이 힙에 없는 엔티티 수
+     */
+    private volatile long offHeapValues;
+
+    EntityStore(String name, VersionedStorage storage, StorageTable table, EntityCodec<T> codec) {
+        this.name = name;
+        this.storage = storage;
+        this.table = table;
+        this.codec = codec;
+    }
+
+    /**
+     * 아이디로 최신 스냅샷을 조회한다.
+     * @param id 엔티티 아이디
+     * @return 최신 스냅샷, 없으면 null
+     */
+    public T get(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return latest(id, entries.get(id));
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 엔티티를 조회한다.
+     * @param id 엔티티 아이디
+     * @param snapshot 읽기 스냅샷
+     * @return 스냅샷 시점의 엔티티, 없으면 null
+     */
+    public T get(Long id, ReadSnapshot snapshot) {
+        if (id == null) {
+            return null;
+        }
+        AtomicReference<Version<T>> entry = entries.get(id);
+        return entry == null ? null : resolve(id, entry.get(), snapshot.getSequence());
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 엔티티 여러개를 아이디 순서대로 조회한다.
+     * @param ids 엔티티 아이디 목록
+     * @param snapshot 읽기 스냅샷
+     * @return 아이디와 같은 순서의 엔티티 목록, 없는 아이디는 null
+     */
+    public List<T> getAll(List<Long> ids, ReadSnapshot snapshot) {
+        List<T> values = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            values.add(get(id, snapshot));
+        }
+        return values;
+    }
+
+    /**
+     * 버전 검사 없이 엔티티를 저장한다. 기존 스냅샷이 있다면 그 버전에 1을 더한 버전으로 교체된다.
+     * @param entity 저장할 엔티티, 아이디가 할당되어 있어야 한다.
+     * @return 저장된 엔티티
+     */
+    public T put(T entity) {
+        return install(entity, false);
+    }
+
+    /**
+     * 다른 노드에서 옮겨온 엔티티를 가능한 그 버전 그대로 저장한다.
+     * 로컬에 더 큰 버전이 있었다면 버전이 줄어들지 않도록 로컬 버전에 1을 더한 버전으로 저장한다.
+     * @param entity 저장할 엔티티, 아이디와 버전이 할당되어 있어야 한다.
+     * @return 저장된 엔티티
+     */
+    public T restore(T entity) {
+        return install(entity, true);
+    }
+
+    /**
+     * 이전 버전의 값이 엔진 테이블에 있다면 커밋 시퀀스를 할당받기 전에 불러온다.
+     * 커밋 시퀀스를 가진 동안 디스크를 읽으면 이후의 모든 공개가 그만큼 늦어지기 때문이다.
+     * 쓰기 배치가 준비중인 엔티티라면 마찬가지로 시퀀스를 할당받기 전에 배치가 끝나기를 기다린다.
+     */
+    private T install(T entity, boolean keepVersion) {
+        while (true) {
+            AtomicReference<Version<T>> entry = entries.computeIfAbsent(entity.getId(), id -> new AtomicReference<>());
+            preload(entity.getId(), entry);
+            awaitPrepared(entry);
+            long sequence = storage.begin();
+            try {
+                Version<T> head = entry.get();
+                if (head != null && (head.sequence > sequence || head.pending || head == RETIRED || isOffHeap(head))) {
+                    continue;
+                }
+                long nextVersion = head == null || head.value == null ? 1L : head.value.getVersion() + 1;
+                entity.setVersion(keepVersion && entity.getVersion() != null ? Math.max(entity.getVersion(), nextVersion) : nextVersion);
+                if (entry.compareAndSet(head, new Version<>(sequence, entity, head)) && entries.get(entity.getId()) == entry) {
+                    committed(new StoreChange(name, sequence, entity.getId(), head == null ? null : head.value, entity));
+                    return entity;
+                }
+            } finally {
+                storage.publish(sequence);
+            }
+        }
+    }
+
+    /**
+     * 최신 스냅샷이 expected 와 동일한 객체인 경우에만 updated 로 교체한다.
+     * 교체된 스냅샷의 버전은 expected 의 버전에 1을 더한 값이 된다.
+     * 그 사이 값이 엔진 테이블로 내려가 힙에 없다면 실패하며, 다시 조회하면 불러온 값으로 교체할 수 있다.
+     * @param expected 수정 전에 조회한 스냅샷
+     * @param updated 교체할 새로운 스냅샷
+     * @return 교체에 성공하면 true, 그 사이에 다른 쓰기가 있었다면 false
+     */
+    public boolean compareAndSet(T expected, T updated) {
+        AtomicReference<Version<T>> entry = entries.get(expected.getId());
+        if (entry == null) {
+            return false;
+        }
+        awaitPrepared(entry);
+        if (entry.get() == null || entry.get().value != expected) {
+            return false;
+        }
+
+        long sequence = storage.begin();
+        try {
+            Version<T> head = entry.get();
+            if (head == null || head.pending || head.value != expected || head.sequence > sequence) {
+                return false;
+            }
+            updated.setId(expected.getId());
+            updated.setVersion(expected.getVersion() + 1);
+            if (!entry.compareAndSet(head, new Version<>(sequence, updated, head))) {
+                return false;
+            }
+            committed(new StoreChange(name, sequence, updated.getId(), expected, updated));
+            return true;
+        } finally {
+            storage.publish(sequence);
+        }
+    }
+
+    /**
+     * 쓰기 배치가 교체하거나 삭제할 버전을 준비한다. 교체할 값은 아직 공개되지 않은 쓰기까지 반영한 최신 값으로 만든다.
+     * 삭제는 준비중인 툼스톤 버전으로 설치한다. 새로 저장하는 경우(create)에는 아이디가 없으면 만들어서 설치한다.
+     * 준비된 버전은 읽기에 보이지 않고, 배치가 끝날때까지 다른 쓰기가 그 위에 쌓이지 않는다.
+     * 커밋 시퀀스는 모든 버전을 준비한 뒤에 할당하므로 준비된 버전 아래의 어떤 쓰기보다도 늦다.
+     * @param write 준비할 교체
+     * @return 준비했거나 바꿀 것이 없으면 true, expected 와 다르거나 다른 배치가 준비중이라면 false
+     */
+    boolean prepare(PreparedWrite<T> write) {
+        AtomicReference<Version<T>> entry = write.create
+                ? entries.computeIfAbsent(write.id, id -> new AtomicReference<>())
+                : entries.get(write.id);
+        if (entry == null) {
+            return write.expected == null;
+        }
+
+        while (true) {
+            Version<T> head = entry.get();
+            if (head != null && head.pending) {
+                return false;
+            }
+            if (write.create && head == RETIRED) {
+                // 가비지 컬렉션이 아이디를 제거했으므로 새로 만든 아이디에 설치한다.
+                entry = entries.computeIfAbsent(write.id, id -> new AtomicReference<>());
+                continue;
+            }
+            T previous = head == null ? null : valueOf(write.id, head);
+            if (write.expected != null && previous != write.expected) {
+                return false;
+            }
+            if (write.delete) {
+                if (previous == null) {
+                    return true;
+                }
+                if (entry.compareAndSet(head, new Version<>(PENDING_SEQUENCE, null, head, true))) {
+                    write.previous = previous;
+                    write.prepared = true;
+                    return true;
+                }
+                continue;
+            }
+            T updated = previous == null && !write.create ? null : write.update.apply(previous);
+            if (updated == null) {
+                return true;
+            }
+
+            long nextVersion = previous == null ? 1L : previous.getVersion() + 1;
+            updated.setId(write.id);
+            updated.setVersion(write.restoredVersion == null ? nextVersion : Math.max(write.restoredVersion, nextVersion));
+            if (entry.compareAndSet(head, new Version<>(PENDING_SEQUENCE, updated, head, true))) {
+                write.previous = previous;
+                write.current = updated;
+                write.prepared = true;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 준비된 버전에 커밋 시퀀스를 부여하고 변경 기록과 리스너 전달 대기열에 넣는다. 커밋 시퀀스를 공개하기 전에 호출한다.
+     */
+    void commitPrepared(PreparedWrite<T> write, long sequence) {
+        Version<T> head = entries.get(write.id).get();
+        head.sequence = sequence;
+        head.pending = false;
+        committed(new StoreChange(name, sequence, write.id, write.previous, write.current));
+    }
+
+    /**
+     * 준비된 버전을 체인에서 제거한다. 준비된 버전 위에는 다른 버전이 쌓이지 않으므로 항상 맨 앞에 있다.
+     */
+    void rollbackPrepared(PreparedWrite<T> write) {
+        AtomicReference<Version<T>> entry = entries.get(write.id);
+        Version<T> head = entry.get();
+        if (head.pending && head.value == write.current) {
+            entry.compareAndSet(head, head.previous);
+        }
+    }
+
+    /**
+     * 아이디로 엔티티를 삭제한다. 삭제는 툼스톤 버전으로 기록되며, 이전 스냅샷에서는 계속 조회할 수 있다.
+     * @param id 삭제할 엔티티 아이디
+     * @return 삭제된 스냅샷, 없었다면 null
+     */
+    public T remove(Long id) {
+        AtomicReference<Version<T>> entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+
+        while (true) {
+            preload(id, entry);
+            awaitPrepared(entry);
+            long sequence = storage.begin();
+            try {
+                Version<T> head = entry.get();
+                if (head != null && head.pending) {
+                    continue;
+                }
+                if (head == null || isTombstone(head)) {
+                    return null;
+                }
+                T value = head.value;
+                if (value != null && head.sequence < sequence && !head.pending && entry.compareAndSet(head, new Version<>(sequence, null, head))) {
+                    committed(new StoreChange(name, sequence, id, value, null));
+                    return value;
+                }
+            } finally {
+                storage.publish(sequence);
+            }
+        }
+    }
+
+    /**
+     * 최신 스냅샷 목록을 스트림으로 반환한다.
+     */
+    public Stream<T> stream() {
+        return entries.stream().map(entry -> latest(entry.getKey(), entry.getValue())).filter(Objects::nonNull);
+    }
+
+    /**
+     * 최신 스냅샷 목록을 병렬 스트림으로 반환한다.
+     */
+    public Stream<T> parallelStream() {
+        return entries.stream().parallel().map(entry -> latest(entry.getKey(), entry.getValue())).filter(Objects::nonNull);
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 엔티티 목록을 스트림으로 반환한다.
+     */
+    public Stream<T> stream(ReadSnapshot snapshot) {
+        return entries.stream().map(entry -> resolve(entry.getKey(), entry.getValue().get(), snapshot.getSequence())).filter(Objects::nonNull);
+    }
+
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 엔티티를 조회한다.
+     * 변경 기록을 읽는 동안 하나의 읽기 스냅샷을 고정하고, 그 시퀀스를 새로운 워터마크로 반환한다.
+     * 변경된 엔티티는 스냅샷 시점의 값으로 반환하므로, 스냅샷 이후의 변경은 다음 동기화에서 다시 전달된다.
+     * @param since 클라이언트가 마지막으로 받은 워터마크, 처음 동기화라면 0
+     * @return 변경 목록과 새로운 워터마크
+     */
+    public ChangeSet<T> changesSince(long since) {
+        try (ReadSnapshot snapshot = storage.openSnapshot()) {
+            return changesSince(since, snapshot);
+        }
+    }
+
+    /**
+     * 주어진 읽기 스냅샷에서 워터마크 이후에 변경되거나 삭제된 엔티티를 조회한다.
+     * 여러 저장소의 변경을 같은 시점으로 맞출때 사용한다.
+     * @param since 마지막으로 받은 워터마크, 처음 동기화라면 0
+     * @param snapshot 읽기 스냅샷, 스냅샷의 시퀀스가 새로운 워터마크가 된다.
+     * @return 변경 목록과 새로운 워터마크
+     */
+    public ChangeSet<T> changesSince(long since, ReadSnapshot snapshot) {
+        long watermark = snapshot.getSequence();
+        if (since > 0 && since < changeLog.getCompactedThrough()) {
+            return new ChangeSet<>(since, watermark, true, List.of(), List.of());
+        }
+
+        List<T> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (ChangeLog.Entry entry : changeLog.since(since)) {
+            if (!seen.add(entry.getId())) {
+                continue;
+            }
+            T value = get(entry.getId(), snapshot);
+            if (value != null) {
+                changed.add(value);
+            } else if (since > 0 && entry.getSequence() <= watermark) {
+                deleted.add(entry.getId());
+            }
+        }
+        return new ChangeSet<>(since, watermark, false, changed, deleted);
+    }
+
+    /**
+     * 저장된 아이디 수를 반환한다. 아직 정리되지 않은 툼스톤을 포함하므로 근사값이다.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * lowWatermark 이하의 가장 최신 버전보다 오래된 버전을 정리한다.
+     * 그 버전이 툼스톤이면서 체인의 맨 앞이라면 RETIRED 로 바꾸어 더 이상 쓰지 못하게 한 뒤 아이디 자체를 제거한다.
+     * 엔진 테이블이 있다면 체인의 맨 앞에 남은 버전의 값을 내려놓는다 (evict).
+     * @param lowWatermark 열려있는 스냅샷중 가장 오래된 시퀀스
+     * @return 정리된 버전 수
+     */
+    long collect(long lowWatermark) {
+        long collected = 0;
+        long offHeap = 0;
+        for (ConcurrentLongObjectHashMap.Entry<AtomicReference<Version<T>>> item : entries) {
+            long id = item.getKey();
+            AtomicReference<Version<T>> entry = item.getValue();
+            Version<T> head = entry.get();
+            Version<T> node = head;
+            while (node != null && node.sequence > lowWatermark) {
+                node = node.previous;
+            }
+            if (node == null) {
+                continue;
+            }
+            for (Version<T> old = node.previous; old != null; old = old.previous) {
+                collected++;
+            }
+            node.previous = null;
+            if (node == head && isTombstone(head)) {
+                if (head == RETIRED || entry.compareAndSet(head, retired())) {
+                    entries.remove(id, entry);
+                    if (table != null) {
+                        table.remove(id);
+                    }
+                }
+                collected++;
+            } else if (table != null && node == head && evict(id, head)) {
+                offHeap++;
+            }
+        }
+        offHeapValues = offHeap;
+        return collected;
+    }
+
+    /**
+     * 두 주기 동안 읽히지 않은 버전의 값을 엔진 테이블로 내려놓는다.
+     * 마지막 가비지 컬렉션 이후 읽혔다면 표시만 지우고 힙에 남겨둔다.
+     * 이미 테이블에 있는 값을 다시 불러온 버전은 다시 쓰지 않고 힙의 참조만 버린다.
+     * @return 값이 힙에 없으면 true
+     */
+    private boolean evict(long id, Version<T> node) {
+        T value = node.value;
+        if (value == null) {
+            return node.spilled;
+        }
+        if (node.pending || node.referenced) {
+            node.referenced = false;
+            return false;
+        }
+        if (!node.spilled) {
+            table.put(id, codec.encode(node.sequence, value));
+            node.spilled = true;
+        }
+        node.value = null;
+        return true;
+    }
+
+    /**
+     * 엔진 테이블의 크기와 값을 불러온 횟수를 반환한다.
+     */
+    Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("entities", entries.size());
+        if (table != null) {
+            status.put("offHeapValues", offHeapValues);
+            status.put("loads", loads.sum());
+        }
+        return status;
+    }
+
+    /**
+     * 보관 기간이 지난 삭제 기록을 정리한다.
+     * @param retentionMs 툼스톤 보관 기간
+     * @return 정리된 툼스톤 수
+     */
+    int compactChangeLog(long retentionMs) {
+        return changeLog.compact(retentionMs);
+    }
+
+    /**
+     * 설치된 변경을 변경 기록에 남기고 리스너 전달 대기열에 넣는다. 커밋 시퀀스를 공개하기 전에 호출한다.
+     */
+    private void committed(StoreChange change) {
+        changeLog.record(change.getSequence(), change.getId(), change.isDelete());
+        storage.notifyChange(change);
+    }
+
+    /**
+     * 최신 버전을 찾는다. 공개된 시퀀스를 기준으로 찾되, 그 사이에 가비지 컬렉션으로 버전이 정리되었다면
+     * 새로 공개된 시퀀스로 다시 찾는다.
+     */
+    private T latest(long id, AtomicReference<Version<T>> entry) {
+        if (entry == null) {
+            return null;
+        }
+        while (true) {
+            long sequence = storage.currentSequence();
+            Version<T> node = entry.get();
+            while (node != null && node.sequence > sequence) {
+                node = node.previous;
+            }
+            if (node != null) {
+                return valueOf(id, node);
+            }
+            if (sequence == storage.currentSequence()) {
+                return null;
+            }
+        }
+    }
+
+    private T resolve(long id, Version<T> head, long sequence) {
+        Version<T> node = head;
+        while (node != null && node.sequence > sequence) {
+            node = node.previous;
+        }
+        return node == null ? null : valueOf(id, node);
+    }
+
+    /**
+     * 버전의 값을 반환한다. 엔진 테이블로 내려놓은 값이면 불러온다.
+     */
+    private T valueOf(long id, Version<T> node) {
+        T value = node.value;
+        if (value != null) {
+            if (table != null && !node.referenced) {
+                node.referenced = true;
+            }
+            return value;
+        }
+        return node.spilled ? load(id, node) : null;
+    }
+
+    /**
+     * 엔진 테이블의 값을 불러와 버전에 다시 둔다. 여러 스레드가 동시에 불러오더라도 같은 객체를 반환하므로
+     * 불러온 값으로 compareAndSet 할 수 있다.
+     * 테이블에는 아이디별로 마지막에 내려놓은 값만 있으므로, 버전을 찾은 뒤 더 새로운 버전의 값이 내려갔다면 그 값을 반환한다.
+     * 스냅샷이 열려 있는 동안 그 시점보다 새로운 버전은 내려가지 않으므로 스냅샷 읽기에서는 일어나지 않는다.
+     */
+    private T load(long id, Version<T> node) {
+        loads.increment();
+        byte[] bytes = table.get(id);
+        if (bytes == null) {
+            return null;
+        }
+        T loaded = codec.decode(bytes);
+        if (EntityCodec.sequenceOf(bytes) != node.sequence) {
+            return loaded;
+        }
+        synchronized (node) {
+            T current = node.value;
+            if (current == null) {
+                node.value = loaded;
+                current = loaded;
+            }
+            node.referenced = true;
+            return current;
+        }
+    }
+
+    /**
+     * 쓰기 전에 최신 버전의 값이 힙에 있도록 불러온다.
+     */
+    private void preload(long id, AtomicReference<Version<T>> entry) {
+        Version<T> head = entry.get();
+        if (head != null && isOffHeap(head)) {
+            valueOf(id, head);
+        }
+    }
+
+    /**
+     * 쓰기 배치가 준비중인 버전이 있다면 배치가 커밋되거나 되돌려질때까지 기다린다.
+     * 커밋 시퀀스를 할당받기 전에 기다려야 한다. 시퀀스를 가진 채로 기다리면 배치의 공개가 그 시퀀스를 기다리게 되고,
+     * 다시 시도할때마다 시퀀스를 새로 할당하면 빈 시퀀스가 쌓여 변경 스트림과 복제의 워터마크만 앞당기기 때문이다.
+     * 배치는 모든 버전을 준비한 뒤 곧바로 커밋하므로 기다리는 시간은 짧다.
+     */
+    private static void awaitPrepared(AtomicReference<? extends Version<?>> entry) {
+        int spins = 0;
+        for (Version<?> head = entry.get(); head != null && head.pending; head = entry.get()) {
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Version<T> retired() {
+        return (Version<T>) RETIRED;
+    }
+
+    private static boolean isOffHeap(Version<?> node) {
+        return node.value == null && node.spilled;
+    }
+
+    private static boolean isTombstone(Version<?> node) {
+        return node.value == null && !node.spilled;
+    }
+}
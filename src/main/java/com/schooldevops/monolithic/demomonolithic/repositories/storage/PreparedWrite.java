@@ -0,0 +1,69 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage;
+
+import com.schooldevops.monolithic.demomonolithic.domains.VersionedEntity;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * 쓰기 배치에 추가된 교체 혹은 삭제 하나이다.
+ * expected 가 있으면 최신 값이 expected 인 경우에만 교체하고, 없으면 준비 시점의 최신 값에 update 를 적용한 값으로 교체한다.
+ * delete 이면 준비 시점의 최신 값을 삭제한다. create 이면 엔티티가 없더라도 update 에 null 을 넘겨 만든 값으로 새로 저장한다.
+ * restoredVersion 이 있으면 그 버전을 가능한 그대로 유지한다. 다른 노드에서 옮겨온 엔티티를 저장할때 사용한다.
+ * 준비(prepare)에 성공하면 교체 전후의 값을 previous, current 에 기록하며 (삭제는 current 가 null), prepared 가 false 이면 바꿀 것이 없었던 것이다.
+ */
+final class PreparedWrite<T extends VersionedEntity> {
+
+    final EntityStore<T> store;
+    final Long id;
+    final T expected;
+    final UnaryOperator<T> update;
+    final boolean delete;
+    final boolean create;
+    final Long restoredVersion;
+    T previous;
+    T current;
+    boolean prepared;
+
+    PreparedWrite(EntityStore<T> store, Long id, T expected, UnaryOperator<T> update) {
+        this(store, id, expected, update, false, false, null);
+    }
+
+    private PreparedWrite(EntityStore<T> store, Long id, T expected, UnaryOperator<T> update, boolean delete, boolean create,
+                          Long restoredVersion) {
+        this.store = store;
+        this.id = id;
+        this.expected = expected;
+        this.update = update;
+        this.delete = delete;
+        this.create = create;
+        this.restoredVersion = restoredVersion;
+    }
+
+    static <T extends VersionedEntity> PreparedWrite<T> delete(EntityStore<T> store, Long id) {
+        return new PreparedWrite<>(store, id, null, null, true, false, null);
+    }
+
+    static <T extends VersionedEntity> PreparedWrite<T> put(EntityStore<T> store, T entity) {
+        return new PreparedWrite<>(store, entity.getId(), null, current -> entity, false, true, null);
+    }
+
+    static <T extends VersionedEntity> PreparedWrite<T> restore(EntityStore<T> store, T entity) {
+        return new PreparedWrite<>(store, entity.getId(), null, current -> entity, false, true, entity.getVersion());
+    }
+
+    boolean prepare() {
+        return store.prepare(this);
+    }
+
+    void commit(long sequence) {
+        if (prepared) {
+            store.commitPrepared(this, sequence);
+        }
+    }
+
+    void rollback() {
+        if (prepared) {
+            store.rollbackPrepared(this);
+        }
+    }
+}
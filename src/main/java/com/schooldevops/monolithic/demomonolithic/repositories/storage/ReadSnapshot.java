@@ -0,0 +1,27 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage;
+
+import lombok.Getter;
+
+/**
+ * 특정 커밋 시퀀스에 고정된 읽기 스냅샷이다.
+ * 스냅샷이 열려있는 동안에는 해당 시점의 버전이 가비지 컬렉션되지 않으므로,
+ * 여러 리포지토리를 읽더라도 모두 같은 시점의 일관된 상태를 볼 수 있다.
+ * try-with-resources 로 사용하여 반드시 close 해야 한다.
+ */
+public class ReadSnapshot implements AutoCloseable {
+
+    private final VersionedStorage storage;
+
+    @Getter
+    private final long sequence;
+
+    ReadSnapshot(VersionedStorage storage, long sequence) {
+        this.storage = storage;
+        this.sequence = sequence;
+    }
+
+    @Override
+    public void close() {
+        storage.release(this);
+    }
+}
@@ -0,0 +1,26 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage;
+
+import com.schooldevops.monolithic.demomonolithic.domains.VersionedEntity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * EntityStore 에 커밋된 변경 한건을 나타낸다.
+ * current 가 null 이면 삭제, previous 가 null 이면 새로 저장된 엔티티이다.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class StoreChange {
+
+    private final String entityType;
+    private final long sequence;
+    private final Long id;
+    private final VersionedEntity previous;
+    private final VersionedEntity current;
+
+    public boolean isDelete() {
+        return current == null;
+    }
+}
@@ -0,0 +1,287 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage;
+
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
+import com.schooldevops.monolithic.demomonolithic.domains.VersionedEntity;
+import com.schooldevops.monolithic.demomonolithic.json.EntityJsonMapper;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.engine.StorageEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 모든 EntityStore 가 공유하는 다중 버전(MVCC) 저장 계층이다.
+ *
+ * 쓰기는 전역 커밋 시퀀스를 할당받아 새로운 버전을 설치한 뒤 시퀀스 순서대로 공개(publish)한다.
+ * 공개된 시퀀스(visible) 이하의 버전만 읽기에 노출되므로, 특정 시퀀스에 고정된 스냅샷은
+ * 잠금 없이도 모든 리포지토리에 걸쳐 일관된 상태를 읽을 수 있다.
+ * 열려있는 스냅샷이 더 이상 필요로 하지 않는 오래된 버전은 백그라운드 스레드가 주기적으로 정리한다.
+ * 커밋된 변경은 공개된 후 전달 스레드가 커밋 시퀀스 순서대로 ChangeListener 들에게 전달하므로, 쓰기는 리스너를 기다리지 않는다.
+ * 저장 엔진(storage.engine)이 값을 힙 밖에 보관한다면, 같은 스레드가 오래 읽히지 않은 값을 엔진으로 내려놓는다.
+ */
+@Slf4j
+@Component
+public class VersionedStorage {
+
+    private final AtomicLong allocated = new AtomicLong();
+    private final AtomicLong visible = new AtomicLong();
+
+    /**
+     * 가비지 컬렉션이 기준으로 삼은 마지막 시퀀스, 이보다 오래된 스냅샷은 새로 열 수 없다.
+     */
+    private volatile long collectedHorizon;
+
+    private final Set<ReadSnapshot> openSnapshots = ConcurrentHashMap.newKeySet();
+    private final List<EntityStore<?>> stores = new CopyOnWriteArrayList<>();
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService collector;
+
+    /**
+     * 리스너에게 아직 전달하지 않은 변경, 커밋 시퀀스 순서로 꺼낸다.
+     * 변경은 시퀀스를 공개하기 전에 넣으므로, 공개된 시퀀스 이하의 변경은 모두 들어와 있다.
+     */
+    private final PriorityBlockingQueue<StoreChange> undelivered = new PriorityBlockingQueue<>(64, Comparator.comparingLong(StoreChange::getSequence));
+
+    /**
+     * 리스너에게 모두 전달한 마지막 시퀀스
+     */
+    private final AtomicLong delivered = new AtomicLong();
+    private final Thread dispatcher;
+
+    private final long tombstoneRetentionMs;
+    private final StorageEngine storageEngine;
+    private final EntityJsonMapper jsonMapper;
+
+    public VersionedStorage(@Value("${storage.gc-interval-ms:1000}") long gcIntervalMs,
+                            @Value("${storage.change-log.compaction-interval-ms:60000}") long compactionIntervalMs,
+                            @Value("${storage.change-log.tombstone-retention-ms:86400000}") long tombstoneRetentionMs,
+                            StorageEngine storageEngine, EntityJsonMapper jsonMapper) {
+        this.tombstoneRetentionMs = tombstoneRetentionMs;
+        this.storageEngine = storageEngine;
+        this.jsonMapper = jsonMapper;
+        this.collector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mvcc-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.collector.scheduleWithFixedDelay(this::collectGarbage, gcIntervalMs, gcIntervalMs, TimeUnit.MILLISECONDS);
+        this.collector.scheduleWithFixedDelay(this::compactChangeLogs, compactionIntervalMs, compactionIntervalMs, TimeUnit.MILLISECONDS);
+        this.dispatcher = new Thread(this::dispatchChanges, "change-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * 이 저장 계층을 공유하는 EntityStore 를 생성한다.
+     * 저장 엔진이 값을 힙 밖에 보관한다면 저장소 이름으로 엔진 테이블을 열어 함께 전달한다.
+     * @param name 저장소 이름 (엔티티 이름)
+     * @param type 엔티티 타입, 엔진 테이블의 값을 불러올때 사용한다.
+     * @return 생성된 저장소
+     */
+    public <T extends VersionedEntity> EntityStore<T> createStore(String name, Class<T> type) {
+        EntityStore<T> store = storageEngine.isOffHeap()
+                ? new EntityStore<>(name, this, storageEngine.openTable(name), new EntityCodec<>(jsonMapper, type))
+                : new EntityStore<>(name, this, null, null);
+        stores.add(store);
+        return store;
+    }
+
+    /**
+     * 저장 엔진과 저장소별 상태를 반환한다.
+     * @return 엔진 상태와 저장소 이름별 상태
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>(storageEngine.getStatus());
+        status.put("sequence", currentSequence());
+        Map<String, Object> storeStatus = new LinkedHashMap<>();
+        stores.forEach(store -> storeStatus.put(store.getName(), store.getStatus()));
+        status.put("stores", storeStatus);
+        return status;
+    }
+
+    /**
+     * 모든 저장소의 변경을 전달받을 리스너를 등록한다.
+     * @param listener 변경 리스너
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * 주어진 읽기 스냅샷에서 모든 저장소의 워터마크 이후 변경을 조회한다.
+     * 모든 변경 목록이 같은 스냅샷에서 만들어지므로 저장소 사이에서도 일관된 시점을 나타낸다.
+     * @param since 마지막으로 받은 워터마크, 처음 동기화라면 0
+     * @param snapshot 읽기 스냅샷
+     * @return 저장소 이름별 변경 목록
+     */
+    public Map<String, ChangeSet<?>> changesSince(long since, ReadSnapshot snapshot) {
+        Map<String, ChangeSet<?>> changes = new LinkedHashMap<>();
+        stores.forEach(store -> changes.put(store.getName(), store.changesSince(since, snapshot)));
+        return changes;
+    }
+
+    /**
+     * 여러 저장소의 교체를 하나의 커밋 시퀀스로 공개하는 쓰기 배치를 만든다.
+     * @return 쓰기 배치
+     */
+    public WriteBatch newWriteBatch() {
+        return new WriteBatch(this);
+    }
+
+    /**
+     * 현재 시점에 고정된 읽기 스냅샷을 연다.
+     * 스냅샷을 등록한 이후에 가비지 컬렉션 기준을 확인하므로, 가비지 컬렉션과 경합하더라도
+     * 스냅샷이 필요로 하는 버전이 정리되는 일은 없다.
+     * @return 읽기 스냅샷
+     */
+    public ReadSnapshot openSnapshot() {
+        while (true) {
+            ReadSnapshot snapshot = new ReadSnapshot(this, visible.get());
+            openSnapshots.add(snapshot);
+            if (snapshot.getSequence() >= collectedHorizon) {
+                return snapshot;
+            }
+            openSnapshots.remove(snapshot);
+        }
+    }
+
+    /**
+     * 읽기에 공개된 마지막 커밋 시퀀스를 반환한다.
+     * @return 마지막 커밋 시퀀스
+     */
+    public long currentSequence() {
+        return visible.get();
+    }
+
+    void release(ReadSnapshot snapshot) {
+        openSnapshots.remove(snapshot);
+    }
+
+    /**
+     * 쓰기를 위한 커밋 시퀀스를 할당한다. 할당받은 시퀀스는 성공 여부와 관계없이 반드시 publish 해야 한다.
+     * @return 커밋 시퀀스
+     */
+    long begin() {
+        return allocated.incrementAndGet();
+    }
+
+    /**
+     * 설치된 변경을 전달 대기열에 넣는다. 커밋 시퀀스를 공개하기 전에 호출되며 리스너는 호출하지 않는다.
+     * 리스너는 시퀀스가 공개된 후 전달 스레드가 호출하므로, 느린 리스너가 커밋 시퀀스를 붙잡아 다른 쓰기를 막지 않는다.
+     * @param change 커밋된 변경
+     */
+    void notifyChange(StoreChange change) {
+        if (!changeListeners.isEmpty()) {
+            undelivered.add(change);
+        }
+    }
+
+    /**
+     * 시퀀스 이하의 변경이 모두 리스너에게 전달될때까지 기다린다.
+     * 리스너가 만든 상태(평점 합계 등)를 읽기 전에, 앞서 공개된 쓰기가 반영되어 있도록 할때 사용한다.
+     * @param sequence 기다릴 커밋 시퀀스
+     */
+    public void awaitDelivered(long sequence) {
+        while (delivered.get() < sequence) {
+            LockSupport.unpark(dispatcher);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    /**
+     * 공개된 시퀀스 이하의 변경을 시퀀스 순서대로 리스너에게 전달한다. 전달 스레드에서만 실행한다.
+     * 같은 엔티티의 변경도 커밋 순서대로 전달되므로 리스너는 이전 값과 새 값을 차례로 반영할 수 있다.
+     * 리스너의 예외는 다른 리스너와 이후 변경의 전달에 영향을 주지 않도록 로그만 남긴다.
+     */
+    private void dispatchChanges() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long sequence = visible.get();
+            StoreChange change;
+            while ((change = undelivered.peek()) != null && change.getSequence() <= sequence) {
+                undelivered.poll();
+                for (ChangeListener listener : changeListeners) {
+                    try {
+                        listener.onChange(change);
+                    } catch (RuntimeException e) {
+                        log.warn("Change listener failed for {} {}", change.getEntityType(), change.getId(), e);
+                    }
+                }
+            }
+            delivered.set(sequence);
+            if (visible.get() == sequence) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * 커밋 시퀀스를 읽기에 공개한다. 앞선 시퀀스가 모두 공개될때까지 기다린 뒤 공개하므로
+     * 공개된 시퀀스 이하의 쓰기는 항상 모두 설치되어 있다. 전달할 변경이 있다면 전달 스레드를 깨운다.
+     * @param sequence 공개할 커밋 시퀀스
+     */
+    void publish(long sequence) {
+        int spins = 0;
+        while (visible.get() != sequence - 1) {
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        visible.set(sequence);
+        if (!undelivered.isEmpty()) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    /**
+     * 열려있는 스냅샷중 가장 오래된 시퀀스보다 이전의 버전을 정리한다.
+     */
+    void collectGarbage() {
+        try {
+            long horizon = visible.get();
+            collectedHorizon = horizon;
+            long lowWatermark = openSnapshots.stream().mapToLong(ReadSnapshot::getSequence).min().orElse(horizon);
+            long collected = stores.stream().mapToLong(store -> store.collect(Math.min(lowWatermark, horizon))).sum();
+            if (collected > 0) {
+                log.debug("Collected {} old versions below sequence {}", collected, lowWatermark);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Version garbage collection failed", e);
+        }
+    }
+
+    /**
+     * 모든 저장소의 변경 기록에서 보관 기간이 지난 툼스톤을 정리한다.
+     */
+    void compactChangeLogs() {
+        try {
+            int compacted = stores.stream().mapToInt(store -> store.compactChangeLog(tombstoneRetentionMs)).sum();
+            if (compacted > 0) {
+                log.info("Compacted {} expired tombstones from change logs", compacted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Change log compaction failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        collector.shutdownNow();
+        dispatcher.interrupt();
+    }
+}
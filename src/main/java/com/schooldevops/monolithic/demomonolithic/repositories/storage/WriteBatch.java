@@ -0,0 +1,138 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage;
+
+import com.schooldevops.monolithic.demomonolithic.domains.VersionedEntity;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * 여러 저장소에 걸친 교체를 모아 하나의 커밋 시퀀스로 공개하는 쓰기 배치이다.
+ *
+ * commit 은 먼저 모든 교체를 읽기에 보이지 않는 준비(pending) 버전으로 설치한다. 준비된 엔티티에는 다른 쓰기가 끼어들지 못하고
+ * 배치가 끝나기를 기다린다. 하나라도 교체할 수 없다면 준비한 버전을 모두 되돌리고 false 를 반환한다.
+ * 모두 준비되면 커밋 시퀀스 하나를 할당받아 모든 버전에 부여하고, 변경 기록에 남긴 뒤 시퀀스를 공개한다. 리스너에는 공개된 후 전달된다.
+ * 시퀀스가 공개되기 전에는 어떤 읽기 스냅샷에도 보이지 않으므로, 읽기는 배치의 변경을 모두 보거나 하나도 보지 않는다.
+ *
+ * compareAndSet 은 미리 조회한 값이 그대로인 경우에만 교체하고, update 는 준비 시점의 최신 값에 함수를 적용하여 교체하며, remove 는 삭제한다.
+ * put 은 버전 검사 없이 저장하므로 새로운 엔티티를 다른 교체와 함께 저장할때 사용한다. restore 는 put 과 같지만 엔티티의 버전을 유지한다.
+ * update 는 조회와 교체 사이에 다른 쓰기가 끼어들 틈이 없으므로, 많은 엔티티를 바꾸는 배치도 동시 쓰기에 밀려 반복 실패하지 않는다.
+ * 한번 커밋한 배치는 다시 사용할 수 없다.
+ */
+public class WriteBatch {
+
+    private final VersionedStorage storage;
+    private final List<PreparedWrite<?>> writes = new ArrayList<>();
+    private final Set<String> keys = new HashSet<>();
+    private boolean committed;
+
+    WriteBatch(VersionedStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * 최신 스냅샷이 expected 와 동일한 경우에만 updated 로 교체하도록 배치에 추가한다.
+     * @param store 엔티티 저장소
+     * @param expected 수정 전에 조회한 스냅샷
+     * @param updated 교체할 새로운 스냅샷
+     * @return 이 배치
+     * @throws IllegalArgumentException 같은 엔티티를 배치에 두번 추가한 경우
+     */
+    public <T extends VersionedEntity> WriteBatch compareAndSet(EntityStore<T> store, T expected, T updated) {
+        return add(new PreparedWrite<>(store, expected.getId(), expected, current -> updated));
+    }
+
+    /**
+     * 준비 시점의 최신 스냅샷에 update 를 적용한 값으로 교체하도록 배치에 추가한다.
+     * 엔티티가 없거나 update 가 null 을 반환하면 교체하지 않는다. update 는 다시 호출될 수 있으므로 부수 효과가 없어야 한다.
+     * @param store 엔티티 저장소
+     * @param id 엔티티 아이디
+     * @param update 최신 스냅샷으로 교체할 새로운 스냅샷을 만드는 함수, 최신 스냅샷은 수정하지 않는다.
+     * @return 이 배치
+     * @throws IllegalArgumentException 같은 엔티티를 배치에 두번 추가한 경우
+     */
+    public <T extends VersionedEntity> WriteBatch update(EntityStore<T> store, Long id, UnaryOperator<T> update) {
+        return add(new PreparedWrite<>(store, id, null, update));
+    }
+
+    /**
+     * 버전 검사 없이 엔티티를 저장하도록 배치에 추가한다. 엔티티가 없다면 버전 1로 새로 저장하고,
+     * 있다면 준비 시점의 최신 버전에 1을 더한 버전으로 교체한다.
+     * @param store 엔티티 저장소
+     * @param entity 저장할 엔티티, 아이디가 할당되어 있어야 한다.
+     * @return 이 배치
+     * @throws IllegalArgumentException 같은 엔티티를 배치에 두번 추가한 경우
+     */
+    public <T extends VersionedEntity> WriteBatch put(EntityStore<T> store, T entity) {
+        return add(PreparedWrite.put(store, entity));
+    }
+
+    /**
+     * 다른 노드에서 옮겨온 엔티티를 가능한 그 버전 그대로 저장하도록 배치에 추가한다.
+     * 로컬에 같거나 더 큰 버전이 있었다면 버전이 줄어들지 않도록 로컬 버전에 1을 더한 버전으로 저장한다.
+     * @param store 엔티티 저장소
+     * @param entity 저장할 엔티티, 아이디와 버전이 할당되어 있어야 한다.
+     * @return 이 배치
+     * @throws IllegalArgumentException 같은 엔티티를 배치에 두번 추가한 경우
+     */
+    public <T extends VersionedEntity> WriteBatch restore(EntityStore<T> store, T entity) {
+        return add(PreparedWrite.restore(store, entity));
+    }
+
+    /**
+     * 준비 시점의 최신 스냅샷을 삭제하도록 배치에 추가한다. 엔티티가 없으면 아무것도 하지 않는다.
+     * 삭제는 툼스톤 버전으로 기록되므로 이전 스냅샷에서는 계속 조회할 수 있다.
+     * @param store 엔티티 저장소
+     * @param id 삭제할 엔티티 아이디
+     * @return 이 배치
+     * @throws IllegalArgumentException 같은 엔티티를 배치에 두번 추가한 경우
+     */
+    public <T extends VersionedEntity> WriteBatch remove(EntityStore<T> store, Long id) {
+        return add(PreparedWrite.delete(store, id));
+    }
+
+    private WriteBatch add(PreparedWrite<?> write) {
+        if (!keys.add(write.store.getName() + ":" + write.id)) {
+            throw new IllegalArgumentException("Duplicate " + write.store.getName() + " " + write.id + " in a write batch.");
+        }
+        writes.add(write);
+        return this;
+    }
+
+    public int size() {
+        return writes.size();
+    }
+
+    /**
+     * 배치의 모든 교체를 하나의 커밋 시퀀스로 적용한다.
+     * @return 모두 적용되면 true, 교체할 수 없는 엔티티가 있어 아무것도 적용하지 않았다면 false
+     */
+    public boolean commit() {
+        if (committed) {
+            throw new IllegalStateException("Write batch has already been committed.");
+        }
+        committed = true;
+        if (writes.isEmpty()) {
+            return true;
+        }
+
+        for (int i = 0; i < writes.size(); i++) {
+            if (!writes.get(i).prepare()) {
+                for (int j = i - 1; j >= 0; j--) {
+                    writes.get(j).rollback();
+                }
+                return false;
+            }
+        }
+
+        long sequence = storage.begin();
+        try {
+            writes.forEach(write -> write.commit(sequence));
+            return true;
+        } finally {
+            storage.publish(sequence);
+        }
+    }
+}
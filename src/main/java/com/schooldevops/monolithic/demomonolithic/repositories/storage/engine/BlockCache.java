@@ -0,0 +1,123 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage.engine;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 세그먼트 파일의 블록을 크기 제한 안에서 보관하는 LRU 캐시이다.
+ * 블록은 (세그먼트 번호, 블록 번호) 로 찾으며, 잠금 경합을 줄이기 위해 키의 해시로 나눈 샤드마다
+ * 접근 순서의 LinkedHashMap 과 바이트 수를 따로 관리한다. 샤드의 바이트 수가 한도를 넘으면 가장 오래전에 읽은 블록부터 버린다.
+ * 세그먼트 파일은 추가만 하므로 캐시된 블록은 세그먼트가 삭제될때까지 바뀌지 않는다.
+ */
+class BlockCache {
+
+    private static final int SHARDS = 16;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    BlockCache(long capacityBytes) {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(Math.max(0L, capacityBytes / SHARDS));
+        }
+    }
+
+    /**
+     * 캐시된 블록을 반환한다.
+     * @return 블록, 없으면 null
+     */
+    byte[] get(int segmentId, long blockIndex) {
+        long key = keyOf(segmentId, blockIndex);
+        byte[] block = shardOf(key).get(key);
+        if (block == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return block;
+    }
+
+    void put(int segmentId, long blockIndex, byte[] block) {
+        long key = keyOf(segmentId, blockIndex);
+        shardOf(key).put(key, block);
+    }
+
+    /**
+     * 삭제된 세그먼트의 블록을 모두 버린다.
+     */
+    void invalidate(int segmentId) {
+        for (Shard shard : shards) {
+            shard.removeSegment(segmentId);
+        }
+    }
+
+    Map<String, Object> getStatus() {
+        long bytes = 0;
+        int blocks = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                bytes += shard.bytes;
+                blocks += shard.blocks.size();
+            }
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("blocks", blocks);
+        status.put("bytes", bytes);
+        status.put("hits", hitCount);
+        status.put("misses", missCount);
+        status.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return status;
+    }
+
+    private static long keyOf(int segmentId, long blockIndex) {
+        return ((long) segmentId << 32) | blockIndex;
+    }
+
+    private Shard shardOf(long key) {
+        return shards[(int) ((key ^ (key >>> 32)) * 0x9E3779B9L >>> 28) & (SHARDS - 1)];
+    }
+
+    private static final class Shard {
+
+        private final long capacityBytes;
+        private final LinkedHashMap<Long, byte[]> blocks = new LinkedHashMap<>(64, 0.75f, true);
+        private long bytes;
+
+        private Shard(long capacityBytes) {
+            this.capacityBytes = capacityBytes;
+        }
+
+        private synchronized byte[] get(long key) {
+            return blocks.get(key);
+        }
+
+        private synchronized void put(long key, byte[] block) {
+            if (block.length > capacityBytes) {
+                return;
+            }
+            byte[] previous = blocks.put(key, block);
+            bytes += block.length - (previous == null ? 0 : previous.length);
+            Iterator<byte[]> eldest = blocks.values().iterator();
+            while (bytes > capacityBytes && eldest.hasNext()) {
+                bytes -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+
+        private synchronized void removeSegment(int segmentId) {
+            Iterator<Map.Entry<Long, byte[]>> iterator = blocks.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, byte[]> entry = iterator.next();
+                if ((int) (entry.getKey() >>> 32) == segmentId) {
+                    bytes -= entry.getValue().length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
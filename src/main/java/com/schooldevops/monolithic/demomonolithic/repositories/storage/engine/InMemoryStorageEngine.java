@@ -0,0 +1,72 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage.engine;
+
+import com.schooldevops.monolithic.demomonolithic.repositories.collections.ConcurrentLongObjectHashMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 모든 값을 힙에 두는 기본 저장 엔진이다.
+ * EntityStore 는 이 엔진을 사용하면 값을 버전 체인에 그대로 두므로 동작과 성능이 엔진 도입 전과 같다.
+ * 테이블은 직렬화된 값을 ConcurrentLongObjectHashMap 에 보관하며, 테스트나 벤치마크에서 디스크 엔진과 비교할때 사용한다.
+ */
+public class InMemoryStorageEngine implements StorageEngine {
+
+    private final Map<String, InMemoryTable> tables = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return StorageEngineConfiguration.MEMORY;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return false;
+    }
+
+    @Override
+    public StorageTable openTable(String name) {
+        return tables.computeIfAbsent(name, key -> new InMemoryTable());
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("engine", getName());
+        Map<String, Object> sizes = new LinkedHashMap<>();
+        tables.forEach((name, table) -> sizes.put(name, table.size()));
+        status.put("tables", sizes);
+        return status;
+    }
+
+    @Override
+    public void close() {
+        tables.clear();
+    }
+
+    private static final class InMemoryTable implements StorageTable {
+
+        private final ConcurrentLongObjectHashMap<byte[]> values = new ConcurrentLongObjectHashMap<>();
+
+        @Override
+        public void put(long id, byte[] value) {
+            values.put(id, value);
+        }
+
+        @Override
+        public byte[] get(long id) {
+            return values.get(id);
+        }
+
+        @Override
+        public void remove(long id) {
+            values.remove(id);
+        }
+
+        @Override
+        public long size() {
+            return values.size();
+        }
+    }
+}
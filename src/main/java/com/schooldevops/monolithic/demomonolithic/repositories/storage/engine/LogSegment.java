@@ -0,0 +1,136 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 레코드를 추가만 하는 세그먼트 파일이다.
+ * 레코드는 [값 길이 (int)][아이디 (long)][값] 으로 기록한다.
+ * 쓰기는 LogTable 의 잠금 안에서 파일 끝에만 하고, 읽기는 위치 지정 읽기로 잠금 없이 한다.
+ * liveBytes 는 인덱스가 아직 가리키는 레코드의 바이트 수로, 컴팩션 대상을 고를때 사용한다.
+ * FileChannel 은 입출력 중인 스레드가 인터럽트되면 닫히므로, 삭제되지 않은 세그먼트의 채널이 닫혀 있으면 다시 연다.
+ */
+class LogSegment {
+
+    static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    private final int id;
+    private final Path path;
+    private volatile FileChannel channel;
+    private volatile boolean deleted;
+    private final AtomicLong liveBytes = new AtomicLong();
+
+    /**
+     * 기록이 끝난 바이트 수, 이 위치 이전의 내용은 바뀌지 않는다.
+     */
+    private volatile long size;
+
+    /**
+     * 더 이상 추가하지 않는 세그먼트인지 여부
+     */
+    private volatile boolean sealed;
+
+    LogSegment(int id, Path path) throws IOException {
+        this.id = id;
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    void seal() {
+        sealed = true;
+    }
+
+    /**
+     * 레코드를 파일 끝에 추가한다. LogTable 의 잠금 안에서만 호출한다.
+     * @return 레코드의 시작 위치
+     */
+    long append(long key, byte[] value) throws IOException {
+        long offset = size;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + value.length);
+        buffer.putInt(value.length).putLong(key).put(value).flip();
+        long position = offset;
+        FileChannel current = channel;
+        try {
+            while (buffer.hasRemaining()) {
+                position += current.write(buffer, position);
+            }
+        } catch (ClosedChannelException e) {
+            reopen(current);
+            throw e;
+        }
+        size = position;
+        liveBytes.addAndGet(HEADER_BYTES + value.length);
+        return offset;
+    }
+
+    /**
+     * 위치부터 length 바이트를 읽는다. 파일 끝에 닿으면 그때까지 읽은 만큼만 채운다.
+     */
+    int read(long position, byte[] target, int length) throws IOException {
+        while (true) {
+            FileChannel current = channel;
+            ByteBuffer buffer = ByteBuffer.wrap(target, 0, length);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (current.read(buffer, position + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                return buffer.position();
+            } catch (ClosedByInterruptException e) {
+                reopen(current);
+                throw e;
+            } catch (ClosedChannelException e) {
+                if (deleted) {
+                    throw e;
+                }
+                reopen(current);
+            }
+        }
+    }
+
+    /**
+     * 인덱스가 더 이상 가리키지 않는 레코드의 바이트 수를 반영한다.
+     */
+    void release(int valueLength) {
+        liveBytes.addAndGet(-(HEADER_BYTES + valueLength));
+    }
+
+    /**
+     * 파일을 닫고 삭제한다. 이 세그먼트를 읽던 스레드는 ClosedChannelException 을 받고 인덱스를 다시 조회한다.
+     */
+    void delete() throws IOException {
+        deleted = true;
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private synchronized void reopen(FileChannel closed) throws IOException {
+        if (!deleted && channel == closed && !closed.isOpen()) {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage.engine;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 값을 디스크의 로그 구조 세그먼트 파일에 보관하는 저장 엔진이다.
+ *
+ * 저장소마다 LogTable 을 만들고, 모든 테이블이 크기 제한이 있는 블록 캐시와 컴팩션 스레드를 공유한다.
+ * 세그먼트 파일은 storage.log.directory 아래에 엔진마다 새로 만든 디렉토리에 두므로
+ * 같은 호스트에서 여러 노드를 실행하더라도 파일이 겹치지 않는다.
+ * 디스크에는 힙에서 내려놓은 값만 보관하고 재시작할때 다시 적재하므로, 종료할때 디렉토리를 삭제한다.
+ * 아이디별 레코드 위치와 버전 체인은 힙에 남으므로 힙보다 큰 데이터를 보관하는 용도가 아니라 값의 힙 사용량을 줄이는 용도이다.
+ */
+@Slf4j
+public class LogStructuredStorageEngine implements StorageEngine {
+
+    @Getter
+    private final Path directory;
+    @Getter
+    private final long segmentBytes;
+    private final int blockBytes;
+    private final double compactionGarbageRatio;
+    private final BlockCache blockCache;
+    private final AtomicInteger nextSegmentId = new AtomicInteger();
+    private final AtomicLong compactedSegments = new AtomicLong();
+    private final Map<String, LogTable> tables = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService compactor;
+
+    /**
+     * @param baseDirectory 세그먼트 디렉토리를 만들 위치
+     * @param segmentBytes 세그먼트 파일의 최대 크기
+     * @param blockBytes 블록 캐시의 블록 크기
+     * @param blockCacheBytes 블록 캐시의 최대 크기
+     * @param compactionIntervalMs 컴팩션 주기 (ms)
+     * @param compactionGarbageRatio 세그먼트를 컴팩션할 garbage 비율 (0 ~ 1)
+     */
+    public LogStructuredStorageEngine(Path baseDirectory, long segmentBytes, int blockBytes, long blockCacheBytes,
+                                      long compactionIntervalMs, double compactionGarbageRatio) {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("storage.log.segment-bytes must be between 1 and " + Integer.MAX_VALUE);
+        }
+        if (blockBytes <= 0) {
+            throw new IllegalArgumentException("storage.log.block-bytes must be positive");
+        }
+        try {
+            Files.createDirectories(baseDirectory);
+            this.directory = Files.createTempDirectory(baseDirectory, "log-store-");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create storage directory in " + baseDirectory, e);
+        }
+        this.segmentBytes = segmentBytes;
+        this.blockBytes = blockBytes;
+        this.compactionGarbageRatio = compactionGarbageRatio;
+        this.blockCache = new BlockCache(blockCacheBytes);
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.compactor.scheduleWithFixedDelay(this::compact, compactionIntervalMs, compactionIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Log structured storage engine in {}, segment: {} bytes, block cache: {} bytes", directory, segmentBytes, blockCacheBytes);
+    }
+
+    @Override
+    public String getName() {
+        return StorageEngineConfiguration.LOG;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return true;
+    }
+
+    @Override
+    public StorageTable openTable(String name) {
+        return tables.computeIfAbsent(name, key -> new LogTable(key, this));
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("engine", getName());
+        status.put("directory", directory.toString());
+        status.put("segmentBytes", segmentBytes);
+        status.put("compactedSegments", compactedSegments.get());
+        status.put("blockCache", blockCache.getStatus());
+        Map<String, Object> tableStatus = new LinkedHashMap<>();
+        tables.forEach((name, table) -> tableStatus.put(name, table.getStatus()));
+        status.put("tables", tableStatus);
+        return status;
+    }
+
+    /**
+     * 컴팩션 스레드를 멈추고 세그먼트 파일과 디렉토리를 삭제한다.
+     */
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+        tables.values().forEach(LogTable::close);
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("Failed to delete storage directory {}", directory, e);
+        }
+    }
+
+    /**
+     * 모든 테이블에서 garbage 비율이 기준을 넘은 세그먼트를 컴팩션한다.
+     */
+    void compact() {
+        try {
+            int compacted = tables.values().stream().mapToInt(table -> table.compact(compactionGarbageRatio)).sum();
+            if (compacted > 0) {
+                compactedSegments.addAndGet(compacted);
+                log.info("Compacted {} log segments", compacted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Log compaction failed", e);
+        }
+    }
+
+    /**
+     * 테이블의 새로운 세그먼트 파일을 만든다. 세그먼트 번호는 엔진 안에서 겹치지 않는다.
+     */
+    LogSegment newSegment(String tableName) throws IOException {
+        int id = nextSegmentId.incrementAndGet();
+        return new LogSegment(id, directory.resolve(String.format("%s-%08d.log", tableName, id)));
+    }
+
+    /**
+     * 컴팩션이 끝난 세그먼트의 캐시된 블록을 버리고 파일을 삭제한다.
+     */
+    void discard(LogSegment segment) throws IOException {
+        segment.delete();
+        blockCache.invalidate(segment.getId());
+    }
+
+    /**
+     * 세그먼트의 position 부터 length 바이트를 블록 단위로 캐시를 거쳐 읽는다.
+     */
+    byte[] read(LogSegment segment, long position, int length) throws IOException {
+        byte[] value = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long at = position + copied;
+            long blockIndex = at / blockBytes;
+            byte[] block = block(segment, blockIndex);
+            int offsetInBlock = (int) (at - blockIndex * blockBytes);
+            int count = Math.min(length - copied, block.length - offsetInBlock);
+            if (count <= 0) {
+                throw new EOFException("Unexpected end of segment " + segment.getId() + " at " + at);
+            }
+            System.arraycopy(block, offsetInBlock, value, copied, count);
+            copied += count;
+        }
+        return value;
+    }
+
+    /**
+     * 블록을 캐시에서 찾고, 없으면 파일에서 읽는다.
+     * 활성 세그먼트의 마지막 블록은 이후에 내용이 추가되므로 캐시하지 않는다.
+     */
+    private byte[] block(LogSegment segment, long blockIndex) throws IOException {
+        byte[] block = blockCache.get(segment.getId(), blockIndex);
+        if (block != null) {
+            return block;
+        }
+        boolean sealed = segment.isSealed();
+        long size = segment.getSize();
+        long start = blockIndex * blockBytes;
+        long end = Math.min(start + blockBytes, size);
+        if (end <= start) {
+            return new byte[0];
+        }
+        block = new byte[(int) (end - start)];
+        int read = segment.read(start, block, block.length);
+        if (read < block.length) {
+            throw new EOFException("Unexpected end of segment " + segment.getId() + " at " + (start + read));
+        }
+        if (sealed || start + blockBytes <= size) {
+            blockCache.put(segment.getId(), blockIndex, block);
+        }
+        return block;
+    }
+}
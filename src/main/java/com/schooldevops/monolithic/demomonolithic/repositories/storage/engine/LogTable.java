@@ -0,0 +1,221 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage.engine;
+
+import com.schooldevops.monolithic.demomonolithic.repositories.collections.ConcurrentLongObjectHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 세그먼트 파일에 값을 추가만 하고, 아이디별 마지막 레코드의 위치를 힙의 인덱스로 찾는 로그 구조 테이블이다.
+ *
+ * 쓰기는 활성 세그먼트의 끝에 레코드를 추가한 뒤 인덱스를 새 위치로 바꾸며, 이전 레코드는 그 세그먼트의 garbage 가 된다.
+ * 활성 세그먼트가 storage.log.segment-bytes 를 넘으면 봉인하고 새 세그먼트를 만든다.
+ * 봉인된 세그먼트의 garbage 비율이 기준을 넘으면 컴팩션이 살아있는 레코드만 활성 세그먼트로 옮기고 파일을 삭제한다.
+ * 인덱스는 아이디를 박싱하지 않는 ConcurrentLongObjectHashMap 이다. 인덱스와 세그먼트의 변경은 테이블 잠금 안에서 하고, 읽기는 잠금 없이 인덱스와 블록 캐시를 통해 한다.
+ */
+@Slf4j
+class LogTable implements StorageTable {
+
+    /**
+     * 레코드의 위치, 세그먼트 번호와 레코드 시작 위치, 값의 길이
+     */
+    private static final class Location {
+        private final int segment;
+        private final long offset;
+        private final int length;
+
+        private Location(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final String name;
+    private final LogStructuredStorageEngine engine;
+    private final ConcurrentLongObjectHashMap<Location> index = new ConcurrentLongObjectHashMap<>();
+    private final Map<Integer, LogSegment> segments = new ConcurrentHashMap<>();
+    private LogSegment active;
+
+    LogTable(String name, LogStructuredStorageEngine engine) {
+        this.name = name;
+        this.engine = engine;
+    }
+
+    @Override
+    public void put(long id, byte[] value) {
+        try {
+            synchronized (this) {
+                release(index.put(id, append(id, value)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + name + " " + id, e);
+        }
+    }
+
+    /**
+     * 인덱스가 가리키는 레코드를 블록 캐시를 통해 읽는다.
+     * 읽는 사이에 컴팩션이 레코드를 옮기고 세그먼트를 삭제했다면 인덱스를 다시 조회한다.
+     */
+    @Override
+    public byte[] get(long id) {
+        while (true) {
+            Location location = index.get(id);
+            if (location == null) {
+                return null;
+            }
+            LogSegment segment = segments.get(location.segment);
+            try {
+                if (segment != null) {
+                    return engine.read(segment, location.offset + LogSegment.HEADER_BYTES, location.length);
+                }
+            } catch (ClosedByInterruptException e) {
+                throw new UncheckedIOException("Interrupted while reading " + name + " " + id, e);
+            } catch (ClosedChannelException e) {
+                log.debug("Segment {} of {} was compacted while reading {}", location.segment, name, id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + name + " " + id, e);
+            }
+            if (index.get(id) == location) {
+                throw new IllegalStateException("Segment " + location.segment + " of " + name + " is missing for " + id);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void remove(long id) {
+        release(index.remove(id));
+    }
+
+    @Override
+    public long size() {
+        return index.size();
+    }
+
+    /**
+     * garbage 비율이 기준 이상인 봉인된 세그먼트를 컴팩션한다.
+     * @param garbageRatio 컴팩션할 garbage 비율 (0 ~ 1)
+     * @return 삭제한 세그먼트 수
+     */
+    int compact(double garbageRatio) {
+        List<LogSegment> candidates = new ArrayList<>();
+        for (LogSegment segment : segments.values()) {
+            if (segment.isSealed() && segment.getSize() > 0
+                    && 1.0 - (double) segment.getLiveBytes() / segment.getSize() >= garbageRatio) {
+                candidates.add(segment);
+            }
+        }
+
+        int compacted = 0;
+        for (LogSegment segment : candidates) {
+            try {
+                long moved = moveLiveRecords(segment);
+                segments.remove(segment.getId());
+                engine.discard(segment);
+                compacted++;
+                log.debug("Compacted segment {} of {}, moved {} bytes", segment.getId(), name, moved);
+            } catch (IOException e) {
+                log.warn("Failed to compact segment {} of {}", segment.getId(), name, e);
+            }
+        }
+        return compacted;
+    }
+
+    Map<String, Object> getStatus() {
+        long bytes = 0;
+        long liveBytes = 0;
+        for (LogSegment segment : segments.values()) {
+            bytes += segment.getSize();
+            liveBytes += segment.getLiveBytes();
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("keys", index.size());
+        status.put("segments", segments.size());
+        status.put("bytes", bytes);
+        status.put("liveBytes", liveBytes);
+        return status;
+    }
+
+    synchronized void close() {
+        for (LogSegment segment : segments.values()) {
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                log.warn("Failed to delete segment {} of {}", segment.getId(), name, e);
+            }
+        }
+        segments.clear();
+        index.clear();
+        active = null;
+    }
+
+    /**
+     * 세그먼트를 처음부터 읽으면서 인덱스가 아직 가리키는 레코드만 활성 세그먼트로 옮긴다.
+     * 레코드를 읽는 동안은 잠그지 않고, 옮길때 인덱스가 그 사이 바뀌지 않았는지 다시 확인한다.
+     */
+    private long moveLiveRecords(LogSegment segment) throws IOException {
+        long moved = 0;
+        byte[] header = new byte[LogSegment.HEADER_BYTES];
+        long position = 0;
+        while (position < segment.getSize()) {
+            if (segment.read(position, header, header.length) < header.length) {
+                throw new IOException("Truncated record at " + position + " of segment " + segment.getId());
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(header);
+            int length = buffer.getInt();
+            long id = buffer.getLong();
+            long offset = position;
+            position += LogSegment.HEADER_BYTES + length;
+
+            Location location = index.get(id);
+            if (location == null || location.segment != segment.getId() || location.offset != offset) {
+                continue;
+            }
+            byte[] value = new byte[length];
+            if (segment.read(offset + LogSegment.HEADER_BYTES, value, length) < length) {
+                throw new IOException("Truncated record at " + offset + " of segment " + segment.getId());
+            }
+            synchronized (this) {
+                if (index.get(id) == location) {
+                    index.put(id, append(id, value));
+                    segment.release(length);
+                    moved += LogSegment.HEADER_BYTES + length;
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * 활성 세그먼트에 레코드를 추가한다. 활성 세그먼트가 가득 찼다면 봉인하고 새 세그먼트를 만든다.
+     */
+    private Location append(long id, byte[] value) throws IOException {
+        if (active == null || (active.getSize() > 0 && active.getSize() + LogSegment.HEADER_BYTES + value.length > engine.getSegmentBytes())) {
+            if (active != null) {
+                active.seal();
+            }
+            active = engine.newSegment(name);
+            segments.put(active.getId(), active);
+        }
+        return new Location(active.getId(), active.append(id, value), value.length);
+    }
+
+    private void release(Location location) {
+        if (location == null) {
+            return;
+        }
+        LogSegment segment = segments.get(location.segment);
+        if (segment != null) {
+            segment.release(location.length);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage.engine;
+
+import java.io.Closeable;
+import java.util.Map;
+
+/**
+ * EntityStore 가 힙에 두지 않을 값을 보관하는 저장 엔진이다.
+ *
+ * 버전 체인과 아이디는 항상 힙에 있고, 엔진이 힙 밖에 값을 보관하는 경우(isOffHeap)에만
+ * 오래 읽히지 않은 최신 버전의 값을 엔진으로 내려놓았다가 읽을때 다시 불러온다.
+ * 엔진은 값만 내려놓으며, 저장소 바깥의 인덱스가 참조하는 값은 힙에서 사라지지 않는다.
+ * 엔진은 storage.engine 설정으로 선택하며 StorageEngineConfiguration 이 생성한다.
+ */
+public interface StorageEngine extends Closeable {
+
+    /**
+     * 엔진 이름 (storage.engine 설정값)
+     */
+    String getName();
+
+    /**
+     * 값을 힙 밖에 보관하는지 여부, false 이면 EntityStore 는 값을 버전 체인에 그대로 둔다.
+     */
+    boolean isOffHeap();
+
+    /**
+     * 저장소 이름별 테이블을 연다. 같은 이름으로 다시 열면 같은 테이블을 반환한다.
+     * @param name 저장소 이름 (엔티티 이름)
+     * @return 테이블
+     */
+    StorageTable openTable(String name);
+
+    /**
+     * 엔진의 상태 (테이블 크기, 캐시 적중률 등)를 반환한다.
+     */
+    Map<String, Object> getStatus();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,46 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * storage.engine 설정으로 저장 엔진을 선택한다.
+ *
+ * memory : 모든 값을 힙에 둔다. 기본값이며 테스트에서 사용한다.
+ * log : 오래 읽히지 않은 값을 디스크의 로그 구조 세그먼트 파일로 내려놓는다 (value spill). 엔티티 값이 힙의 대부분을 차지할때 사용한다.
+ *
+ * log 엔진이 내려놓는 것은 엔티티 값뿐이다. 버전 체인과 아이디, 조회 인덱스, 수강 인덱스(EnrollmentIndex 는 수강 정보를 그대로 참조한다),
+ * 변경 기록(ChangeLog, 아이디별 기록 하나), 평점 엔진의 학생별 합계는 힙에 남으므로 힙 사용량은 여전히 엔티티 수에 비례한다.
+ * 힙보다 큰 데이터를 다루는 엔진이 아니다.
+ */
+@Slf4j
+@Configuration
+public class StorageEngineConfiguration {
+
+    public static final String MEMORY = "memory";
+    public static final String LOG = "log";
+
+    @Bean(destroyMethod = "close")
+    public StorageEngine storageEngine(@Value("${storage.engine:memory}") String engine,
+                                       @Value("${storage.log.directory:${java.io.tmpdir}/demo-monolithic}") String directory,
+                                       @Value("${storage.log.segment-bytes:67108864}") long segmentBytes,
+                                       @Value("${storage.log.block-bytes:16384}") int blockBytes,
+                                       @Value("${storage.log.block-cache-bytes:67108864}") long blockCacheBytes,
+                                       @Value("${storage.log.compaction-interval-ms:10000}") long compactionIntervalMs,
+                                       @Value("${storage.log.compaction-garbage-ratio:0.5}") double compactionGarbageRatio) {
+        log.info("Storage engine: {}", engine);
+        switch (engine) {
+            case MEMORY:
+                return new InMemoryStorageEngine();
+            case LOG:
+                return new LogStructuredStorageEngine(Path.of(directory), segmentBytes, blockBytes, blockCacheBytes,
+                        compactionIntervalMs, compactionGarbageRatio);
+            default:
+                throw new IllegalArgumentException("Unknown storage engine: " + engine);
+        }
+    }
+}
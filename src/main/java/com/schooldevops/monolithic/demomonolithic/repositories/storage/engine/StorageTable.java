@@ -0,0 +1,34 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage.engine;
+
+/**
+ * 아이디별로 직렬화된 값을 보관하는 테이블이다. 아이디마다 마지막으로 저장한 값만 남는다.
+ * 읽기는 여러 스레드에서 동시에 호출할 수 있고, 쓰기도 스레드에 안전해야 한다.
+ * 입출력 오류는 UncheckedIOException 으로 전달한다.
+ */
+public interface StorageTable {
+
+    /**
+     * 아이디의 값을 저장한다. 이미 있으면 교체한다.
+     * @param id 엔티티 아이디
+     * @param value 직렬화된 값
+     */
+    void put(long id, byte[] value);
+
+    /**
+     * 아이디의 값을 조회한다.
+     * @param id 엔티티 아이디
+     * @return 직렬화된 값, 없으면 null
+     */
+    byte[] get(long id);
+
+    /**
+     * 아이디의 값을 삭제한다.
+     * @param id 엔티티 아이디
+     */
+    void remove(long id);
+
+    /**
+     * 저장된 아이디 수를 반환한다.
+     */
+    long size();
+}
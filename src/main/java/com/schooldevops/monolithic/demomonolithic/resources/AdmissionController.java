@@ -0,0 +1,30 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.schooldevops.monolithic.demomonolithic.admission.AdmissionLimiter;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * @RequestMapping을 통해서 엔드포인트를 /admission 으로 시작하게 설정한다.
+ */
+@RequestMapping("/admission")
+@RestController
+public class AdmissionController {
+
+    private final AdmissionLimiter admissionLimiter;
+
+    public AdmissionController(AdmissionLimiter admissionLimiter) {
+        this.admissionLimiter = admissionLimiter;
+    }
+
+    /**
+     * 현재 동시 처리 한도와 분류별 처리 현황을 반환한다.
+     */
+    @GetMapping
+    public Map<String, Object> status() {
+        return admissionLimiter.getStatus();
+    }
+}
@@ -0,0 +1,44 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.schooldevops.monolithic.demomonolithic.events.ChangeEventBus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @RequestMapping을 통해서 엔드포인트를 /changes 로 시작하게 설정한다.
+ * 목록을 반복해서 조회하는 대신 Server-Sent Events 로 변경 사항을 전달받을 수 있다.
+ */
+@RequestMapping("/changes")
+@RestController
+public class ChangeStreamController {
+
+    private final ChangeEventBus changeEventBus;
+
+    public ChangeStreamController(ChangeEventBus changeEventBus) {
+        this.changeEventBus = changeEventBus;
+    }
+
+    /**
+     * 변경 스트림 구독
+     * 이벤트 이름은 엔티티 타입이며, 이벤트 아이디는 커밋 시퀀스이다.
+     * 구독자 버퍼가 가득 차면 이벤트를 버리고 resync 이벤트를 보내므로, 이때는 목록을 다시 조회해야 한다.
+     * @param types 구독할 엔티티 타입 (student,professor,subject,lecture,attendedSubject,enrollment), 생략하면 전체
+     * @return SSE 스트림
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(value = "types", required = false) String types) {
+        Set<String> entityTypes = types == null ? Set.of() : Arrays.stream(types.split(","))
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .collect(Collectors.toSet());
+        return changeEventBus.subscribe(entityTypes);
+    }
+}
@@ -0,0 +1,119 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterCoordinator;
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterMembership;
+import com.schooldevops.monolithic.demomonolithic.domains.GpaTotals;
+import com.schooldevops.monolithic.demomonolithic.gpa.GpaEngine;
+import com.schooldevops.monolithic.demomonolithic.repositories.id.IdGenerators;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 클러스터 노드 사이에서 사용하는 내부 API 이다.
+ * @RequestMapping을 통해서 엔드포인트를 /cluster 로 시작하게 설정한다.
+ */
+@RequestMapping("/cluster")
+@RestController
+public class ClusterController {
+
+    private final ClusterMembership clusterMembership;
+    private final ClusterCoordinator clusterCoordinator;
+    private final IdGenerators idGenerators;
+    private final GpaEngine gpaEngine;
+
+    public ClusterController(ClusterMembership clusterMembership, ClusterCoordinator clusterCoordinator, IdGenerators idGenerators,
+                             GpaEngine gpaEngine) {
+        this.clusterMembership = clusterMembership;
+        this.clusterCoordinator = clusterCoordinator;
+        this.idGenerators = idGenerators;
+        this.gpaEngine = gpaEngine;
+    }
+
+    /**
+     * 이 노드가 알고 있는 클러스터 구성원을 반환한다.
+     */
+    @GetMapping("/members")
+    public Map<String, Object> members() {
+        Map<String, Object> members = new LinkedHashMap<>();
+        members.put("enabled", clusterMembership.isEnabled());
+        members.put("self", clusterMembership.getSelf());
+        members.put("members", clusterMembership.getMembers());
+        return members;
+    }
+
+    /**
+     * 새로운 노드의 참여 요청, 변경된 구성원 목록을 반환한다.
+     * @param request address 에 참여할 노드 주소
+     */
+    @PostMapping("/join")
+    public List<String> join(@RequestBody Map<String, String> request) {
+        return clusterCoordinator.handleJoin(request.get("address"));
+    }
+
+    /**
+     * 다른 노드가 전파한 구성원 목록을 반영한다.
+     */
+    @PutMapping("/members")
+    public void updateMembers(@RequestBody List<String> members) {
+        clusterCoordinator.applyMembers(members);
+    }
+
+    /**
+     * 이 노드에 저장된 엔티티를 조회한다.
+     */
+    @GetMapping("/entities/{entityName}/{id}")
+    public ResponseEntity<Object> findEntity(@PathVariable("entityName") String entityName, @PathVariable("id") Long id) {
+        Object entity = clusterCoordinator.findLocal(entityName, id);
+        return entity == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(entity);
+    }
+
+    /**
+     * 다른 노드에서 옮겨온 엔티티를 저장한다.
+     */
+    @PutMapping("/entities/{entityName}")
+    public void importEntities(@PathVariable("entityName") String entityName, @RequestBody JsonNode entities) {
+        clusterCoordinator.importEntities(entityName, entities);
+    }
+
+    /**
+     * 이 노드에 저장된 엔티티를 삭제한다.
+     */
+    @DeleteMapping("/entities/{entityName}/{id}")
+    public void deleteEntity(@PathVariable("entityName") String entityName, @PathVariable("id") Long id) {
+        clusterCoordinator.evict(entityName, id);
+    }
+
+    /**
+     * 아이디 블록을 임대한다. id-generator.strategy 가 block 인 노드가 사용한다.
+     * @param after 요청한 노드의 최고 수위, 블록은 이 아이디 다음부터 시작한다.
+     * @return 블록의 첫번째 아이디
+     */
+    @PostMapping("/id-blocks/{entityName}")
+    public long leaseIdBlock(@PathVariable("entityName") String entityName, @RequestParam("size") int size,
+                             @RequestParam(value = "after", defaultValue = "0") long after) {
+        return idGenerators.grantBlock(entityName, size, after);
+    }
+
+    /**
+     * 이 노드가 아는 가장 큰 할당된 아이디를 반환한다. 재시작한 seed 노드가 블록을 임대하기 전에 조회한다.
+     * @return 최고 수위
+     */
+    @GetMapping("/id-blocks/{entityName}")
+    public long findIdHighWaterMark(@PathVariable("entityName") String entityName) {
+        return idGenerators.highWaterMark(entityName);
+    }
+
+    /**
+     * 이 노드에 저장된 수강 정보로 계산한 평점 합계를 반환한다. 평점을 조회하는 노드가 모든 노드의 합계를 모아 더한다.
+     * @param studentId 학생 아이디, 없으면 전체 학생
+     */
+    @GetMapping("/gpa")
+    public List<GpaTotals> findGpaTotals(@RequestParam(value = "studentId", required = false) Long studentId) {
+        return gpaEngine.findLocalTotals(studentId);
+    }
+}
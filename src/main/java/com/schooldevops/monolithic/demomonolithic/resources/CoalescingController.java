@@ -0,0 +1,30 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.schooldevops.monolithic.demomonolithic.coalescing.SingleFlights;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * @RequestMapping을 통해서 엔드포인트를 /coalescing 으로 시작하게 설정한다.
+ */
+@RequestMapping("/coalescing")
+@RestController
+public class CoalescingController {
+
+    private final SingleFlights singleFlights;
+
+    public CoalescingController(SingleFlights singleFlights) {
+        this.singleFlights = singleFlights;
+    }
+
+    /**
+     * 동시에 들어온 같은 조회 요청을 하나로 합친 통계를 반환한다.
+     */
+    @GetMapping
+    public Map<String, Object> status() {
+        return singleFlights.getStatus();
+    }
+}
@@ -1,11 +1,29 @@
 package com.schooldevops.monolithic.demomonolithic.resources;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schooldevops.monolithic.demomonolithic.coalescing.SingleFlight;
+import com.schooldevops.monolithic.demomonolithic.coalescing.SingleFlights;
+import com.schooldevops.monolithic.demomonolithic.domains.AttendedSubject;
+import com.schooldevops.monolithic.demomonolithic.domains.BatchItem;
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
+import com.schooldevops.monolithic.demomonolithic.domains.EnrollmentResult;
+import com.schooldevops.monolithic.demomonolithic.domains.GradeUploadResult;
 import com.schooldevops.monolithic.demomonolithic.domains.Lecture;
 import com.schooldevops.monolithic.demomonolithic.domains.Subject;
+import com.schooldevops.monolithic.demomonolithic.domains.WaitlistEntry;
+import com.schooldevops.monolithic.demomonolithic.gpa.GradeSheetReader;
+import com.schooldevops.monolithic.demomonolithic.json.EntityJsonMapper;
+import com.schooldevops.monolithic.demomonolithic.services.Expansion;
+import com.schooldevops.monolithic.demomonolithic.services.GradeUploadService;
 import com.schooldevops.monolithic.demomonolithic.services.LectureService;
 import com.schooldevops.monolithic.demomonolithic.services.SubjectService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -18,10 +36,23 @@ public class EducationController {
 
     private final SubjectService subjectService;
     private final LectureService lectureService;
+    private final GradeUploadService gradeUploadService;
+    private final ObjectMapper objectMapper;
+    private final EntityJsonMapper jsonMapper;
 
-    public EducationController(SubjectService subjectService, LectureService lectureService) {
+    /**
+     * 같은 과목을 같은 expand 로 동시에 조회하는 요청은 조회, 교수 정보 추가, 직렬화를 한번만 수행하고 결과를 나누어 쓴다.
+     */
+    private final SingleFlight<String, ResponseEntity<byte[]>> subjectReads;
+
+    public EducationController(SubjectService subjectService, LectureService lectureService, GradeUploadService gradeUploadService,
+                               ObjectMapper objectMapper, EntityJsonMapper jsonMapper, SingleFlights singleFlights) {
         this.subjectService = subjectService;
         this.lectureService = lectureService;
+        this.gradeUploadService = gradeUploadService;
+        this.objectMapper = objectMapper;
+        this.jsonMapper = jsonMapper;
+        this.subjectReads = singleFlights.create("subjects");
     }
 
     /**
@@ -40,30 +71,58 @@ public class EducationController {
      * @RequestBody 를 이용하여, 클라이언트에서 전달된 JSON이 Object 로 매핑되도록 해준다.
      * @param id 수정을 원하는 과목 아이디
      * @param subject 수정을 되어야할 정보를 담고 있는 과목 정보
+     * @param ifMatch 클라이언트가 알고 있는 버전(ETag), 현재 버전과 다르면 409 Conflict 로 응답한다.
      * @return 수정된 버젼의 과목 정보가 반환된다.
      */
     @PutMapping("/subjects/{id}")
-    public Subject modifySubject(@PathVariable("id") Long id, @RequestBody Subject subject) {
-        return subjectService.modifySubject(id, subject);
+    public ResponseEntity<Subject> modifySubject(@PathVariable("id") Long id, @RequestBody Subject subject,
+                                                 @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return EntityTags.withETag(subjectService.modifySubject(id, subject, EntityTags.parseIfMatch(ifMatch)));
     }
 
     /**
      * 전체 과목 목록을 반환한다.
+     * @param expand 포함할 연관 관계 (professor), 없으면 교수 정보를 포함한다.
      * @return 등록된 모든 과목 정보를 반환한다. (실제 프로젝트에서는 페이징을 적용해야한다.)
      */
     @GetMapping("/subjects")
-    public List<Subject> findAllSubjects() {
-        return subjectService.findAll();
+    public List<Subject> findAllSubjects(@RequestParam(value = "expand", required = false) String expand) {
+        return subjectService.findAll(subjectExpansion(expand));
+    }
+
+    /**
+     * 여러 과목 정보를 한번에 조회한다. 예) /education/subjects?ids=1,2,3
+     * @param ids 조회할 과목 아이디 목록
+     * @return 요청한 아이디 순서의 조회 결과, 없는 과목은 found 가 false 로 표시된다.
+     */
+    @GetMapping(value = "/subjects", params = "ids")
+    public List<BatchItem<Subject>> findSubjectsById(@RequestParam("ids") List<Long> ids,
+                                                     @RequestParam(value = "expand", required = false) String expand) {
+        return BatchItem.of(ids, subjectService.findAllById(ids, subjectExpansion(expand)));
+    }
+
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 과목 목록을 조회한다. (증분 동기화)
+     * @param since 마지막으로 받은 워터마크, 처음 동기화라면 0
+     * @return 변경된 과목 목록, 삭제된 과목 아이디와 새로운 워터마크
+     */
+    @GetMapping("/subjects/changes")
+    public ChangeSet<Subject> findSubjectChanges(@RequestParam(value = "since", defaultValue = "0") long since) {
+        return subjectService.findChangesSince(since);
     }
 
     /**
      * 과목 아이디로 과목 정보 조회
      * @param id 조회할 과목 아이디
-     * @return 조회된 과목 정보를 반환한다.
+     * @param expand 포함할 연관 관계 (professor), 없으면 교수 정보를 포함한다.
+     * @return 조회된 과목 정보를 반환한다. 버전은 ETag 헤더로 함께 전달된다.
      */
     @GetMapping("/subjects/{id}")
-    public Subject findSubjectById(@PathVariable("id") Long id) {
-        return subjectService.findById(id);
+    public ResponseEntity<byte[]> findSubjectById(@PathVariable("id") Long id,
+                                                  @RequestParam(value = "expand", required = false) String expand) {
+        Expansion expansion = subjectExpansion(expand);
+        return subjectReads.execute(id + "?" + expansion,
+                () -> EntityTags.serializedWithETag(subjectService.findById(id, expansion), jsonMapper));
     }
 
     /**
@@ -86,6 +145,29 @@ public class EducationController {
         return lectureService.createLecture(subjectId, limitStudents);
     }
 
+    /**
+     * 교과 과목 조회, 과목, 교수, 수강 학생 정보를 같은 스냅샷 시점으로 조회한다.
+     * @param lectureId 교과 과목 아이디
+     * @param expand 포함할 연관 관계 (subject, subject.professor, professor, attendedSubjects, attendedSubjects.student)
+     *               없으면 모든 연관 관계를 포함하고, 빈 값이면 연관 관계의 아이디만 포함한다.
+     * @return 조회된 교과 과목
+     */
+    @GetMapping("/lectures/{lectureId}")
+    public Lecture findLecture(@PathVariable("lectureId") Long lectureId,
+                               @RequestParam(value = "expand", required = false) String expand) {
+        return lectureService.findLecture(lectureId, Expansion.parse(expand, LectureService.RELATIONS, LectureService.DEFAULT_EXPANSION));
+    }
+
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 교과 과정 목록을 조회한다. (증분 동기화)
+     * @param since 마지막으로 받은 워터마크, 처음 동기화라면 0
+     * @return 변경된 교과 과정 목록, 삭제된 교과 과정 아이디와 새로운 워터마크
+     */
+    @GetMapping("/lectures/changes")
+    public ChangeSet<Lecture> findLectureChanges(@RequestParam(value = "since", defaultValue = "0") long since) {
+        return lectureService.findChangesSince(since);
+    }
+
     /**
      * 교과 과목 정보를 수정한다.
      * @param lectureId 교과 과목 아이디
@@ -97,13 +179,89 @@ public class EducationController {
         return lectureService.modifyLecture(lectureId, lecture);
     }
 
+    /**
+     * 수강 신청, 제한 인원이 찼다면 대기열에 추가하고 202 Accepted 와 대기 순번을 반환한다.
+     * 대기중인 학생은 자리가 나면 순서대로 자동 등록되며, 변경 스트림으로 PROMOTE 이벤트가 전달된다.
+     * 제약: 대기열은 교과 과정을 담당하는 노드(복제 모드에서는 리더)의 메모리에만 있으며 저장소와 복제 로그에 포함되지 않는다.
+     * 노드가 재시작되거나 리밸런싱으로 교과 과정이 다른 노드로 옮겨가면 대기열은 사라지므로 대기중인 학생은 다시 신청해야 한다.
+     * @param lectureId 교과 과정 아이디
+     * @param studentId 학생 아이디
+     * @return 수강 정보가 추가된 교과 과정, 혹은 대기열 항목
+     */
     @PostMapping("/lectures/{lectureId}/attendedSubject/students/{studentId}")
-    public Lecture applyAttendedSubject(@PathVariable("lectureId") Long lectureId, @PathVariable("studentId") Long studentId) {
-        return lectureService.applyAttendedSubject(lectureId, studentId);
+    public ResponseEntity<Object> applyAttendedSubject(@PathVariable("lectureId") Long lectureId, @PathVariable("studentId") Long studentId) {
+        EnrollmentResult result = lectureService.applyAttendedSubject(lectureId, studentId);
+        if (result.isWaitlisted()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(result.getWaitlistEntry());
+        }
+        return ResponseEntity.ok(result.getLecture());
     }
 
     /**
-     * 수강 아이디로 과목정보 제거 수행
+     * 교과 과정의 대기열을 대기 순서대로 조회한다.
+     * 대기열은 복제되지 않으므로 팔로워로 들어온 조회는 리더로 전달된다. 재시작이나 리밸런싱 이후에는 대기열이 비어있다.
+     * @param lectureId 교과 과정 아이디
+     * @return 대기열 항목 목록
+     */
+    @GetMapping("/lectures/{lectureId}/waitlist")
+    public List<WaitlistEntry> findWaitlist(@PathVariable("lectureId") Long lectureId) {
+        return lectureService.findWaitlist(lectureId);
+    }
+
+    /**
+     * 대기열에서 학생을 제거한다.
+     * @param lectureId 교과 과정 아이디
+     * @param studentId 학생 아이디
+     * @return 대기중이었다면 true
+     */
+    @DeleteMapping("/lectures/{lectureId}/waitlist/students/{studentId}")
+    public boolean leaveWaitlist(@PathVariable("lectureId") Long lectureId, @PathVariable("studentId") Long studentId) {
+        return lectureService.leaveWaitlist(lectureId, studentId);
+    }
+
+    /**
+     * 수강 정보에 성적을 부여한다. 성적이 부여된 수강 정보는 종료(DONE) 상태가 되어 학생 평점에 반영된다.
+     * @param lectureId 교과 과정 아이디
+     * @param attendedId 수강 아이디
+     * @param attendedSubject 부여할 성적 (grade)
+     * @return 성적이 부여된 수강 정보
+     */
+    @PutMapping("/lectures/{lectureId}/attendedSubject/{attendedId}/grade")
+    public AttendedSubject gradeAttendedSubject(@PathVariable("lectureId") Long lectureId, @PathVariable("attendedId") Long attendedId,
+                                                @RequestBody AttendedSubject attendedSubject) {
+        return lectureService.gradeAttendedSubject(lectureId, attendedId, attendedSubject.getGrade());
+    }
+
+    /**
+     * 교과 과정의 성적을 일괄 등록한다. 본문은 한 행씩 읽어 배치 단위로 반영하므로 전체를 메모리에 올리지 않는다.
+     * CSV (text/csv) 는 한 행에 "attendedId,grade", NDJSON (application/x-ndjson) 은 한 행에 {"attendedId":1,"grade":"A+"} 이다.
+     * @param lectureId 교과 과정 아이디
+     * @param close true 이면 모든 행이 반영된 후 교과 과정과 모든 수강 정보를 한번에 종료(DONE) 상태로 바꾼다.
+     * @param request 본문을 읽을 요청
+     * @return 반영된 행 수와 실패한 행의 행 번호, 이유를 담은 등록 결과
+     */
+    @PostMapping(value = "/lectures/{lectureId}/grades",
+            consumes = {GradeSheetReader.TEXT_CSV_VALUE, GradeSheetReader.APPLICATION_NDJSON_VALUE})
+    public GradeUploadResult uploadGrades(@PathVariable("lectureId") Long lectureId,
+                                          @RequestParam(value = "close", defaultValue = "true") boolean close,
+                                          HttpServletRequest request) throws IOException {
+        try (GradeSheetReader sheet = new GradeSheetReader(request.getInputStream(), MediaType.parseMediaType(request.getContentType()), objectMapper)) {
+            return gradeUploadService.uploadGrades(lectureId, sheet, close);
+        }
+    }
+
+    /**
+     * 교과 과정을 종료한다. 교과 과정과 모든 수강 정보가 한번에 종료(DONE) 상태가 되어 학생 평점에 반영된다.
+     * @param lectureId 교과 과정 아이디
+     * @return 종료된 교과 과정
+     */
+    @PostMapping("/lectures/{lectureId}/close")
+    public Lecture closeLecture(@PathVariable("lectureId") Long lectureId) {
+        return lectureService.closeLecture(lectureId);
+    }
+
+    /**
+     * 수강 아이디로 과목정보 제거 수행, 종료된 교과 과정이라면 409 Conflict 로 응답한다.
      * @param lectureId 삭제 대상 교과 과목 아이디
      * @param attendedId 삭제할 수강 아이디
      */
@@ -117,4 +275,7 @@ public class EducationController {
         lectureService.deleteLecture(lectureId);
     }
 
+    private static Expansion subjectExpansion(String expand) {
+        return Expansion.parse(expand, SubjectService.RELATIONS, SubjectService.DEFAULT_EXPANSION);
+    }
 }
@@ -0,0 +1,92 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.schooldevops.monolithic.demomonolithic.domains.VersionedEntity;
+import com.schooldevops.monolithic.demomonolithic.json.EntityJsonMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 엔티티 버전을 HTTP ETag / If-Match 헤더로 주고받기 위한 도우미 클래스이다.
+ * ETag 는 엔티티 버전을 따옴표로 감싼 값 (예: "3") 을 사용한다.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * 엔티티 버전을 ETag 헤더에 담아 응답한다.
+     * @param entity 응답할 엔티티, null 이면 본문 없이 응답한다.
+     * @return ETag 헤더가 포함된 응답
+     */
+    static <T extends VersionedEntity> ResponseEntity<T> withETag(T entity) {
+        if (entity == null || entity.getVersion() == null) {
+            return ResponseEntity.ok(entity);
+        }
+        return ResponseEntity.ok().eTag(String.valueOf(entity.getVersion())).body(entity);
+    }
+
+    /**
+     * 엔티티를 JSON 으로 직렬화하여 ETag 헤더와 함께 응답한다.
+     * 직렬화된 응답은 변경되지 않으므로 여러 요청이 같은 응답을 나누어 쓸 수 있다.
+     * @param entity 응답할 엔티티, null 이면 본문 없이 응답한다.
+     * @param jsonMapper 직렬화에 사용할 EntityJsonMapper
+     * @return ETag 헤더와 JSON 본문이 포함된 응답
+     */
+    static <T extends VersionedEntity> ResponseEntity<byte[]> serializedWithETag(T entity, EntityJsonMapper jsonMapper) {
+        if (entity == null) {
+            return ResponseEntity.ok().build();
+        }
+        byte[] body;
+        try {
+            body = jsonMapper.writeValueAsBytes(entity);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize " + entity.getClass().getSimpleName(), e);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (entity.getVersion() != null) {
+            builder.eTag(String.valueOf(entity.getVersion()));
+        }
+        return builder.body(body);
+    }
+
+    /**
+     * If-Match 헤더에서 기대하는 버전 목록을 꺼낸다.
+     * RFC 7232 에 따라 쉼표로 구분된 여러 태그 ("1", "2") 를 허용하며, 현재 버전이 그중 하나와 같으면 수정할 수 있다.
+     * 비어있는 목록 요소는 무시한다.
+     * @param ifMatch If-Match 헤더 값 (각 태그는 "3", W/"3", 3 형식을 허용한다.)
+     * @return 기대하는 버전 목록, 헤더가 없거나 * 이면 null
+     */
+    static Set<Long> parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        Set<Long> versions = new LinkedHashSet<>();
+        for (String element : ifMatch.split(",")) {
+            String tag = element.trim();
+            if (tag.isEmpty()) {
+                continue;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            tag = tag.replace("\"", "");
+            try {
+                versions.add(Long.parseLong(tag));
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid If-Match header: " + ifMatch);
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid If-Match header: " + ifMatch);
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,30 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.schooldevops.monolithic.demomonolithic.domains.DataExport;
+import com.schooldevops.monolithic.demomonolithic.services.ExportService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * @RequestMapping을 통해서 엔드포인트를 /export 로 시작하게 설정한다.
+ */
+@RequestMapping("/export")
+@RestController
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * 전체 데이터를 하나의 스냅샷 시점으로 추출한다. 추출중에도 쓰기는 계속 처리된다.
+     * @return 스냅샷 시점의 전체 데이터
+     */
+    @GetMapping
+    public DataExport export() {
+        return exportService.export();
+    }
+}
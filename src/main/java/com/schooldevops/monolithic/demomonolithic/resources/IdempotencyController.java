@@ -0,0 +1,30 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.schooldevops.monolithic.demomonolithic.idempotency.IdempotencyCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * @RequestMapping을 통해서 엔드포인트를 /idempotency 로 시작하게 설정한다.
+ */
+@RequestMapping("/idempotency")
+@RestController
+public class IdempotencyController {
+
+    private final IdempotencyCache idempotencyCache;
+
+    public IdempotencyController(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+    }
+
+    /**
+     * 보관중인 멱등 키 수와 실제로 처리한 요청, 보관된 응답으로 돌려준 요청 수를 반환한다.
+     */
+    @GetMapping
+    public Map<String, Object> status() {
+        return idempotencyCache.getStatus();
+    }
+}
@@ -1,9 +1,15 @@
 package com.schooldevops.monolithic.demomonolithic.resources;
 
+import com.schooldevops.monolithic.demomonolithic.coalescing.SingleFlight;
+import com.schooldevops.monolithic.demomonolithic.coalescing.SingleFlights;
+import com.schooldevops.monolithic.demomonolithic.domains.BatchItem;
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
 import com.schooldevops.monolithic.demomonolithic.domains.Professor;
+import com.schooldevops.monolithic.demomonolithic.json.EntityJsonMapper;
 import com.schooldevops.monolithic.demomonolithic.services.ProfessorService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -14,10 +20,18 @@ import java.util.List;
 public class ProfessorController {
 
     private final ProfessorService professorService;
+    private final EntityJsonMapper jsonMapper;
+
+    /**
+     * 같은 교수를 동시에 조회하는 요청은 조회와 직렬화를 한번만 수행하고 결과를 나누어 쓴다.
+     */
+    private final SingleFlight<Long, ResponseEntity<byte[]>> professorReads;
 
     @Autowired
-    public ProfessorController(ProfessorService professorService) {
+    public ProfessorController(ProfessorService professorService, EntityJsonMapper jsonMapper, SingleFlights singleFlights) {
         this.professorService = professorService;
+        this.jsonMapper = jsonMapper;
+        this.professorReads = singleFlights.create("professors");
     }
 
     @GetMapping
@@ -25,25 +39,41 @@ public class ProfessorController {
         return professorService.findAll();
     }
 
+    @GetMapping(params = "ids")
+    public List<BatchItem<Professor>> findAllById(@RequestParam("ids") List<Long> ids) {
+        return BatchItem.of(ids, professorService.findAllById(ids));
+    }
+
+    @GetMapping("/changes")
+    public ChangeSet<Professor> findChanges(@RequestParam(value = "since", defaultValue = "0") long since) {
+        return professorService.findChangesSince(since);
+    }
+
     @GetMapping("/{id}")
-    public Professor findById(@PathVariable("id") Long id) {
-        return professorService.findById(id);
+    public ResponseEntity<byte[]> findById(@PathVariable("id") Long id) {
+        return professorReads.execute(id, () -> EntityTags.serializedWithETag(professorService.findById(id), jsonMapper));
     }
 
     @GetMapping("/subjects/{subjectName}")
     public List<Professor> findBySubjectName(@PathVariable("subjectName") String subjectName) {
-        log.info(String.format("Resource Call by Subject %s", subjectName));
+        log.info("Resource Call by Subject {}", subjectName);
         return professorService.findBySubjectName(subjectName);
     }
 
+    @GetMapping("/subjects/{subjectName}/explain")
+    public String explainFindBySubjectName(@PathVariable("subjectName") String subjectName) {
+        return professorService.explainFindBySubjectName(subjectName);
+    }
+
     @PostMapping
     public Professor join(@RequestBody Professor professor) {
         return professorService.join(professor);
     }
 
     @PutMapping("/{id}")
-    public Professor modify(@PathVariable("id") Long id, @RequestBody Professor professor) {
-        return professorService.modify(id, professor);
+    public ResponseEntity<Professor> modify(@PathVariable("id") Long id, @RequestBody Professor professor,
+                                            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return EntityTags.withETag(professorService.modify(id, professor, EntityTags.parseIfMatch(ifMatch)));
     }
 
     @DeleteMapping("/{id}")
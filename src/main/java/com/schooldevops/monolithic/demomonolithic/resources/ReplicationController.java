@@ -0,0 +1,55 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.schooldevops.monolithic.demomonolithic.domains.ReplicationBatch;
+import com.schooldevops.monolithic.demomonolithic.replication.ReplicationFollower;
+import com.schooldevops.monolithic.demomonolithic.replication.ReplicationSource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 리더-팔로워 복제에서 사용하는 API 이다.
+ * @RequestMapping을 통해서 엔드포인트를 /replication 으로 시작하게 설정한다.
+ */
+@RequestMapping("/replication")
+@RestController
+public class ReplicationController {
+
+    private final ReplicationSource replicationSource;
+    private final ReplicationFollower replicationFollower;
+
+    public ReplicationController(ReplicationSource replicationSource, ReplicationFollower replicationFollower) {
+        this.replicationSource = replicationSource;
+        this.replicationFollower = replicationFollower;
+    }
+
+    /**
+     * 워터마크 이후의 복제 로그를 조회한다. 팔로워가 주기적으로 호출한다.
+     * @param since 마지막으로 적용한 워터마크, 0 이면 전체 데이터
+     */
+    @GetMapping("/log")
+    public ReplicationBatch log(@RequestParam(value = "since", defaultValue = "0") long since) {
+        return replicationSource.read(since);
+    }
+
+    /**
+     * 이 노드의 복제 상태를 반환한다.
+     */
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("role", replicationFollower.getRole());
+        status.put("sequence", replicationSource.currentSequence());
+        if (replicationFollower.isFollower()) {
+            status.put("leader", replicationFollower.getLeaderAddress());
+            status.put("watermark", replicationFollower.getWatermark());
+            long staleness = replicationFollower.getStalenessMs();
+            status.put("stalenessMs", staleness == Long.MAX_VALUE ? null : staleness);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,31 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 저장 계층의 상태를 조회하는 API 이다.
+ * @RequestMapping을 통해서 엔드포인트를 /storage 로 시작하게 설정한다.
+ */
+@RequestMapping("/storage")
+@RestController
+public class StorageController {
+
+    private final VersionedStorage versionedStorage;
+
+    public StorageController(VersionedStorage versionedStorage) {
+        this.versionedStorage = versionedStorage;
+    }
+
+    /**
+     * 저장 엔진과 저장소별 상태를 반환한다. log 엔진이면 세그먼트, 블록 캐시와 힙 밖에 있는 값의 수를 포함한다.
+     */
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        return versionedStorage.getStatus();
+    }
+}
@@ -1,10 +1,18 @@
 package com.schooldevops.monolithic.demomonolithic.resources;
 
+import com.schooldevops.monolithic.demomonolithic.domains.BatchItem;
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
 import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.domains.StudentGpa;
+import com.schooldevops.monolithic.demomonolithic.domains.StudentLecture;
+import com.schooldevops.monolithic.demomonolithic.gpa.GpaEngine;
+import com.schooldevops.monolithic.demomonolithic.services.LectureService;
 import com.schooldevops.monolithic.demomonolithic.services.StudentService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @RequestMapping을 통해서 엔드포인트를 /student 로 시작하게 설정한다.
@@ -20,9 +28,13 @@ public class StudentController {
      * Spring이 BootUP 될때 의존성을 Spring Framework 가 주입해준다.
      */
     private final StudentService studentService;
+    private final LectureService lectureService;
+    private final GpaEngine gpaEngine;
 
-    public StudentController(StudentService studentService) {
+    public StudentController(StudentService studentService, LectureService lectureService, GpaEngine gpaEngine) {
         this.studentService = studentService;
+        this.lectureService = lectureService;
+        this.gpaEngine = gpaEngine;
     }
 
     /**
@@ -41,11 +53,13 @@ public class StudentController {
      * @RequestBody 를 이용하여, 클라이언트에서 전달된 JSON이 Object 로 매핑되도록 해준다.
      * @param id 수정을 원하는 학생 아이디
      * @param student 수정을 되어야할 정보를 담고 있는 학생 정보
+     * @param ifMatch 클라이언트가 알고 있는 버전(ETag), 현재 버전과 다르면 409 Conflict 로 응답한다.
      * @return 수정된 버젼의 학생 정보가 반환된다.
      */
     @PutMapping("/{id}")
-    public Student modifyStudent(@PathVariable("id") Long id, @RequestBody Student student) {
-        return studentService.modifyStudent(id, student);
+    public ResponseEntity<Student> modifyStudent(@PathVariable("id") Long id, @RequestBody Student student,
+                                                 @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return EntityTags.withETag(studentService.modifyStudent(id, student, EntityTags.parseIfMatch(ifMatch)));
     }
 
     /**
@@ -57,14 +71,81 @@ public class StudentController {
         return studentService.findAll();
     }
 
+    /**
+     * 여러 학생 정보를 한번에 조회한다. 예) /students?ids=1,2,3
+     * @param ids 조회할 학생 아이디 목록
+     * @return 요청한 아이디 순서의 조회 결과, 없는 학생은 found 가 false 로 표시된다.
+     */
+    @GetMapping(params = "ids")
+    public List<BatchItem<Student>> findAllById(@RequestParam("ids") List<Long> ids) {
+        return BatchItem.of(ids, studentService.findAllById(ids));
+    }
+
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 학생 목록을 조회한다. (증분 동기화)
+     * 응답의 watermark 를 다음 요청의 since 로 전달하고, resyncRequired 가 true 이면 since=0 으로 전체를 다시 받는다.
+     * @param since 마지막으로 받은 워터마크, 처음 동기화라면 0
+     * @return 변경된 학생 목록, 삭제된 학생 아이디와 새로운 워터마크
+     */
+    @GetMapping("/changes")
+    public ChangeSet<Student> findChanges(@RequestParam(value = "since", defaultValue = "0") long since) {
+        return studentService.findChangesSince(since);
+    }
+
     /**
      * 학생 아이디로 학생 정보 조회
      * @param id 조회할 학생 아이디
-     * @return 조회된 학생 정보를 반환한다.
+     * @return 조회된 학생 정보를 반환한다. 버전은 ETag 헤더로 함께 전달된다.
      */
     @GetMapping("/{id}")
-    public Student findById(@PathVariable("id") Long id) {
-        return studentService.findById(id);
+    public ResponseEntity<Student> findById(@PathVariable("id") Long id) {
+        return EntityTags.withETag(studentService.findById(id));
+    }
+
+    /**
+     * 학생 시간표 조회, 학생이 수강중인 교과 과정과 수강 정보를 반환한다.
+     * @param id 학생 아이디
+     * @return 교과 과정 아이디 순의 시간표
+     */
+    @GetMapping("/{id}/lectures")
+    public List<StudentLecture> findLectures(@PathVariable("id") Long id) {
+        return lectureService.findLecturesByStudent(id);
+    }
+
+    /**
+     * 학생 평점 조회, 종료된 수강 정보의 성적을 학점으로 가중 평균한 4.5 만점 평점을 반환한다.
+     * 클러스터 모드에서는 모든 노드의 수강 정보로 계산하며, 응답하지 않는 노드가 있으면 503 으로 응답한다.
+     * @param id 학생 아이디
+     * @return 평점, 이수 학점과 성적이 부여된 과목 수
+     */
+    @GetMapping("/{id}/gpa")
+    public StudentGpa findGpa(@PathVariable("id") Long id) {
+        if (studentService.findById(id) == null) {
+            throw new RuntimeException("Resource Not Found");
+        }
+        return gpaEngine.findByStudentId(id);
+    }
+
+    /**
+     * 평점 순위 조회, 평점이 같으면 이수 학점이 많은 학생이 앞선다. 삭제된 학생은 포함하지 않는다.
+     * 클러스터 모드에서는 모든 노드의 수강 정보로 계산하며, 응답하지 않는 노드가 있으면 503 으로 응답한다.
+     * @param limit 조회할 학생 수
+     * @param minCredits 순위에 포함할 최소 이수 학점
+     * @return 순위가 포함된 평점 목록
+     */
+    @GetMapping("/gpa/ranking")
+    public List<StudentGpa> findGpaRanking(@RequestParam(value = "limit", defaultValue = "10") int limit,
+                                           @RequestParam(value = "minCredits", defaultValue = "0") int minCredits) {
+        return gpaEngine.findTop(limit, minCredits);
+    }
+
+    /**
+     * 학기 마감 등으로 전체 평점을 다시 계산한다.
+     * @return 재계산한 학생 수, 수강 정보 수와 소요 시간
+     */
+    @PostMapping("/gpa/recompute")
+    public Map<String, Object> recomputeGpa() {
+        return gpaEngine.recompute();
     }
 
     /**
@@ -77,6 +158,16 @@ public class StudentController {
         return studentService.findByMajor(subject);
     }
 
+    /**
+     * 전공과목으로 학생 목록을 조회할때 쿼리 엔진이 선택한 실행 계획을 반환한다.
+     * @param subject 전공과목
+     * @return EXPLAIN 형식의 실행 계획
+     */
+    @GetMapping("/major/{subject}/explain")
+    public String explainFindByMajor(@PathVariable("subject") String subject) {
+        return studentService.explainFindByMajor(subject);
+    }
+
     /**
      * 학생 아이디로 학생 정보 제거 수행
      * @param id 삭제할 학생 아이디
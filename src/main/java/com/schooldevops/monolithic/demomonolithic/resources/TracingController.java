@@ -0,0 +1,60 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.schooldevops.monolithic.demomonolithic.tracing.Trace;
+import com.schooldevops.monolithic.demomonolithic.tracing.Tracer;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @RequestMapping을 통해서 엔드포인트를 /debug/traces 로 시작하게 설정한다.
+ */
+@RequestMapping("/debug/traces")
+@RestController
+public class TracingController {
+
+    private final Tracer tracer;
+
+    public TracingController(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * 보관된 트레이스의 요약을 최근 순서로 반환한다.
+     * @param minDurationMs 이 시간 (ms) 이상 걸린 트레이스만 반환한다.
+     * @param limit 최대 개수
+     */
+    @GetMapping
+    public List<Trace> findRecent(@RequestParam(defaultValue = "0") double minDurationMs,
+                                  @RequestParam(defaultValue = "50") int limit) {
+        return tracer.findRecent(minDurationMs, limit);
+    }
+
+    /**
+     * 트레이스 설정과 추적한 요청, 보관한 트레이스 수를 반환한다.
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return tracer.stats();
+    }
+
+    /**
+     * 트레이스를 구간 목록과 함께 반환한다. 구간은 시작한 순서이며 depth 로 호출 관계를 나타낸다.
+     * @param traceId 응답의 X-Trace-Id 헤더로 받은 트레이스 아이디
+     */
+    @GetMapping("/{traceId}")
+    public Trace findById(@PathVariable String traceId) {
+        Trace trace = tracer.findById(traceId);
+        if (trace == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Trace not found or already evicted: " + traceId);
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,80 @@
+package com.schooldevops.monolithic.demomonolithic.services;
+
+import com.schooldevops.monolithic.demomonolithic.exceptions.InvalidExpansionException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 응답에 포함할 연관 관계 목록이다. ?expand=subject,professor,attendedSubjects.student 와 같이 쉼표로 구분하여 전달한다.
+ * 하위 관계를 지정하면 상위 관계도 함께 포함된다. (attendedSubjects.student 는 attendedSubjects 를 포함한다.)
+ * 포함하지 않은 연관 관계는 아이디만 채워서 응답한다.
+ */
+public final class Expansion {
+
+    public static final Expansion NONE = new Expansion(Set.of());
+
+    private final Set<String> paths;
+
+    private Expansion(Set<String> paths) {
+        this.paths = Collections.unmodifiableSet(paths);
+    }
+
+    /**
+     * 연관 관계 목록으로 Expansion 을 만든다.
+     */
+    public static Expansion of(String... paths) {
+        return new Expansion(new TreeSet<>(Arrays.asList(paths)));
+    }
+
+    /**
+     * expand 파라미터를 해석한다.
+     * @param expand 쉼표로 구분된 연관 관계, null 이면 기본값을 사용하고 빈 문자열이면 아무것도 포함하지 않는다.
+     * @param relations 지원하는 연관 관계
+     * @param defaults expand 파라미터가 없을때 사용할 기본값
+     * @return 해석된 Expansion
+     * @throws InvalidExpansionException 지원하지 않는 연관 관계가 포함된 경우
+     */
+    public static Expansion parse(String expand, Set<String> relations, Expansion defaults) {
+        if (expand == null) {
+            return defaults;
+        }
+
+        Set<String> paths = new TreeSet<>();
+        for (String token : expand.split(",")) {
+            String path = token.trim();
+            if (path.isEmpty()) {
+                continue;
+            }
+            if (!relations.contains(path)) {
+                throw new InvalidExpansionException(path, relations);
+            }
+            for (int dot = path.indexOf('.'); dot >= 0; dot = path.indexOf('.', dot + 1)) {
+                paths.add(path.substring(0, dot));
+            }
+            paths.add(path);
+        }
+        return new Expansion(paths);
+    }
+
+    public boolean contains(String path) {
+        return paths.contains(path);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Expansion && paths.equals(((Expansion) o).paths);
+    }
+
+    @Override
+    public int hashCode() {
+        return paths.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", paths);
+    }
+}
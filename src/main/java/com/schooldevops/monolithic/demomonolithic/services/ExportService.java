@@ -0,0 +1,50 @@
+package com.schooldevops.monolithic.demomonolithic.services;
+
+import com.schooldevops.monolithic.demomonolithic.domains.DataExport;
+import com.schooldevops.monolithic.demomonolithic.repositories.*;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * 전체 데이터를 일관된 시점으로 추출하는 서비스이다.
+ * 하나의 읽기 스냅샷에서 모든 리포지토리를 읽으므로, 추출하는 동안 쓰기를 멈추지 않아도 된다.
+ */
+@Slf4j
+@Service
+public class ExportService {
+
+    private final VersionedStorage versionedStorage;
+    private final StudentRepository studentRepository;
+    private final ProfessorRepository professorRepository;
+    private final SubjectRepository subjectRepository;
+    private final LectureRepository lectureRepository;
+    private final AttendedSubjectRepository attendedSubjectRepository;
+
+    public ExportService(VersionedStorage versionedStorage, StudentRepository studentRepository, ProfessorRepository professorRepository, SubjectRepository subjectRepository, LectureRepository lectureRepository, AttendedSubjectRepository attendedSubjectRepository) {
+        this.versionedStorage = versionedStorage;
+        this.studentRepository = studentRepository;
+        this.professorRepository = professorRepository;
+        this.subjectRepository = subjectRepository;
+        this.lectureRepository = lectureRepository;
+        this.attendedSubjectRepository = attendedSubjectRepository;
+    }
+
+    /**
+     * 현재 시점의 읽기 스냅샷으로 전체 데이터를 추출한다.
+     * @return 추출된 전체 데이터
+     */
+    public DataExport export() {
+        try (ReadSnapshot snapshot = versionedStorage.openSnapshot()) {
+            log.info("Export at sequence {}", snapshot.getSequence());
+            return new DataExport(
+                    snapshot.getSequence(),
+                    studentRepository.findAll(snapshot),
+                    professorRepository.findAll(snapshot),
+                    subjectRepository.findAll(snapshot),
+                    lectureRepository.findAll(snapshot),
+                    attendedSubjectRepository.findAll(snapshot));
+        }
+    }
+}
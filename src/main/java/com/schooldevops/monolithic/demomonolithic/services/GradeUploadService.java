@@ -0,0 +1,169 @@
+package com.schooldevops.monolithic.demomonolithic.services;
+
+import com.schooldevops.monolithic.demomonolithic.cluster.PartitionRouter;
+import com.schooldevops.monolithic.demomonolithic.domains.GradeUploadResult;
+import com.schooldevops.monolithic.demomonolithic.domains.Lecture;
+import com.schooldevops.monolithic.demomonolithic.exceptions.LectureClosedException;
+import com.schooldevops.monolithic.demomonolithic.gpa.GradeScale;
+import com.schooldevops.monolithic.demomonolithic.gpa.GradeSheetReader;
+import com.schooldevops.monolithic.demomonolithic.repositories.AttendedSubjectRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.LectureRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.WriteBatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 학기말에 교과 과정 단위로 성적을 일괄 등록하는 서비스이다.
+ *
+ * 본문은 GradeSheetReader 로 한 행씩 읽어 grading.bulk.batch-size 행마다 하나의 쓰기 배치로 반영하므로,
+ * 수만 행을 등록하더라도 메모리에는 한 배치만 올라간다. 배치 안의 성적은 한 시점에 함께 공개된다.
+ * 일괄 등록한 성적은 상태를 바꾸지 않으며, 모든 행이 반영되면 교과 과정을 종료하여
+ * 교과 과정과 모든 수강 정보를 한번에 종료(DONE) 상태로 바꾼다. 평점은 이때 함께 반영된다.
+ * 한 배치 안에 같은 수강 아이디가 여러번 나오면 마지막 성적을 반영한다.
+ * 반영하지 못한 행은 행 번호와 이유를 결과에 담고, 하나라도 있으면 교과 과정을 종료하지 않는다.
+ */
+@Slf4j
+@Service
+public class GradeUploadService {
+
+    private final LectureService lectureService;
+    private final LectureRepository lectureRepository;
+    private final AttendedSubjectRepository attendedSubjectRepository;
+    private final VersionedStorage versionedStorage;
+    private final PartitionRouter partitionRouter;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public GradeUploadService(LectureService lectureService, LectureRepository lectureRepository,
+                              AttendedSubjectRepository attendedSubjectRepository, VersionedStorage versionedStorage,
+                              PartitionRouter partitionRouter,
+                              @Value("${grading.bulk.batch-size:1000}") int batchSize,
+                              @Value("${grading.bulk.max-reported-errors:100}") int maxReportedErrors) {
+        this.lectureService = lectureService;
+        this.lectureRepository = lectureRepository;
+        this.attendedSubjectRepository = attendedSubjectRepository;
+        this.versionedStorage = versionedStorage;
+        this.partitionRouter = partitionRouter;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * 교과 과정의 성적을 일괄 등록한다.
+     * @param lectureId 교과 과정 아이디
+     * @param sheet 성적 본문
+     * @param close true 이면 모든 행이 반영된 후 교과 과정을 종료한다.
+     * @return 등록 결과
+     * @throws LectureClosedException 이미 종료된 교과 과정인 경우
+     */
+    public GradeUploadResult uploadGrades(Long lectureId, GradeSheetReader sheet, boolean close) throws IOException {
+        Lecture lecture = findOpenLecture(lectureId);
+        Set<Long> attendedIds = new HashSet<>();
+        lecture.getAttendedSubjects().forEach(item -> attendedIds.add(item.getId()));
+
+        GradeUploadResult result = new GradeUploadResult();
+        result.setLectureId(lectureId);
+        Map<Long, GradeSheetReader.Row> batch = new LinkedHashMap<>();
+        GradeSheetReader.Row row;
+        while ((row = sheet.next()) != null) {
+            result.setRows(result.getRows() + 1);
+            if (row.isMalformed()) {
+                reject(result, row, row.getError());
+            } else if (!GradeScale.isValid(row.getGrade())) {
+                reject(result, row, "unknown grade '" + row.getGrade() + "', supported grades are " + GradeScale.grades());
+            } else if (!attendedIds.contains(row.getAttendedId())) {
+                reject(result, row, "attended subject is not enrolled in lecture " + lectureId);
+            } else {
+                batch.put(row.getAttendedId(), row);
+            }
+
+            if (batch.size() >= batchSize) {
+                applyBatch(lectureId, batch, result);
+            }
+        }
+        applyBatch(lectureId, batch, result);
+
+        if (close && result.getErrorCount() == 0) {
+            result.setState(lectureService.closeLecture(lectureId).getState());
+            result.setClosed(true);
+        } else {
+            result.setState(lecture.getState());
+        }
+        log.info("Uploaded grades of lecture {}: {} rows, {} applied in {} batches, {} errors, closed: {}",
+                lectureId, result.getRows(), result.getApplied(), result.getBatches(), result.getErrorCount(), result.isClosed());
+        return result;
+    }
+
+    /**
+     * 모아둔 행의 성적을 하나의 쓰기 배치로 반영한다. 성적은 커밋 시점의 최신 수강 정보에 반영한다.
+     * 행마다 수강 정보를 미리 조회하지 않고, 커밋 시점에 수강 정보가 없어 교체하지 않은 행을 삭제된 수강 정보로 보고 실패한 행으로 기록한다.
+     * 클러스터 모드에서 다른 노드에 저장된 수강 정보도 실패한 행으로 기록한다.
+     */
+    private void applyBatch(Long lectureId, Map<Long, GradeSheetReader.Row> rows, GradeUploadResult result) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        findOpenLecture(lectureId);
+
+        Iterator<GradeSheetReader.Row> iterator = rows.values().iterator();
+        while (iterator.hasNext()) {
+            GradeSheetReader.Row row = iterator.next();
+            if (!partitionRouter.isLocal(row.getAttendedId())) {
+                reject(result, row, "attended subject is stored on node " + partitionRouter.ownerOf(row.getAttendedId()));
+                iterator.remove();
+            }
+        }
+
+        // update 는 커밋 시점에 수강 정보가 있을 때만 호출되므로, 호출된 아이디가 커밋 시점에 존재한 수강 정보이다.
+        // 다시 호출되더라도 같은 아이디를 기록할 뿐이므로 부수 효과가 없다.
+        Set<Long> found = new HashSet<>();
+        while (true) {
+            found.clear();
+            WriteBatch batch = versionedStorage.newWriteBatch();
+            rows.values().forEach(row -> attendedSubjectRepository.update(batch, row.getAttendedId(), attendedSubject -> {
+                found.add(attendedSubject.getId());
+                return row.getGrade().equals(attendedSubject.getGrade()) ? null : attendedSubject.toBuilder().grade(row.getGrade()).build();
+            }));
+            if (batch.commit()) {
+                break;
+            }
+        }
+
+        for (GradeSheetReader.Row row : rows.values()) {
+            if (found.contains(row.getAttendedId())) {
+                result.setApplied(result.getApplied() + 1);
+            } else {
+                reject(result, row, "Resource Not Found");
+            }
+        }
+        result.setBatches(result.getBatches() + 1);
+        rows.clear();
+    }
+
+    private Lecture findOpenLecture(Long lectureId) {
+        Lecture lecture = lectureRepository.findById(lectureId);
+        if (lecture == null) {
+            throw new RuntimeException("Resource Not Found");
+        }
+        if (LectureService.DONE.equals(lecture.getState())) {
+            throw new LectureClosedException(lectureId);
+        }
+        return lecture;
+    }
+
+    private void reject(GradeUploadResult result, GradeSheetReader.Row row, String message) {
+        result.setErrorCount(result.getErrorCount() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new GradeUploadResult.RowError(row.getLine(), row.getAttendedId(), message));
+        }
+    }
+}
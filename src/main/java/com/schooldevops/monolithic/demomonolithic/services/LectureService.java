@@ -1,12 +1,30 @@
 package com.schooldevops.monolithic.demomonolithic.services;
 
 import com.schooldevops.monolithic.demomonolithic.domains.*;
+import com.schooldevops.monolithic.demomonolithic.events.ChangeEvent;
+import com.schooldevops.monolithic.demomonolithic.events.ChangeEventBus;
+import com.schooldevops.monolithic.demomonolithic.exceptions.ClusterUnavailableException;
+import com.schooldevops.monolithic.demomonolithic.exceptions.DuplicateEnrollmentException;
+import com.schooldevops.monolithic.demomonolithic.exceptions.InvalidGradeException;
+import com.schooldevops.monolithic.demomonolithic.exceptions.LectureClosedException;
+import com.schooldevops.monolithic.demomonolithic.gpa.GradeScale;
 import com.schooldevops.monolithic.demomonolithic.repositories.AttendedSubjectRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.EnrollmentIndex;
 import com.schooldevops.monolithic.demomonolithic.repositories.LectureRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.WriteBatch;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @Slf4j 는 Lombok 과 연동된 로거이다. Lombok 을 활용하면 편리하게 로깅을 남길 수 있다.
@@ -22,13 +40,172 @@ public class LectureService {
     private final StudentService studentService;
     private final LectureRepository lectureRepository;
     private final AttendedSubjectRepository attendedSubjectRepository;
+    private final EnrollmentIndex enrollmentIndex;
+    private final VersionedStorage versionedStorage;
+    private final ChangeEventBus changeEventBus;
 
-    public LectureService(SubjectService subjectService, ProfessorService professorService, StudentService studentService, LectureRepository lectureRepository, AttendedSubjectRepository attendedSubjectRepository) {
+    public LectureService(SubjectService subjectService, ProfessorService professorService, StudentService studentService, LectureRepository lectureRepository, AttendedSubjectRepository attendedSubjectRepository, EnrollmentIndex enrollmentIndex, VersionedStorage versionedStorage, ChangeEventBus changeEventBus) {
         this.subjectService = subjectService;
         this.professorService = professorService;
         this.studentService = studentService;
         this.lectureRepository = lectureRepository;
         this.attendedSubjectRepository = attendedSubjectRepository;
+        this.enrollmentIndex = enrollmentIndex;
+        this.versionedStorage = versionedStorage;
+        this.changeEventBus = changeEventBus;
+    }
+
+    /**
+     * 교과 과정 응답에 포함할 수 있는 연관 관계
+     */
+    public static final Set<String> RELATIONS = Set.of("subject", "subject.professor", "professor", "attendedSubjects", "attendedSubjects.student");
+
+    /**
+     * expand 파라미터가 없을때 포함하는 연관 관계, 모든 연관 관계를 포함한다.
+     */
+    public static final Expansion DEFAULT_EXPANSION = Expansion.of(RELATIONS.toArray(new String[0]));
+
+    /**
+     * 종료된 교과 과정과 수강 정보의 상태
+     */
+    public static final String DONE = "DONE";
+
+    /**
+     * 모든 연관 관계를 포함하여 교과 과정을 조회한다.
+     * @param lectureId 교과 과정 아이디
+     * @return 최신 과목, 교수, 수강 정보로 구성된 교과 과정
+     */
+    public Lecture findLecture(Long lectureId) {
+        return findLecture(lectureId, DEFAULT_EXPANSION);
+    }
+
+    /**
+     * 요청한 연관 관계를 포함하여 교과 과정을 조회한다.
+     * 교과 과정, 과목, 교수, 수강 정보와 학생 정보를 하나의 읽기 스냅샷에서 조회하므로
+     * 동시에 쓰기가 일어나더라도 서로 다른 시점의 데이터가 섞이지 않는다.
+     * 연관 관계는 종류마다 한번에 조회하므로 수강생 수와 관계없이 조회 횟수가 일정하다.
+     * 교과 과정의 교수와 과목의 교수도 함께 모아서 한번에 조회한다.
+     * 포함하지 않은 연관 관계는 아이디만 채워서 반환한다.
+     * @param lectureId 교과 과정 아이디
+     * @param expansion 포함할 연관 관계
+     * @return 요청한 연관 관계가 채워진 교과 과정
+     */
+    public Lecture findLecture(Long lectureId, Expansion expansion) {
+        try (ReadSnapshot snapshot = versionedStorage.openSnapshot()) {
+            Lecture lecture = lectureRepository.findById(lectureId, snapshot);
+            if (lecture == null) {
+                throw new RuntimeException("Resource Not Found");
+            }
+
+            Lecture assembled = copyOf(lecture);
+            Subject subject = lecture.getSubject();
+            if (subject != null) {
+                if (expansion.contains("subject")) {
+                    Subject stored = subjectService.findAllById(List.of(subject.getId()), snapshot, Expansion.NONE).get(0);
+                    subject = stored != null ? stored : subject.toBuilder().build();
+                } else {
+                    subject = Subject.builder().id(subject.getId()).build();
+                }
+            }
+
+            List<Long> professorIds = new ArrayList<>();
+            if (expansion.contains("professor") && lecture.getProfessor() != null) {
+                professorIds.add(lecture.getProfessor().getId());
+            }
+            if (expansion.contains("subject.professor") && subject != null && subject.getProfessorId() != null) {
+                professorIds.add(subject.getProfessorId());
+            }
+            Map<Long, Professor> professors = byId(professorService.findAllById(professorIds, snapshot));
+
+            if (subject != null && expansion.contains("subject.professor")) {
+                subject.setProfessor(professors.get(subject.getProfessorId()));
+            }
+            assembled.setSubject(subject);
+            if (lecture.getProfessor() != null) {
+                assembled.setProfessor(expansion.contains("professor")
+                        ? professors.getOrDefault(lecture.getProfessor().getId(), lecture.getProfessor())
+                        : Professor.builder().id(lecture.getProfessor().getId()).build());
+            }
+            assembled.setAttendedSubjects(assembleAttendedSubjects(assembled.getAttendedSubjects(), snapshot, expansion));
+            return assembled;
+        }
+    }
+
+    /**
+     * 수강 정보와 학생 정보를 종류마다 한번씩 조회하여 채운다.
+     */
+    private List<AttendedSubject> assembleAttendedSubjects(List<AttendedSubject> attendedSubjects, ReadSnapshot snapshot, Expansion expansion) {
+        if (!expansion.contains("attendedSubjects")) {
+            return attendedSubjects.stream()
+                    .map(item -> AttendedSubject.builder().id(item.getId()).build())
+                    .collect(Collectors.toList());
+        }
+
+        List<AttendedSubject> stored = attendedSubjectRepository.findAllById(
+                attendedSubjects.stream().map(AttendedSubject::getId).collect(Collectors.toList()), snapshot);
+        List<AttendedSubject> assembled = new ArrayList<>(attendedSubjects.size());
+        for (int i = 0; i < attendedSubjects.size(); i++) {
+            assembled.add((stored.get(i) != null ? stored.get(i) : attendedSubjects.get(i)).toBuilder().build());
+        }
+
+        List<Long> studentIds = assembled.stream().map(AttendedSubject::getStudent).filter(Objects::nonNull)
+                .map(Student::getId).distinct().collect(Collectors.toList());
+        Map<Long, Student> students = expansion.contains("attendedSubjects.student")
+                ? byId(studentService.findAllById(studentIds, snapshot)) : Map.of();
+        for (AttendedSubject item : assembled) {
+            if (item.getStudent() == null) {
+                continue;
+            }
+            item.setStudent(expansion.contains("attendedSubjects.student")
+                    ? students.getOrDefault(item.getStudent().getId(), item.getStudent())
+                    : Student.builder().id(item.getStudent().getId()).build());
+        }
+        return assembled;
+    }
+
+    /**
+     * 조회된 엔티티 목록을 아이디로 찾을 수 있게 만든다. 없는 엔티티(null)는 제외한다.
+     */
+    private static <T extends VersionedEntity> Map<Long, T> byId(List<T> entities) {
+        Map<Long, T> byId = new HashMap<>();
+        entities.stream().filter(Objects::nonNull).forEach(entity -> byId.put(entity.getId(), entity));
+        return byId;
+    }
+
+    /**
+     * 학생의 시간표를 조회한다.
+     * 역방향 수강 인덱스로 학생이 수강중인 교과 과정만 찾고, 교과 과정과 수강 정보는 하나의 읽기 스냅샷에서 조회한다.
+     * @param studentId 학생 아이디
+     * @return 교과 과정 아이디 순의 시간표
+     */
+    public List<StudentLecture> findLecturesByStudent(Long studentId) {
+        try (ReadSnapshot snapshot = versionedStorage.openSnapshot()) {
+            if (studentService.findById(studentId, snapshot) == null) {
+                throw new RuntimeException("Resource Not Found");
+            }
+
+            List<StudentLecture> timetable = new ArrayList<>();
+            enrollmentIndex.findByStudentId(studentId).forEach((lectureId, attendedSubject) -> {
+                Lecture lecture = lectureRepository.findById(lectureId, snapshot);
+                if (lecture == null) {
+                    return;
+                }
+                AttendedSubject stored = attendedSubjectRepository.findById(attendedSubject.getId(), snapshot);
+                timetable.add(new StudentLecture(lecture.getId(), lecture.getSubject(), lecture.getProfessor(),
+                        lecture.getLimitStudents(), lecture.getState(), stored != null ? stored : attendedSubject));
+            });
+            return timetable;
+        }
+    }
+
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 교과 과정 목록을 조회한다.
+     * 저장된 교과 과정을 그대로 반환하며, 학생 정보는 학생 변경 목록으로 따로 동기화한다.
+     * @param since 마지막으로 동기화한 워터마크, 처음 동기화라면 0
+     * @return 변경된 교과 과정 목록, 삭제된 교과 과정 아이디와 새로운 워터마크
+     */
+    public ChangeSet<Lecture> findChangesSince(long since) {
+        return lectureRepository.findChangesSince(since);
     }
 
     /**
@@ -44,7 +221,7 @@ public class LectureService {
 
         lecture.setSubject(subjectInfo);
         lecture.setProfessor(getProfessorById(subjectInfo.getProfessorId()));
-        lecture.setAttendedSubjects(List.of());
+        lecture.setAttendedSubjects(new ArrayList<>());
         lecture.setLimitStudents(limitStudent);
         lecture.setState("APPLY");
 
@@ -53,24 +230,56 @@ public class LectureService {
 
     /**
      * Lecture 의 상태를 수정한다.
+     * 종료(DONE)된 교과 과정은 수정할 수 없으므로 상태를 바꾸어 다시 여는 것도 허용하지 않는다.
+     * 상태를 DONE 으로 바꾸면 다른 수정 사항을 반영한 후 closeLecture 로 수강 정보와 함께 종료한다.
      * @param lectureId Lecture 상태를 수정할 id
      * @param lecture 수정 정보
      * @return 수정된 Lecture
+     * @throws LectureClosedException 이미 종료된 교과 과정인 경우
      */
     public Lecture modifyLecture(Long lectureId, Lecture lecture) {
-        Lecture existsLecture = lectureRepository.findById(lectureId);
-        if (existsLecture == null) {
-            throw new RuntimeException("Resource Not Found");
-        }
-        if (lecture.getLimitStudents() != null) {
-            existsLecture.setLimitStudents(lecture.getLimitStudents());
-        }
+        boolean closing = DONE.equals(lecture.getState());
+        while (true) {
+            Lecture existsLecture = lectureRepository.findById(lectureId);
+            if (existsLecture == null) {
+                throw new RuntimeException("Resource Not Found");
+            }
+            if (DONE.equals(existsLecture.getState())) {
+                throw new LectureClosedException(lectureId);
+            }
+            if (closing && lecture.getLimitStudents() == null) {
+                return closeLecture(lectureId);
+            }
+
+            Lecture modifiedLecture = copyOf(existsLecture);
+            if (lecture.getLimitStudents() != null) {
+                modifiedLecture.setLimitStudents(lecture.getLimitStudents());
+            }
 
-        if (lecture.getState() != null) {
-            existsLecture.setState(lecture.getState());
+            if (lecture.getState() != null && !closing) {
+                modifiedLecture.setState(lecture.getState());
+            }
+
+            if (lectureRepository.compareAndSet(existsLecture, modifiedLecture)) {
+                if (closing) {
+                    return closeLecture(lectureId);
+                }
+                if (lecture.getLimitStudents() != null) {
+                    fillSeats(lectureId, modifiedLecture.getLimitStudents());
+                }
+                return modifiedLecture;
+            }
         }
+    }
 
-        return lectureRepository.save(existsLecture);
+    /**
+     * 제한 인원이 늘어난 만큼 대기 학생을 순서대로 등록한다.
+     */
+    private void fillSeats(Long lectureId, Integer limit) {
+        Long studentId;
+        while ((studentId = enrollmentIndex.promoteNext(lectureId, limit)) != null) {
+            promote(lectureId, studentId);
+        }
     }
 
     /**
@@ -88,9 +297,20 @@ public class LectureService {
         }
 
         lectureRepository.delete(lectureId);
+        enrollmentIndex.removeLecture(lectureId);
     }
 
-    public Lecture applyAttendedSubject(Long lectureId, Long studentId) {
+    /**
+     * 학생을 교과 과정에 수강 신청한다.
+     * 수강 인덱스에 학생 자리를 먼저 예약하므로 같은 학생이 동시에 신청하더라도 한번만 등록된다.
+     * 제한 인원이 찼거나 먼저 대기중인 학생이 있다면 등록하지 않고 대기열에 추가하며, 자리가 나면 순서대로 자동 등록된다.
+     * @param lectureId 교과 과정 아이디
+     * @param studentId 학생 아이디
+     * @return 수강 정보가 추가된 교과 과정, 혹은 대기열 항목
+     * @throws DuplicateEnrollmentException 이미 수강 신청한 학생인 경우
+     * @throws LectureClosedException 이미 종료된 교과 과정인 경우
+     */
+    public EnrollmentResult applyAttendedSubject(Long lectureId, Long studentId) {
         Student student = studentService.findById(studentId);
         if (student == null) {
             throw new RuntimeException("Resource Not Found");
@@ -100,40 +320,357 @@ public class LectureService {
         if (existsLecture == null) {
             throw new RuntimeException("Resource Not Found");
         }
+        if (DONE.equals(existsLecture.getState())) {
+            throw new LectureClosedException(lectureId);
+        }
+
+        if (!enrollmentIndex.reserve(lectureId, studentId)) {
+            throw new DuplicateEnrollmentException(lectureId, studentId);
+        }
 
+        WaitlistEntry waitlistEntry = enrollmentIndex.acquireSeat(lectureId, studentId, existsLecture.getLimitStudents());
+        if (waitlistEntry != null) {
+            enrollmentIndex.cancel(lectureId, studentId);
+            if (isClosed(lectureId)) {
+                // 대기열에 추가한 뒤 다시 확인하므로, 그 사이에 종료되었다면 closeLecture 가 대기열을 비운 뒤이거나 여기서 제거한다.
+                enrollmentIndex.leaveWaitlist(lectureId, studentId);
+                throw new LectureClosedException(lectureId);
+            }
+            publishWaitlistEvent(waitlistEntry);
+            return EnrollmentResult.waitlisted(waitlistEntry);
+        }
+
+        try {
+            return EnrollmentResult.enrolled(enroll(existsLecture, student, ChangeEvent.ENROLL));
+        } catch (RuntimeException e) {
+            releaseSeat(lectureId);
+            throw e;
+        }
+    }
+
+    /**
+     * 자리를 배정받고 학생 자리를 예약한 학생의 수강 정보를 저장하고 교과 과정에 추가한다.
+     * 수강 정보 저장과 교과 과정 교체를 하나의 쓰기 배치로 커밋하므로, 읽기는 교과 과정에 없는 수강 정보나 저장되지 않은 수강 정보를 보지 않는다.
+     * 그 사이 교과 과정이 바뀌었다면 다시 조회하여 시도하며, 종료 여부는 교체할 스냅샷에서 검사한다.
+     * 실패하면 학생 자리 예약을 되돌린다. 배정받은 자리는 호출한 쪽에서 반환한다.
+     * @throws LectureClosedException 이미 종료된 교과 과정인 경우
+     */
+    private Lecture enroll(Lecture existsLecture, Student student, String operation) {
+        Long lectureId = existsLecture.getId();
         AttendedSubject attendedSubject = new AttendedSubject();
         attendedSubject.setSubjectId(existsLecture.getSubject().getId());
         attendedSubject.setStudent(student);
         attendedSubject.setGrade("None");
         attendedSubject.setState("APPLY");
 
-        AttendedSubject savedAttendedSubject = attendedSubjectRepository.save(attendedSubject);
+        Lecture lecture;
+        try {
+            while (true) {
+                if (DONE.equals(existsLecture.getState())) {
+                    throw new LectureClosedException(lectureId);
+                }
+
+                WriteBatch batch = versionedStorage.newWriteBatch();
+                attendedSubjectRepository.save(batch, attendedSubject);
+                Lecture modifiedLecture = copyOf(existsLecture);
+                modifiedLecture.addAttendedSubject(attendedSubject);
+                lectureRepository.compareAndSet(batch, existsLecture, modifiedLecture);
+                if (batch.commit()) {
+                    lecture = modifiedLecture;
+                    break;
+                }
+
+                existsLecture = lectureRepository.findById(lectureId);
+                if (existsLecture == null) {
+                    throw new RuntimeException("Resource Not Found");
+                }
+            }
+        } catch (RuntimeException e) {
+            enrollmentIndex.cancel(lectureId, student.getId());
+            throw e;
+        }
 
-        return addAttendedSubject(lectureId, savedAttendedSubject);
+        enrollmentIndex.confirm(lectureId, attendedSubject);
+        publishEnrollmentEvent(operation, lectureId, attendedSubject);
+        return lecture;
+    }
 
+    /**
+     * 사용하던 자리를 반환한다. 대기중인 학생이 있다면 자리를 넘겨받은 학생을 등록한다.
+     */
+    private void releaseSeat(Long lectureId) {
+        promote(lectureId, enrollmentIndex.releaseSeat(lectureId, limitOf(lectureId)));
     }
 
-    public Lecture addAttendedSubject(Long lectureId, AttendedSubject attendedSubject) {
-        Lecture existsLecture = lectureRepository.findById(lectureId);
-        if (existsLecture == null) {
+    /**
+     * 자리를 넘겨받은 대기 학생을 등록하고 PROMOTE 이벤트를 발행한다.
+     * 학생이 삭제되었거나 이미 수강중이라 등록하지 못하면 자리를 반환하여 다음 대기 학생에게 넘긴다.
+     * 교과 과정이 종료(DONE)되었다면 등록하지 않는다.
+     * @param lectureId 교과 과정 아이디
+     * @param studentId 자리를 넘겨받은 학생 아이디, null 이면 아무것도 하지 않는다.
+     */
+    private void promote(Long lectureId, Long studentId) {
+        while (studentId != null) {
+            Lecture existsLecture = lectureRepository.findById(lectureId);
+            if (existsLecture == null || DONE.equals(existsLecture.getState())) {
+                return;
+            }
+            Student student = studentService.findById(studentId);
+            if (student != null && enrollmentIndex.reserve(lectureId, studentId)) {
+                try {
+                    enroll(existsLecture, student, ChangeEvent.PROMOTE);
+                    return;
+                } catch (LectureClosedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    log.warn("Failed to promote student {} from waitlist of lecture {}", studentId, lectureId, e);
+                }
+            }
+            studentId = enrollmentIndex.releaseSeat(lectureId, existsLecture.getLimitStudents());
+        }
+    }
+
+    private boolean isClosed(Long lectureId) {
+        Lecture lecture = lectureRepository.findById(lectureId);
+        return lecture != null && DONE.equals(lecture.getState());
+    }
+
+    private Integer limitOf(Long lectureId) {
+        Lecture lecture = lectureRepository.findById(lectureId);
+        return lecture == null ? null : lecture.getLimitStudents();
+    }
+
+    /**
+     * 교과 과정의 대기열을 대기 순서대로 조회한다.
+     * @param lectureId 교과 과정 아이디
+     * @return 대기열 항목 목록
+     */
+    public List<WaitlistEntry> findWaitlist(Long lectureId) {
+        if (lectureRepository.findById(lectureId) == null) {
             throw new RuntimeException("Resource Not Found");
         }
 
-        existsLecture.addAttendedSubject(attendedSubject);
+        List<WaitlistEntry> waitlist = new ArrayList<>();
+        enrollmentIndex.findWaitlist(lectureId).forEach((studentId, waitlistedAt) ->
+                waitlist.add(new WaitlistEntry(lectureId, studentId, waitlist.size() + 1, waitlistedAt)));
+        return waitlist;
+    }
 
-        return lectureRepository.save(existsLecture);
+    /**
+     * 대기열에서 학생을 제거한다.
+     * @param lectureId 교과 과정 아이디
+     * @param studentId 학생 아이디
+     * @return 대기중이었다면 true
+     */
+    public boolean leaveWaitlist(Long lectureId, Long studentId) {
+        return enrollmentIndex.leaveWaitlist(lectureId, studentId);
     }
 
+    /**
+     * 수강 신청을 취소한다.
+     * 수강 인덱스에서 취소할 수강 정보를 먼저 가져가므로 대상 조회는 O(1) 이며, 동시에 같은 수강 정보를 취소하면 한 요청만 성공한다.
+     * 교과 과정에서 수강 정보를 제거하는 교체와 수강 정보 삭제를 하나의 쓰기 배치로 커밋하므로, 읽기는 둘 중 하나만 반영된 상태를 보지 않는다.
+     * 마지막으로 학생 자리를 반환한다. 종료된 교과 과정의 수강 정보는 성적과 함께 남아야 하므로 취소할 수 없다.
+     * @param lectureId 교과 과정 아이디
+     * @param attendedId 수강 아이디
+     * @return 취소되었다면 true, 수강중이 아니라면 false
+     * @throws LectureClosedException 이미 종료된 교과 과정인 경우
+     * @throws ClusterUnavailableException 클러스터 모드에서 수강 정보가 다른 노드에 저장되어 있는 경우
+     */
     public boolean removeAttendedSubject(Long lectureId, Long attendedId) {
-        Lecture existsLecture = lectureRepository.findById(lectureId);
-        if (existsLecture == null) {
+        Lecture lecture = lectureRepository.findById(lectureId);
+        if (lecture == null) {
             throw new RuntimeException("Resource Not Found");
         }
+        if (DONE.equals(lecture.getState())) {
+            throw new LectureClosedException(lectureId);
+        }
+
+        AttendedSubject target = enrollmentIndex.claim(lectureId, attendedId);
+        if (target == null) {
+            return false;
+        }
 
-        List<AttendedSubject> attendedSubjects = existsLecture.getAttendedSubjects();
-        if (attendedSubjects == null || attendedSubjects.size() == 0) return true;
+        try {
+            while (true) {
+                Lecture existsLecture = lectureRepository.findById(lectureId);
+                if (existsLecture == null) {
+                    throw new RuntimeException("Resource Not Found");
+                }
+                if (DONE.equals(existsLecture.getState())) {
+                    throw new LectureClosedException(lectureId);
+                }
+
+                WriteBatch batch = versionedStorage.newWriteBatch();
+                Lecture modifiedLecture = existsLecture.toBuilder()
+                        .attendedSubjects(withoutAttendedSubject(existsLecture.getAttendedSubjects(), target))
+                        .build();
+                lectureRepository.compareAndSet(batch, existsLecture, modifiedLecture);
+                attendedSubjectRepository.delete(batch, attendedId);
+                if (batch.commit()) {
+                    break;
+                }
+            }
+        } catch (LectureClosedException e) {
+            // 가져간 사이에 종료되었다면 수강 정보는 그대로 남으므로 인덱스에 되돌린다.
+            enrollmentIndex.confirm(lectureId, target);
+            throw e;
+        } catch (RuntimeException e) {
+            enrollmentIndex.release(lectureId, target);
+            throw e;
+        }
+        enrollmentIndex.release(lectureId, target);
+
+        publishEnrollmentEvent(ChangeEvent.UNENROLL, lectureId, target);
+        releaseSeat(lectureId);
+        return true;
+    }
+
+    /**
+     * 수강 정보에 성적을 부여하고 종료(DONE) 상태로 변경한다.
+     * 교과 과정의 수강 정보인지는 수강 인덱스로 수강 인원과 관계없이 O(1) 로 검사한다.
+     * 수강 정보를 복사하여 수정한 뒤 compareAndSet 으로 교체하며, 교체되면 평점 엔진이 변경 리스너로 학생의 평점 합계를 갱신한다.
+     * @param lectureId 교과 과정 아이디
+     * @param attendedId 수강 아이디
+     * @param grade 부여할 성적 (4.5 만점 등급표의 성적)
+     * @return 성적이 부여된 수강 정보
+     * @throws InvalidGradeException 등급표에 없는 성적인 경우
+     */
+    public AttendedSubject gradeAttendedSubject(Long lectureId, Long attendedId, String grade) {
+        if (!GradeScale.isValid(grade)) {
+            throw new InvalidGradeException(grade, GradeScale.grades());
+        }
 
-        return attendedSubjects.removeIf(item -> item.getId() == attendedId);
+        if (!enrollmentIndex.contains(lectureId, attendedId)) {
+            throw new RuntimeException("Resource Not Found");
+        }
+
+        while (true) {
+            AttendedSubject existsAttendedSubject = attendedSubjectRepository.findById(attendedId);
+            if (existsAttendedSubject == null) {
+                throw new RuntimeException("Resource Not Found");
+            }
+
+            AttendedSubject gradedAttendedSubject = existsAttendedSubject.toBuilder().grade(grade).state(DONE).build();
+            if (attendedSubjectRepository.compareAndSet(existsAttendedSubject, gradedAttendedSubject)) {
+                return gradedAttendedSubject;
+            }
+        }
+    }
+
+    /**
+     * 교과 과정을 종료한다.
+     * 교과 과정과 모든 수강 정보를 종료(DONE) 상태로 바꾼 복사본을 하나의 쓰기 배치로 교체하므로,
+     * 읽기는 종료 전이나 종료 후의 상태만 보게 되고 평점 엔진도 같은 커밋에서 모든 성적을 반영한다.
+     * 수강 정보는 커밋 시점의 최신 값을 바꾸므로 동시에 성적이 부여되더라도 그 성적을 유지한다.
+     * 그 사이에 수강 신청이나 취소로 교과 과정이 바뀌었다면 다시 조회하여 시도한다.
+     * 종료한 후에는 대기열을 비우며, 이후의 수강 신청과 대기열 등록은 LectureClosedException 으로 거절된다.
+     * @param lectureId 교과 과정 아이디
+     * @return 종료된 교과 과정, 연관 관계는 아이디만 포함한다.
+     * @throws LectureClosedException 이미 종료된 교과 과정인 경우
+     * @throws ClusterUnavailableException 클러스터 모드에서 수강 정보가 다른 노드에 저장되어 있는 경우
+     */
+    public Lecture closeLecture(Long lectureId) {
+        while (true) {
+            Lecture existsLecture = lectureRepository.findById(lectureId);
+            if (existsLecture == null) {
+                throw new RuntimeException("Resource Not Found");
+            }
+            if (DONE.equals(existsLecture.getState())) {
+                throw new LectureClosedException(lectureId);
+            }
+
+            WriteBatch batch = versionedStorage.newWriteBatch();
+            Lecture closedLecture = copyOf(existsLecture);
+            closedLecture.setState(DONE);
+            lectureRepository.compareAndSet(batch, existsLecture, closedLecture);
+            for (AttendedSubject item : closedLecture.getAttendedSubjects()) {
+                attendedSubjectRepository.update(batch, item.getId(),
+                        attendedSubject -> DONE.equals(attendedSubject.getState()) ? null : attendedSubject.toBuilder().state(DONE).build());
+            }
+
+            if (batch.commit()) {
+                enrollmentIndex.clearWaitlist(lectureId);
+                log.info("Closed lecture {} with {} attended subjects", lectureId, batch.size() - 1);
+                return findLecture(lectureId, Expansion.NONE);
+            }
+        }
+    }
+
+    /**
+     * 수강 신청/대기열 등록/취소 이벤트를 변경 스트림에 발행한다.
+     * @param operation ENROLL, PROMOTE 혹은 UNENROLL
+     * @param lectureId 교과 과정 아이디
+     * @param attendedSubject 신청 혹은 취소된 수강 정보
+     */
+    private void publishEnrollmentEvent(String operation, Long lectureId, AttendedSubject attendedSubject) {
+        Long studentId = attendedSubject.getStudent() == null ? null : attendedSubject.getStudent().getId();
+        Map<String, Long> payload = new HashMap<>();
+        payload.put("lectureId", lectureId);
+        payload.put("attendedSubjectId", attendedSubject.getId());
+        payload.put("studentId", studentId);
+        changeEventBus.publish(new ChangeEvent(versionedStorage.currentSequence(), "enrollment", operation,
+                attendedSubject.getId(), payload, LocalDateTime.now()));
+    }
+
+    /**
+     * 대기열에 추가된 학생을 변경 스트림에 알린다.
+     */
+    private void publishWaitlistEvent(WaitlistEntry waitlistEntry) {
+        Map<String, Long> payload = new HashMap<>();
+        payload.put("lectureId", waitlistEntry.getLectureId());
+        payload.put("studentId", waitlistEntry.getStudentId());
+        payload.put("position", waitlistEntry.getPosition().longValue());
+        changeEventBus.publish(new ChangeEvent(versionedStorage.currentSequence(), "enrollment", ChangeEvent.WAITLIST,
+                waitlistEntry.getLectureId(), payload, waitlistEntry.getWaitlistedAt()));
+    }
+
+    /**
+     * 수강 목록에서 취소할 수강 정보를 뺀 새 목록을 만든다.
+     * 수강 인덱스가 돌려준 수강 정보는 교과 과정에 들어있는 것과 같은 인스턴스이므로 위치를 뒤에서부터 동일성으로 찾고,
+     * 찾지 못한 경우에만 아이디로 찾는다. 스냅샷은 변경할 수 없으므로 목록 복사는 한번 한다.
+     * @param attendedSubjects 교과 과정의 수강 목록
+     * @param target 취소할 수강 정보
+     * @return 취소할 수강 정보를 뺀 목록
+     */
+    private static List<AttendedSubject> withoutAttendedSubject(List<AttendedSubject> attendedSubjects, AttendedSubject target) {
+        if (attendedSubjects == null) {
+            return new ArrayList<>();
+        }
+
+        int index = -1;
+        for (int i = attendedSubjects.size() - 1; i >= 0; i--) {
+            if (attendedSubjects.get(i) == target) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            for (int i = 0; i < attendedSubjects.size(); i++) {
+                if (target.getId().equals(attendedSubjects.get(i).getId())) {
+                    index = i;
+                    break;
+                }
+            }
+        }
+        if (index < 0) {
+            return new ArrayList<>(attendedSubjects);
+        }
+
+        List<AttendedSubject> remaining = new ArrayList<>(attendedSubjects.size() - 1);
+        remaining.addAll(attendedSubjects.subList(0, index));
+        remaining.addAll(attendedSubjects.subList(index + 1, attendedSubjects.size()));
+        return remaining;
+    }
+
+    /**
+     * 저장소의 스냅샷을 변경하지 않도록 수강 목록까지 복사한 교과 과정을 만든다.
+     * @param lecture 복사할 교과 과정
+     * @return 복사된 교과 과정
+     */
+    private Lecture copyOf(Lecture lecture) {
+        List<AttendedSubject> attendedSubjects = lecture.getAttendedSubjects() == null ? new ArrayList<>() : new ArrayList<>(lecture.getAttendedSubjects());
+        return lecture.toBuilder().attendedSubjects(attendedSubjects).build();
     }
 
     /**
@@ -1,36 +1,65 @@
 package com.schooldevops.monolithic.demomonolithic.services;
 
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
 import com.schooldevops.monolithic.demomonolithic.domains.Professor;
+import com.schooldevops.monolithic.demomonolithic.exceptions.VersionConflictException;
 import com.schooldevops.monolithic.demomonolithic.repositories.ProfessorRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @Slf4j
 public class ProfessorService {
 
     private final ProfessorRepository professorRepository;
+    private final VersionedStorage versionedStorage;
 
-    public ProfessorService(ProfessorRepository professorRepository) {
+    public ProfessorService(ProfessorRepository professorRepository, VersionedStorage versionedStorage) {
         this.professorRepository = professorRepository;
+        this.versionedStorage = versionedStorage;
     }
 
     public List<Professor> findAll() {
         return professorRepository.findAll();
     }
 
+    public ChangeSet<Professor> findChangesSince(long since) {
+        return professorRepository.findChangesSince(since);
+    }
+
     public Professor findById(Long id) {
         return professorRepository.findById(id);
     }
 
+    public Professor findById(Long id, ReadSnapshot snapshot) {
+        return professorRepository.findById(id, snapshot);
+    }
+
+    public List<Professor> findAllById(List<Long> ids) {
+        try (ReadSnapshot snapshot = versionedStorage.openSnapshot()) {
+            return findAllById(ids, snapshot);
+        }
+    }
+
+    public List<Professor> findAllById(List<Long> ids, ReadSnapshot snapshot) {
+        return professorRepository.findAllById(ids, snapshot);
+    }
+
     public List<Professor> findBySubjectName(String subjectName) {
-        log.info(String.format("Service Call by Subject %s", subjectName));
+        log.info("Service Call by Subject {}", subjectName);
         return professorRepository.findBySubjectName(subjectName);
     }
 
+    public String explainFindBySubjectName(String subjectName) {
+        return professorRepository.explainFindBySubjectName(subjectName);
+    }
+
     public Professor join(Professor professor) {
         if (professor != null && professor.getId() != null) {
             throw new IllegalArgumentException("Professor id must be null, when you join in.");
@@ -40,25 +69,48 @@ public class ProfessorService {
     }
 
     public Professor modify(Long professorId, Professor professor) {
+        return modify(professorId, professor, null);
+    }
+
+    /**
+     * 교수 정보를 낙관적 동시성 제어로 수정한다.
+     * 현재 스냅샷의 복사본을 수정하여 compareAndSet 으로 교체하고, 경합이 있었다면 다시 시도한다.
+     * @param professorId 교수 아이디
+     * @param professor 수정할 정보
+     * @param expectedVersions 클라이언트가 알고 있는 버전 목록 (If-Match), null 이면 버전을 검사하지 않는다.
+     * @return 수정된 교수 정보
+     */
+    public Professor modify(Long professorId, Professor professor, Set<Long> expectedVersions) {
         if (professorId == null || professor == null) {
             throw new IllegalArgumentException("Professor id can not be null, when you update it");
         }
 
-        Professor existsProfessor = setProfessorUpdateInfo(professorId, professor);
+        while (true) {
+            Professor existsProfessor = professorRepository.findById(professorId);
+            if (existsProfessor == null) {
+                throw new RuntimeException("Resource Not Found");
+            }
+            if (expectedVersions != null && !expectedVersions.contains(existsProfessor.getVersion())) {
+                throw new VersionConflictException("Professor", professorId, expectedVersions, existsProfessor.getVersion());
+            }
 
-        return professorRepository.save(existsProfessor);
+            Professor updatedProfessor = setProfessorUpdateInfo(existsProfessor, professor);
+            if (professorRepository.compareAndSet(existsProfessor, updatedProfessor)) {
+                return updatedProfessor;
+            }
+        }
     }
 
-    private Professor setProfessorUpdateInfo(Long professorId, Professor professor) {
-        Professor existsProfessor = professorRepository.findById(professorId);
+    private Professor setProfessorUpdateInfo(Professor existsProfessor, Professor professor) {
+        Professor updatedProfessor = existsProfessor.toBuilder().build();
         if (professor.getName() != null) {
-            existsProfessor.setName(professor.getName());
+            updatedProfessor.setName(professor.getName());
         }
 
         if (professor.getMajor() != null) {
-            existsProfessor.setMajor(professor.getMajor());
+            updatedProfessor.setMajor(professor.getMajor());
         }
-        return existsProfessor;
+        return updatedProfessor;
     }
 
     public void delete(Long id) {
@@ -1,12 +1,17 @@
 package com.schooldevops.monolithic.demomonolithic.services;
 
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
 import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.exceptions.VersionConflictException;
 import com.schooldevops.monolithic.demomonolithic.repositories.StudentRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @Slf4j 는 Lombok 과 연동된 로거이다. Lombok 을 활용하면 편리하게 로깅을 남길 수 있다.
@@ -21,9 +26,11 @@ public class StudentService {
      * StudentRepository 를 생성자를 통한 의존성 주입을 수행하고 있다.
      */
     private final StudentRepository studentRepository;
+    private final VersionedStorage versionedStorage;
 
-    public StudentService(StudentRepository studentRepository) {
+    public StudentService(StudentRepository studentRepository, VersionedStorage versionedStorage) {
         this.studentRepository = studentRepository;
+        this.versionedStorage = versionedStorage;
     }
 
     /**
@@ -35,6 +42,37 @@ public class StudentService {
         return studentRepository.findById(studentId);
     }
 
+    /**
+     * 읽기 스냅샷 시점의 학생 정보 조회
+     * @param studentId 학생 아이디
+     * @param snapshot 읽기 스냅샷
+     * @return 조회된 학생 정보
+     */
+    public Student findById(Long studentId, ReadSnapshot snapshot) {
+        return studentRepository.findById(studentId, snapshot);
+    }
+
+    /**
+     * 여러 학생 정보를 하나의 읽기 스냅샷에서 요청한 아이디 순서대로 조회한다.
+     * @param studentIds 학생 아이디 목록
+     * @return 아이디와 같은 순서의 학생 정보, 없는 아이디는 null
+     */
+    public List<Student> findAllById(List<Long> studentIds) {
+        try (ReadSnapshot snapshot = versionedStorage.openSnapshot()) {
+            return findAllById(studentIds, snapshot);
+        }
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 여러 학생 정보를 요청한 아이디 순서대로 조회한다.
+     * @param studentIds 학생 아이디 목록
+     * @param snapshot 읽기 스냅샷
+     * @return 아이디와 같은 순서의 학생 정보, 없는 아이디는 null
+     */
+    public List<Student> findAllById(List<Long> studentIds, ReadSnapshot snapshot) {
+        return studentRepository.findAllById(studentIds, snapshot);
+    }
+
     /**
      * 전체 학생 목록을 반환한다.
      * @return 전체 학생 목록
@@ -43,16 +81,34 @@ public class StudentService {
         return studentRepository.findAll();
     }
 
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 학생 목록을 조회한다.
+     * @param since 마지막으로 동기화한 워터마크, 처음 동기화라면 0
+     * @return 변경된 학생 목록, 삭제된 학생 아이디와 새로운 워터마크
+     */
+    public ChangeSet<Student> findChangesSince(long since) {
+        return studentRepository.findChangesSince(since);
+    }
+
     /**
      * 전공 과목에 해당하는 학생 목록 조회
      * @param subjectName 전공 이름
      * @return 학생 목록
      */
     public List<Student> findByMajor(String subjectName) {
-        log.info(String.format("Service Call by Subject %s", subjectName));
+        log.info("Service Call by Subject {}", subjectName);
         return studentRepository.findByMajor(subjectName);
     }
 
+    /**
+     * 전공 과목으로 학생 목록을 조회할때의 실행 계획을 반환한다.
+     * @param subjectName 전공 이름
+     * @return EXPLAIN 형식의 실행 계획
+     */
+    public String explainFindByMajor(String subjectName) {
+        return studentRepository.explainFindByMajor(subjectName);
+    }
+
     /**
      * 학생 등록을 수행하는 서비스이다.
      * 서비스에서는 이렇게 비즈니스 로직을 수행할 수 있다. 정보의 존재여부, 아이디 존재여부 등 검사.
@@ -78,33 +134,57 @@ public class StudentService {
      * @return 수정된 학생 정보
      */
     public Student modifyStudent(Long studentId, Student student) {
+        return modifyStudent(studentId, student, null);
+    }
+
+    /**
+     * 학생 정보를 낙관적 동시성 제어로 수정한다.
+     * 현재 스냅샷을 복사하여 수정한 뒤 compareAndSet 으로 교체하며, 그 사이 다른 쓰기가 있었다면 다시 시도한다.
+     * @param studentId 수정할 학생 아이디
+     * @param student 수정할 데이터
+     * @param expectedVersions 클라이언트가 알고 있는 버전 목록 (If-Match), null 이면 버전을 검사하지 않는다.
+     * @return 수정된 학생 정보
+     * @throws VersionConflictException 현재 버전이 expectedVersions 중 어느것과도 다른 경우
+     */
+    public Student modifyStudent(Long studentId, Student student, Set<Long> expectedVersions) {
         if (studentId == null || studentId == 0L) {
             throw new IllegalArgumentException("Student id can not be null, when you modify student info.");
         }
 
-        Student targetStudent = setModifyInfo(studentId, student);
-
-        return studentRepository.save(targetStudent);
+        while (true) {
+            Student existsStudent = studentRepository.findById(studentId);
+            if (existsStudent == null) {
+                throw new RuntimeException("Resource Not Found");
+            }
+            if (expectedVersions != null && !expectedVersions.contains(existsStudent.getVersion())) {
+                throw new VersionConflictException("Student", studentId, expectedVersions, existsStudent.getVersion());
+            }
+
+            Student targetStudent = setModifyInfo(existsStudent, student);
+            if (studentRepository.compareAndSet(existsStudent, targetStudent)) {
+                return targetStudent;
+            }
+        }
     }
 
     /**
      * 학생정보 수정시 수정해야할 데이터를 세팅한다.
-     * 학생 정보를 우선 조회하고, 수정해야할 데이터가 있는 필드에만 수정될 값을 할당한다.
-     * @param studentId 학생 아이디
+     * 저장된 스냅샷은 변경하지 않고 복사본을 만들어, 수정해야할 데이터가 있는 필드에만 수정될 값을 할당한다.
+     * @param existsStudent 저장된 학생 정보
      * @param student 수정할 정보
-     * @return 수정된 학생 정보
+     * @return 수정된 학생 정보 복사본
      */
-    private Student setModifyInfo(Long studentId, Student student) {
-        Student existsStudent = studentRepository.findById(studentId);
+    private Student setModifyInfo(Student existsStudent, Student student) {
+        Student modifiedStudent = existsStudent.toBuilder().build();
         if (student.getMajor() != null) {
-            existsStudent.setMajor(student.getMajor());
+            modifiedStudent.setMajor(student.getMajor());
         }
 
         if (student.getName() != null) {
-            existsStudent.setName(student.getName());
+            modifiedStudent.setName(student.getName());
         }
 
-        return existsStudent;
+        return modifiedStudent;
     }
 
     /**
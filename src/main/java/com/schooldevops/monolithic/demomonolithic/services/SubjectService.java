@@ -1,12 +1,21 @@
 package com.schooldevops.monolithic.demomonolithic.services;
 
+import com.schooldevops.monolithic.demomonolithic.domains.ChangeSet;
 import com.schooldevops.monolithic.demomonolithic.domains.Professor;
 import com.schooldevops.monolithic.demomonolithic.domains.Subject;
+import com.schooldevops.monolithic.demomonolithic.exceptions.VersionConflictException;
 import com.schooldevops.monolithic.demomonolithic.repositories.SubjectRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.ReadSnapshot;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @Slf4j 는 Lombok 과 연동된 로거이다. Lombok 을 활용하면 편리하게 로깅을 남길 수 있다.
@@ -17,15 +26,27 @@ import java.util.List;
 @Service
 public class SubjectService {
 
+    /**
+     * 과목 응답에 포함할 수 있는 연관 관계
+     */
+    public static final Set<String> RELATIONS = Set.of("professor");
+
+    /**
+     * expand 파라미터가 없을때 포함하는 연관 관계
+     */
+    public static final Expansion DEFAULT_EXPANSION = Expansion.of("professor");
+
     /**
      * SubjectRepository 를 생성자를 통한 의존성 주입을 수행하고 있다.
      */
     private final SubjectRepository subjectRepository;
     private final ProfessorService professorService;
+    private final VersionedStorage versionedStorage;
 
-    public SubjectService(SubjectRepository subjectRepository, ProfessorService professorService) {
+    public SubjectService(SubjectRepository subjectRepository, ProfessorService professorService, VersionedStorage versionedStorage) {
         this.subjectRepository = subjectRepository;
         this.professorService = professorService;
+        this.versionedStorage = versionedStorage;
     }
 
 
@@ -36,20 +57,99 @@ public class SubjectService {
      */
     public Subject findById(Long subjectId) {
         Subject existsSubject = subjectRepository.findById(subjectId);
-        if (existsSubject != null) {
-            addProfessorInfoToSubject(existsSubject);
+        if (existsSubject == null) {
+            return null;
         }
 
-        return existsSubject;
+        return addProfessorInfoToSubject(existsSubject);
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 과목 정보를 조회한다. 교수 정보도 같은 스냅샷에서 조회한다.
+     * @param subjectId 과목 아이디
+     * @param snapshot 읽기 스냅샷
+     * @return 조회된 과목 정보
+     */
+    public Subject findById(Long subjectId, ReadSnapshot snapshot) {
+        Subject existsSubject = subjectRepository.findById(subjectId, snapshot);
+        if (existsSubject == null) {
+            return null;
+        }
+
+        Professor professor = professorService.findById(existsSubject.getProfessorId(), snapshot);
+        return existsSubject.toBuilder().professor(professor).build();
+    }
+
+    /**
+     * 여러 과목 정보를 하나의 읽기 스냅샷에서 요청한 아이디 순서대로 조회한다.
+     * @param subjectIds 과목 아이디 목록
+     * @return 아이디와 같은 순서의 과목 정보, 없는 아이디는 null
+     */
+    public List<Subject> findAllById(List<Long> subjectIds) {
+        return findAllById(subjectIds, DEFAULT_EXPANSION);
+    }
+
+    /**
+     * 요청한 연관 관계를 포함하여 과목 정보를 조회한다.
+     * @param subjectId 과목 아이디
+     * @param expansion 포함할 연관 관계
+     * @return 조회된 과목 정보, 없으면 null
+     */
+    public Subject findById(Long subjectId, Expansion expansion) {
+        try (ReadSnapshot snapshot = versionedStorage.openSnapshot()) {
+            return findAllById(List.of(subjectId), snapshot, expansion).get(0);
+        }
+    }
+
+    /**
+     * 요청한 연관 관계를 포함하여 여러 과목 정보를 하나의 읽기 스냅샷에서 조회한다.
+     * @param subjectIds 과목 아이디 목록
+     * @param expansion 포함할 연관 관계
+     * @return 아이디와 같은 순서의 과목 정보, 없는 아이디는 null
+     */
+    public List<Subject> findAllById(List<Long> subjectIds, Expansion expansion) {
+        try (ReadSnapshot snapshot = versionedStorage.openSnapshot()) {
+            return findAllById(subjectIds, snapshot, expansion);
+        }
+    }
+
+    /**
+     * 읽기 스냅샷 시점의 여러 과목 정보를 요청한 연관 관계를 포함하여 조회한다.
+     * @param subjectIds 과목 아이디 목록
+     * @param snapshot 읽기 스냅샷
+     * @param expansion 포함할 연관 관계
+     * @return 아이디와 같은 순서의 과목 정보 복사본, 없는 아이디는 null
+     */
+    public List<Subject> findAllById(List<Long> subjectIds, ReadSnapshot snapshot, Expansion expansion) {
+        return expand(subjectRepository.findAllById(subjectIds, snapshot), snapshot, expansion);
+    }
+
+    /**
+     * 과목 목록에 요청한 연관 관계를 채운 복사본을 만든다.
+     * 교수 정보는 과목마다 조회하지 않고, 필요한 교수 아이디를 모아 한번에 조회한다.
+     */
+    private List<Subject> expand(List<Subject> subjects, ReadSnapshot snapshot, Expansion expansion) {
+        Map<Long, Professor> professorById = new HashMap<>();
+        if (expansion.contains("professor")) {
+            List<Long> professorIds = subjects.stream().filter(Objects::nonNull).map(Subject::getProfessorId)
+                    .filter(Objects::nonNull).distinct().collect(Collectors.toList());
+            professorService.findAllById(professorIds, snapshot).stream().filter(Objects::nonNull)
+                    .forEach(professor -> professorById.put(professor.getId(), professor));
+        }
+        return subjects.stream()
+                .map(subject -> subject == null ? null : subject.toBuilder().professor(professorById.get(subject.getProfessorId())).build())
+                .collect(Collectors.toList());
     }
 
     /**
      * 교수 정보를 조회하여 subject 에 추가한다.
-     * @param subject
+     * 저장소의 스냅샷은 변경하지 않고, 교수 정보가 추가된 복사본을 반환한다.
+     * @param subject 과목 정보
+     * @return 교수 정보가 추가된 과목 정보
      */
-    private void addProfessorInfoToSubject(Subject subject) {
+    private Subject addProfessorInfoToSubject(Subject subject) {
         Professor professor = professorService.findById(subject.getProfessorId());
-        subject.setProfessor(professor);
+        return subject.toBuilder().professor(professor).build();
     }
 
     /**
@@ -57,13 +157,28 @@ public class SubjectService {
      * @return 전체 과목 목록
      */
     public List<Subject> findAll() {
-        List<Subject> subjects = subjectRepository.findAll();
-        if (subjects != null && subjects.size() > 0) {
-            subjects.stream().forEach(item -> {
-                addProfessorInfoToSubject(item);
-            });
+        return findAll(DEFAULT_EXPANSION);
+    }
+
+    /**
+     * 요청한 연관 관계를 포함하여 전체 과목 목록을 하나의 읽기 스냅샷에서 조회한다.
+     * @param expansion 포함할 연관 관계
+     * @return 전체 과목 목록
+     */
+    public List<Subject> findAll(Expansion expansion) {
+        try (ReadSnapshot snapshot = versionedStorage.openSnapshot()) {
+            return expand(subjectRepository.findAll(snapshot), snapshot, expansion);
         }
-        return subjects;
+    }
+
+    /**
+     * 워터마크 이후에 변경되거나 삭제된 과목 목록을 조회한다.
+     * 저장된 과목 정보를 그대로 반환하며, 교수 정보는 교수 변경 목록으로 따로 동기화한다.
+     * @param since 마지막으로 동기화한 워터마크, 처음 동기화라면 0
+     * @return 변경된 과목 목록, 삭제된 과목 아이디와 새로운 워터마크
+     */
+    public ChangeSet<Subject> findChangesSince(long since) {
+        return subjectRepository.findChangesSince(since);
     }
 
     /**
@@ -81,8 +196,7 @@ public class SubjectService {
         }
 
         Subject savedSubject = subjectRepository.save(subject);
-        addProfessorInfoToSubject(savedSubject);
-        return savedSubject;
+        return addProfessorInfoToSubject(savedSubject);
     }
 
     /**
@@ -92,37 +206,61 @@ public class SubjectService {
      * @return 수정된 과목 정보
      */
     public Subject modifySubject(Long subjectId, Subject subject) {
+        return modifySubject(subjectId, subject, null);
+    }
+
+    /**
+     * 과목 정보를 낙관적 동시성 제어로 수정한다.
+     * 현재 스냅샷을 복사하여 수정한 뒤 compareAndSet 으로 교체하며, 그 사이 다른 쓰기가 있었다면 다시 시도한다.
+     * @param subjectId 수정할 과목 아이디
+     * @param subject 수정할 데이터
+     * @param expectedVersions 클라이언트가 알고 있는 버전 목록 (If-Match), null 이면 버전을 검사하지 않는다.
+     * @return 수정된 과목 정보
+     * @throws VersionConflictException 현재 버전이 expectedVersions 중 어느것과도 다른 경우
+     */
+    public Subject modifySubject(Long subjectId, Subject subject, Set<Long> expectedVersions) {
         if (subjectId == null || subjectId == 0L) {
             throw new IllegalArgumentException("Subject id can not be null, when you modify subject info.");
         }
 
-        Subject targetSubject = setModifyInfo(subjectId, subject);
+        while (true) {
+            Subject existsSubject = subjectRepository.findById(subjectId);
+            if (existsSubject == null) {
+                throw new RuntimeException("Resource Not Found");
+            }
+            if (expectedVersions != null && !expectedVersions.contains(existsSubject.getVersion())) {
+                throw new VersionConflictException("Subject", subjectId, expectedVersions, existsSubject.getVersion());
+            }
 
-        return subjectRepository.save(targetSubject);
+            Subject targetSubject = setModifyInfo(existsSubject, subject);
+            if (subjectRepository.compareAndSet(existsSubject, targetSubject)) {
+                return targetSubject;
+            }
+        }
     }
 
     /**
      * 과목정보 수정시 수정해야할 데이터를 세팅한다.
-     * 과목 정보를 우선 조회하고, 수정해야할 데이터가 있는 필드에만 수정될 값을 할당한다.
-     * @param subjectId 과목 아이디
+     * 저장된 스냅샷은 변경하지 않고 복사본을 만들어, 수정해야할 데이터가 있는 필드에만 수정될 값을 할당한다.
+     * @param existsSubject 저장된 과목 정보
      * @param subject 수정할 정보
-     * @return 수정된 과목 정보
+     * @return 수정된 과목 정보 복사본
      */
-    private Subject setModifyInfo(Long subjectId, Subject subject) {
-        Subject existsSubject = subjectRepository.findById(subjectId);
+    private Subject setModifyInfo(Subject existsSubject, Subject subject) {
+        Subject modifiedSubject = existsSubject.toBuilder().build();
 
         if (subject.getName() != null) {
-            existsSubject.setName(subject.getName());
+            modifiedSubject.setName(subject.getName());
         }
 
         if (subject.getCredit() != null) {
-            existsSubject.setCredit(subject.getCredit());
+            modifiedSubject.setCredit(subject.getCredit());
         }
 
         if (subject.getProfessorId() != null) {
-            existsSubject.setProfessorId(subject.getProfessorId());
+            modifiedSubject.setProfessorId(subject.getProfessorId());
         }
-        return existsSubject;
+        return modifiedSubject;
     }
 
     /**
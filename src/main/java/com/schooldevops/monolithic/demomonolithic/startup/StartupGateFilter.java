@@ -0,0 +1,49 @@
+package com.schooldevops.monolithic.demomonolithic.startup;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 미뤄둔 초기화가 끝나기 전에 들어온 쓰기 요청을 초기화가 끝날때까지 기다리게 하는 필터이다.
+ * 초기 데이터와 인덱스가 만들어지는 중에 쓰기가 섞이면 수강 인덱스 등이 어긋날 수 있으므로 쓰기만 막고,
+ * 읽기는 바로 처리한다. startup.write-wait-ms 안에 끝나지 않으면 503 과 Retry-After 로 응답한다.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Component
+public class StartupGateFilter extends OncePerRequestFilter {
+
+    private final StartupTasks startupTasks;
+    private final long writeWaitMs;
+
+    public StartupGateFilter(StartupTasks startupTasks, @Value("${startup.write-wait-ms:10000}") long writeWaitMs) {
+        this.startupTasks = startupTasks;
+        this.writeWaitMs = writeWaitMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return startupTasks.isCompleted() || "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!startupTasks.awaitCompletion(writeWaitMs)) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Initialization in progress");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
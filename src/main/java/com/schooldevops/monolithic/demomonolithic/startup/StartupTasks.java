@@ -0,0 +1,152 @@
+package com.schooldevops.monolithic.demomonolithic.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 시작할때 수행하는 무거운 초기화 작업(초기 데이터 생성, 인덱스 생성)을 관리한다.
+ *
+ * startup.defer-initialization 이 false 이면 작업을 등록하는 즉시 수행한다.
+ * true 이면 등록된 작업을 모아두었다가 애플리케이션이 요청을 받을 수 있게 된 후(ApplicationReadyEvent)
+ * 등록된 순서대로 백그라운드 스레드에서 수행한다. 준비 이후에 등록되는 작업은 바로 수행한다.
+ * 작업이 끝나기 전의 읽기는 그 시점의 데이터로 응답하고(인덱스가 없으면 스캔), 쓰기는 StartupGateFilter 에서 기다린다.
+ *
+ * startup.exit-after-initialization 이 true 이면 모든 작업을 마친 후 종료한다. CDS 아카이브를 만드는 학습 실행에서 사용한다.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class StartupTasks {
+
+    private final boolean deferred;
+    private final boolean exitAfterInitialization;
+    private final ConfigurableApplicationContext applicationContext;
+
+    private final List<Task> pending = new ArrayList<>();
+    private final CountDownLatch completed = new CountDownLatch(1);
+
+    /**
+     * 준비 이벤트를 받기 전까지 true, 이후 등록되는 작업은 바로 수행한다.
+     */
+    private boolean collecting;
+
+    public StartupTasks(@Value("${startup.defer-initialization:false}") boolean deferred,
+                        @Value("${startup.exit-after-initialization:false}") boolean exitAfterInitialization,
+                        ConfigurableApplicationContext applicationContext) {
+        this.deferred = deferred;
+        this.exitAfterInitialization = exitAfterInitialization;
+        this.applicationContext = applicationContext;
+        this.collecting = deferred;
+        if (!deferred) {
+            completed.countDown();
+        }
+    }
+
+    /**
+     * 초기화 작업을 등록한다.
+     * @param name 로그에 남길 작업 이름
+     * @param task 수행할 작업
+     */
+    public void submit(String name, Runnable task) {
+        synchronized (pending) {
+            if (collecting) {
+                pending.add(new Task(name, task));
+                return;
+            }
+        }
+        run(new Task(name, task));
+    }
+
+    /**
+     * 요청을 받을 수 있게 되면 미뤄둔 작업을 백그라운드 스레드에서 수행한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!deferred) {
+            exitIfRequested();
+            return;
+        }
+        Thread thread = new Thread(this::runPending, "startup-tasks");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void runPending() {
+        long startedAt = System.nanoTime();
+        while (true) {
+            List<Task> tasks;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    collecting = false;
+                    break;
+                }
+                tasks = new ArrayList<>(pending);
+                pending.clear();
+            }
+            tasks.forEach(this::run);
+        }
+        completed.countDown();
+        log.info("Deferred initialization completed in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        exitIfRequested();
+    }
+
+    private void run(Task task) {
+        long startedAt = System.nanoTime();
+        try {
+            task.runnable.run();
+        } catch (RuntimeException e) {
+            log.error("Startup task '{}' failed", task.name, e);
+            return;
+        }
+        log.debug("Startup task '{}' took {} ms", task.name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    private void exitIfRequested() {
+        if (exitAfterInitialization) {
+            log.info("Exiting after initialization");
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    /**
+     * 미뤄둔 작업이 모두 끝났는지 반환한다.
+     */
+    public boolean isCompleted() {
+        return completed.getCount() == 0;
+    }
+
+    /**
+     * 미뤄둔 작업이 모두 끝날때까지 기다린다.
+     * @param timeoutMs 최대 대기 시간
+     * @return 시간 안에 끝났으면 true
+     */
+    public boolean awaitCompletion(long timeoutMs) {
+        try {
+            return completed.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class Task {
+        private final String name;
+        private final Runnable runnable;
+
+        private Task(String name, Runnable runnable) {
+            this.name = name;
+            this.runnable = runnable;
+        }
+    }
+}
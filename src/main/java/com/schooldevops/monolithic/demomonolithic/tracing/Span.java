@@ -0,0 +1,20 @@
+package com.schooldevops.monolithic.demomonolithic.tracing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 트레이스에 기록된 하나의 구간이다. 시간은 트레이스 시작 시점으로부터의 밀리초이다.
+ * selfMs 는 하위 구간을 제외하고 이 구간에서 직접 사용한 시간이다.
+ */
+@AllArgsConstructor
+@Getter
+public class Span {
+
+    private final String name;
+    private final int depth;
+    private final double startMs;
+    private final double durationMs;
+    private final double selfMs;
+    private final String error;
+}
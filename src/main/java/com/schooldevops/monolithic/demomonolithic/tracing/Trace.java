@@ -0,0 +1,36 @@
+package com.schooldevops.monolithic.demomonolithic.tracing;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 하나의 요청에 대한 트레이스이다.
+ * keptBy 는 보관된 이유(slow, error, sampled)이며, 목록 조회에서는 spans 를 포함하지 않는다.
+ */
+@AllArgsConstructor
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Trace {
+
+    private final String id;
+    private final String method;
+    private final String path;
+    private final int status;
+    private final LocalDateTime startedAt;
+    private final double durationMs;
+    private final String keptBy;
+    private final int spanCount;
+    private final int droppedSpans;
+    private final List<Span> spans;
+
+    /**
+     * 구간 목록을 제외한 요약을 반환한다.
+     */
+    public Trace summary() {
+        return new Trace(id, method, path, status, startedAt, durationMs, keptBy, spanCount, droppedSpans, null);
+    }
+}
@@ -0,0 +1,112 @@
+package com.schooldevops.monolithic.demomonolithic.tracing;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 요청을 처리하는 스레드에서 구간을 기록한다. 한 스레드에서만 사용하므로 동기화하지 않는다.
+ * 구간은 시작한 순서대로 보관하며, maxSpans 를 넘는 구간은 버리고 수만 센다.
+ */
+class TraceRecorder {
+
+    private static final class OpenSpan {
+        private final String name;
+        private final int depth;
+        private final long startedAt;
+        private long endedAt;
+        private long childNanos;
+        private String error;
+
+        private OpenSpan(String name, int depth, long startedAt) {
+            this.name = name;
+            this.depth = depth;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private final String id;
+    private final String method;
+    private final String path;
+    private final long startedAt = System.currentTimeMillis();
+    private final long startedNanos = System.nanoTime();
+    private final int maxSpans;
+
+    private final List<OpenSpan> spans = new ArrayList<>();
+    private final List<OpenSpan> stack = new ArrayList<>();
+    private int dropped;
+
+    TraceRecorder(String id, String method, String path, int maxSpans) {
+        this.id = id;
+        this.method = method;
+        this.path = path;
+        this.maxSpans = maxSpans;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    /**
+     * 구간을 시작한다.
+     * @return 기록된 구간, 최대 구간 수를 넘었다면 null
+     */
+    Object enter(String name) {
+        if (spans.size() >= maxSpans) {
+            dropped++;
+            return null;
+        }
+        OpenSpan span = new OpenSpan(name, stack.size(), System.nanoTime());
+        spans.add(span);
+        stack.add(span);
+        return span;
+    }
+
+    void exit(Object handle, Throwable error) {
+        if (handle == null) {
+            return;
+        }
+        OpenSpan span = (OpenSpan) handle;
+        span.endedAt = System.nanoTime();
+        if (error != null) {
+            span.error = error.getClass().getSimpleName() + (error.getMessage() == null ? "" : ": " + error.getMessage());
+        }
+        stack.remove(stack.size() - 1);
+        if (!stack.isEmpty()) {
+            stack.get(stack.size() - 1).childNanos += span.endedAt - span.startedAt;
+        }
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startedNanos;
+    }
+
+    /**
+     * 요청 전체를 최상위 구간으로 하는 트레이스를 만든다.
+     * 최상위 구간의 selfMs 는 필터, 요청 매핑 등 추적하지 않은 부분에서 사용한 시간이다.
+     */
+    Trace toTrace(int status, String keptBy) {
+        long totalNanos = elapsedNanos();
+        long childNanos = 0;
+        List<Span> result = new ArrayList<>(spans.size() + 1);
+        result.add(null);
+        for (OpenSpan span : spans) {
+            long endedAt = span.endedAt == 0 ? startedNanos + totalNanos : span.endedAt;
+            long duration = endedAt - span.startedAt;
+            if (span.depth == 0) {
+                childNanos += duration;
+            }
+            result.add(new Span(span.name, span.depth + 1, millis(span.startedAt - startedNanos), millis(duration),
+                    millis(duration - span.childNanos), span.error));
+        }
+        result.set(0, new Span(method + " " + path, 0, 0, millis(totalNanos), millis(totalNanos - childNanos), null));
+        return new Trace(id, method, path, status,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(startedAt), ZoneId.systemDefault()), millis(totalNanos), keptBy, result.size(), dropped, result);
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
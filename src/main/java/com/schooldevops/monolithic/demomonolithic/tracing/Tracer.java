@@ -0,0 +1,168 @@
+package com.schooldevops.monolithic.demomonolithic.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+/**
+ * 요청마다 구간을 기록하고, 요청이 끝난 뒤 보관할 트레이스를 고른다 (tail-based sampling).
+ * 요청이 끝나야 소요 시간과 상태 코드를 알 수 있으므로 모든 요청의 구간을 메모리에 기록해두고,
+ * tracing.slow-threshold-ms 보다 오래 걸렸거나 5xx 로 응답한 요청은 모두, 나머지는 tracing.sample-rate 비율로만 보관한다.
+ * 보관한 트레이스는 tracing.buffer-size 개의 원형 버퍼에 저장하며, 가득 차면 가장 오래된 트레이스를 덮어쓴다.
+ * 구간은 요청을 처리하는 스레드에서만 기록하므로, 비동기로 처리되는 작업은 트레이스에 포함되지 않는다.
+ */
+@Slf4j
+@Component
+public class Tracer {
+
+    private final ThreadLocal<TraceRecorder> current = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final double slowThresholdMs;
+    private final double sampleRate;
+    private final int maxSpans;
+
+    private final AtomicReferenceArray<Trace> buffer;
+    private final AtomicLong keptCount = new AtomicLong();
+    private final AtomicLong tracedCount = new AtomicLong();
+
+    public Tracer(@Value("${tracing.enabled:true}") boolean enabled,
+                  @Value("${tracing.slow-threshold-ms:100}") double slowThresholdMs,
+                  @Value("${tracing.sample-rate:0.01}") double sampleRate,
+                  @Value("${tracing.buffer-size:200}") int bufferSize,
+                  @Value("${tracing.max-spans:256}") int maxSpans) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalStateException("tracing.sample-rate must be between 0 and 1: " + sampleRate);
+        }
+        if (bufferSize <= 0 || maxSpans <= 0) {
+            throw new IllegalStateException("tracing.buffer-size and tracing.max-spans must be positive");
+        }
+        this.enabled = enabled;
+        this.slowThresholdMs = slowThresholdMs;
+        this.sampleRate = sampleRate;
+        this.maxSpans = maxSpans;
+        this.buffer = new AtomicReferenceArray<>(bufferSize);
+        if (enabled) {
+            log.info("Tracing slow requests over {}ms, sample rate {}", slowThresholdMs, sampleRate);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 현재 스레드에서 새 트레이스를 시작한다.
+     * @return 트레이스 아이디
+     */
+    public String begin(String method, String path) {
+        String id = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        current.set(new TraceRecorder(id, method, path, maxSpans));
+        return id;
+    }
+
+    /**
+     * 현재 스레드의 트레이스를 끝내고, 보관 조건에 맞으면 버퍼에 저장한다.
+     * @param status 응답 상태 코드
+     */
+    public void end(int status) {
+        TraceRecorder recorder = current.get();
+        if (recorder == null) {
+            return;
+        }
+        current.remove();
+        tracedCount.incrementAndGet();
+
+        String keptBy = keptBy(recorder.elapsedNanos() / 1_000_000.0, status);
+        if (keptBy == null) {
+            return;
+        }
+        Trace trace = recorder.toTrace(status, keptBy);
+        long sequence = keptCount.getAndIncrement();
+        buffer.set((int) (sequence % buffer.length()), trace);
+    }
+
+    private String keptBy(double durationMs, int status) {
+        if (status >= 500) {
+            return "error";
+        }
+        if (durationMs >= slowThresholdMs) {
+            return "slow";
+        }
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            return "sampled";
+        }
+        return null;
+    }
+
+    /**
+     * 현재 스레드에 진행 중인 트레이스가 있으면 구간을 시작한다.
+     * @return exit 에 전달할 구간, 진행 중인 트레이스가 없거나 구간 수가 최대라면 null
+     */
+    public Object enter(String name) {
+        TraceRecorder recorder = current.get();
+        return recorder == null ? null : recorder.enter(name);
+    }
+
+    /**
+     * enter 로 시작한 구간을 끝낸다.
+     * @param error 구간에서 발생한 예외, 없으면 null
+     */
+    public void exit(Object span, Throwable error) {
+        if (span != null) {
+            current.get().exit(span, error);
+        }
+    }
+
+    /**
+     * 보관된 트레이스의 요약을 최근 순서로 조회한다.
+     * @param minDurationMs 이 시간 이상 걸린 트레이스만 조회한다.
+     * @param limit 최대 개수
+     */
+    public List<Trace> findRecent(double minDurationMs, int limit) {
+        List<Trace> traces = new ArrayList<>(buffer.length());
+        for (int i = 0; i < buffer.length(); i++) {
+            Trace trace = buffer.get(i);
+            if (trace != null && trace.getDurationMs() >= minDurationMs) {
+                traces.add(trace);
+            }
+        }
+        return traces.stream()
+                .sorted(Comparator.comparing(Trace::getStartedAt).reversed())
+                .limit(limit)
+                .map(Trace::summary)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 보관된 트레이스를 구간 목록과 함께 조회한다.
+     * @return 트레이스, 없거나 이미 덮어쓰였다면 null
+     */
+    public Trace findById(String id) {
+        for (int i = 0; i < buffer.length(); i++) {
+            Trace trace = buffer.get(i);
+            if (trace != null && trace.getId().equals(id)) {
+                return trace;
+            }
+        }
+        return null;
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of("enabled", enabled,
+                "slowThresholdMs", slowThresholdMs,
+                "sampleRate", sampleRate,
+                "bufferSize", buffer.length(),
+                "traced", tracedCount.get(),
+                "kept", keptCount.get());
+    }
+}
@@ -0,0 +1,82 @@
+package com.schooldevops.monolithic.demomonolithic.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * resources, services, repositories 패키지의 빈을 프록시로 감싸 public 메서드 호출마다 구간을 기록한다.
+ * 리포지토리는 PartitionedRepository 를 구현하지만 클래스 타입으로 주입되므로 클래스 기반 프록시를 만든다.
+ * 같은 빈 안에서의 호출은 프록시를 거치지 않으므로 구간으로 기록되지 않는다.
+ * 진행 중인 트레이스가 없는 호출(스케줄러, 이벤트 스레드 등)은 ThreadLocal 조회 한번만 하고 바로 대상 메서드를 호출한다.
+ */
+@Component
+public class TracingBeanPostProcessor implements BeanPostProcessor {
+
+    private static final String BASE_PACKAGE = "com.schooldevops.monolithic.demomonolithic.";
+
+    private static final Set<String> TRACED_PACKAGES = Set.of(
+            BASE_PACKAGE + "resources",
+            BASE_PACKAGE + "services",
+            BASE_PACKAGE + "repositories");
+
+    private final ObjectProvider<Tracer> tracerProvider;
+    private final boolean enabled;
+
+    /**
+     * BeanPostProcessor 는 다른 빈보다 먼저 만들어지므로, Tracer 는 처음 프록시를 만들때 조회한다.
+     */
+    public TracingBeanPostProcessor(ObjectProvider<Tracer> tracerProvider, @Value("${tracing.enabled:true}") boolean enabled) {
+        this.tracerProvider = tracerProvider;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> beanClass = ClassUtils.getUserClass(bean);
+        if (!enabled || !TRACED_PACKAGES.contains(beanClass.getPackageName()) || Modifier.isFinal(beanClass.getModifiers())) {
+            return bean;
+        }
+
+        Tracer tracer = tracerProvider.getObject();
+        String prefix = beanClass.getSimpleName() + ".";
+        Map<Method, String> spanNames = new ConcurrentHashMap<>();
+        MethodInterceptor interceptor = invocation -> {
+            Object span = tracer.enter(spanNames.computeIfAbsent(invocation.getMethod(), method -> prefix + method.getName()));
+            if (span == null) {
+                return invocation.proceed();
+            }
+            Throwable error = null;
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                error = e;
+                throw e;
+            } finally {
+                tracer.exit(span, error);
+            }
+        };
+
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(new DefaultPointcutAdvisor(new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+            }
+        }, interceptor));
+        return proxyFactory.getProxy(beanClass.getClassLoader());
+    }
+}
@@ -0,0 +1,52 @@
+package com.schooldevops.monolithic.demomonolithic.tracing;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청마다 트레이스를 시작하고 응답 상태 코드와 함께 끝내는 필터이다.
+ * 트레이스 아이디는 X-Trace-Id 헤더로 응답하므로, 느린 요청의 트레이스를 /debug/traces/{id} 로 찾을 수 있다.
+ * 다른 필터에서 사용한 시간도 포함되도록 가장 먼저 실행하며, 트레이스 조회 요청은 추적하지 않는다.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Component
+public class TracingFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !tracer.isEnabled() || path(request).startsWith("/debug/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String traceId = tracer.begin(request.getMethod(), path(request));
+        response.setHeader(TRACE_ID_HEADER, traceId);
+        int status = 500;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            tracer.end(status);
+        }
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
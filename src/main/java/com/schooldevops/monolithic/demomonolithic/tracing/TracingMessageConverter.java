@@ -0,0 +1,90 @@
+package com.schooldevops.monolithic.demomonolithic.tracing;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * JSON 변환기를 감싸 요청 본문 읽기와 응답 직렬화를 각각 구간으로 기록한다.
+ * 컨트롤러가 반환한 뒤에 직렬화가 일어나므로 컨트롤러 구간과 별도로 보인다.
+ */
+class TracingMessageConverter implements GenericHttpMessageConverter<Object> {
+
+    private final GenericHttpMessageConverter<Object> delegate;
+    private final Tracer tracer;
+
+    TracingMessageConverter(GenericHttpMessageConverter<Object> delegate, Tracer tracer) {
+        this.delegate = delegate;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return delegate.canRead(type, contextClass, mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
+        Object span = tracer.enter("json.read");
+        Throwable error = null;
+        try {
+            return delegate.read(type, contextClass, inputMessage);
+        } catch (IOException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            tracer.exit(span, error);
+        }
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return delegate.canWrite(type, clazz, mediaType);
+    }
+
+    @Override
+    public void write(Object o, Type type, MediaType contentType, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        Object span = tracer.enter("json.write");
+        Throwable error = null;
+        try {
+            delegate.write(o, type, contentType, outputMessage);
+        } catch (IOException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            tracer.exit(span, error);
+        }
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return delegate.canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return delegate.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return delegate.getSupportedMediaTypes();
+    }
+
+    @Override
+    public Object read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    public void write(Object o, MediaType contentType, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        write(o, null, contentType, outputMessage);
+    }
+}
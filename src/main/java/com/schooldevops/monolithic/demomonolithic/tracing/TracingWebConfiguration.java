@@ -0,0 +1,37 @@
+package com.schooldevops.monolithic.demomonolithic.tracing;
+
+import com.schooldevops.monolithic.demomonolithic.json.CompiledJsonHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 트레이싱이 켜져 있으면 JSON 변환기(Jackson, 생성된 코덱)를 TracingMessageConverter 로 교체한다.
+ */
+@Configuration
+public class TracingWebConfiguration implements WebMvcConfigurer {
+
+    private final Tracer tracer;
+
+    public TracingWebConfiguration(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (!tracer.isEnabled()) {
+            return;
+        }
+        for (int i = 0; i < converters.size(); i++) {
+            HttpMessageConverter<?> converter = converters.get(i);
+            if (converter instanceof MappingJackson2HttpMessageConverter || converter instanceof CompiledJsonHttpMessageConverter) {
+                converters.set(i, new TracingMessageConverter((GenericHttpMessageConverter<Object>) converter, tracer));
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.schooldevops.monolithic.demomonolithic.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 분류별 보장된 몫과 남는 한도를 빌려쓰는 계산을 검사한다.
+ * 한도가 바뀌지 않도록 smoothing 을 0 으로 둔다.
+ */
+class AdmissionLimiterTest {
+
+    @Test
+    void classIsAlwaysAdmittedWithinItsGuarantee() {
+        // 한도 10, 보장된 몫은 READ 5, ENROLLMENT 3, WRITE 2
+        AdmissionLimiter limiter = limiter(10, 0.5, 0.3, 0.2);
+
+        List<AdmissionLimiter.Permit> reads = acquireAll(limiter, PriorityClass.READ);
+        assertThat(reads).hasSize(5);
+
+        // 다른 분류의 몫이 모두 남아있으므로 READ 는 더 빌려쓸 수 없고, 다른 분류는 몫만큼 허용된다.
+        assertThat(acquireAll(limiter, PriorityClass.WRITE)).hasSize(2);
+        assertThat(acquireAll(limiter, PriorityClass.ENROLLMENT)).hasSize(3);
+        assertThat(limiter.tryAcquire(PriorityClass.READ)).isNull();
+    }
+
+    @Test
+    void classBorrowsOnlyWhatOtherClassesDoNotReserve() {
+        // 한도 10, 보장된 몫은 READ 5, ENROLLMENT 2, WRITE 1 이므로 2 는 누구의 몫도 아니다.
+        AdmissionLimiter limiter = limiter(10, 0.5, 0.2, 0.1);
+
+        List<AdmissionLimiter.Permit> reads = acquireAll(limiter, PriorityClass.READ);
+        assertThat(reads).hasSize(7);
+
+        // 빌려쓴 READ 가 있어도 다른 분류의 몫은 남아있다.
+        assertThat(acquireAll(limiter, PriorityClass.ENROLLMENT)).hasSize(2);
+        assertThat(acquireAll(limiter, PriorityClass.WRITE)).hasSize(1);
+        assertThat(limiter.tryAcquire(PriorityClass.WRITE)).isNull();
+
+        // 한도에 여유가 생기면 몫을 다 쓴 분류도 빌려쓸 수 있다.
+        reads.remove(0).release(false);
+        assertThat(limiter.tryAcquire(PriorityClass.WRITE)).isNotNull();
+        assertThat(limiter.tryAcquire(PriorityClass.READ)).isNull();
+    }
+
+    @Test
+    void releasedGuaranteeBecomesAvailableToTheSameClass() {
+        AdmissionLimiter limiter = limiter(10, 0.5, 0.3, 0.2);
+        List<AdmissionLimiter.Permit> writes = acquireAll(limiter, PriorityClass.WRITE);
+        assertThat(writes).hasSize(2);
+
+        writes.forEach(permit -> permit.release(false));
+
+        assertThat(acquireAll(limiter, PriorityClass.WRITE)).hasSize(2);
+    }
+
+    @Test
+    void smallShareIsGuaranteedAtLeastOneRequest() {
+        // 한도 10 의 0.05 는 0 이지만 한 요청은 보장된다.
+        AdmissionLimiter limiter = limiter(10, 0.5, 0.45, 0.05);
+        acquireAll(limiter, PriorityClass.READ);
+        acquireAll(limiter, PriorityClass.ENROLLMENT);
+
+        assertThat(limiter.tryAcquire(PriorityClass.WRITE)).isNotNull();
+    }
+
+    @Test
+    void rejectedRequestsAreCountedPerClass() {
+        AdmissionLimiter limiter = limiter(10, 0.5, 0.3, 0.2);
+        acquireAll(limiter, PriorityClass.READ);
+        limiter.tryAcquire(PriorityClass.READ);
+
+        Map<String, Object> status = limiter.getStatus();
+
+        assertThat(status).containsEntry("limit", 10).containsEntry("inflight", 5);
+        assertThat(status.get("read")).isEqualTo(Map.of("guaranteed", 5, "inflight", 5, "rejected", 2L));
+        assertThat(status.get("write")).isEqualTo(Map.of("guaranteed", 2, "inflight", 0, "rejected", 0L));
+    }
+
+    private static AdmissionLimiter limiter(int limit, double readShare, double enrollmentShare, double writeShare) {
+        return new AdmissionLimiter(true, limit, 1, 1_000, 1.5, 0, readShare, enrollmentShare, writeShare);
+    }
+
+    /**
+     * 거절될때까지 요청을 허용받는다.
+     */
+    private static List<AdmissionLimiter.Permit> acquireAll(AdmissionLimiter limiter, PriorityClass priorityClass) {
+        List<AdmissionLimiter.Permit> permits = new ArrayList<>();
+        AdmissionLimiter.Permit permit;
+        while ((permit = limiter.tryAcquire(priorityClass)) != null) {
+            permits.add(permit);
+        }
+        return permits;
+    }
+}
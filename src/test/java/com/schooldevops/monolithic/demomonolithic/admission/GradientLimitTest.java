@@ -0,0 +1,103 @@
+package com.schooldevops.monolithic.demomonolithic.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 응답 시간의 변화에 따라 한도가 수렴하는지 검사한다.
+ */
+class GradientLimitTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void steadyResponseTimeGrowsLimitToMax() {
+        GradientLimit limit = new GradientLimit(20, 8, 200, 1.5, 0.2);
+
+        sample(limit, 10 * MS, 500);
+
+        assertThat(limit.getLimit()).isEqualTo(200);
+    }
+
+    @Test
+    void queueingShrinksLimitAndRecoveryGrowsItBack() {
+        GradientLimit limit = new GradientLimit(100, 8, 200, 1.5, 0.2);
+        sample(limit, 10 * MS, 200);
+        assertThat(limit.getLimit()).isEqualTo(200);
+
+        // 응답 시간이 장기 평균의 5배가 되면 한도를 줄인다.
+        sample(limit, 50 * MS, 40);
+        int shrunk = limit.getLimit();
+        assertThat(shrunk).isLessThan(50);
+        assertThat(limit.getShortRttNanos()).isGreaterThan(limit.getLongRttNanos() * 2);
+
+        // 응답 시간이 돌아오면 다시 늘린다.
+        sample(limit, 10 * MS, 500);
+        assertThat(limit.getLimit()).isEqualTo(200);
+    }
+
+    @Test
+    void limitStaysWithinMinWhenResponseTimeKeepsGrowing() {
+        GradientLimit limit = new GradientLimit(100, 8, 200, 1.5, 0.2);
+        long rtt = 10 * MS;
+        for (int i = 0; i < 500; i++) {
+            limit.onSample(rtt, limit.getLimit(), false);
+            rtt = rtt * 11 / 10;
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void droppedRequestShrinksLimitByTenPercentDownToMin() {
+        GradientLimit limit = new GradientLimit(100, 8, 200, 1.5, 0.2);
+
+        limit.onSample(10 * MS, 100, true);
+        assertThat(limit.getLimit()).isEqualTo(90);
+        // 실패한 요청의 응답 시간은 평균에 반영하지 않는다.
+        assertThat(limit.getShortRttNanos()).isZero();
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(10 * MS, 100, true);
+        }
+        assertThat(limit.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void lowUtilizationDoesNotChangeLimit() {
+        GradientLimit limit = new GradientLimit(100, 8, 200, 1.5, 0.2);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(10 * MS, 49, false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(100);
+
+        // 부하가 한도를 결정하지 않는 동안 응답 시간이 늘어도 한도를 줄이지 않는다.
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(100 * MS, 10, false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    void longAverageDecaysQuicklyAfterLoadDrops() {
+        GradientLimit limit = new GradientLimit(100, 8, 200, 1.5, 0.2);
+        sample(limit, 100 * MS, 600);
+        double longRttBefore = limit.getLongRttNanos();
+
+        sample(limit, 10 * MS, 60);
+
+        // 지수 이동 평균만으로는 600 개 창에서 60 개 샘플로 10% 남짓 줄어든다.
+        assertThat(limit.getLongRttNanos()).isLessThan(longRttBefore / 4);
+    }
+
+    /**
+     * 한도만큼 처리중인 상태에서 같은 응답 시간의 샘플을 count 번 반영한다.
+     */
+    private static void sample(GradientLimit limit, long rttNanos, int count) {
+        for (int i = 0; i < count; i++) {
+            limit.onSample(rttNanos, limit.getLimit(), false);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.schooldevops.monolithic.demomonolithic.benchmark;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.schooldevops.monolithic.demomonolithic.domains.AttendedSubject;
+import com.schooldevops.monolithic.demomonolithic.domains.Lecture;
+import com.schooldevops.monolithic.demomonolithic.domains.Professor;
+import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.domains.Subject;
+import com.schooldevops.monolithic.demomonolithic.json.EntityJsonMapper;
+import com.schooldevops.monolithic.demomonolithic.json.JsonCodecConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 생성된 JSON 코덱과 Spring Boot 기본 설정의 Jackson 으로 도메인 객체를 쓰고 읽는 처리량을 비교하는 JMH 벤치마크이다.
+ *
+ *   scripts/json-benchmark.sh [JMH 옵션]
+ *
+ * writeStudent, readStudent : 학생 하나 (조회 응답, 저장소의 ETag 계산)
+ * writeLecture, readLecture : 교과 과정, 교수, 수강 신청 attended 건을 포함한 강의 하나
+ * streamLecture : 응답 본문과 같이 스트림으로 쓴다. 출력 스트림은 받은 바이트를 버린다.
+ * 두 방식 모두 EntityJsonMapper 를 거치므로 json.codec 설정만 다르게 한 애플리케이션의 경로와 같다.
+ * 할당량은 -prof gc 의 gc.alloc.rate.norm 으로 본다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JsonCodecBenchmark {
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({JsonCodecConfiguration.JACKSON, JsonCodecConfiguration.COMPILED})
+    private String codec;
+
+    @Param({"0", "50"})
+    private int attended;
+
+    private EntityJsonMapper mapper;
+    private Student student;
+    private Lecture lecture;
+    private byte[] studentJson;
+    private byte[] lectureJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = new EntityJsonMapper(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build(), JsonCodecConfiguration.COMPILED.equals(codec));
+
+        LocalDateTime now = LocalDateTime.of(2020, 3, 2, 9, 30, 15, 123_000_000);
+        student = student(1L, now);
+        Professor professor = Professor.builder().id(10L).name("Kido").major("Computer Science").joinedAt(now).version(3L).build();
+        Subject subject = Subject.builder().id(20L).name("Data Structure").professorId(10L).professor(professor).credit(3).version(1L).build();
+        List<AttendedSubject> attendedSubjects = new ArrayList<>();
+        for (int i = 0; i < attended; i++) {
+            attendedSubjects.add(AttendedSubject.builder().id(100L + i).subjectId(20L).student(student(1000L + i, now))
+                    .grade("A+").state("ATTENDED").version(1L).build());
+        }
+        lecture = Lecture.builder().id(30L).professor(professor).subject(subject).attendedSubjects(attendedSubjects)
+                .limitStudents(60).state("OPENED").version(2L).build();
+
+        studentJson = mapper.writeValueAsBytes(student);
+        lectureJson = mapper.writeValueAsBytes(lecture);
+        System.out.printf("%n%s attended=%d: student %d bytes, lecture %d bytes%n", codec, attended, studentJson.length, lectureJson.length);
+    }
+
+    @Benchmark
+    public byte[] writeStudent() throws IOException {
+        return mapper.writeValueAsBytes(student);
+    }
+
+    @Benchmark
+    public Student readStudent() throws IOException {
+        return mapper.readValue(studentJson, 0, studentJson.length, Student.class);
+    }
+
+    @Benchmark
+    public byte[] writeLecture() throws IOException {
+        return mapper.writeValueAsBytes(lecture);
+    }
+
+    @Benchmark
+    public void streamLecture() throws IOException {
+        mapper.writeValue(DISCARD, lecture);
+    }
+
+    @Benchmark
+    public Lecture readLecture() throws IOException {
+        return mapper.readValue(lectureJson, 0, lectureJson.length, Lecture.class);
+    }
+
+    private static Student student(long id, LocalDateTime entranceAt) {
+        return Student.builder().id(id).name("Student " + id).age(21).major("Computer Science").entranceAt(entranceAt).version(1L).build();
+    }
+}
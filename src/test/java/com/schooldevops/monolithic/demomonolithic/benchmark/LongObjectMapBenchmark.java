@@ -0,0 +1,171 @@
+package com.schooldevops.monolithic.demomonolithic.benchmark;
+
+import com.schooldevops.monolithic.demomonolithic.repositories.collections.ConcurrentLongObjectHashMap;
+import com.schooldevops.monolithic.demomonolithic.repositories.collections.LongObjectHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 저장소의 아이디 인덱스로 쓰는 long 키 맵을 HashMap, ConcurrentHashMap 과 비교하는 JMH 벤치마크이다.
+ *
+ *   scripts/map-benchmark.sh [JMH 옵션]
+ *
+ * get : 저장된 아이디를 무작위 순서로 조회한다. (findById)
+ * getMissing : 저장되지 않은 아이디를 조회한다.
+ * put : 저장된 아이디의 값을 바꾼다. (새 버전 설치)
+ * 할당량은 -prof gc 의 gc.alloc.rate.norm 으로 보고, 항목당 바이트는 Setup 에서 JOL 로 맵 전체 크기를 재어 출력한다.
+ * 모든 항목이 같은 값 객체를 가리키므로 항목당 바이트에는 값이 들어가지 않는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LongObjectMapBenchmark {
+
+    private static final int PROBES = 1 << 16;
+    private static final Object VALUE = new Object();
+
+    /**
+     * 맵의 조회와 저장만 감싼다. 포크마다 한 구현만 쓰이므로 호출은 단형(monomorphic)으로 인라인된다.
+     */
+    private interface LongMap {
+        Object get(long key);
+
+        void put(long key, Object value);
+
+        Object target();
+    }
+
+    @Param({"HashMap", "ConcurrentHashMap", "LongObjectHashMap", "ConcurrentLongObjectHashMap"})
+    private String map;
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private LongMap target;
+    private long[] hits;
+    private long[] misses;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = create(map);
+        SplittableRandom random = new SplittableRandom(42);
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = random.nextLong(1, Long.MAX_VALUE);
+            target.put(ids[i], VALUE);
+        }
+        hits = new long[PROBES];
+        misses = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            hits[i] = ids[random.nextInt(size)];
+            misses[i] = -random.nextLong(1, Long.MAX_VALUE);
+        }
+
+        long bytes = GraphLayout.parseInstance(target.target()).totalSize();
+        System.out.printf("%n%s size=%d: %d bytes, %.1f bytes/entry%n", map, size, bytes, (double) bytes / size);
+    }
+
+    @Benchmark
+    public Object get() {
+        return target.get(hits[cursor++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public Object getMissing() {
+        return target.get(misses[cursor++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public void put() {
+        target.put(hits[cursor++ & (PROBES - 1)], VALUE);
+    }
+
+    private static LongMap create(String map) {
+        switch (map) {
+            case "HashMap":
+                return boxed(new HashMap<>());
+            case "ConcurrentHashMap":
+                return boxed(new ConcurrentHashMap<>());
+            case "LongObjectHashMap": {
+                LongObjectHashMap<Object> target = new LongObjectHashMap<>();
+                return new LongMap() {
+                    @Override
+                    public Object get(long key) {
+                        return target.get(key);
+                    }
+
+                    @Override
+                    public void put(long key, Object value) {
+                        target.put(key, value);
+                    }
+
+                    @Override
+                    public Object target() {
+                        return target;
+                    }
+                };
+            }
+            case "ConcurrentLongObjectHashMap": {
+                ConcurrentLongObjectHashMap<Object> target = new ConcurrentLongObjectHashMap<>();
+                return new LongMap() {
+                    @Override
+                    public Object get(long key) {
+                        return target.get(key);
+                    }
+
+                    @Override
+                    public void put(long key, Object value) {
+                        target.put(key, value);
+                    }
+
+                    @Override
+                    public Object target() {
+                        return target;
+                    }
+                };
+            }
+            default:
+                throw new IllegalArgumentException("Unknown map: " + map);
+        }
+    }
+
+    private static LongMap boxed(Map<Long, Object> target) {
+        return new LongMap() {
+            @Override
+            public Object get(long key) {
+                return target.get(key);
+            }
+
+            @Override
+            public void put(long key, Object value) {
+                target.put(key, value);
+            }
+
+            @Override
+            public Object target() {
+                return target;
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.schooldevops.monolithic.demomonolithic.benchmark;
+
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.engine.InMemoryStorageEngine;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.engine.LogStructuredStorageEngine;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.engine.StorageEngine;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.engine.StorageTable;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 저장 엔진 테이블의 쓰기와 읽기 처리량을 memory 엔진과 log 엔진으로 비교한다.
+ *
+ *   scripts/storage-benchmark.sh [아이디 수] [값 크기(byte)] [읽기 스레드 수]
+ *
+ * write : 한 스레드가 아이디 순서대로 값을 저장한다. (가비지 컬렉션이 값을 내려놓는 방식)
+ * overwrite : 무작위 아이디의 절반을 다시 저장한다. log 엔진은 이후 컴팩션이 garbage 를 정리한다.
+ * read : 여러 스레드가 무작위 아이디를 읽는다. 한번 실행하여 캐시와 JIT 를 데운 뒤 다시 측정한다.
+ * log 엔진은 블록 캐시가 데이터보다 큰 경우(hot)와 작은 경우(cold)를 함께 측정한다.
+ */
+public class StorageEngineBenchmark {
+
+    private static final String TABLE = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int valueBytes = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long dataBytes = (long) keys * valueBytes;
+        Path directory = Files.createTempDirectory("storage-benchmark");
+
+        System.out.printf("keys: %d, value: %d bytes, data: %d MiB, read threads: %d%n", keys, valueBytes, dataBytes >> 20, threads);
+        System.out.printf("%-10s %-10s %14s %10s%n", "engine", "phase", "ops/s", "MiB/s");
+        run("memory", InMemoryStorageEngine::new, keys, valueBytes, threads);
+        run("log-hot", () -> new LogStructuredStorageEngine(directory, 64L << 20, 16 << 10, dataBytes * 2, 500, 0.5),
+                keys, valueBytes, threads);
+        run("log-cold", () -> new LogStructuredStorageEngine(directory, 64L << 20, 16 << 10, dataBytes / 20, 500, 0.5),
+                keys, valueBytes, threads);
+        Files.deleteIfExists(directory);
+    }
+
+    private static void run(String name, Supplier<StorageEngine> factory, int keys, int valueBytes, int threads) throws Exception {
+        try (StorageEngine engine = factory.get()) {
+            StorageTable table = engine.openTable(TABLE);
+
+            long started = System.nanoTime();
+            for (int id = 1; id <= keys; id++) {
+                table.put(id, valueOf(id, valueBytes));
+            }
+            report(name, "write", keys, valueBytes, System.nanoTime() - started);
+
+            started = System.nanoTime();
+            int overwrites = keys / 2;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < overwrites; i++) {
+                long id = 1 + random.nextInt(keys);
+                table.put(id, valueOf(id, valueBytes));
+            }
+            report(name, "overwrite", overwrites, valueBytes, System.nanoTime() - started);
+
+            read(table, keys, threads);
+            started = System.nanoTime();
+            long reads = read(table, keys, threads);
+            report(name, "read", reads, valueBytes, System.nanoTime() - started);
+
+            Thread.sleep(1000);
+            Map<String, Object> status = engine.getStatus();
+            if (status.containsKey("blockCache")) {
+                System.out.printf("%-10s %s%n%-10s %s%n", name, ((Map<?, ?>) status.get("tables")).get(TABLE), name, status.get("blockCache"));
+            }
+        }
+    }
+
+    /**
+     * 스레드마다 아이디 수만큼 무작위로 읽고 값의 아이디를 확인한다.
+     * @return 전체 읽기 수
+     */
+    private static long read(StorageTable table, int keys, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < keys; i++) {
+                        long id = 1 + random.nextInt(keys);
+                        byte[] value = table.get(id);
+                        if (value == null || ByteBuffer.wrap(value).getLong() != id) {
+                            throw new IllegalStateException("Unexpected value for " + id);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return (long) keys * threads;
+    }
+
+    private static byte[] valueOf(long id, int valueBytes) {
+        byte[] value = new byte[Math.max(Long.BYTES, valueBytes)];
+        ThreadLocalRandom.current().nextBytes(value);
+        ByteBuffer.wrap(value).putLong(id);
+        return value;
+    }
+
+    private static void report(String engine, String phase, long operations, int valueBytes, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%-10s %-10s %,14.0f %10.1f%n", engine, phase, operations / seconds,
+                operations * (double) valueBytes / seconds / (1 << 20));
+    }
+}
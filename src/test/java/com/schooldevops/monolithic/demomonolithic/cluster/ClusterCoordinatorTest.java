@@ -0,0 +1,63 @@
+package com.schooldevops.monolithic.demomonolithic.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.repositories.StudentRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import com.schooldevops.monolithic.demomonolithic.services.StudentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 복제 배치가 하나의 쓰기 배치로 적용되는지 검사한다.
+ */
+@SpringBootTest
+class ClusterCoordinatorTest {
+
+    @Autowired
+    private ClusterCoordinator clusterCoordinator;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private VersionedStorage versionedStorage;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void replicationBatchIsAppliedAtOneSequence() {
+        Student deleted = studentService.joinStudent(Student.builder().name("Replicated Delete").age(20).major("Replication").build());
+        Student updated = studentService.joinStudent(Student.builder().name("Replicated Update").age(20).major("Replication").build());
+        Student leaderCopy = updated.toBuilder().age(21).major("Replicated").build();
+        leaderCopy.setVersion(7L);
+
+        ObjectNode change = objectMapper.createObjectNode();
+        change.set("changed", objectMapper.valueToTree(List.of(leaderCopy)));
+        change.set("deleted", objectMapper.valueToTree(List.of(deleted.getId())));
+        ObjectNode changes = objectMapper.createObjectNode();
+        changes.set(studentRepository.getEntityName(), change);
+        long before = versionedStorage.currentSequence();
+
+        clusterCoordinator.applyReplication(changes, false);
+
+        assertThat(versionedStorage.currentSequence()).isEqualTo(before + 1);
+        assertThat(studentRepository.findLocalById(deleted.getId())).isNull();
+        Student replicated = studentRepository.findLocalById(updated.getId());
+        assertThat(replicated.getAge()).isEqualTo(21);
+        assertThat(replicated.getVersion()).isEqualTo(7L);
+        // 커밋한 후에 인덱스에 반영된다.
+        assertThat(studentRepository.findByMajor("Replication")).isEmpty();
+        assertThat(studentRepository.findByMajor("Replicated")).extracting(Student::getId).containsExactly(updated.getId());
+    }
+}
@@ -0,0 +1,142 @@
+package com.schooldevops.monolithic.demomonolithic.coalescing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 진행중인 계산에 합류하는 조건과 예외 전달을 검사한다.
+ */
+class SingleFlightTest {
+
+    private final AtomicLong generation = new AtomicLong(1);
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>(generation::get);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallJoinsInflightComputation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return "value-" + loads.incrementAndGet();
+        }));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        Future<String> follower = executor.submit(() -> singleFlight.execute("key", () -> "value-" + loads.incrementAndGet()));
+        waitUntil(() -> singleFlight.getShared() == 1);
+        release.countDown();
+
+        assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("value-1");
+        assertThat(follower.get(10, TimeUnit.SECONDS)).isEqualTo("value-1");
+        assertThat(loads).hasValue(1);
+        assertThat(singleFlight.getExecutions()).isEqualTo(1);
+        assertThat(singleFlight.getInflight()).isZero();
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        assertThat(singleFlight.execute("a", () -> "A")).isEqualTo("A");
+        assertThat(singleFlight.execute("b", () -> "B")).isEqualTo("B");
+        assertThat(singleFlight.getExecutions()).isEqualTo(2);
+        assertThat(singleFlight.getShared()).isZero();
+    }
+
+    @Test
+    void callAfterWriteDoesNotJoinOlderComputation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch releaseOld = new CountDownLatch(1);
+
+        Future<String> old = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(releaseOld);
+            return "before write";
+        }));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // 진행중인 계산이 시작된 후에 쓰기가 공개되었다.
+        generation.incrementAndGet();
+        CountDownLatch newStarted = new CountDownLatch(1);
+        CountDownLatch releaseNew = new CountDownLatch(1);
+        Future<String> fresh = executor.submit(() -> singleFlight.execute("key", () -> {
+            newStarted.countDown();
+            await(releaseNew);
+            return "after write";
+        }));
+        assertThat(newStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // 쓰기 이후에 들어온 다른 요청은 새로운 계산에 합류한다.
+        Future<String> joined = executor.submit(() -> singleFlight.execute("key", () -> "unexpected"));
+        waitUntil(() -> singleFlight.getShared() == 1);
+        releaseOld.countDown();
+        assertThat(old.get(10, TimeUnit.SECONDS)).isEqualTo("before write");
+        // 먼저 끝난 이전 계산이 새로운 계산을 맵에서 지우지 않는다.
+        assertThat(singleFlight.getInflight()).isEqualTo(1);
+        releaseNew.countDown();
+
+        assertThat(fresh.get(10, TimeUnit.SECONDS)).isEqualTo("after write");
+        assertThat(joined.get(10, TimeUnit.SECONDS)).isEqualTo("after write");
+        assertThat(singleFlight.getExecutions()).isEqualTo(2);
+        assertThat(singleFlight.getInflight()).isZero();
+    }
+
+    @Test
+    void exceptionPropagatesToWaiters() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("load failed");
+        }));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        Future<String> follower = executor.submit(() -> singleFlight.execute("key", () -> "unexpected"));
+        waitUntil(() -> singleFlight.getShared() == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("load failed");
+
+        // 실패한 계산은 남지 않으므로 다음 요청은 다시 계산한다.
+        assertThat(singleFlight.getInflight()).isZero();
+        assertThat(singleFlight.execute("key", () -> "recovered")).isEqualTo("recovered");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.schooldevops.monolithic.demomonolithic.gpa;
+
+import com.schooldevops.monolithic.demomonolithic.domains.Lecture;
+import com.schooldevops.monolithic.demomonolithic.domains.Professor;
+import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.domains.StudentGpa;
+import com.schooldevops.monolithic.demomonolithic.domains.Subject;
+import com.schooldevops.monolithic.demomonolithic.services.LectureService;
+import com.schooldevops.monolithic.demomonolithic.services.ProfessorService;
+import com.schooldevops.monolithic.demomonolithic.services.StudentService;
+import com.schooldevops.monolithic.demomonolithic.services.SubjectService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 변경 리스너로 갱신한 평점 합계가 전체 재계산 결과와 같은지, 순위가 삭제된 학생을 제외하는지 검사한다.
+ */
+@SpringBootTest
+class GpaEngineTest {
+
+    private static final List<String> GRADES = List.of("A+", "A0", "B+", "B0", "C+", "C0", "D+", "D0", "F");
+
+    @Autowired
+    private GpaEngine gpaEngine;
+
+    @Autowired
+    private LectureService lectureService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private ProfessorService professorService;
+
+    private Professor professor;
+
+    @BeforeEach
+    void setUp() {
+        professor = professorService.join(Professor.builder().name("Kido").build());
+    }
+
+    @Test
+    void incrementalTotalsMatchRecompute() {
+        List<Lecture> lectures = new ArrayList<>();
+        for (int credit = 1; credit <= 4; credit++) {
+            lectures.add(lectureService.createLecture(newSubject("GPA " + credit, credit).getId(), 100));
+        }
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            students.add(newStudent("GPA Student " + i));
+        }
+
+        // 성적 부여, 재부여, 수강 취소를 섞어 증분 반영의 빼기와 더하기를 모두 거친다.
+        SplittableRandom random = new SplittableRandom(7);
+        for (Student student : students) {
+            for (Lecture lecture : lectures) {
+                if (random.nextInt(4) == 0) {
+                    continue;
+                }
+                Long attendedId = lectureService.applyAttendedSubject(lecture.getId(), student.getId())
+                        .getLecture().getAttendedSubjects().stream()
+                        .filter(item -> student.getId().equals(item.getStudent().getId()))
+                        .findFirst().orElseThrow().getId();
+                int action = random.nextInt(4);
+                if (action == 0) {
+                    continue;
+                }
+                lectureService.gradeAttendedSubject(lecture.getId(), attendedId, GRADES.get(random.nextInt(GRADES.size())));
+                if (action == 2) {
+                    lectureService.gradeAttendedSubject(lecture.getId(), attendedId, GRADES.get(random.nextInt(GRADES.size())));
+                } else if (action == 3 && random.nextBoolean()) {
+                    lectureService.removeAttendedSubject(lecture.getId(), attendedId);
+                }
+            }
+        }
+
+        List<String> incremental = describe(students);
+        List<String> incrementalRanking = describe(gpaEngine.findTop(10_000, 0));
+
+        gpaEngine.recompute();
+
+        assertThat(describe(students)).isEqualTo(incremental);
+        assertThat(describe(gpaEngine.findTop(10_000, 0))).isEqualTo(incrementalRanking);
+        assertThat(incremental).anyMatch(line -> !line.contains("gpa=null"));
+    }
+
+    @Test
+    void rankingSkipsDeletedStudents() {
+        // 다른 테스트의 학생이 순위에 들지 않도록 최소 이수 학점을 높게 잡는다.
+        Lecture lecture = lectureService.createLecture(newSubject("Thesis", 50).getId(), 10);
+        Student first = newStudent("Top");
+        Student second = newStudent("Second");
+        Student third = newStudent("Third");
+        grade(lecture, first, "A+");
+        grade(lecture, second, "A0");
+        grade(lecture, third, "B+");
+
+        assertThat(gpaEngine.findTop(2, 50)).extracting(StudentGpa::getStudentId).containsExactly(first.getId(), second.getId());
+
+        studentService.deleteById(first.getId());
+
+        List<StudentGpa> ranking = gpaEngine.findTop(2, 50);
+        assertThat(ranking).extracting(StudentGpa::getStudentId).containsExactly(second.getId(), third.getId());
+        assertThat(ranking).extracting(StudentGpa::getRank).containsExactly(1, 2);
+    }
+
+    private void grade(Lecture lecture, Student student, String grade) {
+        Long attendedId = lectureService.applyAttendedSubject(lecture.getId(), student.getId())
+                .getLecture().getAttendedSubjects().stream()
+                .filter(item -> student.getId().equals(item.getStudent().getId()))
+                .findFirst().orElseThrow().getId();
+        lectureService.gradeAttendedSubject(lecture.getId(), attendedId, grade);
+    }
+
+    private List<String> describe(List<?> items) {
+        return items.stream()
+                .map(item -> item instanceof Student ? gpaEngine.findByStudentId(((Student) item).getId()) : item)
+                .map(Object::toString)
+                .collect(Collectors.toList());
+    }
+
+    private Subject newSubject(String name, int credit) {
+        return subjectService.applySubject(Subject.builder().name(name).professorId(professor.getId()).credit(credit).build());
+    }
+
+    private Student newStudent(String name) {
+        return studentService.joinStudent(Student.builder().name(name).age(20).major("Math").build());
+    }
+}
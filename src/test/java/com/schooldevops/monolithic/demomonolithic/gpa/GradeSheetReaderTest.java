@@ -0,0 +1,77 @@
+package com.schooldevops.monolithic.demomonolithic.gpa;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CSV 와 NDJSON 성적 본문을 행 단위로 읽는지 검사한다.
+ */
+class GradeSheetReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csvSkipsHeaderAndBlankLines() throws IOException {
+        List<GradeSheetReader.Row> rows = read(GradeSheetReader.TEXT_CSV_VALUE, "attendedId,grade\n1,A+\n\n 2 , B0 \n");
+
+        assertThat(rows).extracting(GradeSheetReader.Row::getLine).containsExactly(2L, 4L);
+        assertThat(rows).extracting(GradeSheetReader.Row::getAttendedId).containsExactly(1L, 2L);
+        assertThat(rows).extracting(GradeSheetReader.Row::getGrade).containsExactly("A+", "B0");
+    }
+
+    @Test
+    void csvQuotedFieldsMayContainCommasAndQuotes() throws IOException {
+        List<GradeSheetReader.Row> rows = read(GradeSheetReader.TEXT_CSV_VALUE, "\"1\",\"A+\"\n\"2\",\"B,0\"\n\"3\",\"C\"\"0\"\n");
+
+        assertThat(rows.get(0).getGrade()).isEqualTo("A+");
+        // 따옴표 안의 쉼표와 "" 는 값의 일부이므로 알 수 없는 성적이 될 뿐 필드 수를 바꾸지 않는다.
+        assertThat(rows.get(1).isMalformed()).isFalse();
+        assertThat(rows.get(1).getGrade()).isEqualTo("B,0");
+        assertThat(rows.get(2).getGrade()).isEqualTo("C\"0");
+    }
+
+    @Test
+    void csvMalformedRowsReportTheReason() throws IOException {
+        List<GradeSheetReader.Row> rows = read(GradeSheetReader.TEXT_CSV_VALUE,
+                "1,A+\n2,A+,extra\nx,A0\n3,\"B+\n4,\"B0\"x\n5,B\"0\n");
+
+        assertThat(rows.get(0).isMalformed()).isFalse();
+        assertThat(rows.subList(1, rows.size())).allMatch(GradeSheetReader.Row::isMalformed);
+        assertThat(rows.get(1).getError()).contains("3 fields");
+        assertThat(rows.get(2).getError()).contains("not a number");
+        assertThat(rows.get(3).getError()).contains("unterminated quote");
+        assertThat(rows.get(4).getError()).contains("after closing quote");
+        assertThat(rows.get(5).getError()).contains("unexpected quote");
+    }
+
+    @Test
+    void ndjsonReadsOneObjectPerLine() throws IOException {
+        List<GradeSheetReader.Row> rows = read(GradeSheetReader.APPLICATION_NDJSON_VALUE,
+                "{\"attendedId\": 1, \"grade\": \"A+\"}\n{\"attendedId\": \"2\", \"grade\": \"B0\"}\n{\"grade\": \"C0\"}\n{oops\n");
+
+        assertThat(rows).extracting(GradeSheetReader.Row::getAttendedId).containsExactly(1L, 2L, null, null);
+        assertThat(rows.get(2).getError()).contains("attendedId");
+        assertThat(rows.get(3).getError()).contains("invalid json");
+    }
+
+    private List<GradeSheetReader.Row> read(String contentType, String body) throws IOException {
+        List<GradeSheetReader.Row> rows = new ArrayList<>();
+        try (GradeSheetReader reader = new GradeSheetReader(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                MediaType.parseMediaType(contentType), objectMapper)) {
+            GradeSheetReader.Row row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
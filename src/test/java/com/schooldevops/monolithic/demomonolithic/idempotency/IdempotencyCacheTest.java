@@ -0,0 +1,103 @@
+package com.schooldevops.monolithic.demomonolithic.idempotency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 멱등 키의 대기, 실패 후 재처리, 만료와 최대 개수 정리를 검사한다.
+ */
+class IdempotencyCacheTest {
+
+    private static final String FINGERPRINT = "POST /students";
+
+    private IdempotencyCache cache = new IdempotencyCache(60_000, 3, 3_600_000);
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void sameKeyWaitsForTheFirstResponse() throws Exception {
+        IdempotencyCache.Entry first = cache.acquire(cache.newEntry("key", FINGERPRINT));
+        IdempotencyCache.Entry second = cache.acquire(cache.newEntry("key", FINGERPRINT));
+        assertThat(second).isSameAs(first);
+        assertThatThrownBy(() -> cache.await(second, 10)).isInstanceOf(TimeoutException.class);
+
+        StoredResponse response = response();
+        cache.complete(first, "hash", response, true);
+
+        assertThat(cache.await(second, 10)).isSameAs(response);
+        assertThat(second.getBodyHash()).isEqualTo("hash");
+        assertThat(cache.getStatus()).containsEntry("executions", 1L).containsEntry("replays", 1L);
+    }
+
+    @Test
+    void failedKeyCanBeAcquiredAgain() throws Exception {
+        IdempotencyCache.Entry first = cache.acquire(cache.newEntry("key", FINGERPRINT));
+        cache.fail(first);
+
+        assertThat(cache.await(first, 10)).isNull();
+        IdempotencyCache.Entry retry = cache.newEntry("key", FINGERPRINT);
+        assertThat(cache.acquire(retry)).isSameAs(retry);
+    }
+
+    @Test
+    void expiredKeyIsRemovedAndCanBeReused() {
+        cache.shutdown();
+        cache = new IdempotencyCache(0, 3, 3_600_000);
+        IdempotencyCache.Entry first = cache.acquire(cache.newEntry("key", FINGERPRINT));
+        cache.complete(first, "hash", response(), true);
+
+        IdempotencyCache.Entry reused = cache.newEntry("key", FINGERPRINT);
+        assertThat(cache.acquire(reused)).isSameAs(reused);
+
+        cache.complete(reused, "hash", response(), true);
+        cache.sweep();
+        assertThat(cache.getStatus()).containsEntry("entries", 0);
+    }
+
+    @Test
+    void sweepSkipsInflightKeysAndEnforcesMaxEntries() {
+        // 가장 오래된 키가 처리중이어도 그 뒤의 완료된 키를 정리한다.
+        IdempotencyCache.Entry inflight = cache.acquire(cache.newEntry("inflight", FINGERPRINT));
+        for (int i = 0; i < 5; i++) {
+            IdempotencyCache.Entry entry = cache.acquire(cache.newEntry("key-" + i, FINGERPRINT));
+            cache.complete(entry, "hash", response(), true);
+        }
+        assertThat(cache.getStatus()).containsEntry("entries", 6);
+
+        cache.sweep();
+
+        assertThat(cache.getStatus()).containsEntry("entries", 3);
+        assertThat(cache.acquire(cache.newEntry("inflight", FINGERPRINT))).isSameAs(inflight);
+        // 오래된 키부터 정리하므로 최근 키는 남는다.
+        assertThat(cache.acquire(cache.newEntry("key-4", FINGERPRINT)).getBodyHash()).isEqualTo("hash");
+        IdempotencyCache.Entry oldest = cache.newEntry("key-0", FINGERPRINT);
+        assertThat(cache.acquire(oldest)).isSameAs(oldest);
+    }
+
+    @Test
+    void responseNotRetainedIsOnlyDeliveredToWaiters() throws Exception {
+        IdempotencyCache.Entry first = cache.acquire(cache.newEntry("key", FINGERPRINT));
+        IdempotencyCache.Entry waiter = cache.acquire(cache.newEntry("key", FINGERPRINT));
+        StoredResponse response = response();
+
+        cache.complete(first, "hash", response, false);
+
+        assertThat(cache.await(waiter, 10)).isSameAs(response);
+        IdempotencyCache.Entry next = cache.newEntry("key", FINGERPRINT);
+        assertThat(cache.acquire(next)).isSameAs(next);
+    }
+
+    private static StoredResponse response() {
+        return new StoredResponse(200, Map.of("Content-Type", List.of("application/json")), "{}".getBytes());
+    }
+}
@@ -0,0 +1,51 @@
+package com.schooldevops.monolithic.demomonolithic.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 같은 멱등 키의 요청에 처음 응답을 돌려주고, 본문이 다른 요청은 거부하는지 검사한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void sameKeyAndBodyReplaysTheFirstResponse() throws Exception {
+        String first = join("join-replay", "Mario").andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsString();
+
+        String replayed = join("join-replay", "Mario").andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(replayed).isEqualTo(first);
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        join("join-conflict", "Mario").andExpect(status().isOk());
+
+        join("join-conflict", "Luigi").andExpect(status().isUnprocessableEntity());
+    }
+
+    private ResultActions join(String key, String name) throws Exception {
+        return mockMvc.perform(post("/students").contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                .content("{\"name\": \"" + name + "\", \"major\": \"Math\"}"));
+    }
+}
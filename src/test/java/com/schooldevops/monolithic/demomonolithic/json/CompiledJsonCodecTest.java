@@ -0,0 +1,243 @@
+package com.schooldevops.monolithic.demomonolithic.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.schooldevops.monolithic.demomonolithic.domains.AttendedSubject;
+import com.schooldevops.monolithic.demomonolithic.domains.Lecture;
+import com.schooldevops.monolithic.demomonolithic.domains.Professor;
+import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.domains.Subject;
+import com.schooldevops.monolithic.demomonolithic.exceptions.MalformedJsonException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 생성된 JSON 코덱이 Spring Boot 기본 설정의 Jackson 과 같은 JSON 을 쓰고, 같은 JSON 을 같은 객체로 읽는지 검사한다.
+ * 도메인 클래스에는 enum 필드가 없으므로 상태와 성적은 문자열 필드로 검사한다.
+ */
+class CompiledJsonCodecTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2020, 3, 2, 9, 30, 15, 123_000_000);
+    private static final String TRICKY = "quote\" backslash\\ slash/ newline\n tab\t cr\r control\u0001\u001f del\u007f "
+            + "한글 é emoji\uD83D\uDE00 separator\u2028\u2029";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final EntityJsonMapper compiled = new EntityJsonMapper(objectMapper, true);
+    private final EntityJsonMapper jackson = new EntityJsonMapper(objectMapper, false);
+
+    @Test
+    void everyDomainClassHasAGeneratedCodec() {
+        for (Class<?> type : List.of(Student.class, Professor.class, Subject.class, Lecture.class, AttendedSubject.class)) {
+            assertThat(JsonCodecs.find(type)).as(type.getSimpleName()).isNotNull();
+        }
+        assertThat(JsonCodecs.find(String.class)).isNull();
+    }
+
+    @Test
+    void studentMatchesJackson() throws IOException {
+        assertRoundTrip(student(1L), Student.class);
+        assertRoundTrip(new Student(), Student.class);
+        assertRoundTrip(Student.builder().id(Long.MAX_VALUE).name("").age(Integer.MIN_VALUE).version(Long.MIN_VALUE).build(), Student.class);
+    }
+
+    @Test
+    void professorMatchesJackson() throws IOException {
+        assertRoundTrip(professor(), Professor.class);
+        assertRoundTrip(new Professor(), Professor.class);
+    }
+
+    @Test
+    void subjectMatchesJackson() throws IOException {
+        assertRoundTrip(subject(), Subject.class);
+        assertRoundTrip(Subject.builder().id(20L).name("no professor").build(), Subject.class);
+    }
+
+    @Test
+    void attendedSubjectMatchesJackson() throws IOException {
+        assertRoundTrip(attendedSubject(100L, "A+", "DONE"), AttendedSubject.class);
+        assertRoundTrip(AttendedSubject.builder().id(101L).grade("None").state("APPLY").build(), AttendedSubject.class);
+    }
+
+    @Test
+    void lectureWithNestedListsMatchesJackson() throws IOException {
+        List<AttendedSubject> attendedSubjects = new ArrayList<>();
+        for (long id = 100; id < 103; id++) {
+            attendedSubjects.add(attendedSubject(id, "B0", "APPLY"));
+        }
+        assertRoundTrip(lecture(attendedSubjects), Lecture.class);
+        assertRoundTrip(lecture(new ArrayList<>()), Lecture.class);
+        assertRoundTrip(lecture(null), Lecture.class);
+        assertRoundTrip(lecture(new ArrayList<>(Arrays.asList(attendedSubject(104L, "F", "DONE"), null, new AttendedSubject()))), Lecture.class);
+    }
+
+    @Test
+    void escapesAndUnicodeMatchJackson() throws IOException {
+        Student student = student(2L).toBuilder().name(TRICKY).major("\u0000").build();
+        assertRoundTrip(student, Student.class);
+        assertRoundTrip(lecture(List.of(attendedSubject(100L, TRICKY, TRICKY))).toBuilder().state(TRICKY).build(), Lecture.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "2020-03-02T09:30:00",
+            "2020-03-02T09:30:15",
+            "2020-03-02T00:00:00.000000001",
+            "2020-03-02T09:30:15.1",
+            "2020-03-02T09:30:15.123456789",
+            "1999-12-31T23:59:59.999",
+            "0001-01-01T00:00:00",
+            "9999-12-31T23:59:59.99999"
+    })
+    void dateTimesMatchJackson(String text) throws IOException {
+        LocalDateTime value = LocalDateTime.parse(text);
+        assertRoundTrip(professor().toBuilder().joinedAt(value).build(), Professor.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"joinedAt\":\"2020-03-02T09:30:15.123\"}",
+            "{\"joinedAt\":\"2020-03-02T09:30\"}",
+            "{\"joinedAt\":\"2020-03-02T09:30:15.123Z\"}",
+            "{\"joinedAt\":[2020,3,2,9,30,15,123000000]}",
+            "{\"joinedAt\":[2020,3,2,9,30]}",
+            "{\"joinedAt\":\"\"}",
+            "{\"joinedAt\":null}"
+    })
+    void readsDateTimeFormsLikeJackson(String json) throws IOException {
+        assertReadsLikeJackson(json, Professor.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{}",
+            "{\"id\":null,\"name\":null,\"age\":null,\"major\":null,\"entranceAt\":null,\"version\":null}",
+            " \n{ \"id\" : 1 ,\t\"name\" : \"a\" } \n",
+            "{\"id\":\"7\",\"age\":\"21\",\"version\":\"\"}",
+            "{\"id\":7.0,\"age\":2.1e1}",
+            "{\"id\":-9223372036854775808,\"age\":-2147483648}",
+            "{\"name\":\"\\u00e9\\uD83D\\uDE00\\/\\b\\f\\n\\r\\t\\\"\\\\\"}",
+            "{\"n\\u0061me\":\"escaped field name\"}",
+            "{\"name\":123,\"major\":true}",
+            "{\"unknown\":{\"nested\":[1,{\"a\":null},\"x\"]},\"id\":3,\"other\":[true,false,null,-1.5e-3]}"
+    })
+    void readsStudentLikeJackson(String json) throws IOException {
+        assertReadsLikeJackson(json, Student.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"id\":1,\"attendedSubjects\":[]}",
+            "{\"id\":1,\"attendedSubjects\":null}",
+            "{\"id\":1,\"attendedSubjects\":[null,{\"id\":2,\"student\":{\"id\":3,\"name\":\"s\"}}]}",
+            "{\"subject\":{\"id\":1,\"professor\":{\"id\":2,\"joinedAt\":\"2020-03-02T09:30:15\"}},\"state\":\"DONE\"}"
+    })
+    void readsNestedObjectsLikeJackson(String json) throws IOException {
+        assertReadsLikeJackson(json, Lecture.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "{",
+            "{\"id\":1",
+            "{\"id\":1,}",
+            "{\"id\" 1}",
+            "{id:1}",
+            "{\"id\":1 \"name\":\"a\"}",
+            "{\"name\":\"unterminated}",
+            "{\"name\":\"bad escape \\x\"}",
+            "{\"name\":\"short unicode \\u12\"}",
+            "{\"id\":\"abc\"}",
+            "{\"id\":-}",
+            "{\"age\":3000000000}",
+            "{\"name\":{}}",
+            "{\"entranceAt\":\"yesterday\"}",
+            "{\"entranceAt\":[2020,13,1,0,0]}",
+            "{\"entranceAt\":12}",
+            "{\"id\":tru}",
+            "[]",
+            "\"student\""
+    })
+    void rejectsMalformedInputLikeJackson(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> jackson.readValue(bytes, 0, bytes.length, Student.class)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> compiled.readValue(bytes, 0, bytes.length, Student.class)).isInstanceOf(MalformedJsonException.class);
+    }
+
+    @Test
+    void rejectsMalformedNestedList() {
+        byte[] bytes = "{\"attendedSubjects\":[{\"id\":1},]}".getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> jackson.readValue(bytes, 0, bytes.length, Lecture.class)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> compiled.readValue(bytes, 0, bytes.length, Lecture.class)).isInstanceOf(MalformedJsonException.class);
+    }
+
+    @Test
+    void readsFromTheMiddleOfABuffer() throws IOException {
+        byte[] json = compiled.writeValueAsBytes(student(3L));
+        byte[] buffer = new byte[json.length + 20];
+        Arrays.fill(buffer, (byte) '#');
+        System.arraycopy(json, 0, buffer, 10, json.length);
+
+        assertThat(compiled.readValue(buffer, 10, json.length, Student.class)).usingRecursiveComparison().isEqualTo(student(3L));
+    }
+
+    /**
+     * 생성된 코덱과 Jackson 이 같은 바이트를 쓰고 (버퍼와 스트림 모두), 그 바이트를 서로 같은 객체로 읽는지 확인한다.
+     */
+    private <T> void assertRoundTrip(T value, Class<T> type) throws IOException {
+        byte[] expected = jackson.writeValueAsBytes(value);
+        byte[] actual = compiled.writeValueAsBytes(value);
+        assertThat(new String(actual, StandardCharsets.UTF_8)).isEqualTo(new String(expected, StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        compiled.writeValue(stream, value);
+        assertThat(stream.toByteArray()).isEqualTo(expected);
+
+        T read = compiled.readValue(expected, 0, expected.length, type);
+        assertThat(read).usingRecursiveComparison().isEqualTo(value);
+        assertThat(read).usingRecursiveComparison().isEqualTo(jackson.readValue(expected, 0, expected.length, type));
+    }
+
+    private <T> void assertReadsLikeJackson(String json, Class<T> type) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        T expected = jackson.readValue(bytes, 0, bytes.length, type);
+        T actual = compiled.readValue(bytes, 0, bytes.length, type);
+        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    private static Student student(Long id) {
+        return Student.builder().id(id).name("Student " + id).age(21).major("Computer Science").entranceAt(AT).version(1L).build();
+    }
+
+    private static Professor professor() {
+        return Professor.builder().id(10L).name("Kido").major("Computer Science").joinedAt(AT).version(3L).build();
+    }
+
+    private static Subject subject() {
+        return Subject.builder().id(20L).name("Data Structure").professorId(10L).professor(professor()).credit(3).version(1L).build();
+    }
+
+    private static AttendedSubject attendedSubject(Long id, String grade, String state) {
+        return AttendedSubject.builder().id(id).subjectId(20L).student(student(id + 1000)).grade(grade).state(state).version(2L).build();
+    }
+
+    private static Lecture lecture(List<AttendedSubject> attendedSubjects) {
+        return Lecture.builder().id(30L).professor(professor()).subject(subject()).attendedSubjects(attendedSubjects)
+                .limitStudents(60).state("OPENED").version(2L).build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.schooldevops.monolithic.demomonolithic.repositories;
+
+import com.schooldevops.monolithic.demomonolithic.domains.AttendedSubject;
+import com.schooldevops.monolithic.demomonolithic.domains.Lecture;
+import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.domains.WaitlistEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 수강 인덱스의 자리 제한, 대기열 순서와 중복 신청 검사를 검사한다.
+ */
+class EnrollmentIndexTest {
+
+    private static final Long LECTURE_ID = 1L;
+
+    private final EnrollmentIndex enrollmentIndex = new EnrollmentIndex();
+
+    @Test
+    void seatsAreLimitedAndOverflowIsWaitlistedInOrder() {
+        assertThat(enrollmentIndex.acquireSeat(LECTURE_ID, 1L, 2)).isNull();
+        assertThat(enrollmentIndex.acquireSeat(LECTURE_ID, 2L, 2)).isNull();
+
+        WaitlistEntry third = enrollmentIndex.acquireSeat(LECTURE_ID, 3L, 2);
+        WaitlistEntry fourth = enrollmentIndex.acquireSeat(LECTURE_ID, 4L, 2);
+
+        assertThat(third.getPosition()).isEqualTo(1);
+        assertThat(fourth.getPosition()).isEqualTo(2);
+        assertThat(enrollmentIndex.findWaitlist(LECTURE_ID)).containsOnlyKeys(3L, 4L);
+    }
+
+    @Test
+    void waitlistingTheSameStudentTwiceKeepsTheOriginalEntry() {
+        enrollmentIndex.acquireSeat(LECTURE_ID, 1L, 1);
+        WaitlistEntry first = enrollmentIndex.acquireSeat(LECTURE_ID, 2L, 1);
+        enrollmentIndex.acquireSeat(LECTURE_ID, 3L, 1);
+
+        WaitlistEntry again = enrollmentIndex.acquireSeat(LECTURE_ID, 2L, 1);
+
+        assertThat(again.getPosition()).isEqualTo(1);
+        assertThat(again.getWaitlistedAt()).isEqualTo(first.getWaitlistedAt());
+        assertThat(enrollmentIndex.findWaitlist(LECTURE_ID)).hasSize(2);
+    }
+
+    @Test
+    void releasedSeatsArePromotedInArrivalOrder() {
+        enrollmentIndex.acquireSeat(LECTURE_ID, 1L, 1);
+        enrollmentIndex.acquireSeat(LECTURE_ID, 2L, 1);
+        enrollmentIndex.acquireSeat(LECTURE_ID, 3L, 1);
+        enrollmentIndex.acquireSeat(LECTURE_ID, 4L, 1);
+        enrollmentIndex.leaveWaitlist(LECTURE_ID, 3L);
+
+        assertThat(enrollmentIndex.releaseSeat(LECTURE_ID, 1)).isEqualTo(2L);
+        // 대기중인 학생이 있으면 남은 자리가 없더라도 새로 신청한 학생은 대기열 끝에 선다.
+        assertThat(enrollmentIndex.acquireSeat(LECTURE_ID, 5L, 1).getPosition()).isEqualTo(2);
+        assertThat(enrollmentIndex.releaseSeat(LECTURE_ID, 1)).isEqualTo(4L);
+        assertThat(enrollmentIndex.releaseSeat(LECTURE_ID, 1)).isEqualTo(5L);
+        assertThat(enrollmentIndex.releaseSeat(LECTURE_ID, 1)).isNull();
+        assertThat(enrollmentIndex.acquireSeat(LECTURE_ID, 6L, 1)).isNull();
+    }
+
+    @Test
+    void newSeatsFromARaisedLimitGoToTheWaitlistFirst() {
+        enrollmentIndex.acquireSeat(LECTURE_ID, 1L, 1);
+        enrollmentIndex.acquireSeat(LECTURE_ID, 2L, 1);
+        enrollmentIndex.acquireSeat(LECTURE_ID, 3L, 1);
+
+        assertThat(enrollmentIndex.promoteNext(LECTURE_ID, 1)).isNull();
+        assertThat(enrollmentIndex.promoteNext(LECTURE_ID, 3)).isEqualTo(2L);
+        assertThat(enrollmentIndex.promoteNext(LECTURE_ID, 3)).isEqualTo(3L);
+        assertThat(enrollmentIndex.promoteNext(LECTURE_ID, 3)).isNull();
+        assertThat(enrollmentIndex.findWaitlist(LECTURE_ID)).isEmpty();
+    }
+
+    @Test
+    void unlimitedLectureNeverWaitlists() {
+        for (long studentId = 1; studentId <= 100; studentId++) {
+            assertThat(enrollmentIndex.acquireSeat(LECTURE_ID, studentId, null)).isNull();
+        }
+    }
+
+    @Test
+    void studentCanHoldOnlyOneEnrollmentPerLecture() {
+        assertThat(enrollmentIndex.reserve(LECTURE_ID, 1L)).isTrue();
+        assertThat(enrollmentIndex.reserve(LECTURE_ID, 1L)).isFalse();
+        assertThat(enrollmentIndex.reserve(2L, 1L)).isTrue();
+
+        // 반영하지 못한 예약은 취소하면 다시 신청할 수 있다.
+        enrollmentIndex.cancel(LECTURE_ID, 1L);
+        assertThat(enrollmentIndex.reserve(LECTURE_ID, 1L)).isTrue();
+
+        AttendedSubject attendedSubject = attendedSubject(10L, 1L);
+        enrollmentIndex.confirm(LECTURE_ID, attendedSubject);
+        assertThat(enrollmentIndex.reserve(LECTURE_ID, 1L)).isFalse();
+        assertThat(enrollmentIndex.isEnrolled(LECTURE_ID, 1L)).isTrue();
+        assertThat(enrollmentIndex.findByStudentId(1L)).containsOnlyKeys(LECTURE_ID);
+
+        // 취소가 끝날때까지 자리를 유지하고, 반환한 뒤에 다시 신청할 수 있다.
+        assertThat(enrollmentIndex.claim(LECTURE_ID, 10L)).isSameAs(attendedSubject);
+        assertThat(enrollmentIndex.claim(LECTURE_ID, 10L)).isNull();
+        assertThat(enrollmentIndex.reserve(LECTURE_ID, 1L)).isFalse();
+        enrollmentIndex.release(LECTURE_ID, attendedSubject);
+        assertThat(enrollmentIndex.findByStudentId(1L)).isEmpty();
+        assertThat(enrollmentIndex.reserve(LECTURE_ID, 1L)).isTrue();
+    }
+
+    @Test
+    void indexedLectureCountsExistingSeats() {
+        List<AttendedSubject> attendedSubjects = new ArrayList<>();
+        attendedSubjects.add(attendedSubject(10L, 1L));
+        attendedSubjects.add(attendedSubject(11L, 2L));
+        enrollmentIndex.indexLectures(List.of(Lecture.builder().id(LECTURE_ID).limitStudents(3).attendedSubjects(attendedSubjects).build()));
+
+        assertThat(enrollmentIndex.contains(LECTURE_ID, 11L)).isTrue();
+        assertThat(enrollmentIndex.acquireSeat(LECTURE_ID, 3L, 3)).isNull();
+        assertThat(enrollmentIndex.acquireSeat(LECTURE_ID, 4L, 3).getPosition()).isEqualTo(1);
+    }
+
+    private static AttendedSubject attendedSubject(Long id, Long studentId) {
+        AttendedSubject attendedSubject = new AttendedSubject();
+        attendedSubject.setId(id);
+        attendedSubject.setStudent(Student.builder().id(studentId).build());
+        return attendedSubject;
+    }
+}
@@ -0,0 +1,194 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrentLongObjectHashMapTest {
+
+    @Test
+    void zeroKeyIsStoredOutsideTheSegments() {
+        ConcurrentLongObjectHashMap<String> map = new ConcurrentLongObjectHashMap<>();
+        assertThat(map.get(0L)).isNull();
+
+        assertThat(map.put(0L, "zero")).isNull();
+        map.put(1L, "one");
+        assertThat(map.put(0L, "ZERO")).isEqualTo("zero");
+        assertThat(map.computeIfAbsent(0L, key -> "other")).isEqualTo("ZERO");
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.stream().collect(Collectors.toMap(ConcurrentLongObjectHashMap.Entry::getKey, ConcurrentLongObjectHashMap.Entry::getValue)))
+                .containsEntry(0L, "ZERO").containsEntry(1L, "one").hasSize(2);
+
+        assertThat(map.remove(0L, "zero")).isFalse();
+        assertThat(map.remove(0L, "ZERO")).isTrue();
+        assertThat(map.remove(0L)).isNull();
+        assertThat(map.containsKey(0L)).isFalse();
+        assertThat(map.computeIfAbsent(0L, key -> "again")).isEqualTo("again");
+    }
+
+    @Test
+    void removedKeyReusesItsSlot() {
+        ConcurrentLongObjectHashMap<String> map = new ConcurrentLongObjectHashMap<>(4, 2);
+        int capacity = map.capacity();
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(map.put(42L, "v" + i)).isNull();
+            assertThat(map.remove(42L)).isEqualTo("v" + i);
+        }
+        map.put(42L, "last");
+
+        assertThat(map.capacity()).isEqualTo(capacity);
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.stream().map(ConcurrentLongObjectHashMap.Entry::getKey)).containsExactly(42L);
+        assertThat(map.get(42L)).isEqualTo("last");
+    }
+
+    @Test
+    void rehashesInPlaceWhenTombstonesFillTheArray() {
+        ConcurrentLongObjectHashMap<Long> map = new ConcurrentLongObjectHashMap<>(4, 2);
+        int capacity = map.capacity();
+
+        for (long key = 1; key <= 100_000; key++) {
+            map.put(key, key);
+            if (key > 2) {
+                assertThat(map.remove(key - 2)).isEqualTo(key - 2);
+            }
+        }
+
+        assertThat(map.capacity()).isEqualTo(capacity);
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.get(99_999L)).isEqualTo(99_999L);
+        assertThat(map.get(100_000L)).isEqualTo(100_000L);
+        assertThat(map.get(99_998L)).isNull();
+    }
+
+    @Test
+    void growsWhenLiveEntriesFillTheArray() {
+        ConcurrentLongObjectHashMap<Long> map = new ConcurrentLongObjectHashMap<>(4, 2);
+        int capacity = map.capacity();
+
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(key, key);
+        }
+
+        assertThat(map.capacity()).isGreaterThan(capacity).isGreaterThanOrEqualTo((int) (10_000 / LongObjectHashMap.LOAD_FACTOR));
+        assertThat(map.size()).isEqualTo(10_000);
+        for (long key = 1; key <= 10_000; key++) {
+            assertThat(map.get(key)).isEqualTo(key);
+        }
+    }
+
+    @Test
+    void conditionalRemoveAndComputeIfAbsent() {
+        ConcurrentLongObjectHashMap<String> map = new ConcurrentLongObjectHashMap<>();
+        String value = map.computeIfAbsent(7L, key -> "v" + key);
+        assertThat(map.computeIfAbsent(7L, key -> "other")).isSameAs(value);
+        assertThat(map.remove(7L, new String("v7"))).isFalse();
+        assertThat(map.remove(7L, value)).isTrue();
+        assertThat(map.remove(7L, value)).isFalse();
+        assertThatThrownBy(() -> map.put(8L, null)).isInstanceOf(NullPointerException.class);
+        assertThatThrownBy(() -> map.computeIfAbsent(8L, key -> null)).isInstanceOf(NullPointerException.class);
+
+        map.put(9L, "v9");
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get(9L)).isNull();
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomChurn() {
+        ConcurrentLongObjectHashMap<Long> map = new ConcurrentLongObjectHashMap<>(4, 2);
+        Map<Long, Long> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextLong(-2, 512);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                long value = random.nextLong();
+                assertThat(map.put(key, value)).isEqualTo(expected.put(key, value));
+            }
+            if (i % 10_000 == 0) {
+                assertThat(map.size()).isEqualTo(expected.size());
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        Map<Long, Long> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void readersSeeStableKeysWhileSegmentsRehash() throws Exception {
+        ConcurrentLongObjectHashMap<Long> map = new ConcurrentLongObjectHashMap<>(4, 2);
+        int stable = 1_000;
+        for (long key = 1; key <= stable; key++) {
+            map.put(key, key);
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Long>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                long seed = r;
+                readers.add(executor.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    long reads = 0;
+                    do {
+                        long key = random.nextLong(1, stable + 1);
+                        assertThat(map.get(key)).isEqualTo(key);
+                        long churned = random.nextLong(1_000_000, 1_050_000);
+                        Long value = map.get(churned);
+                        if (value != null) {
+                            assertThat(value).isEqualTo(churned);
+                        }
+                        reads++;
+                    } while (writing.get());
+                    return reads;
+                }));
+            }
+
+            Future<?> writer = executor.submit(() -> {
+                try {
+                    for (int round = 0; round < 5; round++) {
+                        // 새 키로 배열을 키우고, 모두 삭제하여 툼스톤만 남긴 뒤 다음 라운드에서 제자리 재해시를 일으킨다.
+                        for (long key = 1_000_000; key < 1_050_000; key++) {
+                            map.put(key, key);
+                        }
+                        for (long key = 1_000_000; key < 1_050_000; key++) {
+                            map.remove(key);
+                        }
+                    }
+                } finally {
+                    writing.set(false);
+                }
+            });
+
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<Long> reader : readers) {
+                assertThat(reader.get(60, TimeUnit.SECONDS)).isPositive();
+            }
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+
+        assertThat(map.size()).isEqualTo(stable);
+    }
+}
@@ -0,0 +1,163 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongObjectHashMapTest {
+
+    /**
+     * new LongObjectHashMap<>(4) 의 배열 크기는 8 이다.
+     */
+    private static final int MASK = 7;
+
+    @Test
+    void removeShiftsFollowingKeysOfTheSameProbe() {
+        long[] keys = keysWithHome(3, 3);
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+        for (long key : keys) {
+            map.put(key, "v" + key);
+        }
+
+        assertThat(map.remove(keys[0])).isEqualTo("v" + keys[0]);
+        assertThat(map.containsKey(keys[0])).isFalse();
+        assertThat(map.get(keys[1])).isEqualTo("v" + keys[1]);
+        assertThat(map.get(keys[2])).isEqualTo("v" + keys[2]);
+
+        assertThat(map.remove(keys[1])).isEqualTo("v" + keys[1]);
+        assertThat(map.get(keys[2])).isEqualTo("v" + keys[2]);
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removeShiftsAcrossTheEndOfTheArray() {
+        long[] lastSlot = keysWithHome(MASK, 2);
+        long firstSlot = keysWithHome(0, 1)[0];
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+        map.put(lastSlot[0], "a");
+        map.put(lastSlot[1], "b");
+        map.put(firstSlot, "c");
+
+        map.remove(lastSlot[0]);
+
+        assertThat(map.get(lastSlot[1])).isEqualTo("b");
+        assertThat(map.get(firstSlot)).isEqualTo("c");
+        map.remove(lastSlot[1]);
+        assertThat(map.get(firstSlot)).isEqualTo("c");
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removeKeepsKeysWhoseHomeIsAfterTheGap() {
+        long first = keysWithHome(2, 1)[0];
+        long[] next = keysWithHome(3, 2);
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+        map.put(first, "a");
+        map.put(next[0], "b");
+        map.put(next[1], "c");
+
+        map.remove(first);
+
+        assertThat(map.get(next[0])).isEqualTo("b");
+        assertThat(map.get(next[1])).isEqualTo("c");
+        assertThat(map.get(first)).isNull();
+    }
+
+    @Test
+    void zeroKeyIsStoredOutsideTheArray() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+        assertThat(map.get(0L)).isNull();
+        assertThat(map.getOrDefault(0L, "none")).isEqualTo("none");
+
+        assertThat(map.put(0L, "zero")).isNull();
+        map.put(1L, "one");
+        assertThat(map.put(0L, "ZERO")).isEqualTo("zero");
+        assertThat(map.get(0L)).isEqualTo("ZERO");
+        assertThat(map.containsKey(0L)).isTrue();
+        assertThat(map.size()).isEqualTo(2);
+
+        Map<Long, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertThat(visited).containsEntry(0L, "ZERO").containsEntry(1L, "one").hasSize(2);
+
+        assertThat(map.remove(0L)).isEqualTo("ZERO");
+        assertThat(map.remove(0L)).isNull();
+        assertThat(map.containsKey(0L)).isFalse();
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void growsAndKeepsAllEntries() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        for (long key = -5_000; key <= 5_000; key++) {
+            map.put(key * 31, key);
+        }
+
+        assertThat(map.size()).isEqualTo(10_001);
+        for (long key = -5_000; key <= 5_000; key++) {
+            assertThat(map.get(key * 31)).isEqualTo(key);
+        }
+        assertThat(map.get(32L)).isNull();
+    }
+
+    @Test
+    void computeIfAbsentStoresOnlyMissingValues() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertThat(map.computeIfAbsent(5L, key -> "v" + key)).isEqualTo("v5");
+        assertThat(map.computeIfAbsent(5L, key -> "other")).isEqualTo("v5");
+        assertThat(map.computeIfAbsent(6L, key -> null)).isNull();
+        assertThat(map.containsKey(6L)).isFalse();
+        assertThatThrownBy(() -> map.put(7L, null)).isInstanceOf(NullPointerException.class);
+
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get(5L)).isNull();
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomChurn() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        Map<Long, Long> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextLong(-2, 96);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                long value = random.nextLong();
+                assertThat(map.put(key, value)).isEqualTo(expected.put(key, value));
+            }
+            if (i % 1_000 == 0) {
+                assertSameEntries(map, expected);
+            }
+        }
+        assertSameEntries(map, expected);
+    }
+
+    private static void assertSameEntries(LongObjectHashMap<Long> map, Map<Long, Long> expected) {
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = -2; key < 96; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.get(key));
+        }
+    }
+
+    /**
+     * 크기 8 의 배열에서 처음 탐사 위치가 home 인 0 이 아닌 키를 count 개 찾는다.
+     */
+    private static long[] keysWithHome(int home, int count) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = 1; found < count; key++) {
+            if (LongObjectHashMap.slot(key, MASK) == home) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,253 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.id;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterClient;
+import com.schooldevops.monolithic.demomonolithic.cluster.ClusterMembership;
+import com.schooldevops.monolithic.demomonolithic.exceptions.ClusterUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * snowflake, block 아이디 생성기와 블록 임대의 최고 수위를 검사한다.
+ */
+class IdGeneratorsTest {
+
+    private static final String SELF = "http://node-a";
+    private static final String OTHER = "http://node-b";
+
+    @Test
+    void snowflakeIdsAreUniqueAndIncreasingWithinOneMillisecond() {
+        MutableClock clock = new MutableClock(SnowflakeIdGenerator.EPOCH + 1_000L);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5L, clock);
+
+        long previous = -1L;
+        // 한 밀리초의 시퀀스(4096)를 넘기면 다음 밀리초를 미리 사용한다.
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            assertThat((id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID).isEqualTo(5L);
+            previous = id;
+        }
+        assertThat(previous >>> (SnowflakeIdGenerator.NODE_BITS + SnowflakeIdGenerator.SEQUENCE_BITS)).isEqualTo(1_002L);
+    }
+
+    @Test
+    void snowflakeIdsKeepIncreasingWhenTheClockGoesBack() {
+        MutableClock clock = new MutableClock(SnowflakeIdGenerator.EPOCH + 10_000L);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1L, clock);
+
+        long before = generator.nextId();
+        clock.millis.addAndGet(-5_000L);
+        assertThat(generator.nextId()).isGreaterThan(before);
+    }
+
+    @Test
+    void snowflakeIdsOfDifferentNodesNeverCollide() throws Exception {
+        MutableClock clock = new MutableClock(SnowflakeIdGenerator.EPOCH + 1L);
+        List<IdGenerator> generators = List.of(new SnowflakeIdGenerator(0L, clock), new SnowflakeIdGenerator(1L, clock),
+                new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID, clock));
+
+        assertThat(generateConcurrently(generators, 20_000)).hasSize(generators.size() * 4 * 20_000);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1, clock))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void snowflakeInClusterModeRequiresNodeId() {
+        ClusterMembership membership = new ClusterMembership(true, SELF, new String[0], 16);
+
+        assertThatThrownBy(() -> new IdGenerators(IdGenerators.SNOWFLAKE, -1L, 1000, membership, new StubClusterClient(membership)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("id-generator.node-id");
+        assertThat(new IdGenerators(IdGenerators.SNOWFLAKE, 7L, 1000, membership, new StubClusterClient(membership))
+                .create("student", 0L).nextId()).isPositive();
+        assertThat(new IdGenerators(IdGenerators.BLOCK, -1L, 1000, membership, new StubClusterClient(membership))
+                .create("student", 0L).nextId()).isEqualTo(1L);
+    }
+
+    @Test
+    void blockIdsAreUniqueAcrossThreadsAndBlocks() throws Exception {
+        AtomicLong leased = new AtomicLong();
+        List<Long> starts = new ArrayList<>();
+        BlockLeasedIdGenerator generator = new BlockLeasedIdGenerator(size -> {
+            long start = leased.getAndAdd(size) + 1;
+            synchronized (starts) {
+                starts.add(start);
+            }
+            return start;
+        }, 100, id -> { });
+
+        Set<Long> ids = generateConcurrently(List.of(generator), 5_000);
+
+        assertThat(ids).hasSize(4 * 5_000);
+        assertThat(ids.stream().mapToLong(Long::longValue).max().orElseThrow()).isLessThanOrEqualTo(leased.get());
+        assertThat(starts).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void blockIdsStartAfterLoadedIds() {
+        ClusterMembership membership = new ClusterMembership(false, SELF, new String[0], 16);
+        IdGenerators idGenerators = new IdGenerators(IdGenerators.BLOCK, -1L, 10, membership, new StubClusterClient(membership));
+        IdGenerator generator = idGenerators.create("student", 3L);
+
+        // 초기 데이터 적재는 importEntity 로 아이디를 알려준다.
+        generator.observe(100_000L);
+
+        assertThat(generator.nextId()).isEqualTo(100_001L);
+        assertThat(idGenerators.highWaterMark("student")).isEqualTo(100_010L);
+    }
+
+    @Test
+    void restartedSeedRecoversHighWaterMarkOfMembers() {
+        ClusterMembership membership = new ClusterMembership(true, SELF, new String[0], 16);
+        StubClusterClient clusterClient = new StubClusterClient(membership);
+        IdGenerators idGenerators = new IdGenerators(IdGenerators.BLOCK, -1L, 10, membership, clusterClient);
+        IdGenerator generator = idGenerators.create("student", 3L);
+        membership.updateMembers(List.of(SELF, OTHER));
+        // 재시작 전에 다른 노드가 임대받은 블록의 끝
+        clusterClient.highWaterMarks.put(OTHER, 5_000L);
+
+        assertThat(generator.nextId()).isEqualTo(5_001L);
+        assertThat(idGenerators.grantBlock("student", 10, 0L)).isEqualTo(5_011L);
+        assertThat(idGenerators.grantBlock("student", 10, 9_000L)).isEqualTo(9_001L);
+        assertThat(clusterClient.requests).containsExactly("GET " + OTHER + " /cluster/id-blocks/student");
+    }
+
+    @Test
+    void seedDoesNotLeaseWhileAMemberIsUnreachable() {
+        ClusterMembership membership = new ClusterMembership(true, SELF, new String[0], 16);
+        StubClusterClient clusterClient = new StubClusterClient(membership);
+        IdGenerators idGenerators = new IdGenerators(IdGenerators.BLOCK, -1L, 10, membership, clusterClient);
+        idGenerators.create("student", 3L);
+        membership.updateMembers(List.of(SELF, OTHER));
+
+        assertThatThrownBy(() -> idGenerators.grantBlock("student", 10, 0L)).isInstanceOf(ClusterUnavailableException.class);
+
+        clusterClient.highWaterMarks.put(OTHER, 70L);
+        assertThat(idGenerators.grantBlock("student", 10, 0L)).isEqualTo(71L);
+    }
+
+    @Test
+    void memberSendsItsHighWaterMarkWithLeaseRequest() {
+        ClusterMembership membership = new ClusterMembership(true, OTHER, new String[]{SELF}, 16);
+        StubClusterClient clusterClient = new StubClusterClient(membership);
+        clusterClient.leaseStart = 2_001L;
+        IdGenerators idGenerators = new IdGenerators(IdGenerators.BLOCK, -1L, 10, membership, clusterClient);
+        IdGenerator generator = idGenerators.create("student", 3L);
+        generator.observe(1_500L);
+
+        assertThat(generator.nextId()).isEqualTo(2_001L);
+        assertThat(clusterClient.requests).containsExactly("POST " + SELF + " /cluster/id-blocks/student?size=10&after=1500");
+        assertThat(idGenerators.highWaterMark("student")).isEqualTo(2_010L);
+    }
+
+    /**
+     * 생성기마다 네개의 스레드로 동시에 아이디를 생성하고, 겹치지 않는 아이디 집합을 반환한다.
+     */
+    private static Set<Long> generateConcurrently(List<? extends IdGenerator> generators, int idsPerThread) throws Exception {
+        int threadsPerGenerator = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(generators.size() * threadsPerGenerator);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (IdGenerator generator : generators) {
+                for (int t = 0; t < threadsPerGenerator; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        long[] ids = new long[idsPerThread];
+                        for (int i = 0; i < idsPerThread; i++) {
+                            ids[i] = generator.nextId();
+                        }
+                        return ids;
+                    }));
+                }
+            }
+            start.countDown();
+            Set<Long> ids = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                for (long id : future.get(60, TimeUnit.SECONDS)) {
+                    assertThat(ids.add(id)).as("duplicate id %d", id).isTrue();
+                }
+            }
+            return ids;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private final AtomicLong millis;
+
+        private MutableClock(long millis) {
+            this.millis = new AtomicLong(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis.get();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+    }
+
+    /**
+     * 구성원의 최고 수위와 seed 의 블록 임대에 응답하는 ClusterClient, 최고 수위가 없는 구성원은 응답하지 않는다.
+     */
+    private static class StubClusterClient extends ClusterClient {
+        private final Map<String, Long> highWaterMarks = new ConcurrentHashMap<>();
+        private final List<String> requests = new ArrayList<>();
+        private long leaseStart;
+
+        private StubClusterClient(ClusterMembership membership) {
+            super(membership, new ObjectMapper(), 1000L);
+        }
+
+        @Override
+        public <T> T get(String node, String path, Class<T> type) {
+            Long highWaterMark = highWaterMarks.get(node);
+            if (highWaterMark == null) {
+                throw new ClusterUnavailableException(node, "unreachable");
+            }
+            requests.add("GET " + node + " " + path);
+            return type.cast(highWaterMark);
+        }
+
+        @Override
+        public <T> T post(String node, String path, Object body, Class<T> type) {
+            requests.add("POST " + node + " " + path);
+            return type.cast(leaseStart);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.query;
+
+import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.EntityStore;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.engine.InMemoryStorageEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * QueryEngine 의 실행 계획 선택과 쓰기 후의 인덱스 일관성을 검사한다.
+ */
+class QueryEngineTest {
+
+    private static final QueryField<Student, String> MAJOR = new QueryField<>("major", Student::getMajor);
+    private static final QueryField<Student, String> NAME = new QueryField<>("name", Student::getName);
+    private static final QueryField<Student, Integer> AGE = new QueryField<>("age", Student::getAge);
+    private static final List<String> MAJORS = List.of("Math", "Physics", "Biology", "History");
+
+    private VersionedStorage storage;
+    private EntityStore<Student> students;
+    private QueryEngine<Student> queryEngine;
+
+    @BeforeEach
+    void setUp() {
+        storage = new VersionedStorage(3_600_000L, 3_600_000L, 86_400_000L, new InMemoryStorageEngine(), null);
+        students = storage.createStore("student", Student.class);
+        queryEngine = new QueryEngine<>("student", students);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    void equalsOnIndexedFieldUsesIndexLookup() {
+        saveStudents(100);
+        queryEngine.createIndex(MAJOR);
+
+        QueryPlan<Student> plan = queryEngine.plan(MAJOR.eq("Math"));
+
+        assertThat(plan.getAccess()).isEqualTo(QueryPlan.Access.INDEX_LOOKUP);
+        assertThat(plan.getEstimatedRows()).isEqualTo(25);
+        assertThat(plan.explain()).startsWith("IndexLookup on student.major = 'Math' (estimated rows=25)");
+        assertThat(queryEngine.execute(MAJOR.eq("Math"))).hasSize(25).allMatch(student -> student.getMajor().equals("Math"));
+    }
+
+    @Test
+    void equalsOnFieldWithoutIndexScans() {
+        saveStudents(100);
+        queryEngine.createIndex(MAJOR);
+
+        QueryPlan<Student> plan = queryEngine.plan(AGE.eq(20));
+
+        assertThat(plan.getAccess()).isEqualTo(QueryPlan.Access.SEQUENTIAL_SCAN);
+        assertThat(plan.getEstimatedRows()).isEqualTo(100);
+        assertThat(plan.explain()).startsWith("SequentialScan on student");
+        assertThat(queryEngine.execute(AGE.eq(20))).extracting(Student::getId).containsExactly(1L, 11L, 21L, 31L, 41L, 51L, 61L, 71L, 81L, 91L);
+    }
+
+    @Test
+    void largeStoreIsScannedInParallel() {
+        saveStudents(QueryEngine.PARALLEL_SCAN_THRESHOLD);
+
+        QueryPlan<Student> plan = queryEngine.plan(MAJOR.eq("Math"));
+
+        assertThat(plan.getAccess()).isEqualTo(QueryPlan.Access.PARALLEL_SCAN);
+        List<Student> result = queryEngine.execute(MAJOR.eq("Math"));
+        assertThat(result).hasSize(QueryEngine.PARALLEL_SCAN_THRESHOLD / MAJORS.size());
+        assertThat(result).extracting(Student::getId).isSorted();
+    }
+
+    @Test
+    void andUsesTheMostSelectiveIndexedChild() {
+        saveStudents(100);
+        queryEngine.createIndex(MAJOR);
+        queryEngine.createIndex(NAME);
+
+        QueryPredicate<Student> predicate = MAJOR.eq("Math").and(NAME.eq("Student 5")).and(AGE.eq(25));
+        QueryPlan<Student> plan = queryEngine.plan(predicate);
+
+        assertThat(plan.getAccess()).isEqualTo(QueryPlan.Access.INDEX_LOOKUP);
+        assertThat(plan.getProbes()).extracting(probe -> probe.getIndex().getName()).containsExactly("name");
+        assertThat(plan.getEstimatedRows()).isEqualTo(1);
+        assertThat(plan.explain()).endsWith("-> Filter: ((major = 'Math' AND name = 'Student 5') AND age = '25')");
+        assertThat(queryEngine.execute(predicate)).isEmpty();
+        assertThat(queryEngine.execute(MAJOR.eq("Math").and(NAME.eq("Student 5")))).extracting(Student::getId).containsExactly(5L);
+    }
+
+    @Test
+    void andWithoutIndexedChildScans() {
+        saveStudents(100);
+        queryEngine.createIndex(MAJOR);
+
+        assertThat(queryEngine.plan(AGE.eq(20).and(NAME.eq("Student 1"))).getAccess()).isEqualTo(QueryPlan.Access.SEQUENTIAL_SCAN);
+    }
+
+    @Test
+    void orOfIndexedChildrenUsesIndexUnion() {
+        saveStudents(100);
+        queryEngine.createIndex(MAJOR);
+        queryEngine.createIndex(NAME);
+
+        QueryPredicate<Student> predicate = MAJOR.eq("Math").or(NAME.eq("Student 5")).or(NAME.eq("Student 4"));
+        QueryPlan<Student> plan = queryEngine.plan(predicate);
+
+        assertThat(plan.getAccess()).isEqualTo(QueryPlan.Access.INDEX_UNION);
+        assertThat(plan.getProbes()).hasSize(3);
+        assertThat(plan.explain()).startsWith("IndexUnion on student.major = 'Math', student.name = 'Student 5', student.name = 'Student 4'");
+        List<Student> result = queryEngine.execute(predicate);
+        // Student 5 는 Math 이므로 한번만 포함된다.
+        assertThat(result).hasSize(26);
+        assertThat(result).extracting(Student::getId).doesNotHaveDuplicates().isSorted().contains(4L, 5L);
+    }
+
+    @Test
+    void orWithChildWithoutIndexScans() {
+        saveStudents(100);
+        queryEngine.createIndex(MAJOR);
+
+        QueryPredicate<Student> predicate = MAJOR.eq("Math").or(AGE.eq(20));
+        assertThat(queryEngine.plan(predicate).getAccess()).isEqualTo(QueryPlan.Access.SEQUENTIAL_SCAN);
+        assertThat(queryEngine.execute(predicate)).hasSize(30);
+    }
+
+    @Test
+    void indexFollowsUpdatesAndDeletes() {
+        saveStudents(8);
+        queryEngine.createIndex(MAJOR);
+
+        Student student = students.get(1L);
+        students.compareAndSet(student, student.toBuilder().major("Chemistry").build());
+        queryEngine.reindex(1L);
+        students.remove(2L);
+        queryEngine.reindex(2L);
+        students.put(Student.builder().id(9L).name("Student 9").age(29).major("Chemistry").build());
+        queryEngine.reindex(9L);
+
+        assertThat(queryEngine.execute(MAJOR.eq("Math"))).extracting(Student::getId).containsExactly(5L);
+        assertThat(queryEngine.execute(MAJOR.eq("Physics"))).extracting(Student::getId).containsExactly(6L);
+        assertThat(queryEngine.execute(MAJOR.eq("Chemistry"))).extracting(Student::getId).containsExactly(1L, 9L);
+        assertThat(queryEngine.plan(MAJOR.eq("Physics")).getEstimatedRows()).isEqualTo(1);
+    }
+
+    @Test
+    void reindexCalledOutOfCommitOrderKeepsTheLatestValue() {
+        saveStudents(1);
+        queryEngine.createIndex(MAJOR);
+
+        // 두 요청이 차례로 커밋했지만, 먼저 커밋한 요청의 reindex 가 나중에 호출된 경우
+        Student first = students.get(1L);
+        Student second = first.toBuilder().major("Chemistry").build();
+        students.compareAndSet(first, second);
+        students.compareAndSet(second, second.toBuilder().major("Music").build());
+        queryEngine.reindex(1L);
+        queryEngine.reindex(1L);
+
+        assertThat(queryEngine.plan(MAJOR.eq("Chemistry")).getEstimatedRows()).isZero();
+        assertThat(queryEngine.plan(MAJOR.eq("Math")).getEstimatedRows()).isZero();
+        assertThat(queryEngine.execute(MAJOR.eq("Music"))).extracting(Student::getId).containsExactly(1L);
+    }
+
+    @Test
+    void concurrentUpdatesLeaveNoStaleIndexEntries() throws Exception {
+        saveStudents(16);
+        queryEngine.createIndex(MAJOR);
+        int threads = 4;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                futures.add(executor.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    start.await();
+                    for (int i = 0; i < 5_000; i++) {
+                        long id = random.nextLong(1, 17);
+                        String major = MAJORS.get(random.nextInt(MAJORS.size()));
+                        Student current = students.get(id);
+                        if (students.compareAndSet(current, current.toBuilder().major(major).build())) {
+                            queryEngine.reindex(id);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertIndexMatchesScan();
+    }
+
+    @Test
+    void indexCreatedWhileWritingMatchesScan() throws Exception {
+        saveStudents(2_000);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                SplittableRandom random = new SplittableRandom(3);
+                for (int i = 0; i < 20_000; i++) {
+                    long id = random.nextLong(1, 2_001);
+                    if (random.nextInt(10) == 0) {
+                        students.remove(id);
+                    } else {
+                        Student current = students.get(id);
+                        Student updated = current == null
+                                ? Student.builder().id(id).name("Student " + id).age(20).major("Math").build()
+                                : current.toBuilder().major(MAJORS.get(random.nextInt(MAJORS.size()))).build();
+                        if (current == null) {
+                            students.put(updated);
+                        } else if (!students.compareAndSet(current, updated)) {
+                            continue;
+                        }
+                    }
+                    queryEngine.reindex(id);
+                }
+            });
+            queryEngine.createIndex(MAJOR);
+            writer.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertIndexMatchesScan();
+    }
+
+    /**
+     * 모든 전공에 대해 인덱스 조회 결과가 전체 스캔 결과와 같은지 확인한다.
+     */
+    private void assertIndexMatchesScan() {
+        for (String major : MAJORS) {
+            assertThat(queryEngine.plan(MAJOR.eq(major)).getAccess()).isEqualTo(QueryPlan.Access.INDEX_LOOKUP);
+            List<Long> expected = students.stream()
+                    .filter(student -> major.equals(student.getMajor()))
+                    .map(Student::getId)
+                    .sorted()
+                    .collect(Collectors.toList());
+            assertThat(queryEngine.execute(MAJOR.eq(major))).extracting(Student::getId).isEqualTo(expected);
+            assertThat(queryEngine.plan(MAJOR.eq(major)).getEstimatedRows()).as(major).isEqualTo(expected.size());
+        }
+    }
+
+    /**
+     * 아이디 1 부터 count 명의 학생을 저장한다. 전공은 아이디 순으로 돌아가며, 나이는 20 부터 29 까지 반복한다.
+     */
+    private void saveStudents(int count) {
+        for (long id = 1; id <= count; id++) {
+            students.put(Student.builder().id(id).name("Student " + id).age(20 + (int) ((id - 1) % 10))
+                    .major(MAJORS.get((int) ((id - 1) % MAJORS.size()))).build());
+        }
+    }
+}
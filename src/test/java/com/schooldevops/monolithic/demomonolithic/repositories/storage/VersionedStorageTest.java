@@ -0,0 +1,411 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage;
+
+import com.schooldevops.monolithic.demomonolithic.domains.Professor;
+import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.engine.InMemoryStorageEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * VersionedStorage 와 EntityStore 의 MVCC 동작을 검사한다.
+ * 가비지 컬렉션은 테스트가 직접 호출하도록 주기를 길게 잡는다.
+ */
+class VersionedStorageTest {
+
+    private VersionedStorage storage;
+    private EntityStore<Student> students;
+    private EntityStore<Professor> professors;
+
+    @BeforeEach
+    void setUp() {
+        storage = new VersionedStorage(3_600_000L, 3_600_000L, 86_400_000L, new InMemoryStorageEngine(), null);
+        students = storage.createStore("student", Student.class);
+        professors = storage.createStore("professor", Professor.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    void snapshotDoesNotSeeLaterWritesInAnyStore() {
+        Student student = students.put(student(1L, 20));
+        Professor professor = professors.put(professor(1L, "Kido"));
+
+        try (ReadSnapshot snapshot = storage.openSnapshot()) {
+            students.compareAndSet(student, student.toBuilder().age(21).build());
+            professors.put(professor(2L, "Mando"));
+            professors.remove(professor.getId());
+            students.put(student(2L, 30));
+
+            assertThat(students.get(1L, snapshot).getAge()).isEqualTo(20);
+            assertThat(students.get(2L, snapshot)).isNull();
+            assertThat(professors.get(1L, snapshot).getName()).isEqualTo("Kido");
+            assertThat(professors.get(2L, snapshot)).isNull();
+            assertThat(students.stream(snapshot).map(Student::getId)).containsExactly(1L);
+            assertThat(professors.stream(snapshot).map(Professor::getId)).containsExactly(1L);
+
+            assertThat(students.get(1L).getAge()).isEqualTo(21);
+            assertThat(professors.get(1L)).isNull();
+            assertThat(professors.get(2L).getName()).isEqualTo("Mando");
+        }
+    }
+
+    @Test
+    void compareAndSetFailsForStaleSnapshot() {
+        Student first = students.put(student(1L, 20));
+        Student second = first.toBuilder().age(21).build();
+
+        assertThat(students.compareAndSet(first, second)).isTrue();
+        assertThat(students.compareAndSet(first, first.toBuilder().age(22).build())).isFalse();
+        assertThat(students.get(1L)).isSameAs(second);
+        assertThat(second.getVersion()).isEqualTo(first.getVersion() + 1);
+    }
+
+    @Test
+    void compareAndSetFailsForEqualButDifferentInstance() {
+        Student stored = students.put(student(1L, 20));
+        Student copy = stored.toBuilder().build();
+
+        assertThat(students.compareAndSet(copy, stored.toBuilder().age(21).build())).isFalse();
+        assertThat(students.get(1L)).isSameAs(stored);
+    }
+
+    @Test
+    void concurrentCompareAndSetLosesNoUpdate() throws Exception {
+        students.put(student(1L, 0));
+        int threads = 8;
+        int increments = 2_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < increments; i++) {
+                        while (true) {
+                            Student current = students.get(1L);
+                            if (students.compareAndSet(current, current.toBuilder().age(current.getAge() + 1).build())) {
+                                break;
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Student result = students.get(1L);
+        assertThat(result.getAge()).isEqualTo(threads * increments);
+        assertThat(result.getVersion()).isEqualTo(1L + threads * increments);
+    }
+
+    @Test
+    void writeBatchAppliesAllWritesAtOneSequence() {
+        Student student = students.put(student(1L, 20));
+        Professor professor = professors.put(professor(1L, "Kido"));
+        long before = storage.currentSequence();
+
+        try (ReadSnapshot snapshot = storage.openSnapshot()) {
+            WriteBatch batch = storage.newWriteBatch()
+                    .compareAndSet(students, student, student.toBuilder().age(21).build())
+                    .update(professors, professor.getId(), current -> current.toBuilder().name("Kido Lee").build());
+            assertThat(batch.commit()).isTrue();
+
+            assertThat(storage.currentSequence()).isEqualTo(before + 1);
+            assertThat(students.get(1L).getAge()).isEqualTo(21);
+            assertThat(professors.get(1L).getName()).isEqualTo("Kido Lee");
+            assertThat(students.get(1L, snapshot).getAge()).isEqualTo(20);
+            assertThat(professors.get(1L, snapshot).getName()).isEqualTo("Kido");
+        }
+    }
+
+    @Test
+    void failedWriteBatchAppliesNothing() {
+        Student student = students.put(student(1L, 20));
+        Professor professor = professors.put(professor(1L, "Kido"));
+        students.compareAndSet(student, student.toBuilder().age(30).build());
+        long before = storage.currentSequence();
+
+        WriteBatch batch = storage.newWriteBatch()
+                .update(professors, professor.getId(), current -> current.toBuilder().name("Kido Lee").build())
+                .remove(professors, 2L)
+                .compareAndSet(students, student, student.toBuilder().age(21).build());
+        assertThat(batch.commit()).isFalse();
+
+        assertThat(storage.currentSequence()).isEqualTo(before);
+        assertThat(professors.get(1L)).isSameAs(professor);
+        assertThat(students.get(1L).getAge()).isEqualTo(30);
+
+        // 되돌린 버전이 남아있다면 다음 쓰기가 기다리다 멈춘다.
+        assertThat(professors.compareAndSet(professor, professor.toBuilder().name("Again").build())).isTrue();
+        assertThatThrownBy(batch::commit).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void writeBatchRemovesTogetherWithReplace() {
+        Student student = students.put(student(1L, 20));
+        Professor professor = professors.put(professor(1L, "Kido"));
+        List<StoreChange> changes = Collections.synchronizedList(new ArrayList<>());
+        storage.addChangeListener(changes::add);
+        long before = storage.currentSequence();
+
+        try (ReadSnapshot snapshot = storage.openSnapshot()) {
+            assertThat(storage.newWriteBatch()
+                    .compareAndSet(students, student, student.toBuilder().age(21).build())
+                    .remove(professors, professor.getId())
+                    .commit()).isTrue();
+
+            assertThat(professors.get(1L)).isNull();
+            assertThat(professors.get(1L, snapshot)).isSameAs(professor);
+            assertThat(professors.changesSince(before).getDeleted()).containsExactly(1L);
+        }
+
+        storage.awaitDelivered(storage.currentSequence());
+        assertThat(changes).hasSize(2);
+        assertThat(changes.stream().map(StoreChange::getSequence).distinct()).hasSize(1);
+        assertThat(changes.stream().filter(StoreChange::isDelete).map(StoreChange::getId)).containsExactly(1L);
+    }
+
+    @Test
+    void failedWriteBatchKeepsEntityItWouldRemove() {
+        Student student = students.put(student(1L, 20));
+        Professor professor = professors.put(professor(1L, "Kido"));
+        students.compareAndSet(student, student.toBuilder().age(30).build());
+
+        assertThat(storage.newWriteBatch()
+                .remove(professors, professor.getId())
+                .compareAndSet(students, student, student.toBuilder().age(21).build())
+                .commit()).isFalse();
+
+        assertThat(professors.get(1L)).isSameAs(professor);
+        assertThat(professors.remove(1L)).isSameAs(professor);
+        assertThat(professors.get(1L)).isNull();
+    }
+
+    @Test
+    void writeBatchCreatesEntityTogetherWithReplace() {
+        Student student = students.put(student(1L, 20));
+        Professor created = professor(7L, "Kido");
+
+        try (ReadSnapshot snapshot = storage.openSnapshot()) {
+            assertThat(storage.newWriteBatch()
+                    .put(professors, created)
+                    .compareAndSet(students, student, student.toBuilder().age(21).build())
+                    .commit()).isTrue();
+
+            assertThat(professors.get(7L)).isSameAs(created);
+            assertThat(created.getVersion()).isEqualTo(1L);
+            assertThat(professors.get(7L, snapshot)).isNull();
+            assertThat(students.get(1L).getAge()).isEqualTo(21);
+        }
+
+        Professor replaced = professor(7L, "Kido Lee");
+        assertThat(storage.newWriteBatch().put(professors, replaced).commit()).isTrue();
+        assertThat(professors.get(7L)).isSameAs(replaced);
+        assertThat(replaced.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void failedWriteBatchDoesNotCreateEntity() {
+        Student student = students.put(student(1L, 20));
+        students.compareAndSet(student, student.toBuilder().age(30).build());
+        long before = storage.currentSequence();
+
+        assertThat(storage.newWriteBatch()
+                .put(professors, professor(7L, "Kido"))
+                .compareAndSet(students, student, student.toBuilder().age(21).build())
+                .commit()).isFalse();
+
+        assertThat(storage.currentSequence()).isEqualTo(before);
+        assertThat(professors.get(7L)).isNull();
+        assertThat(professors.changesSince(0).getChanged()).isEmpty();
+
+        // 되돌린 버전이 남아있다면 다음 쓰기가 기다리다 멈춘다.
+        Professor created = professors.put(professor(7L, "Mando"));
+        assertThat(created.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void writeBatchRecreatesRetiredId() {
+        students.put(student(1L, 20));
+        students.remove(1L);
+        storage.collectGarbage();
+        assertThat(students.size()).isZero();
+
+        Student recreated = student(1L, 40);
+        assertThat(storage.newWriteBatch().put(students, recreated).commit()).isTrue();
+        assertThat(students.get(1L)).isSameAs(recreated);
+        assertThat(students.size()).isEqualTo(1);
+    }
+
+    @Test
+    void writeBatchRestoresVersionsTogetherWithRemove() {
+        students.put(student(1L, 20));
+        students.put(student(2L, 30));
+        long before = storage.currentSequence();
+
+        Student restored = student(3L, 40);
+        restored.setVersion(5L);
+        Student stale = student(1L, 21);
+        stale.setVersion(1L);
+        assertThat(storage.newWriteBatch()
+                .restore(students, restored)
+                .restore(students, stale)
+                .remove(students, 2L)
+                .commit()).isTrue();
+
+        assertThat(storage.currentSequence()).isEqualTo(before + 1);
+        assertThat(students.get(3L).getVersion()).isEqualTo(5L);
+        // 로컬 버전보다 작은 버전은 버전이 줄어들지 않도록 로컬 버전 다음으로 저장한다.
+        assertThat(students.get(1L).getAge()).isEqualTo(21);
+        assertThat(students.get(1L).getVersion()).isEqualTo(2L);
+        assertThat(students.get(2L)).isNull();
+        assertThat(students.changesSince(before).getChanged()).extracting(Student::getId).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(students.changesSince(before).getDeleted()).containsExactly(2L);
+    }
+
+    @Test
+    void readersNeverSeeHalfOfAWriteBatch() throws Exception {
+        students.put(student(1L, 0));
+        professors.put(professor(1L, "0"));
+        int batches = 5_000;
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    int reads = 0;
+                    while (running.get()) {
+                        try (ReadSnapshot snapshot = storage.openSnapshot()) {
+                            int age = students.get(1L, snapshot).getAge();
+                            String name = professors.get(1L, snapshot).getName();
+                            assertThat(name).isEqualTo(String.valueOf(age));
+                        }
+                        reads++;
+                    }
+                    return reads;
+                }));
+            }
+
+            for (int i = 1; i <= batches; i++) {
+                String name = String.valueOf(i);
+                int age = i;
+                assertThat(storage.newWriteBatch()
+                        .update(students, 1L, current -> current.toBuilder().age(age).build())
+                        .update(professors, 1L, current -> current.toBuilder().name(name).build())
+                        .commit()).isTrue();
+            }
+            running.set(false);
+            for (Future<Integer> reader : readers) {
+                assertThat(reader.get(30, TimeUnit.SECONDS)).isPositive();
+            }
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void garbageCollectionKeepsVersionsOfOpenSnapshots() {
+        Student first = students.put(student(1L, 20));
+        ReadSnapshot snapshot = storage.openSnapshot();
+        Student second = first.toBuilder().age(21).build();
+        students.compareAndSet(first, second);
+        students.compareAndSet(second, second.toBuilder().age(22).build());
+
+        storage.collectGarbage();
+        assertThat(students.get(1L, snapshot)).isSameAs(first);
+        assertThat(students.get(1L).getAge()).isEqualTo(22);
+
+        snapshot.close();
+        assertThat(students.collect(storage.currentSequence())).isEqualTo(2L);
+        assertThat(students.collect(storage.currentSequence())).isZero();
+        assertThat(students.get(1L).getAge()).isEqualTo(22);
+    }
+
+    @Test
+    void garbageCollectionRetiresDeletedIdsOnlyAfterSnapshotsClose() {
+        Student student = students.put(student(1L, 20));
+        ReadSnapshot snapshot = storage.openSnapshot();
+        students.remove(1L);
+
+        storage.collectGarbage();
+        assertThat(students.size()).isEqualTo(1);
+        assertThat(students.get(1L, snapshot)).isSameAs(student);
+        assertThat(students.get(1L)).isNull();
+
+        snapshot.close();
+        storage.collectGarbage();
+        assertThat(students.size()).isZero();
+
+        Student recreated = students.put(student(1L, 40));
+        assertThat(students.get(1L)).isSameAs(recreated);
+        assertThat(recreated.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void snapshotOpenedAfterCollectionStartsAtCollectedHorizon() {
+        students.put(student(1L, 20));
+        storage.collectGarbage();
+        long horizon = storage.currentSequence();
+
+        try (ReadSnapshot snapshot = storage.openSnapshot()) {
+            assertThat(snapshot.getSequence()).isGreaterThanOrEqualTo(horizon);
+            assertThat(students.get(1L, snapshot).getAge()).isEqualTo(20);
+        }
+    }
+
+    @Test
+    void listenersReceiveChangesAfterPublishInCommitOrder() {
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        List<Boolean> visibleWhenDelivered = Collections.synchronizedList(new ArrayList<>());
+        storage.addChangeListener(change -> {
+            sequences.add(change.getSequence());
+            visibleWhenDelivered.add(storage.currentSequence() >= change.getSequence());
+        });
+
+        for (long id = 1; id <= 200; id++) {
+            students.put(student(id, 20));
+        }
+        storage.awaitDelivered(storage.currentSequence());
+
+        assertThat(sequences).hasSize(200).isSorted();
+        assertThat(visibleWhenDelivered).containsOnly(true);
+        assertThat(sequences.stream().distinct().collect(Collectors.toList())).hasSize(200);
+    }
+
+    private static Student student(Long id, int age) {
+        return Student.builder().id(id).name("Student " + id).age(age).major("Computer Science").build();
+    }
+
+    private static Professor professor(Long id, String name) {
+        return Professor.builder().id(id).name(name).major("Computer Science").build();
+    }
+}
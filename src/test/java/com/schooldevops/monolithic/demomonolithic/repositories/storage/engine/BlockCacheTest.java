@@ -0,0 +1,93 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 블록 캐시의 크기 제한, LRU 순서의 제거와 세그먼트 무효화를 검사한다.
+ */
+class BlockCacheTest {
+
+    private static final int SHARDS = 16;
+    private static final int BLOCK_BYTES = 50;
+
+    @Test
+    void cachedBytesStayWithinCapacity() {
+        BlockCache cache = new BlockCache(SHARDS * 2L * BLOCK_BYTES);
+        for (long block = 0; block < 1_000; block++) {
+            cache.put(1, block, new byte[BLOCK_BYTES]);
+        }
+
+        assertThat((long) cache.getStatus().get("bytes")).isLessThanOrEqualTo(SHARDS * 2L * BLOCK_BYTES);
+        assertThat((int) cache.getStatus().get("blocks")).isLessThanOrEqualTo(SHARDS * 2);
+    }
+
+    @Test
+    void leastRecentlyReadBlockIsEvictedFirst() {
+        // 샤드마다 블록 두개가 들어가는 캐시에서 같은 샤드의 블록 세개를 찾는다.
+        List<Long> sameShard = blocksInSameShard(3);
+        long first = sameShard.get(0);
+        long second = sameShard.get(1);
+        long third = sameShard.get(2);
+        BlockCache cache = new BlockCache(SHARDS * 2L * BLOCK_BYTES);
+
+        cache.put(1, first, new byte[BLOCK_BYTES]);
+        cache.put(1, second, new byte[BLOCK_BYTES]);
+        assertThat(cache.get(1, first)).isNotNull();
+        cache.put(1, third, new byte[BLOCK_BYTES]);
+
+        assertThat(cache.get(1, first)).isNotNull();
+        assertThat(cache.get(1, second)).isNull();
+        assertThat(cache.get(1, third)).isNotNull();
+        assertThat(cache.getStatus()).containsEntry("blocks", 2).containsEntry("bytes", 2L * BLOCK_BYTES);
+    }
+
+    @Test
+    void blockLargerThanShardIsNotCached() {
+        BlockCache cache = new BlockCache(SHARDS * (long) BLOCK_BYTES);
+
+        cache.put(1, 0, new byte[BLOCK_BYTES + 1]);
+
+        assertThat(cache.get(1, 0)).isNull();
+        assertThat(cache.getStatus()).containsEntry("bytes", 0L);
+    }
+
+    @Test
+    void invalidateDropsOnlyTheSegmentBlocks() {
+        BlockCache cache = new BlockCache(1 << 20);
+        for (long block = 0; block < 10; block++) {
+            cache.put(1, block, new byte[BLOCK_BYTES]);
+            cache.put(2, block, new byte[BLOCK_BYTES]);
+        }
+
+        cache.invalidate(1);
+
+        for (long block = 0; block < 10; block++) {
+            assertThat(cache.get(1, block)).isNull();
+            assertThat(cache.get(2, block)).isNotNull();
+        }
+        assertThat(cache.getStatus()).containsEntry("blocks", 10).containsEntry("bytes", 10L * BLOCK_BYTES);
+        assertThat(cache.getStatus()).containsEntry("hits", 10L).containsEntry("misses", 10L);
+    }
+
+    /**
+     * 샤드마다 블록 하나만 들어가는 캐시에 첫 블록을 넣고, 넣었을때 첫 블록을 밀어내는 블록을 같은 샤드의 블록으로 찾는다.
+     */
+    private static List<Long> blocksInSameShard(int count) {
+        List<Long> blocks = new ArrayList<>();
+        blocks.add(0L);
+        for (long candidate = 1; blocks.size() < count; candidate++) {
+            BlockCache probe = new BlockCache(SHARDS * (long) BLOCK_BYTES);
+            probe.put(1, 0, new byte[BLOCK_BYTES]);
+            probe.put(1, candidate, new byte[BLOCK_BYTES]);
+            if (probe.get(1, 0) == null) {
+                blocks.add(candidate);
+            }
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,155 @@
+package com.schooldevops.monolithic.demomonolithic.repositories.storage.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 로그 구조 테이블의 덮어쓰기, 컴팩션과 컴팩션 중의 동시 읽기를 검사한다.
+ */
+class LogTableTest {
+
+    private static final int KEYS = 50;
+
+    @TempDir
+    Path directory;
+
+    private LogStructuredStorageEngine engine;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Test
+    void overwriteAndRemoveReturnLatestValue() {
+        LogTable table = open(1024, 64, 1024);
+
+        table.put(1, value(1, 1));
+        table.put(1, value(1, 2));
+        table.put(2, value(2, 1));
+        table.remove(2);
+
+        assertThat(text(table.get(1))).isEqualTo(text(value(1, 2)));
+        assertThat(table.get(2)).isNull();
+        assertThat(table.get(3)).isNull();
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void compactionMovesLiveRecordsAndDeletesGarbageSegments() throws Exception {
+        LogTable table = open(512, 64, 4096);
+        for (int version = 1; version <= 4; version++) {
+            for (long id = 0; id < KEYS; id++) {
+                table.put(id, value(id, version));
+            }
+        }
+        Map<String, Object> before = table.getStatus();
+        long filesBefore = countFiles();
+
+        engine.compact();
+
+        Map<String, Object> after = table.getStatus();
+        assertThat((int) after.get("segments")).isLessThan((int) before.get("segments"));
+        assertThat((long) after.get("bytes")).isLessThan((long) before.get("bytes"));
+        assertThat(after.get("liveBytes")).isEqualTo(before.get("liveBytes"));
+        assertThat(countFiles()).isLessThan(filesBefore);
+        assertThat((long) engine.getStatus().get("compactedSegments")).isPositive();
+        for (long id = 0; id < KEYS; id++) {
+            assertThat(text(table.get(id))).isEqualTo(text(value(id, 4)));
+        }
+
+        // 컴팩션으로 옮긴 레코드도 다시 덮어쓰고 컴팩션할 수 있다.
+        for (long id = 0; id < KEYS; id++) {
+            table.put(id, value(id, 5));
+        }
+        engine.compact();
+        for (long id = 0; id < KEYS; id++) {
+            assertThat(text(table.get(id))).isEqualTo(text(value(id, 5)));
+        }
+    }
+
+    @Test
+    void readsStayConsistentWhileWritingAndCompacting() throws Exception {
+        // 블록 캐시를 작게 두어 읽기가 컴팩션으로 삭제되는 세그먼트 파일을 직접 읽도록 한다.
+        LogTable table = open(1024, 64, 256);
+        for (long id = 0; id < KEYS; id++) {
+            table.put(id, value(id, 0));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> {
+            for (int version = 1; version <= 200; version++) {
+                for (long id = 0; id < KEYS; id++) {
+                    table.put(id, value(id, version));
+                }
+            }
+            running.set(false);
+            return null;
+        }));
+        futures.add(executor.submit(() -> {
+            while (running.get()) {
+                engine.compact();
+            }
+            return null;
+        }));
+        for (int reader = 0; reader < 4; reader++) {
+            futures.add(executor.submit(() -> {
+                while (running.get()) {
+                    long id = ThreadLocalRandom.current().nextLong(KEYS);
+                    // 어느 버전이든 그 아이디의 온전한 레코드여야 한다.
+                    assertThat(text(table.get(id))).matches("id=" + id + ",version=\\d+,pad=x{24}");
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+
+        engine.compact();
+        for (long id = 0; id < KEYS; id++) {
+            assertThat(text(table.get(id))).isEqualTo(text(value(id, 200)));
+        }
+    }
+
+    private LogTable open(long segmentBytes, int blockBytes, long blockCacheBytes) {
+        engine = new LogStructuredStorageEngine(directory, segmentBytes, blockBytes, blockCacheBytes, 3_600_000, 0.5);
+        return (LogTable) engine.openTable("students");
+    }
+
+    private long countFiles() throws Exception {
+        try (Stream<Path> files = Files.list(engine.getDirectory())) {
+            return files.count();
+        }
+    }
+
+    private static byte[] value(long id, int version) {
+        return ("id=" + id + ",version=" + version + ",pad=" + "x".repeat(24)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,40 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * If-Match 헤더 파싱을 검사한다.
+ */
+class EntityTagsTest {
+
+    @Test
+    void missingOrWildcardDoesNotCheckVersion() {
+        assertThat(EntityTags.parseIfMatch(null)).isNull();
+        assertThat(EntityTags.parseIfMatch(" ")).isNull();
+        assertThat(EntityTags.parseIfMatch("*")).isNull();
+    }
+
+    @Test
+    void parsesSingleTag() {
+        assertThat(EntityTags.parseIfMatch("\"3\"")).containsExactly(3L);
+        assertThat(EntityTags.parseIfMatch("W/\"3\"")).containsExactly(3L);
+        assertThat(EntityTags.parseIfMatch("3")).containsExactly(3L);
+    }
+
+    @Test
+    void parsesTagList() {
+        assertThat(EntityTags.parseIfMatch("\"1\", \"2\"")).containsExactly(1L, 2L);
+        assertThat(EntityTags.parseIfMatch("\"1\",W/\"2\" ,  \"1\"")).containsExactly(1L, 2L);
+        assertThat(EntityTags.parseIfMatch(", \"1\",, \"2\",")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void rejectsInvalidTag() {
+        assertThatThrownBy(() -> EntityTags.parseIfMatch("\"1\", \"abc\"")).isInstanceOf(ResponseStatusException.class);
+        assertThatThrownBy(() -> EntityTags.parseIfMatch(" , ")).isInstanceOf(ResponseStatusException.class);
+    }
+}
@@ -0,0 +1,78 @@
+package com.schooldevops.monolithic.demomonolithic.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 학생 정보 수정시 If-Match 헤더로 버전을 검사하는지 확인한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class StudentControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long studentId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String body = mockMvc.perform(post("/students").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Kido\", \"age\": 20, \"major\": \"Math\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        studentId = objectMapper.readTree(body).get("id").asLong();
+    }
+
+    @Test
+    void staleIfMatchIsRejectedWithConflict() throws Exception {
+        modify("\"1\"", "Kim").andExpect(status().isOk()).andExpect(header().string("ETag", "\"2\""));
+
+        modify("\"1\"", "Lee").andExpect(status().isConflict());
+        modify("\"5\", \"1\"", "Lee").andExpect(status().isConflict());
+    }
+
+    @Test
+    void missingIfMatchUpdatesWithoutVersionCheck() throws Exception {
+        modify(null, "Kim").andExpect(status().isOk()).andExpect(header().string("ETag", "\"2\""));
+        modify(null, "Lee").andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.name").value("Lee"));
+    }
+
+    @Test
+    void ifMatchListMatchesAnyListedVersion() throws Exception {
+        modify("\"7\", \"1\"", "Kim").andExpect(status().isOk()).andExpect(header().string("ETag", "\"2\""));
+        modify("W/\"1\", \"2\"", "Lee").andExpect(status().isOk()).andExpect(jsonPath("$.name").value("Lee"));
+    }
+
+    @Test
+    void malformedIfMatchIsBadRequest() throws Exception {
+        modify("\"abc\"", "Kim").andExpect(status().isBadRequest());
+    }
+
+    private ResultActions modify(String ifMatch, String name) throws Exception {
+        var request = put("/students/{id}", studentId).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"" + name + "\"}");
+        if (ifMatch != null) {
+            request.header("If-Match", ifMatch);
+        }
+        return mockMvc.perform(request);
+    }
+}
@@ -0,0 +1,127 @@
+package com.schooldevops.monolithic.demomonolithic.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schooldevops.monolithic.demomonolithic.domains.GradeUploadResult;
+import com.schooldevops.monolithic.demomonolithic.domains.Lecture;
+import com.schooldevops.monolithic.demomonolithic.domains.Professor;
+import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.domains.Subject;
+import com.schooldevops.monolithic.demomonolithic.gpa.GradeSheetReader;
+import com.schooldevops.monolithic.demomonolithic.repositories.AttendedSubjectRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.LectureRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 성적 일괄 등록이 반영하지 못한 행을 보고하고, 모든 행이 반영된 경우에만 교과 과정을 종료하는지 검사한다.
+ */
+@SpringBootTest
+class GradeUploadServiceTest {
+
+    @Autowired
+    private GradeUploadService gradeUploadService;
+
+    @Autowired
+    private LectureService lectureService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private ProfessorService professorService;
+
+    @Autowired
+    private LectureRepository lectureRepository;
+
+    @Autowired
+    private AttendedSubjectRepository attendedSubjectRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Lecture lecture;
+    private List<Long> attendedIds;
+
+    @BeforeEach
+    void setUp() {
+        Professor professor = professorService.join(Professor.builder().name("Kido").build());
+        Subject subject = subjectService.applySubject(Subject.builder().name("Grading").professorId(professor.getId()).credit(3).build());
+        lecture = lectureService.createLecture(subject.getId(), 10);
+        attendedIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Student student = studentService.joinStudent(Student.builder().name("Grading " + i).age(20).major("Math").build());
+            attendedIds.add(lectureService.applyAttendedSubject(lecture.getId(), student.getId())
+                    .getLecture().getAttendedSubjects().stream()
+                    .filter(item -> student.getId().equals(item.getStudent().getId()))
+                    .findFirst().orElseThrow().getId());
+        }
+    }
+
+    @Test
+    void partialFailureAppliesValidRowsAndKeepsLectureOpen() throws IOException {
+        // 교과 과정에는 남아있지만 커밋 시점에는 삭제된 수강 정보이다.
+        attendedSubjectRepository.delete(attendedIds.get(2));
+
+        GradeUploadResult result = upload("attendedId,grade\n"
+                + attendedIds.get(0) + ",A+\n"
+                + attendedIds.get(1) + ",Z\n"
+                + attendedIds.get(2) + ",B0\n"
+                + "999999999,A0\n", true);
+
+        assertThat(result.getRows()).isEqualTo(4);
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(result.getErrorCount()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(GradeUploadResult.RowError::getLine).containsExactlyInAnyOrder(3L, 4L, 5L);
+        assertThat(result.getErrors()).filteredOn(error -> attendedIds.get(2).equals(error.getAttendedId()))
+                .extracting(GradeUploadResult.RowError::getMessage).containsExactly("Resource Not Found");
+        assertThat(result.isClosed()).isFalse();
+        assertThat(lectureRepository.findById(lecture.getId()).getState()).isNotEqualTo(LectureService.DONE);
+        assertThat(attendedSubjectRepository.findById(attendedIds.get(0)).getGrade()).isEqualTo("A+");
+        assertThat(attendedSubjectRepository.findById(attendedIds.get(1)).getGrade()).isNotEqualTo("Z");
+    }
+
+    @Test
+    void lectureIsClosedOnlyWhenEveryRowIsApplied() throws IOException {
+        GradeUploadResult result = upload(attendedIds.get(0) + ",A+\n"
+                + "\"" + attendedIds.get(1) + "\",\"B0\"\n"
+                + attendedIds.get(2) + ",C+\n", true);
+
+        assertThat(result.getErrorCount()).isZero();
+        assertThat(result.getApplied()).isEqualTo(3);
+        assertThat(result.isClosed()).isTrue();
+        assertThat(result.getState()).isEqualTo(LectureService.DONE);
+        assertThat(lectureRepository.findById(lecture.getId()).getState()).isEqualTo(LectureService.DONE);
+        assertThat(attendedIds).extracting(id -> attendedSubjectRepository.findById(id).getState()).containsOnly(LectureService.DONE);
+        assertThat(attendedIds).extracting(id -> attendedSubjectRepository.findById(id).getGrade()).containsExactly("A+", "B0", "C+");
+    }
+
+    @Test
+    void uploadWithoutCloseLeavesLectureOpen() throws IOException {
+        GradeUploadResult result = upload(attendedIds.get(0) + ",A+\n", false);
+
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(result.isClosed()).isFalse();
+        assertThat(lectureRepository.findById(lecture.getId()).getState()).isNotEqualTo(LectureService.DONE);
+    }
+
+    private GradeUploadResult upload(String csv, boolean close) throws IOException {
+        try (GradeSheetReader sheet = new GradeSheetReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                MediaType.parseMediaType(GradeSheetReader.TEXT_CSV_VALUE), objectMapper)) {
+            return gradeUploadService.uploadGrades(lecture.getId(), sheet, close);
+        }
+    }
+}
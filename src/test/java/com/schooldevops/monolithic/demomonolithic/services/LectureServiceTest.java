@@ -0,0 +1,205 @@
+package com.schooldevops.monolithic.demomonolithic.services;
+
+import com.schooldevops.monolithic.demomonolithic.domains.AttendedSubject;
+import com.schooldevops.monolithic.demomonolithic.domains.EnrollmentResult;
+import com.schooldevops.monolithic.demomonolithic.domains.Lecture;
+import com.schooldevops.monolithic.demomonolithic.domains.Professor;
+import com.schooldevops.monolithic.demomonolithic.domains.Student;
+import com.schooldevops.monolithic.demomonolithic.domains.Subject;
+import com.schooldevops.monolithic.demomonolithic.domains.WaitlistEntry;
+import com.schooldevops.monolithic.demomonolithic.exceptions.DuplicateEnrollmentException;
+import com.schooldevops.monolithic.demomonolithic.exceptions.LectureClosedException;
+import com.schooldevops.monolithic.demomonolithic.repositories.AttendedSubjectRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.LectureRepository;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.StoreChange;
+import com.schooldevops.monolithic.demomonolithic.repositories.storage.VersionedStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 수강 신청과 성적 부여를 검사한다.
+ */
+@SpringBootTest
+class LectureServiceTest {
+
+    @Autowired
+    private LectureService lectureService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private ProfessorService professorService;
+
+    @Autowired
+    private LectureRepository lectureRepository;
+
+    @Autowired
+    private AttendedSubjectRepository attendedSubjectRepository;
+
+    @Autowired
+    private VersionedStorage versionedStorage;
+
+    private Subject subject;
+
+    @BeforeEach
+    void setUp() {
+        Professor professor = professorService.join(Professor.builder().name("Kido").build());
+        subject = subjectService.applySubject(Subject.builder().name("Algorithms").professorId(professor.getId()).credit(3).build());
+    }
+
+    @Test
+    void enrollCommitsAttendedSubjectAndLectureTogether() {
+        List<StoreChange> changes = new CopyOnWriteArrayList<>();
+        versionedStorage.addChangeListener(change -> {
+            if (LectureRepository.ENTITY_NAME.equals(change.getEntityType())
+                    || AttendedSubjectRepository.ENTITY_NAME.equals(change.getEntityType())) {
+                changes.add(change);
+            }
+        });
+        Lecture lecture = lectureService.createLecture(subject.getId(), 10);
+        Student student = newStudent("Kim");
+
+        Lecture enrolled = lectureService.applyAttendedSubject(lecture.getId(), student.getId()).getLecture();
+        versionedStorage.awaitDelivered(versionedStorage.currentSequence());
+
+        AttendedSubject attendedSubject = enrolled.getAttendedSubjects().get(0);
+        StoreChange lectureChange = changeOf(changes, LectureRepository.ENTITY_NAME, lecture.getId());
+        StoreChange attendedChange = changeOf(changes, AttendedSubjectRepository.ENTITY_NAME, attendedSubject.getId());
+        assertThat(attendedChange.getPrevious()).isNull();
+        assertThat(attendedChange.getSequence()).isEqualTo(lectureChange.getSequence());
+        assertThat(attendedSubjectRepository.findById(attendedSubject.getId()).getStudent().getId()).isEqualTo(student.getId());
+    }
+
+    @Test
+    void concurrentEnrollmentsLeaveNoOrphanAttendedSubjects() throws Exception {
+        Lecture lecture = lectureService.createLecture(subject.getId(), 100);
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            students.add(newStudent("Student " + i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Student student : students) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return lectureService.applyAttendedSubject(lecture.getId(), student.getId());
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Long> attendedIds = lectureRepository.findById(lecture.getId()).getAttendedSubjects().stream()
+                .map(AttendedSubject::getId).collect(Collectors.toList());
+        List<Long> storedIds = attendedSubjectRepository.findAll().stream()
+                .filter(item -> subject.getId().equals(item.getSubjectId()))
+                .map(AttendedSubject::getId).collect(Collectors.toList());
+        assertThat(attendedIds).hasSize(students.size()).doesNotHaveDuplicates();
+        assertThat(storedIds).containsExactlyInAnyOrderElementsOf(attendedIds);
+    }
+
+    @Test
+    void gradeChecksTheAttendedSubjectBelongsToTheLecture() {
+        Lecture lecture = lectureService.createLecture(subject.getId(), 10);
+        Lecture other = lectureService.createLecture(subject.getId(), 10);
+        Long attendedId = lectureService.applyAttendedSubject(lecture.getId(), newStudent("Kim").getId())
+                .getLecture().getAttendedSubjects().get(0).getId();
+
+        assertThatThrownBy(() -> lectureService.gradeAttendedSubject(other.getId(), attendedId, "A+"))
+                .hasMessage("Resource Not Found");
+
+        AttendedSubject graded = lectureService.gradeAttendedSubject(lecture.getId(), attendedId, "A+");
+        assertThat(graded.getGrade()).isEqualTo("A+");
+        assertThat(graded.getState()).isEqualTo(LectureService.DONE);
+
+        lectureService.removeAttendedSubject(lecture.getId(), attendedId);
+        assertThatThrownBy(() -> lectureService.gradeAttendedSubject(lecture.getId(), attendedId, "B0"))
+                .hasMessage("Resource Not Found");
+    }
+
+    @Test
+    void waitlistedStudentsArePromotedInOrder() {
+        Lecture lecture = lectureService.createLecture(subject.getId(), 1);
+        Student first = newStudent("First");
+        Student second = newStudent("Second");
+        Student third = newStudent("Third");
+
+        EnrollmentResult enrolled = lectureService.applyAttendedSubject(lecture.getId(), first.getId());
+        assertThat(enrolled.isWaitlisted()).isFalse();
+        assertThat(lectureService.applyAttendedSubject(lecture.getId(), second.getId()).getWaitlistEntry().getPosition()).isEqualTo(1);
+        assertThat(lectureService.applyAttendedSubject(lecture.getId(), third.getId()).getWaitlistEntry().getPosition()).isEqualTo(2);
+
+        // 이미 수강중인 학생은 다시 신청할 수 없고, 대기중인 학생이 다시 신청하면 기존 순번을 유지한다.
+        assertThatThrownBy(() -> lectureService.applyAttendedSubject(lecture.getId(), first.getId()))
+                .isInstanceOf(DuplicateEnrollmentException.class);
+        assertThat(lectureService.applyAttendedSubject(lecture.getId(), second.getId()).getWaitlistEntry().getPosition()).isEqualTo(1);
+
+        Long firstAttendedId = enrolled.getLecture().getAttendedSubjects().get(0).getId();
+        assertThat(lectureService.removeAttendedSubject(lecture.getId(), firstAttendedId)).isTrue();
+
+        assertThat(studentIdsOf(lectureRepository.findById(lecture.getId()))).containsExactly(second.getId());
+        assertThat(lectureService.findWaitlist(lecture.getId())).extracting(WaitlistEntry::getStudentId).containsExactly(third.getId());
+        assertThat(lectureService.findWaitlist(lecture.getId())).extracting(WaitlistEntry::getPosition).containsExactly(1);
+    }
+
+    @Test
+    void closedLectureRejectsUnenrollment() {
+        Lecture lecture = lectureService.createLecture(subject.getId(), 1);
+        Student student = newStudent("Kim");
+        Long attendedId = lectureService.applyAttendedSubject(lecture.getId(), student.getId())
+                .getLecture().getAttendedSubjects().get(0).getId();
+        Student waiting = newStudent("Lee");
+        lectureService.applyAttendedSubject(lecture.getId(), waiting.getId());
+
+        lectureService.closeLecture(lecture.getId());
+
+        assertThatThrownBy(() -> lectureService.removeAttendedSubject(lecture.getId(), attendedId))
+                .isInstanceOf(LectureClosedException.class);
+        assertThat(studentIdsOf(lectureRepository.findById(lecture.getId()))).containsExactly(student.getId());
+        assertThat(attendedSubjectRepository.findById(attendedId)).isNotNull();
+        assertThat(lectureService.findWaitlist(lecture.getId())).isEmpty();
+        // 수강 인덱스에도 그대로 남아 성적을 부여할 수 있다.
+        assertThat(lectureService.gradeAttendedSubject(lecture.getId(), attendedId, "A0").getGrade()).isEqualTo("A0");
+    }
+
+    private static List<Long> studentIdsOf(Lecture lecture) {
+        return lecture.getAttendedSubjects().stream().map(item -> item.getStudent().getId()).collect(Collectors.toList());
+    }
+
+    private Student newStudent(String name) {
+        return studentService.joinStudent(Student.builder().name(name).age(20).major("Computer Science").build());
+    }
+
+    private static StoreChange changeOf(List<StoreChange> changes, String entityType, Long id) {
+        return changes.stream()
+                .filter(change -> entityType.equals(change.getEntityType()) && id.equals(change.getId()))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+    }
+}